@@ -47,6 +47,72 @@ INSERT INTO `exchange_offers` (`offer_id`, `vehicle_id`, `exchange_value`, `subs
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `offer_stats`
+-- (per-status offer totals maintained by the application; see service.OfferAggregates)
+--
+
+CREATE TABLE `offer_stats` (
+  `status` varchar(16) NOT NULL,
+  `offer_count` bigint(20) NOT NULL,
+  `value_cents` bigint(20) NOT NULL,
+  PRIMARY KEY (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+--
+-- Dumping data for table `offer_stats`
+--
+
+INSERT INTO `offer_stats` (`status`, `offer_count`, `value_cents`) VALUES
+('Pending', 0, 0),
+('Approved', 3, 1900000),
+('Rejected', 1, 1000000);
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `offer_submissions`
+-- (idempotency keys of flushed exchange applications; see service.SubmissionQueue)
+--
+
+CREATE TABLE `offer_submissions` (
+  `idempotency_key` varchar(64) NOT NULL,
+  `vehicle_id` int(11) NOT NULL,
+  `submitted_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  PRIMARY KEY (`idempotency_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `subsidy_budget`
+-- (programme budget for approved exchange values; no row means no limit. See service.SubsidyBudget)
+--
+
+CREATE TABLE `subsidy_budget` (
+  `programme` varchar(32) NOT NULL,
+  `budget_cents` bigint(20) NOT NULL,
+  `spent_cents` bigint(20) NOT NULL,
+  PRIMARY KEY (`programme`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `subsidy_ledger`
+-- (one row per approved offer charged to the budget; see service.SubsidyBudget)
+--
+
+CREATE TABLE `subsidy_ledger` (
+  `offer_id` int(11) NOT NULL,
+  `programme` varchar(32) NOT NULL,
+  `amount_cents` bigint(20) NOT NULL,
+  `recorded_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  PRIMARY KEY (`offer_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `users`
 --
@@ -70,6 +136,26 @@ INSERT INTO `users` (`user_id`, `name`, `email`, `password`, `role`) VALUES
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `vehicle_eligibility`
+-- (materialized eligibility/valuation per vehicle; see service.EligibilityIndex.
+--  Rows are (re)computed by the application, so none are dumped.)
+--
+
+CREATE TABLE `vehicle_eligibility` (
+  `vehicle_id` int(11) NOT NULL,
+  `owner_id` int(11) NOT NULL,
+  `eligible` tinyint(1) NOT NULL,
+  `exchange_value` double NOT NULL,
+  `subsidy_percent` double NOT NULL,
+  `policy_year` int(11) NOT NULL,
+  `policy_hash` bigint(20) NOT NULL,
+  `computed_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  PRIMARY KEY (`vehicle_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `vehicles`
 --
@@ -152,6 +238,18 @@ ALTER TABLE `vehicles`
 ALTER TABLE `exchange_offers`
   ADD CONSTRAINT `exchange_offers_ibfk_1` FOREIGN KEY (`vehicle_id`) REFERENCES `vehicles` (`vehicle_id`) ON DELETE CASCADE;
 
+--
+-- Constraints for table `offer_submissions`
+--
+ALTER TABLE `offer_submissions`
+  ADD CONSTRAINT `offer_submissions_ibfk_1` FOREIGN KEY (`vehicle_id`) REFERENCES `vehicles` (`vehicle_id`) ON DELETE CASCADE;
+
+--
+-- Constraints for table `vehicle_eligibility`
+--
+ALTER TABLE `vehicle_eligibility`
+  ADD CONSTRAINT `vehicle_eligibility_ibfk_1` FOREIGN KEY (`vehicle_id`) REFERENCES `vehicles` (`vehicle_id`) ON DELETE CASCADE;
+
 --
 -- Constraints for table `vehicles`
 --
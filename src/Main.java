@@ -1,10 +1,20 @@
+import service.SubmissionQueue;
 import ui.LoginForm;
 
+import java.io.IOException;
+
 /**
  * Entry point for the desktop application.
  */
 public class Main {
     public static void main(String[] args) {
+        // Flush exchange applications left in the local queue by a previous run
+        try {
+            SubmissionQueue.shared();
+        } catch (IOException ex) {
+            System.err.println("Could not open the submission queue: " + ex.getMessage());
+        }
+
         // Start with Login form
         new LoginForm();
     }
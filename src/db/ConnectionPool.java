@@ -0,0 +1,326 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConnectionPool
+ * --------------
+ * Bounded JDBC connection pool used behind {@link DBConnection#getConnection()}.
+ *  - Reuses physical connections (LIFO) instead of a handshake per click.
+ *  - Validates idle connections on borrow and retires them after max lifetime.
+ *  - Evicts idle connections and reports suspected leaks from a housekeeping thread.
+ *  - Blocks borrowers up to the configured timeout when the pool is exhausted.
+ *  - Caches prepared statements per connection (see {@link StatementCache}).
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final PoolConfig config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> active = new HashSet<>();
+    private final ScheduledExecutorService housekeeper;
+
+    // --- State guarded by lock ---
+    private int total = 0; // idle + active + being opened
+    private int waiters = 0;
+    private boolean closed = false;
+    private long totalBorrows = 0;
+    private long totalCreated = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+    private long borrowTimeouts = 0;
+    private long leaksDetected = 0;
+
+    // --- Statement cache counters (updated without the pool lock) ---
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder prepareNanos = new LongAdder();
+
+    public ConnectionPool(String url, String user, String pass, PoolConfig config) {
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.config = config;
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gvei-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = config.getHousekeepingIntervalMs();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured borrow timeout.
+     * The returned connection must be closed to hand it back to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getBorrowTimeoutMs());
+
+        while (true) {
+            PooledConnection pc;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && total >= config.getMaxPoolSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        borrowTimeouts++;
+                        throw new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMs()
+                                + " ms waiting for a database connection (" + active.size() + " in use).");
+                    }
+                    waiters++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection.", ex);
+                    } finally {
+                        waiters--;
+                    }
+                }
+                if (closed) throw new SQLException("Connection pool is closed.");
+
+                pc = idle.pollFirst();
+                if (pc == null) {
+                    total++;
+                    create = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                pc = open();
+            } else if (!isUsable(pc)) {
+                discard(pc);
+                continue;
+            }
+            return checkout(pc, start);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool counters.
+     */
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            return new PoolStats(active.size(), idle.size(), waiters, totalBorrows, totalCreated,
+                    totalWaitNanos, maxWaitNanos, borrowTimeouts, leaksDetected,
+                    statementHits.sum(), statementMisses.sum(), prepareNanos.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Closes all idle connections and stops housekeeping. Connections still in
+     * use are closed as their borrowers hand them back.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        toClose.forEach(PooledConnection::closeQuietly);
+    }
+
+    void recordStatementHit() {
+        statementHits.increment();
+    }
+
+    void recordStatementMiss(long nanos) {
+        statementMisses.increment();
+        prepareNanos.add(nanos);
+    }
+
+    // --- Internals ---
+
+    private PooledConnection open() throws SQLException {
+        try {
+            PooledConnection pc = new PooledConnection(this, DriverManager.getConnection(url, user, pass));
+            lock.lock();
+            try {
+                totalCreated++;
+            } finally {
+                lock.unlock();
+            }
+            return pc;
+        } catch (SQLException ex) {
+            lock.lock();
+            try {
+                total--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw ex;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.currentTimeMillis();
+        if (isExpired(pc, now)) return false;
+        if (now - pc.lastReturnedAt < config.getValidationIntervalMs()) return true;
+        try {
+            return pc.raw.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PooledConnection pc, long now) {
+        return config.getMaxLifetimeMs() > 0 && now - pc.createdAt >= config.getMaxLifetimeMs();
+    }
+
+    private Connection checkout(PooledConnection pc, long startNanos) {
+        pc.borrowedAt = System.currentTimeMillis();
+        pc.leakReported = false;
+        pc.borrowStack = config.getLeakThresholdMs() > 0
+                ? new Throwable("Connection borrowed by thread " + Thread.currentThread().getName())
+                : null;
+
+        long waited = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            active.add(pc);
+            totalBorrows++;
+            totalWaitNanos += waited;
+            if (waited > maxWaitNanos) maxWaitNanos = waited;
+        } finally {
+            lock.unlock();
+        }
+        return pc.newHandle();
+    }
+
+    /**
+     * Called by a connection handle on close(). Resets session state so the
+     * next borrower starts clean; anything that fails the reset is discarded.
+     */
+    void release(PooledConnection pc) {
+        pc.borrowStack = null;
+        if (pc.statements != null) pc.statements.reclaimOutstanding();
+        boolean reusable = !isExpired(pc, System.currentTimeMillis());
+        if (reusable) {
+            try {
+                if (pc.raw.isClosed()) {
+                    reusable = false;
+                } else {
+                    if (!pc.raw.getAutoCommit()) {
+                        pc.raw.rollback();
+                        pc.raw.setAutoCommit(true);
+                    }
+                    pc.raw.clearWarnings();
+                }
+            } catch (SQLException ex) {
+                reusable = false;
+            }
+        }
+
+        lock.lock();
+        try {
+            if (active.remove(pc) && reusable && !closed) {
+                pc.lastReturnedAt = System.currentTimeMillis();
+                idle.addFirst(pc);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(pc);
+    }
+
+    private void discard(PooledConnection pc) {
+        pc.closeQuietly();
+        lock.lock();
+        try {
+            active.remove(pc);
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts idle/expired connections and reports borrowers that have held a
+     * connection longer than the leak threshold (once per borrow).
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> evicted = new ArrayList<>();
+        List<PooledConnection> leaked = new ArrayList<>();
+
+        lock.lock();
+        try {
+            Iterator<PooledConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastReturnedAt >= config.getIdleTimeoutMs() || isExpired(pc, now)) {
+                    it.remove();
+                    total--;
+                    evicted.add(pc);
+                }
+            }
+            if (config.getLeakThresholdMs() > 0) {
+                for (PooledConnection pc : active) {
+                    if (!pc.leakReported && now - pc.borrowedAt >= config.getLeakThresholdMs()) {
+                        pc.leakReported = true;
+                        leaksDetected++;
+                        leaked.add(pc);
+                    }
+                }
+            }
+            if (!evicted.isEmpty()) available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        evicted.forEach(PooledConnection::closeQuietly);
+        for (PooledConnection pc : leaked) {
+            Throwable stack = pc.borrowStack;
+            System.err.println("Possible connection leak: connection held for "
+                    + (now - pc.borrowedAt) + " ms.");
+            if (stack != null) stack.printStackTrace();
+        }
+    }
+}
@@ -1,19 +1,122 @@
 package db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * DBConnection - simple JDBC connection helper.
- * Update URL, USER, PASS as necessary for your environment.
+ * DBConnection - pooled JDBC connection helper.
+ * Update URL, USER, PASS as necessary for your environment, or override them
+ * with the gvei.db.url / gvei.db.user / gvei.db.pass system properties
+ * (e.g. to point the app at an embedded database).
+ *
+ * Connections come from a shared {@link ConnectionPool}; callers keep using
+ * try-with-resources, and close() returns the connection to the pool.
  */
 public class DBConnection {
     private static final String URL = "jdbc:mysql://localhost:3306/gvei_db?useSSL=false&serverTimezone=UTC";
     private static final String USER = "root";
     private static final String PASS = "";
 
+    // Rows per round trip when streaming from drivers that support cursor fetch.
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static ConnectionPool pool;
+
+    // DDL already run against the current pool's database.
+    private static final Set<String> createdTables = ConcurrentHashMap.newKeySet();
+
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        return getPool().borrow();
+    }
+
+    /**
+     * Returns the shared pool, creating it on first use.
+     */
+    public static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(
+                    System.getProperty("gvei.db.url", URL),
+                    System.getProperty("gvei.db.user", USER),
+                    System.getProperty("gvei.db.pass", PASS),
+                    new PoolConfig());
+        }
+        return pool;
+    }
+
+    /**
+     * True when the database was named with -Dgvei.db.url rather than
+     * left at the built-in URL. Test tools that write rows (load and
+     * stress tests) refuse to run otherwise.
+     */
+    public static boolean isUrlOverridden() {
+        return System.getProperty("gvei.db.url") != null;
+    }
+
+    /**
+     * Replaces the shared pool with one for the given database (closing the old one).
+     */
+    public static synchronized void configure(String url, String user, String pass, PoolConfig config) {
+        if (pool != null) pool.close();
+        pool = new ConnectionPool(url, user, pass, config);
+        createdTables.clear();
+    }
+
+    /**
+     * Current pool activity: active/idle connections, waiters and wait times.
+     */
+    public static PoolStats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    /**
+     * Puts a statement into row-streaming mode before executeQuery, so large
+     * results arrive incrementally instead of being buffered whole in memory.
+     * MySQL Connector/J streams only with fetch size Integer.MIN_VALUE;
+     * other drivers get a regular fetch size.
+     */
+    public static void enableStreaming(Statement st) throws SQLException {
+        st.setFetchSize(isMySql(st.getConnection()) ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * True when the connection is to MySQL or MariaDB, as reported by the
+     * driver (not guessed from the URL, so jdbc:mariadb: URLs count too).
+     * Callers use it to pick MySQL syntax; other databases, e.g. an
+     * embedded one for tests, get the portable form.
+     */
+    public static boolean isMySql(Connection conn) throws SQLException {
+        String product = conn.getMetaData().getDatabaseProductName();
+        return product != null && (product.equalsIgnoreCase("MySQL") || product.equalsIgnoreCase("MariaDB"));
+    }
+
+    /**
+     * Runs CREATE TABLE IF NOT EXISTS statements for tables the app adds on
+     * demand, once per database. The DDL runs on its own connection: on
+     * MySQL it would commit a caller's open transaction.
+     */
+    public static void ensureTable(String... ddl) throws SQLException {
+        if (createdTables.containsAll(Arrays.asList(ddl))) return;
+        synchronized (createdTables) {
+            try (Connection conn = getConnection();
+                 Statement stmt = conn.createStatement()) {
+                for (String sql : ddl) {
+                    if (createdTables.contains(sql)) continue;
+                    stmt.execute(sql);
+                    createdTables.add(sql);
+                }
+            }
+        }
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        createdTables.clear();
     }
 }
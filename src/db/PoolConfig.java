@@ -0,0 +1,103 @@
+package db;
+
+/**
+ * PoolConfig
+ * ----------
+ * Tunables for {@link ConnectionPool}. All durations are in milliseconds.
+ * Defaults suit a single desktop client talking to a LAN MySQL server.
+ */
+public class PoolConfig {
+
+    // --- Fields ---
+    private int maxPoolSize = 8;
+    private long borrowTimeoutMs = 5_000;
+    private long idleTimeoutMs = 60_000;
+    private long maxLifetimeMs = 30 * 60_000;
+    private long leakThresholdMs = 10_000;
+    private long validationIntervalMs = 1_000;
+    private int validationTimeoutSeconds = 2;
+    private long housekeepingIntervalMs = 5_000;
+    private int statementCacheSize = 32;
+
+    // --- Constructors ---
+
+    /** Default constructor */
+    public PoolConfig() {}
+
+    // --- Getters & Setters ---
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public long getBorrowTimeoutMs() {
+        return borrowTimeoutMs;
+    }
+
+    public void setBorrowTimeoutMs(long borrowTimeoutMs) {
+        this.borrowTimeoutMs = borrowTimeoutMs;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public long getMaxLifetimeMs() {
+        return maxLifetimeMs;
+    }
+
+    public void setMaxLifetimeMs(long maxLifetimeMs) {
+        this.maxLifetimeMs = maxLifetimeMs;
+    }
+
+    /** Connections held longer than this are reported with the borrower's stack trace. 0 disables. */
+    public long getLeakThresholdMs() {
+        return leakThresholdMs;
+    }
+
+    public void setLeakThresholdMs(long leakThresholdMs) {
+        this.leakThresholdMs = leakThresholdMs;
+    }
+
+    /** Idle connections returned more recently than this are handed out without a validation ping. */
+    public long getValidationIntervalMs() {
+        return validationIntervalMs;
+    }
+
+    public void setValidationIntervalMs(long validationIntervalMs) {
+        this.validationIntervalMs = validationIntervalMs;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public long getHousekeepingIntervalMs() {
+        return housekeepingIntervalMs;
+    }
+
+    public void setHousekeepingIntervalMs(long housekeepingIntervalMs) {
+        this.housekeepingIntervalMs = housekeepingIntervalMs;
+    }
+
+    /** Prepared statements cached per pooled connection (LRU). 0 disables the cache. */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+}
@@ -0,0 +1,134 @@
+package db;
+
+/**
+ * PoolStats
+ * ---------
+ * Immutable snapshot of {@link ConnectionPool} activity, as returned by
+ * {@link DBConnection#getPoolStats()}.
+ */
+public class PoolStats {
+
+    // --- Fields ---
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final long totalBorrows;
+    private final long totalCreated;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+    private final long borrowTimeouts;
+    private final long leaksDetected;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long prepareNanos;
+
+    // --- Constructor ---
+
+    public PoolStats(int active, int idle, int waiters, long totalBorrows, long totalCreated,
+                     long totalWaitNanos, long maxWaitNanos, long borrowTimeouts, long leaksDetected,
+                     long statementCacheHits, long statementCacheMisses, long prepareNanos) {
+        this.active = active;
+        this.idle = idle;
+        this.waiters = waiters;
+        this.totalBorrows = totalBorrows;
+        this.totalCreated = totalCreated;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.borrowTimeouts = borrowTimeouts;
+        this.leaksDetected = leaksDetected;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.prepareNanos = prepareNanos;
+    }
+
+    // --- Getters ---
+
+    /** Connections currently handed out to callers. */
+    public int getActive() {
+        return active;
+    }
+
+    /** Open connections sitting in the pool. */
+    public int getIdle() {
+        return idle;
+    }
+
+    /** Threads currently blocked in borrow. */
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getTotalBorrows() {
+        return totalBorrows;
+    }
+
+    /** Physical connections opened since the pool started. */
+    public long getTotalCreated() {
+        return totalCreated;
+    }
+
+    /** Total time spent acquiring connections, including validation and creation. */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public double getAverageWaitMillis() {
+        return totalBorrows == 0 ? 0 : totalWaitNanos / 1_000_000.0 / totalBorrows;
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts;
+    }
+
+    public long getLeaksDetected() {
+        return leaksDetected;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    /** Total time spent in prepareStatement on cache misses. */
+    public long getPrepareNanos() {
+        return prepareNanos;
+    }
+
+    public double getStatementCacheHitRate() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+    }
+
+    /**
+     * Prepare time avoided by cache hits, estimated from the average cost of a miss.
+     */
+    public double getEstimatedPrepareMillisSaved() {
+        if (statementCacheMisses == 0) return 0;
+        return statementCacheHits * (prepareNanos / (double) statementCacheMisses) / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "active=" + active +
+                ", idle=" + idle +
+                ", waiters=" + waiters +
+                ", borrows=" + totalBorrows +
+                ", created=" + totalCreated +
+                ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis()) +
+                ", maxWaitMs=" + String.format("%.3f", maxWaitNanos / 1_000_000.0) +
+                ", timeouts=" + borrowTimeouts +
+                ", leaks=" + leaksDetected +
+                ", stmtHits=" + statementCacheHits +
+                ", stmtMisses=" + statementCacheMisses +
+                ", prepareMsSaved=" + String.format("%.3f", getEstimatedPrepareMillisSaved()) +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * PooledConnection
+ * ----------------
+ * A physical JDBC connection owned by {@link ConnectionPool}, plus the
+ * bookkeeping the pool needs for lifetime, validation and leak checks.
+ * Callers only ever see the proxy returned by {@link #newHandle()}, whose
+ * close() hands the connection back to the pool instead of closing it.
+ * Single-argument prepareStatement(sql) calls are served from a per-connection
+ * {@link StatementCache} when statement caching is enabled.
+ */
+class PooledConnection {
+
+    final Connection raw;
+    final long createdAt;
+    volatile long lastReturnedAt;
+    volatile long borrowedAt;
+    volatile Throwable borrowStack;
+    volatile boolean leakReported;
+    final StatementCache statements;
+
+    private final ConnectionPool pool;
+
+    PooledConnection(ConnectionPool pool, Connection raw) {
+        this.pool = pool;
+        this.raw = raw;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+        int cacheSize = pool.getConfig().getStatementCacheSize();
+        this.statements = cacheSize > 0 ? new StatementCache(raw, cacheSize, pool) : null;
+    }
+
+    /**
+     * Creates a fresh caller-facing handle. Each borrow gets its own handle so
+     * that a stale reference kept after close() cannot touch the next borrower's session.
+     */
+    Connection newHandle() {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Handle());
+    }
+
+    void closeQuietly() {
+        if (statements != null) statements.clear();
+        try {
+            raw.close();
+        } catch (SQLException ex) {
+            System.err.println("Error closing pooled connection: " + ex.getMessage());
+        }
+    }
+
+    private class Handle implements InvocationHandler {
+        private boolean closed = false;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || raw.isClosed();
+                case "prepareStatement":
+                    if (statements != null && args.length == 1) {
+                        if (closed) throw new SQLException("Connection is closed.");
+                        return statements.prepare((String) args[0], (Connection) proxy);
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + raw + (closed ? ", closed]" : "]");
+            }
+            if (closed) throw new SQLException("Connection is closed.");
+            try {
+                return method.invoke(raw, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
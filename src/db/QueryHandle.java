@@ -0,0 +1,47 @@
+package db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * QueryHandle
+ * -----------
+ * Lets one thread cancel a query that another thread is running.
+ * The worker attaches its statement before executing; the UI calls
+ * {@link #cancel()}, which flags the handle and issues Statement.cancel().
+ */
+public class QueryHandle {
+
+    private volatile Statement statement;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Registers the statement about to run. Throws if the handle was
+     * cancelled before the query even started.
+     */
+    public void attach(Statement statement) throws SQLException {
+        this.statement = statement;
+        if (cancelled) throw new SQLException("Query cancelled.");
+    }
+
+    /** Detaches the statement once the worker is done with it. */
+    public void detach() {
+        this.statement = null;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        Statement st = statement;
+        if (st != null) {
+            try {
+                st.cancel();
+            } catch (SQLException ex) {
+                System.err.println("Could not cancel query: " + ex.getMessage());
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,226 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StatementCache
+ * --------------
+ * LRU cache of prepared statements keyed by SQL text, bound to one
+ * {@link PooledConnection}. The app only runs a small fixed set of SQL
+ * strings, so after warm-up almost every prepareStatement(sql) is a hit.
+ *
+ * A cached statement is handed out as a proxy; closing it closes its
+ * open ResultSet, resets the per-use settings and puts it back instead of
+ * closing the real statement. The proxy (and the ResultSets it returns)
+ * report the pooled connection handle, never the physical connection.
+ * If the same SQL is already checked out (e.g. nested use), an uncached
+ * statement is prepared for the second caller and closed with its proxy.
+ */
+class StatementCache {
+
+    private final Connection raw;
+    private final int maxSize;
+    private final ConnectionPool pool;
+    private final LinkedHashMap<String, Entry> entries;
+
+    StatementCache(Connection raw, int maxSize, ConnectionPool pool) {
+        this.raw = raw;
+        this.maxSize = maxSize;
+        this.pool = pool;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a cached statement for sql, preparing it on a miss. owner is
+     * the borrower's connection handle, returned by getConnection().
+     */
+    synchronized PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null) {
+            if (entry.inUse) {
+                return new Entry(sql, raw.prepareStatement(sql), false).newHandle(owner);
+            }
+            pool.recordStatementHit();
+            entry.inUse = true;
+            return entry.newHandle(owner);
+        }
+
+        long start = System.nanoTime();
+        PreparedStatement ps = raw.prepareStatement(sql);
+        pool.recordStatementMiss(System.nanoTime() - start);
+
+        entry = new Entry(sql, ps, true);
+        entry.inUse = true;
+        entries.put(sql, entry);
+        evictOverflow();
+        return entry.newHandle(owner);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Called when the connection goes back to the pool. Statements the borrower
+     * never closed are dropped so the next borrower cannot collide with them.
+     */
+    synchronized void reclaimOutstanding() {
+        entries.values().removeIf(entry -> {
+            if (!entry.inUse) return false;
+            entry.detach();
+            return true;
+        });
+    }
+
+    /** Closes every cached statement; used when the physical connection is discarded. */
+    synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            entry.detach();
+        }
+        entries.clear();
+    }
+
+    private void evictOverflow() {
+        if (entries.size() <= maxSize) return;
+        List<Entry> evicted = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (entries.size() - evicted.size() <= maxSize) break;
+            if (!e.getValue().inUse) evicted.add(e.getValue());
+        }
+        for (Entry entry : evicted) {
+            entries.remove(entry.sql);
+            entry.detach();
+        }
+    }
+
+    private synchronized void giveBack(Entry entry) {
+        if (entry.detached) return;
+        if (!entry.cached) {
+            entry.detach();
+            return;
+        }
+        try {
+            // An unread streaming ResultSet would block the connection for the next borrower.
+            ResultSet open = entry.ps.getResultSet();
+            if (open != null) open.close();
+            entry.ps.clearParameters();
+            entry.ps.clearBatch();
+            entry.ps.clearWarnings();
+            entry.ps.setFetchSize(0); // undo streaming mode (see DBConnection.enableStreaming)
+            entry.ps.setMaxRows(0);
+            entry.ps.setQueryTimeout(0);
+            entry.inUse = false;
+        } catch (SQLException ex) {
+            entries.remove(entry.sql, entry);
+            entry.detach();
+        }
+    }
+
+    private class Entry {
+        final String sql;
+        final PreparedStatement ps;
+        final boolean cached;       // false: prepared for a nested use, closed with its handle
+        boolean inUse;
+        boolean detached;
+
+        Entry(String sql, PreparedStatement ps, boolean cached) {
+            this.sql = sql;
+            this.ps = ps;
+            this.cached = cached;
+        }
+
+        PreparedStatement newHandle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(this, owner));
+        }
+
+        /** Removes the entry from service and closes the real statement. */
+        void detach() {
+            detached = true;
+            try {
+                ps.close();
+            } catch (SQLException ex) {
+                System.err.println("Error closing cached statement: " + ex.getMessage());
+            }
+        }
+    }
+
+    private class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private boolean closed = false;
+
+        Handle(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.ps.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.sql + "]";
+                case "getConnection":
+                    if (closed) throw new SQLException("Statement is closed.");
+                    return owner;
+                default:
+                    if (closed) throw new SQLException("Statement is closed.");
+                    Object result;
+                    try {
+                        result = method.invoke(entry.ps, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                    return result instanceof ResultSet ? wrap((ResultSet) result, (PreparedStatement) proxy) : result;
+            }
+        }
+    }
+
+    /** A ResultSet whose getStatement() is the statement proxy rather than the cached statement. */
+    private static ResultSet wrap(ResultSet rs, PreparedStatement statement) {
+        return (ResultSet) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getStatement":
+                            return statement;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(rs, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                    }
+                });
+    }
+}
@@ -0,0 +1,196 @@
+package service;
+
+import db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * AdjudicationEngine
+ * ------------------
+ * Works through the pending exchange offers in key-ordered chunks:
+ *  1. reads a chunk of offers joined with their vehicles (keyset paging),
+ *  2. evaluates the {@link AdjudicationRules} for the chunk in parallel
+ *     across cores,
+ *  3. in live mode, writes the approvals and rejections of the chunk as one
+ *     JDBC batch in a transaction, each UPDATE guarded by status='Pending'
+ *     so a manual decision made meanwhile is never overwritten. Approvals
+ *     are charged to the {@link SubsidyBudget} in the same transaction.
+ * Borderline offers, and approvals that do not fit the budget, stay
+ * Pending for human review. A dry run does steps 1-2 only and reports
+ * what would happen.
+ *
+ * Runs on whatever database DBConnection points at, so it can be pointed
+ * at an embedded database with -Dgvei.db.url=... (see {@link #main}).
+ */
+public class AdjudicationEngine {
+
+    public static final int DEFAULT_CHUNK_SIZE = 2000;
+
+    private static final String CHUNK_SQL = """
+            SELECT eo.offer_id, eo.vehicle_id, eo.exchange_value, eo.subsidy_percent,
+                   v.fuel_type, v.vehicle_type, v.year, v.mileage
+            FROM exchange_offers eo
+            LEFT JOIN vehicles v ON eo.vehicle_id = v.vehicle_id
+            WHERE eo.status = 'Pending' AND eo.offer_id > ?
+            ORDER BY eo.offer_id LIMIT ?
+            """;
+    private static final String UPDATE_SQL =
+            "UPDATE exchange_offers SET status=? WHERE offer_id=? AND status='Pending'";
+
+    private final AdjudicationRules rules;
+    private final int chunkSize;
+    private volatile boolean cancelled = false;
+
+    public AdjudicationEngine(AdjudicationRules rules, int chunkSize) {
+        this.rules = rules;
+        this.chunkSize = chunkSize;
+    }
+
+    /** Stops the run after the chunk in progress. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Adjudicates all pending offers. Blocking; call it off the EDT.
+     * The progress callback gets the running report after every chunk.
+     */
+    public AdjudicationReport run(boolean dryRun, Consumer<AdjudicationReport> progress) throws SQLException {
+        List<AdjudicationRule> ruleList = rules.build();
+        int currentYear = EligibilityPolicy.currentYear();
+        AdjudicationReport report = new AdjudicationReport(dryRun);
+        long start = System.nanoTime();
+        int afterId = 0;
+
+        try (Connection conn = DBConnection.getConnection()) {
+            while (!cancelled) {
+                OfferFacts[] chunk = readChunk(conn, afterId);
+                if (chunk.length == 0) break;
+                afterId = chunk[chunk.length - 1].getOfferId();
+
+                Verdict[] verdicts = new Verdict[chunk.length];
+                IntStream.range(0, chunk.length).parallel()
+                        .forEach(i -> verdicts[i] = AdjudicationRules.evaluate(ruleList, chunk[i], currentYear));
+                for (Verdict verdict : verdicts) report.count(verdict);
+
+                if (!dryRun) applyVerdicts(conn, chunk, verdicts, report);
+                report.finish(System.nanoTime() - start, false);
+                if (progress != null) progress.accept(report);
+                if (chunk.length < chunkSize) break;
+            }
+        }
+        report.finish(System.nanoTime() - start, cancelled);
+        return report;
+    }
+
+    private OfferFacts[] readChunk(Connection conn, int afterId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(CHUNK_SQL)) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, chunkSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                OfferFacts[] chunk = new OfferFacts[chunkSize];
+                int n = 0;
+                while (rs.next()) {
+                    chunk[n++] = new OfferFacts(
+                            rs.getInt("offer_id"),
+                            rs.getInt("vehicle_id"),
+                            rs.getDouble("exchange_value"),
+                            rs.getDouble("subsidy_percent"),
+                            rs.getString("fuel_type"),
+                            rs.getString("vehicle_type"),
+                            rs.getInt("year"),
+                            rs.getDouble("mileage"));
+                }
+                return n == chunkSize ? chunk : Arrays.copyOf(chunk, n);
+            }
+        }
+    }
+
+    /*
+     * Writes the chunk's approvals/rejections in one transaction and adds
+     * the conflicts and over-budget approvals to the report. Approvals
+     * reserve their value first; one that does not fit stays Pending.
+     */
+    private static void applyVerdicts(Connection conn, OfferFacts[] chunk, Verdict[] verdicts,
+                                      AdjudicationReport report) throws SQLException {
+        int[] batched = new int[chunk.length]; // chunk positions, in batch order
+        int n = 0;
+        long overBudget = 0;
+        BudgetHold hold = SubsidyBudget.shared().hold();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+            for (int i = 0; i < chunk.length; i++) {
+                Verdict.Decision decision = verdicts[i].getDecision();
+                if (decision == Verdict.Decision.REVIEW) continue;
+                if (decision == Verdict.Decision.APPROVE
+                        && !hold.reserve(chunk[i].getOfferId(), chunk[i].getExchangeValue())) {
+                    overBudget++;
+                    continue;
+                }
+                ps.setString(1, statusOf(decision));
+                ps.setInt(2, chunk[i].getOfferId());
+                ps.addBatch();
+                batched[n++] = i;
+            }
+            long conflicts = 0;
+            OfferDelta delta = new OfferDelta();
+            if (n > 0) {
+                int[] counts = ps.executeBatch();
+                for (int b = 0; b < counts.length; b++) {
+                    OfferFacts offer = chunk[batched[b]];
+                    Verdict.Decision decision = verdicts[batched[b]].getDecision();
+                    if (counts[b] == 0) {
+                        conflicts++;
+                        if (decision == Verdict.Decision.APPROVE) hold.release(offer.getOfferId());
+                    } else {
+                        delta.move("Pending", statusOf(decision), offer.getExchangeValue());
+                    }
+                }
+            }
+            hold.record(conn);
+            OfferAggregates.shared().commit(conn, delta);
+            hold.committed();
+            report.addConflicts(conflicts);
+            report.addOverBudget(overBudget);
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            hold.rollback(); // no-op once committed
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static String statusOf(Verdict.Decision decision) {
+        return decision == Verdict.Decision.APPROVE ? "Approved" : "Rejected";
+    }
+
+    /**
+     * Command line: [--live] [--chunk=N]. Dry run unless --live is given.
+     * Example against an embedded database:
+     *   java -Dgvei.db.url=jdbc:h2:./gvei_db -cp ... service.AdjudicationEngine --live
+     */
+    public static void main(String[] args) throws SQLException {
+        boolean live = false;
+        int chunkSize = DEFAULT_CHUNK_SIZE;
+        for (String arg : args) {
+            if (arg.equals("--live")) live = true;
+            else if (arg.startsWith("--chunk=")) chunkSize = Integer.parseInt(arg.substring("--chunk=".length()));
+        }
+        AdjudicationEngine engine = new AdjudicationEngine(new AdjudicationRules(), chunkSize);
+        try {
+            AdjudicationReport report = engine.run(!live, r -> System.out.println(r));
+            System.out.println(report);
+            report.getReasons().forEach((reason, n) -> System.out.println("  " + n + " x " + reason));
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * AdjudicationReport
+ * ------------------
+ * Totals of one adjudication run: how many offers were scanned, approved,
+ * rejected or left for review, how many updates lost the race against a
+ * manual decision (conflicts), how many approvals were left Pending
+ * because they did not fit the subsidy budget, the reasons seen, and
+ * throughput.
+ */
+public class AdjudicationReport {
+
+    private final boolean dryRun;
+    private long scanned;
+    private long approved;
+    private long rejected;
+    private long review;
+    private long conflicts;
+    private long overBudget;
+    private long elapsedNanos;
+    private boolean cancelled;
+    private final Map<String, Long> reasons = new TreeMap<>();
+
+    public AdjudicationReport(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    synchronized void count(Verdict verdict) {
+        scanned++;
+        switch (verdict.getDecision()) {
+            case APPROVE: approved++; break;
+            case REJECT: rejected++; break;
+            default: review++; break;
+        }
+        if (verdict.getDecision() != Verdict.Decision.APPROVE) reasons.merge(verdict.getReason(), 1L, Long::sum);
+    }
+
+    synchronized void addConflicts(long n) {
+        conflicts += n;
+    }
+
+    synchronized void addOverBudget(long n) {
+        overBudget += n;
+    }
+
+    synchronized void finish(long elapsedNanos, boolean cancelled) {
+        this.elapsedNanos = elapsedNanos;
+        this.cancelled = cancelled;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public synchronized long getScanned() {
+        return scanned;
+    }
+
+    public synchronized long getApproved() {
+        return approved;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized long getReview() {
+        return review;
+    }
+
+    public synchronized long getConflicts() {
+        return conflicts;
+    }
+
+    /** Approvals left Pending because they did not fit the subsidy budget (included in getApproved). */
+    public synchronized long getOverBudget() {
+        return overBudget;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public synchronized long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public synchronized double getOffersPerSecond() {
+        return elapsedNanos == 0 ? 0 : scanned * 1e9 / elapsedNanos;
+    }
+
+    /** Reject/review reasons with their counts. */
+    public synchronized Map<String, Long> getReasons() {
+        return new TreeMap<>(reasons);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s%s: %d scanned, %d approved, %d rejected, %d for review, %d conflicts%s in %d ms (%.0f offers/s)",
+                dryRun ? "Dry run" : "Adjudication", cancelled ? " (cancelled)" : "",
+                scanned, approved, rejected, review, conflicts,
+                overBudget > 0 ? ", " + overBudget + " approvals over budget" : "",
+                getElapsedMillis(), getOffersPerSecond());
+    }
+}
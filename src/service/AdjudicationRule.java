@@ -0,0 +1,12 @@
+package service;
+
+/**
+ * A single adjudication rule. Returns a verdict when the rule decides the
+ * offer, or null to leave it to the following rules. Rules must be
+ * stateless: they are called from several threads at once.
+ */
+@FunctionalInterface
+public interface AdjudicationRule {
+
+    Verdict evaluate(OfferFacts offer, int currentYear);
+}
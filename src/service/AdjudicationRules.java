@@ -0,0 +1,125 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AdjudicationRules
+ * -----------------
+ * Thresholds for automatic adjudication, plus the ordered rule list built
+ * from them. Rules run in order and the first verdict wins; an offer that
+ * no rule objects to is approved. Clear-cut rejections come first, then the
+ * checks that send borderline cases to human review.
+ *
+ * Eligibility, value and subsidy come from the {@link EligibilityPolicy}
+ * in force when the list is built. Extra rules can be appended with
+ * {@link #addRule}; they run after the built-in ones.
+ */
+public class AdjudicationRules {
+
+    private int borderlineAgeYears = 1;          // offers whose eligibility changes within this many years go to review
+    private double valueTolerance = 1.0;         // allowed gap between claimed and policy value
+    private int valueAgeSlackYears = 2;          // offers valued up to this many years ago still match
+    private double subsidyTolerance = 0.01;
+    private double maxAutoApproveValue = 8000.0; // larger payouts always get a human look
+    private final List<AdjudicationRule> extraRules = new ArrayList<>();
+
+    // --- Getters & Setters ---
+
+    public int getBorderlineAgeYears() {
+        return borderlineAgeYears;
+    }
+
+    public void setBorderlineAgeYears(int borderlineAgeYears) {
+        this.borderlineAgeYears = borderlineAgeYears;
+    }
+
+    public double getValueTolerance() {
+        return valueTolerance;
+    }
+
+    public void setValueTolerance(double valueTolerance) {
+        this.valueTolerance = valueTolerance;
+    }
+
+    public int getValueAgeSlackYears() {
+        return valueAgeSlackYears;
+    }
+
+    public void setValueAgeSlackYears(int valueAgeSlackYears) {
+        this.valueAgeSlackYears = valueAgeSlackYears;
+    }
+
+    public double getSubsidyTolerance() {
+        return subsidyTolerance;
+    }
+
+    public void setSubsidyTolerance(double subsidyTolerance) {
+        this.subsidyTolerance = subsidyTolerance;
+    }
+
+    public double getMaxAutoApproveValue() {
+        return maxAutoApproveValue;
+    }
+
+    public void setMaxAutoApproveValue(double maxAutoApproveValue) {
+        this.maxAutoApproveValue = maxAutoApproveValue;
+    }
+
+    public void addRule(AdjudicationRule rule) {
+        extraRules.add(rule);
+    }
+
+    // --- Rule list ---
+
+    /** The ordered rules for the current thresholds (an immutable snapshot). */
+    public List<AdjudicationRule> build() {
+        EligibilityPolicy policy = EligibilityPolicy.current();
+        int margin = borderlineAgeYears;
+        double valueTol = valueTolerance;
+        int slack = valueAgeSlackYears;
+        double subsidyTol = subsidyTolerance;
+        double maxValue = maxAutoApproveValue;
+
+        List<AdjudicationRule> rules = new ArrayList<>();
+
+        // Clear-cut rejections
+        rules.add((o, year) -> o.hasVehicle() ? null : Verdict.reject("vehicle no longer exists"));
+        rules.add((o, year) -> policy.isEligible(o, year + margin)
+                ? null : Verdict.reject("not eligible under the " + policy));
+
+        // Borderline: leave to a reviewer
+        rules.add((o, year) -> policy.isEligible(o, year) && policy.isEligible(o, year - margin)
+                ? null : Verdict.review("age " + o.ageIn(year) + " is close to the eligibility limit"));
+        rules.add((o, year) -> o.getMileage() < 0 || o.getYear() > year
+                ? Verdict.review("implausible vehicle data") : null);
+        rules.add((o, year) -> matchesPolicyValue(policy, o, year, slack, valueTol)
+                ? null : Verdict.review("exchange value differs from policy value"));
+        rules.add((o, year) -> Math.abs(o.getSubsidyPercent() - policy.subsidyPercent(o, year)) > subsidyTol
+                ? Verdict.review("subsidy differs from policy rate") : null);
+        rules.add((o, year) -> o.getExchangeValue() > maxValue
+                ? Verdict.review("value above auto-approve limit") : null);
+
+        rules.addAll(extraRules);
+        return Collections.unmodifiableList(rules);
+    }
+
+    // The value was computed when the citizen applied, so accept the policy value of recent years too.
+    private static boolean matchesPolicyValue(EligibilityPolicy policy, OfferFacts o, int currentYear,
+                                              int slackYears, double tolerance) {
+        for (int y = currentYear; y >= currentYear - slackYears; y--) {
+            if (Math.abs(o.getExchangeValue() - policy.exchangeValue(o, y)) <= tolerance) return true;
+        }
+        return false;
+    }
+
+    /** Runs the rules in order; the first verdict wins, no objection means approve. */
+    public static Verdict evaluate(List<AdjudicationRule> rules, OfferFacts offer, int currentYear) {
+        for (AdjudicationRule rule : rules) {
+            Verdict verdict = rule.evaluate(offer, currentYear);
+            if (verdict != null) return verdict;
+        }
+        return Verdict.approve("meets all rules");
+    }
+}
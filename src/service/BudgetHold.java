@@ -0,0 +1,104 @@
+package service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * BudgetHold
+ * ----------
+ * The {@link SubsidyBudget} reservations of one approving transaction.
+ * Usage, on the transaction's thread:
+ *
+ *   BudgetHold hold = SubsidyBudget.shared().hold();
+ *   if (!hold.reserve(offerId, value)) ... leave the offer Pending (over budget)
+ *   ... UPDATE the offers; hold.release(offerId) for those that were not Pending anymore
+ *   hold.record(conn);                      // ledger rows + budget row, in the transaction
+ *   OfferAggregates.shared().commit(conn, delta);
+ *   hold.committed();                       // or hold.rollback() in the catch block
+ *
+ * Between record and committed/rollback the hold keeps reconciliation
+ * waiting, so it never sees the ledger half written.
+ */
+public class BudgetHold {
+
+    private final SubsidyBudget budget;
+    private int[] offerIds = new int[16];
+    private long[] cents = new long[16];
+    private int size = 0;
+    private long total = 0;
+    private boolean recording = false;
+    private boolean closed = false;
+
+    BudgetHold(SubsidyBudget budget) {
+        this.budget = budget;
+    }
+
+    /** Reserves the offer's exchange value; false (nothing reserved) if it does not fit the budget. */
+    public boolean reserve(int offerId, double exchangeValue) {
+        if (closed || recording) throw new IllegalStateException("Budget hold is already committing.");
+        long amount = Math.round(exchangeValue * 100);
+        if (!budget.tryReserve(amount)) return false;
+        if (size == offerIds.length) {
+            offerIds = Arrays.copyOf(offerIds, size * 2);
+            cents = Arrays.copyOf(cents, size * 2);
+        }
+        offerIds[size] = offerId;
+        cents[size] = amount;
+        size++;
+        total += amount;
+        return true;
+    }
+
+    /** Gives back the reservation of an offer that will not be approved after all. */
+    public void release(int offerId) {
+        if (closed || recording) throw new IllegalStateException("Budget hold is already committing.");
+        for (int i = 0; i < size; i++) {
+            if (offerIds[i] != offerId) continue;
+            budget.release(cents[i]);
+            total -= cents[i];
+            size--;
+            offerIds[i] = offerIds[size];
+            cents[i] = cents[size];
+            return;
+        }
+    }
+
+    /** Writes the ledger rows and charges the budget row on the caller's (uncommitted) connection. */
+    public void record(Connection conn) throws SQLException {
+        if (closed || recording) throw new IllegalStateException("Budget hold is already committing.");
+        recording = true;
+        budget.beginCommit();
+        if (size > 0) budget.record(conn, offerIds, cents, size, total);
+    }
+
+    /** The transaction committed: the reserved values are spent. */
+    public void committed() {
+        close(true);
+    }
+
+    /** The transaction failed or was rolled back: the reserved values are available again. Safe to repeat. */
+    public void rollback() {
+        close(false);
+    }
+
+    private void close(boolean commit) {
+        if (closed) return;
+        closed = true;
+        if (recording) {
+            budget.endCommit(total, commit);
+        } else {
+            budget.release(total);
+        }
+    }
+
+    /** Number of offers currently reserved. */
+    public int size() {
+        return size;
+    }
+
+    /** Total reserved, in dollars. */
+    public double getTotal() {
+        return total / 100.0;
+    }
+}
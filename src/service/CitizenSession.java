@@ -0,0 +1,197 @@
+package service;
+
+import db.DBConnection;
+import model.User;
+import model.Vehicle;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * CitizenSession
+ * --------------
+ * What the citizen windows of one login share: the user's profile and
+ * vehicles, loaded together with the credential check in one query
+ * ({@link #login}) and updated in place when a window registers a vehicle.
+ * The windows list the user's vehicles from here. The list dates from the
+ * login, so anything that acts on a vehicle (eligibility check, exchange
+ * application) still confirms its owner against the database.
+ *
+ * Eligibility answers from the {@link EligibilityIndex} are kept for the
+ * policy and year they were computed under ({@link #checkEligibility}),
+ * so checking the same vehicle again costs no round trip. The queue
+ * re-checks the owner when it writes an application, so a vehicle
+ * reassigned since the answer was cached still cannot be applied for.
+ *
+ * The session also counts the database round trips made for it, by
+ * activity ({@link #report}).
+ */
+public class CitizenSession {
+
+    private static final String LOGIN_SQL = "SELECT u.user_id, u.name, u.role, v.vehicle_id, v.plate_no, "
+            + "v.vehicle_type, v.fuel_type, v.year, v.mileage "
+            + "FROM users u LEFT JOIN vehicles v ON v.owner_id = u.user_id "
+            + "WHERE u.email = ? AND u.password = ? ORDER BY v.vehicle_id";
+
+    private final User user;
+    private final Map<Integer, Vehicle> vehicles = new TreeMap<>();   // guarded by this
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> roundTrips = new TreeMap<>();  // guarded by this
+    private final Map<Integer, CachedEligibility> eligibility = new HashMap<>();   // guarded by this
+    private final long startedAt = System.currentTimeMillis();
+
+    CitizenSession(User user, List<Vehicle> owned) {
+        this.user = user;
+        for (Vehicle v : owned) vehicles.put(v.getVehicleId(), v);
+    }
+
+    /**
+     * Checks the credentials and loads the profile and vehicles in one
+     * round trip. Returns null if no account matches. Blocking; call it
+     * off the EDT.
+     */
+    public static CitizenSession login(String email, String password) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(LOGIN_SQL)) {
+            ps.setString(1, email);
+            ps.setString(2, password);
+            try (ResultSet rs = ps.executeQuery()) {
+                User user = null;
+                List<Vehicle> owned = new ArrayList<>();
+                while (rs.next()) {
+                    if (user == null) {
+                        user = new User(rs.getInt("user_id"), rs.getString("name"), email, null, rs.getString("role"));
+                    }
+                    int vehicleId = rs.getInt("vehicle_id");
+                    if (rs.wasNull()) continue;   // no vehicles yet
+                    owned.add(new Vehicle(vehicleId, user.getUserId(), rs.getString("plate_no"),
+                            rs.getString("vehicle_type"), rs.getString("fuel_type"), rs.getInt("year"),
+                            rs.getDouble("mileage")));
+                }
+                if (user == null) return null;
+                CitizenSession session = new CitizenSession(user, owned);
+                session.roundTrip("login");
+                return session;
+            }
+        }
+    }
+
+    // --- Profile & vehicles ---
+
+    public User getUser() {
+        return user;
+    }
+
+    public int getUserId() {
+        return user.getUserId();
+    }
+
+    public boolean isAdmin() {
+        return "admin".equalsIgnoreCase(user.getRole());
+    }
+
+    /** The user's vehicles, by vehicle id. */
+    public synchronized List<Vehicle> getVehicles() {
+        return new ArrayList<>(vehicles.values());
+    }
+
+    /** One of the user's vehicles (as of login), or null if the user did not own a vehicle with that id. */
+    public synchronized Vehicle getVehicle(int vehicleId) {
+        return vehicles.get(vehicleId);
+    }
+
+    /** Adds a vehicle the user just registered and tells the open windows. */
+    public void vehicleRegistered(Vehicle vehicle) {
+        synchronized (this) {
+            vehicles.put(vehicle.getVehicleId(), vehicle);
+            eligibility.remove(vehicle.getVehicleId());
+        }
+        for (Runnable listener : listeners) listener.run();
+    }
+
+    /** Runs on the registering thread after every change to the vehicle list. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    // --- Eligibility ---
+
+    /**
+     * Eligibility of a vehicle under the current policy, or null if it
+     * does not exist. Answered from the session when the vehicle was
+     * checked before under the same policy fingerprint and year, otherwise
+     * from {@link EligibilityIndex#lookup}. Blocking; call it off the EDT.
+     */
+    public VehicleEligibility checkEligibility(int vehicleId) throws SQLException {
+        long fingerprint = EligibilityPolicy.current().getFingerprint();
+        int currentYear = EligibilityPolicy.currentYear();
+        synchronized (this) {
+            CachedEligibility cached = eligibility.get(vehicleId);
+            if (cached != null && cached.fingerprint == fingerprint && cached.year == currentYear) {
+                return cached.result;
+            }
+        }
+        VehicleEligibility result = EligibilityIndex.shared().lookup(vehicleId);
+        // The index read, plus the vehicle read and the row write-back when it was computed live
+        roundTrips("eligibility check", result == null ? 2 : result.isLive() ? 3 : 1);
+        if (result != null) {
+            synchronized (this) {
+                eligibility.put(vehicleId, new CachedEligibility(fingerprint, currentYear, result));
+            }
+        }
+        return result;
+    }
+
+    // An index answer and the policy it was computed under.
+    private static final class CachedEligibility {
+        final long fingerprint;
+        final int year;
+        final VehicleEligibility result;
+
+        CachedEligibility(long fingerprint, int year, VehicleEligibility result) {
+            this.fingerprint = fingerprint;
+            this.year = year;
+            this.result = result;
+        }
+    }
+
+    // --- Round trips ---
+
+    /** Counts one database round trip made for this session. */
+    public void roundTrip(String activity) {
+        roundTrips(activity, 1);
+    }
+
+    /** Counts n database round trips made for this session by one activity. */
+    public synchronized void roundTrips(String activity, int n) {
+        roundTrips.merge(activity, n, Integer::sum);
+    }
+
+    public synchronized int getRoundTrips() {
+        return roundTrips.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /** Round trips made, by activity. */
+    public synchronized String report() {
+        return String.format("Session of user %d (%d s, %d vehicles): %d database round trips %s.",
+                user.getUserId(), (System.currentTimeMillis() - startedAt) / 1000, vehicles.size(),
+                getRoundTrips(), roundTrips);
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
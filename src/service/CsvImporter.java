@@ -0,0 +1,727 @@
+package service;
+
+import db.DBConnection;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * CsvImporter
+ * -----------
+ * Bulk-loads users, vehicles or exchange offers from a CSV file. The
+ * target table is recognised from the header (email -> users, plate_no ->
+ * vehicles, exchange_value -> offers); columns are matched by name, so
+ * their order does not matter and unknown columns are ignored.
+ *
+ * Pipeline:
+ *  1. The calling thread reads the file in 4 MB blocks and cuts them at
+ *     record boundaries (quote-aware, so quoted line breaks are kept).
+ *  2. Worker threads parse and validate the chunks in parallel, with the
+ *     same rules as the registration forms (see {@link VehicleRules}).
+ *  3. The calling thread takes the parsed chunks in file order, checks
+ *     uniqueness (plate, email) against the database and earlier rows, and
+ *     inserts with multi-row INSERT statements of ROWS_PER_STATEMENT rows,
+ *     committing every ROWS_PER_COMMIT rows. If a statement fails, its rows
+ *     are retried one by one so only the offending rows are rejected.
+ *
+ * Rejected records go to "<file>.rejects.csv": the original header and
+ * record plus reject_reason and line columns, so the file can be fixed and
+ * imported again.
+ */
+public class CsvImporter {
+
+    public enum Target { USERS, VEHICLES, OFFERS }
+
+    private static final int READ_BLOCK_BYTES = 4 * 1024 * 1024;
+    private static final int ROWS_PER_STATEMENT = 500;
+    private static final int ROWS_PER_COMMIT = 10_000;
+    private static final String[] OFFER_STATUSES = {"Pending", "Approved", "Rejected"};
+
+    private final int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private volatile boolean cancelled = false;
+
+    // Reference data loaded before the import (read-only while workers run).
+    private final BitSet existingUserIds = new BitSet();
+    private final BitSet existingVehicleIds = new BitSet();
+    private final Set<String> usedKeys = new HashSet<>();  // lower-cased emails or plates (writer thread only)
+
+    /** Stops the import after the chunk in progress; committed rows stay. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Imports the file. Blocking; call it off the EDT. The progress
+     * callback gets the running report after each chunk.
+     */
+    public ImportReport importFile(File file, Consumer<ImportReport> progress) throws IOException, SQLException {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "gvei-csv-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        Writer rejects = null;
+        File rejectFile = new File(file.getPath() + ".rejects.csv");
+        ImportReport report = null;
+
+        try (InputStream in = Files.newInputStream(file.toPath());
+             Connection conn = DBConnection.getConnection()) {
+            ChunkReader reader = new ChunkReader(in);
+            String headerLine = reader.readHeader();
+            if (headerLine == null) throw new IOException("The file is empty.");
+            Layout layout = Layout.of(CsvParser.parseRecord(headerLine));
+            report = new ImportReport(layout.target.name().toLowerCase(Locale.ROOT));
+            loadReferenceData(conn, layout.target);
+
+            Inserter inserter = new Inserter(conn, layout.target, usedKeys);
+            ArrayDeque<Future<ParsedChunk>> window = new ArrayDeque<>();
+            conn.setAutoCommit(false);
+            try {
+                Chunk chunk;
+                while (!cancelled && (chunk = reader.next()) != null) {
+                    Chunk c = chunk;
+                    window.add(pool.submit(() -> parse(c, layout)));
+                    if (window.size() >= workers * 2) {
+                        rejects = write(window.poll(), inserter, report, rejects, rejectFile, headerLine, start, progress);
+                    }
+                }
+                while (!cancelled && !window.isEmpty()) {
+                    rejects = write(window.poll(), inserter, report, rejects, rejectFile, headerLine, start, progress);
+                }
+                if (cancelled) {
+                    conn.rollback();
+                } else {
+                    report.addInserted(inserter.commit());
+                }
+            } catch (SQLException | IOException | RuntimeException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+                inserter.close();
+            }
+        } finally {
+            pool.shutdownNow();
+            if (rejects != null) rejects.close();
+        }
+        report.finish(System.nanoTime() - start, cancelled, report.getRejected() > 0 ? rejectFile : null);
+        return report;
+    }
+
+    // Validates uniqueness, inserts one parsed chunk and records its rejects.
+    private Writer write(Future<ParsedChunk> future, Inserter inserter, ImportReport report, Writer rejects,
+                         File rejectFile, String headerLine, long start, Consumer<ImportReport> progress)
+            throws SQLException, IOException {
+        ParsedChunk parsed;
+        try {
+            parsed = future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted.", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Could not parse the file: " + ex.getCause().getMessage(), ex.getCause());
+        }
+
+        List<Reject> chunkRejects = new ArrayList<>(parsed.rejects);
+        for (Row row : parsed.rows) {
+            String key = row.uniqueKey();
+            // The earlier row with this key is not written yet: settle it first, the database may refuse it.
+            if (key != null && inserter.holds(key)) inserter.flush();
+            if (key != null && !usedKeys.add(key)) {
+                chunkRejects.add(new Reject(row.line, row.raw, inserter.target == Target.USERS
+                        ? "Email address already exists." : "This plate number is already registered."));
+                continue;
+            }
+            inserter.add(row);
+            if (inserter.uncommitted() >= ROWS_PER_COMMIT) report.addInserted(inserter.commit());
+        }
+        inserter.flushFailures(chunkRejects);
+
+        report.addRead(parsed.records);
+        report.addRejected(chunkRejects.size());
+        if (!chunkRejects.isEmpty()) {
+            if (rejects == null) {
+                rejects = new BufferedWriter(new OutputStreamWriter(
+                        Files.newOutputStream(rejectFile.toPath()), StandardCharsets.UTF_8));
+                rejects.write(headerLine + ",reject_reason,line\r\n");
+            }
+            chunkRejects.sort((a, b) -> Long.compare(a.line, b.line));
+            for (Reject r : chunkRejects) {
+                rejects.write(r.raw + "," + CsvParser.quote(r.reason) + "," + r.line + "\r\n");
+            }
+        }
+        report.finish(System.nanoTime() - start, false, null);
+        if (progress != null) progress.accept(report);
+        return rejects;
+    }
+
+    private void loadReferenceData(Connection conn, Target target) throws SQLException {
+        String sql;
+        switch (target) {
+            case USERS:
+                sql = "SELECT LOWER(email) FROM users";
+                break;
+            case VEHICLES:
+                loadIds(conn, "SELECT user_id FROM users", existingUserIds);
+                sql = "SELECT LOWER(plate_no) FROM vehicles";
+                break;
+            default:
+                loadIds(conn, "SELECT vehicle_id FROM vehicles", existingVehicleIds);
+                return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            DBConnection.enableStreaming(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) usedKeys.add(rs.getString(1));
+            }
+        }
+    }
+
+    private static void loadIds(Connection conn, String sql, BitSet ids) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            DBConnection.enableStreaming(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.set(rs.getInt(1));
+            }
+        }
+    }
+
+    // --- Parsing & validation (worker threads) ---
+
+    private ParsedChunk parse(Chunk chunk, Layout layout) {
+        ParsedChunk out = new ParsedChunk();
+        CsvParser parser = new CsvParser(new String(chunk.bytes, 0, chunk.length, StandardCharsets.UTF_8), chunk.firstLine);
+        List<String> fields;
+        while ((fields = parser.next()) != null) {
+            if (fields.size() == 1 && fields.get(0).isEmpty()) continue; // blank line
+            out.records++;
+            String raw = parser.raw();
+            long line = parser.line();
+            try {
+                out.rows.add(layout.toRow(fields, raw, line, this));
+            } catch (IllegalArgumentException ex) {
+                out.rejects.add(new Reject(line, raw, ex.getMessage()));
+            }
+        }
+        return out;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    private static int parseInt(String text, String what) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + what + ": '" + text + "'.");
+        }
+    }
+
+    private static double parseDouble(String text, String what) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + what + ": '" + text + "'.");
+        }
+    }
+
+    /** Column positions of one file, and the per-target validation. */
+    private static class Layout {
+        final Target target;
+        final Map<String, Integer> columns;
+
+        private Layout(Target target, Map<String, Integer> columns) {
+            this.target = target;
+            this.columns = columns;
+        }
+
+        static Layout of(List<String> header) throws IOException {
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            Target target;
+            String[] required;
+            if (columns.containsKey("plate_no")) {
+                target = Target.VEHICLES;
+                required = new String[]{"owner_id", "plate_no", "vehicle_type", "fuel_type", "year", "mileage"};
+            } else if (columns.containsKey("email")) {
+                target = Target.USERS;
+                required = new String[]{"name", "email", "role"};
+            } else if (columns.containsKey("exchange_value")) {
+                target = Target.OFFERS;
+                required = new String[]{"vehicle_id", "exchange_value", "subsidy_percent"};
+            } else {
+                throw new IOException("Unrecognised header: expected users (name,email,role), vehicles "
+                        + "(owner_id,plate_no,vehicle_type,fuel_type,year,mileage) or offers "
+                        + "(vehicle_id,exchange_value,subsidy_percent[,status]) columns.");
+            }
+            for (String column : required) {
+                if (!columns.containsKey(column)) throw new IOException("Missing column '" + column + "'.");
+            }
+            return new Layout(target, columns);
+        }
+
+        int col(String name) {
+            return columns.getOrDefault(name, -1);
+        }
+
+        Row toRow(List<String> f, String raw, long line, CsvImporter importer) {
+            switch (target) {
+                case VEHICLES: {
+                    String plate = field(f, col("plate_no"));
+                    String error = VehicleRules.validate(plate, field(f, col("year")), field(f, col("mileage")));
+                    if (error != null) throw new IllegalArgumentException(error);
+                    String type = VehicleRules.vehicleType(field(f, col("vehicle_type")));
+                    if (type == null) throw new IllegalArgumentException("Unknown vehicle type '" + field(f, col("vehicle_type")) + "'.");
+                    String fuel = VehicleRules.fuelType(field(f, col("fuel_type")));
+                    if (fuel == null) throw new IllegalArgumentException("Unknown fuel type '" + field(f, col("fuel_type")) + "'.");
+                    int ownerId = parseInt(field(f, col("owner_id")), "owner_id");
+                    if (ownerId <= 0 || !importer.existingUserIds.get(ownerId)) {
+                        throw new IllegalArgumentException("Owner ID " + ownerId + " does not exist.");
+                    }
+                    return new Row(line, raw, plate.toLowerCase(Locale.ROOT), ownerId, plate, type, fuel,
+                            Integer.parseInt(field(f, col("year"))), Double.parseDouble(field(f, col("mileage"))));
+                }
+                case USERS: {
+                    String name = field(f, col("name"));
+                    String email = field(f, col("email"));
+                    String role = field(f, col("role")).toLowerCase(Locale.ROOT);
+                    String password = field(f, col("password"));
+                    if (name.isEmpty() || email.isEmpty() || role.isEmpty()) {
+                        throw new IllegalArgumentException("All fields are required.");
+                    }
+                    if (email.indexOf('@') <= 0) throw new IllegalArgumentException("Invalid email address.");
+                    if (!role.equals("admin") && !role.equals("user")) {
+                        throw new IllegalArgumentException("Role must be 'admin' or 'user'.");
+                    }
+                    return new Row(line, raw, email.toLowerCase(Locale.ROOT), name, email, role,
+                            password.isEmpty() ? "temp_pass" : password);
+                }
+                default: {
+                    int vehicleId = parseInt(field(f, col("vehicle_id")), "vehicle_id");
+                    double value = parseDouble(field(f, col("exchange_value")), "exchange_value");
+                    double subsidy = parseDouble(field(f, col("subsidy_percent")), "subsidy_percent");
+                    String statusText = field(f, col("status"));
+                    String status = statusText.isEmpty() ? "Pending" : null;
+                    for (String s : OFFER_STATUSES) {
+                        if (s.equalsIgnoreCase(statusText)) status = s;
+                    }
+                    if (status == null) throw new IllegalArgumentException("Unknown status '" + statusText + "'.");
+                    if (vehicleId <= 0 || !importer.existingVehicleIds.get(vehicleId)) {
+                        throw new IllegalArgumentException("Vehicle ID " + vehicleId + " does not exist.");
+                    }
+                    if (value < 0) throw new IllegalArgumentException("Exchange value must not be negative.");
+                    if (subsidy < 0 || subsidy > 100) throw new IllegalArgumentException("Subsidy must be 0-100%.");
+                    return new Row(line, raw, null, vehicleId, value, subsidy, status);
+                }
+            }
+        }
+    }
+
+    // --- Inserting (calling thread) ---
+
+    /** Collects rows and writes them with multi-row INSERT statements. */
+    private static class Inserter {
+        final Connection conn;
+        final Target target;
+        private final Set<String> usedKeys;        // the importer's; a refused row gives its key back
+        private final String columns;
+        private final int width;
+        private final List<Row> pending = new ArrayList<>(ROWS_PER_STATEMENT);
+        private final Set<String> pendingKeys = new HashSet<>();
+        private final List<Reject> failed = new ArrayList<>();
+        private PreparedStatement fullStatement;
+        private long uncommitted = 0;
+        private final OfferDelta offerDelta = new OfferDelta();
+
+        Inserter(Connection conn, Target target, Set<String> usedKeys) {
+            this.conn = conn;
+            this.target = target;
+            this.usedKeys = usedKeys;
+            switch (target) {
+                case USERS:
+                    columns = "users (name, email, role, password)";
+                    width = 4;
+                    break;
+                case VEHICLES:
+                    columns = "vehicles (owner_id, plate_no, vehicle_type, fuel_type, year, mileage)";
+                    width = 6;
+                    break;
+                default:
+                    columns = "exchange_offers (vehicle_id, exchange_value, subsidy_percent, status)";
+                    width = 4;
+                    break;
+            }
+        }
+
+        void add(Row row) throws SQLException {
+            pending.add(row);
+            String key = row.uniqueKey();
+            if (key != null) pendingKeys.add(key);
+            if (pending.size() == ROWS_PER_STATEMENT) flush();
+        }
+
+        /** True if a row with this unique key is waiting to be written. */
+        boolean holds(String key) {
+            return pendingKeys.contains(key);
+        }
+
+        /** Writes the pending rows; rows the database refuses are kept for {@link #flushFailures}. */
+        void flush() throws SQLException {
+            if (pending.isEmpty()) return;
+            PreparedStatement ps;
+            boolean temporary = pending.size() != ROWS_PER_STATEMENT;
+            if (!temporary) {
+                if (fullStatement == null) fullStatement = conn.prepareStatement(sql(ROWS_PER_STATEMENT));
+                ps = fullStatement;
+            } else {
+                ps = conn.prepareStatement(sql(pending.size()));
+            }
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                int index = 1;
+                for (Row row : pending) index = row.bind(ps, index);
+                ps.executeUpdate();
+                conn.releaseSavepoint(savepoint);
+                for (Row row : pending) inserted(row);
+            } catch (SQLException ex) {
+                conn.rollback(savepoint);
+                insertOneByOne();
+            } finally {
+                if (temporary) ps.close();
+                pending.clear();
+                pendingKeys.clear();
+            }
+        }
+
+        // After a failed multi-row statement: find the offending rows.
+        private void insertOneByOne() throws SQLException {
+            try (PreparedStatement ps = conn.prepareStatement(sql(1))) {
+                for (Row row : pending) {
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        row.bind(ps, 1);
+                        ps.executeUpdate();
+                        conn.releaseSavepoint(savepoint);
+                        inserted(row);
+                    } catch (SQLException ex) {
+                        conn.rollback(savepoint);
+                        // Not in the table after all: a later row with the same key may still go in.
+                        String key = row.uniqueKey();
+                        if (key != null) usedKeys.remove(key);
+                        failed.add(new Reject(row.line, row.raw, "Database: " + ex.getMessage()));
+                    }
+                }
+            }
+        }
+
+        void flushFailures(List<Reject> rejects) {
+            rejects.addAll(failed);
+            failed.clear();
+        }
+
+        long uncommitted() {
+            return uncommitted + pending.size();
+        }
+
+        /** Writes the pending rows and commits (with the offer stats for offers); returns the rows committed. */
+        long commit() throws SQLException {
+            flush();
+            OfferAggregates.shared().commit(conn, offerDelta);
+            offerDelta.clear();
+            long n = uncommitted;
+            uncommitted = 0;
+            return n;
+        }
+
+        private void inserted(Row row) {
+            uncommitted++;
+            // offer values: vehicle_id, exchange_value, subsidy_percent, status
+            if (target == Target.OFFERS) offerDelta.add((String) row.values[3], (Double) row.values[1]);
+        }
+
+        void close() {
+            try {
+                if (fullStatement != null) fullStatement.close();
+            } catch (SQLException ex) {
+                System.err.println("Import statement close error: " + ex.getMessage());
+            }
+        }
+
+        private String sql(int rows) {
+            StringBuilder sb = new StringBuilder("INSERT INTO ").append(columns).append(" VALUES ");
+            for (int r = 0; r < rows; r++) {
+                if (r > 0) sb.append(", ");
+                sb.append('(');
+                for (int c = 0; c < width; c++) sb.append(c == 0 ? "?" : ", ?");
+                sb.append(')');
+            }
+            return sb.toString();
+        }
+    }
+
+    /** One validated record, with its values in insert-column order. */
+    private static class Row {
+        final long line;
+        final String raw;
+        final String key;       // lower-cased email/plate for uniqueness, or null
+        final Object[] values;
+
+        Row(long line, String raw, String key, Object... values) {
+            this.line = line;
+            this.raw = raw;
+            this.key = key;
+            this.values = values;
+        }
+
+        String uniqueKey() {
+            return key;
+        }
+
+        int bind(PreparedStatement ps, int index) throws SQLException {
+            for (Object value : values) {
+                if (value instanceof Integer) ps.setInt(index++, (Integer) value);
+                else if (value instanceof Double) ps.setDouble(index++, (Double) value);
+                else ps.setString(index++, (String) value);
+            }
+            return index;
+        }
+    }
+
+    private static class Reject {
+        final long line;
+        final String raw;
+        final String reason;
+
+        Reject(long line, String raw, String reason) {
+            this.line = line;
+            this.raw = raw;
+            this.reason = reason;
+        }
+    }
+
+    private static class ParsedChunk {
+        long records = 0;
+        final List<Row> rows = new ArrayList<>();
+        final List<Reject> rejects = new ArrayList<>();
+    }
+
+    // --- Reading ---
+
+    /** A run of complete records and the file line the first one starts on. */
+    private static class Chunk {
+        final byte[] bytes;
+        final int length;
+        final long firstLine;
+
+        Chunk(byte[] bytes, int length, long firstLine) {
+            this.bytes = bytes;
+            this.length = length;
+            this.firstLine = firstLine;
+        }
+    }
+
+    /** Reads the file in blocks and cuts them after the last record boundary (newline outside quotes). */
+    private static class ChunkReader {
+        private final InputStream in;
+        private byte[] carry = new byte[0];
+        private long nextLine = 1;
+        private boolean eof = false;
+
+        ChunkReader(InputStream in) {
+            this.in = in;
+        }
+
+        /** Reads the header record (assumed not to contain quoted line breaks). */
+        String readHeader() throws IOException {
+            Chunk first = next();
+            if (first == null) return null;
+            int end = 0;
+            while (end < first.length && first.bytes[end] != '\n') end++;
+            String header = new String(first.bytes, 0, end, StandardCharsets.UTF_8);
+            if (header.startsWith("\uFEFF")) header = header.substring(1); // UTF-8 BOM
+            if (header.endsWith("\r")) header = header.substring(0, header.length() - 1);
+            // Put the rest back in front of the next block.
+            int restStart = Math.min(first.length, end + 1);
+            byte[] rest = Arrays.copyOfRange(first.bytes, restStart, first.length);
+            byte[] merged = new byte[rest.length + carry.length];
+            System.arraycopy(rest, 0, merged, 0, rest.length);
+            System.arraycopy(carry, 0, merged, rest.length, carry.length);
+            carry = merged;
+            nextLine = 2;
+            return header;
+        }
+
+        Chunk next() throws IOException {
+            while (true) {
+                if (eof) {
+                    if (carry.length == 0) return null;
+                    Chunk last = new Chunk(carry, carry.length, nextLine);
+                    carry = new byte[0];
+                    return last;
+                }
+                byte[] block = new byte[carry.length + READ_BLOCK_BYTES];
+                System.arraycopy(carry, 0, block, 0, carry.length);
+                int filled = carry.length;
+                int n;
+                while (filled < block.length && (n = in.read(block, filled, block.length - filled)) > 0) filled += n;
+                if (filled < block.length) eof = true;
+
+                // Last newline outside quotes; count lines up to it.
+                boolean quoted = false;
+                int cut = -1;
+                long lines = 0;
+                long linesAtCut = 0;
+                for (int i = 0; i < filled; i++) {
+                    byte b = block[i];
+                    if (b == '"') quoted = !quoted;
+                    else if (b == '\n') {
+                        lines++;
+                        if (!quoted) {
+                            cut = i + 1;
+                            linesAtCut = lines;
+                        }
+                    }
+                }
+                if (cut < 0 && !eof) { // one record larger than a block: read more
+                    carry = Arrays.copyOf(block, filled);
+                    continue;
+                }
+                if (eof && cut < filled) cut = filled;
+                Chunk chunk = new Chunk(block, cut, nextLine);
+                nextLine += linesAtCut;
+                carry = Arrays.copyOfRange(block, cut, filled);
+                return chunk;
+            }
+        }
+    }
+
+    /** Minimal RFC 4180 parser over one chunk of text. */
+    static class CsvParser {
+        private final String text;
+        private int pos = 0;
+        private long line;
+        private long recordLine;
+        private int recordStart;
+        private int recordEnd;
+
+        CsvParser(String text, long firstLine) {
+            this.text = text;
+            this.line = firstLine;
+        }
+
+        static List<String> parseRecord(String record) {
+            List<String> fields = new CsvParser(record, 1).next();
+            return fields != null ? fields : new ArrayList<>();
+        }
+
+        static String quote(String value) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+
+        /** Fields of the next record, or null at the end of the text. */
+        List<String> next() {
+            if (pos >= text.length()) return null;
+            recordStart = pos;
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (pos < text.length()) {
+                char ch = text.charAt(pos++);
+                if (quoted) {
+                    if (ch == '"') {
+                        if (pos < text.length() && text.charAt(pos) == '"') {
+                            field.append('"');
+                            pos++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (ch == '\n') line++;
+                        field.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    line++;
+                    recordEnd = pos - 1;
+                    if (recordEnd > recordStart && text.charAt(recordEnd - 1) == '\r') recordEnd--;
+                    fields.add(stripCr(field));
+                    return fields;
+                } else {
+                    field.append(ch);
+                }
+            }
+            recordEnd = pos;
+            fields.add(stripCr(field));
+            return fields;
+        }
+
+        /** The original text of the last record (without its line break). */
+        String raw() {
+            return text.substring(recordStart, recordEnd);
+        }
+
+        /** File line the last record started on. */
+        long line() {
+            return recordLine;
+        }
+
+        private static String stripCr(StringBuilder field) {
+            int n = field.length();
+            if (n > 0 && field.charAt(n - 1) == '\r') field.setLength(n - 1);
+            return field.toString();
+        }
+    }
+
+    /**
+     * Command line: CsvImporter file.csv. Uses the gvei.db.* system properties
+     * for the database (e.g. an embedded one).
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: java service.CsvImporter <file.csv>");
+            return;
+        }
+        try {
+            ImportReport report = new CsvImporter().importFile(new File(args[0]), r -> System.out.println(r));
+            System.out.println(report);
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package service;
+
+/**
+ * CubeRow
+ * -------
+ * One row of a {@link StatsCube} rollup: the labels of the grouped
+ * dimensions and the measures of the offers in that group.
+ */
+public class CubeRow {
+
+    private final String[] labels;
+    private final long offers;
+    private final long approved;
+    private final double totalValue;
+    private final double averageSubsidy;
+    private final double carbonTonnes;
+
+    CubeRow(String[] labels, long offers, long approved, double totalValue, double averageSubsidy, double carbonTonnes) {
+        this.labels = labels;
+        this.offers = offers;
+        this.approved = approved;
+        this.totalValue = totalValue;
+        this.averageSubsidy = averageSubsidy;
+        this.carbonTonnes = carbonTonnes;
+    }
+
+    /** One label per grouped dimension, in the order they were requested. */
+    public String[] getLabels() {
+        return labels;
+    }
+
+    public long getOffers() {
+        return offers;
+    }
+
+    public long getApproved() {
+        return approved;
+    }
+
+    public double getTotalValue() {
+        return totalValue;
+    }
+
+    /** Mean subsidy_percent of the offers in the group (0 when empty). */
+    public double getAverageSubsidy() {
+        return averageSubsidy;
+    }
+
+    /** Estimated CO2 reduction of the approved offers in the group. */
+    public double getCarbonTonnes() {
+        return carbonTonnes;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" / ", labels) + ": " + offers + " offers, " + approved + " approved, "
+                + String.format("$%,.2f, avg subsidy %.1f%%, %.1f t CO2", totalValue, averageSubsidy, carbonTonnes);
+    }
+}
@@ -0,0 +1,86 @@
+package service;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * EligibilityBenchmark
+ * --------------------
+ * Times the eligibility scoring of {@link EligibilityEngine} on synthetic
+ * vehicles under the current policy; no database needed. Reports
+ * single-vehicle latency, the compiled policy against the tree-walking
+ * interpreter on one core, and fork/join throughput:
+ *   java -cp ... service.EligibilityBenchmark [N]     N vehicles (default 1,000,000)
+ */
+public class EligibilityBenchmark {
+
+    private static void run(int n) {
+        Random random = new Random(42);
+        String[] fuels = new String[n];
+        String[] types = new String[n];
+        int[] years = new int[n];
+        double[] mileages = new double[n];
+        VehicleColumns vehicles = new VehicleColumns(n);
+        for (int i = 0; i < n; i++) {
+            fuels[i] = VehicleRules.FUEL_TYPES[random.nextInt(VehicleRules.FUEL_TYPES.length)];
+            types[i] = VehicleRules.VEHICLE_TYPES[random.nextInt(VehicleRules.VEHICLE_TYPES.length)];
+            years[i] = VehicleRules.MIN_YEAR + random.nextInt(VehicleRules.MAX_YEAR - VehicleRules.MIN_YEAR + 1);
+            mileages[i] = random.nextInt(400_000);
+            vehicles.add(i + 1, i + 1, fuels[i], types[i], years[i], mileages[i]);
+        }
+        EligibilityPolicy policy = EligibilityPolicy.current();
+        int currentYear = EligibilityPolicy.currentYear();
+        System.out.println("Policy: " + policy.getName() + ", " + String.format("%,d", n) + " vehicles");
+
+        // Single vehicle, through the String-based API the citizen form uses
+        int calls = Math.max(n, 1_000_000);
+        double sink = 0;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            for (int c = 0; c < calls; c++) {
+                int i = c % n;
+                sink += EligibilityEngine.evaluate(fuels[i], types[i], years[i], mileages[i], currentYear).getExchangeValue();
+            }
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        System.out.printf("Single vehicle (compiled): %.1f ns/call%n", (double) best / calls);
+
+        // Compiled vs interpreted, one core
+        long bestInterpreted = Long.MAX_VALUE;
+        double interpretedTotal = 0;
+        for (int round = 0; round < 3; round++) {
+            long t0 = System.nanoTime();
+            interpretedTotal = 0;
+            for (int i = 0; i < n; i++) {
+                interpretedTotal += policy.interpret(fuels[i], types[i], years[i], mileages[i], currentYear).getExchangeValue();
+            }
+            bestInterpreted = Math.min(bestInterpreted, System.nanoTime() - t0);
+        }
+        FleetScores scores = new FleetScores(vehicles, new boolean[n], new double[n], new double[n], currentYear, policy);
+        long bestCompiled = Long.MAX_VALUE;
+        long bestParallel = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            long t0 = System.nanoTime();
+            EligibilityEngine.scoreRange(policy, vehicles, scores, 0, n);
+            long t1 = System.nanoTime();
+            sink += EligibilityEngine.score(policy, vehicles, currentYear).getExchangeValue(round % n);
+            long t2 = System.nanoTime();
+            bestCompiled = Math.min(bestCompiled, t1 - t0);
+            bestParallel = Math.min(bestParallel, t2 - t1);
+        }
+        System.out.printf("Fleet, interpreted: %.2f ms (%,.0f vehicles/s)%n",
+                bestInterpreted / 1e6, n / (bestInterpreted / 1e9));
+        System.out.printf("Fleet, compiled:    %.2f ms (%,.0f vehicles/s), %.1fx faster, totals %s%n",
+                bestCompiled / 1e6, n / (bestCompiled / 1e9), (double) bestInterpreted / bestCompiled,
+                scores.getTotalValue() == interpretedTotal ? "match" : "DIFFER");
+        System.out.printf("Fleet, fork/join:   %.2f ms (%,.0f vehicles/s) on %d cores%n",
+                bestParallel / 1e6, n / (bestParallel / 1e9), ForkJoinPool.commonPool().getParallelism() + 1);
+        // Printing the sum of every result keeps the JIT from dropping the timed calls as dead code.
+        System.out.printf("Checksum: %,.2f%n", sink);
+    }
+
+    public static void main(String[] args) {
+        run(args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000);
+    }
+}
@@ -0,0 +1,279 @@
+package service;
+
+import db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * EligibilityEngine
+ * -----------------
+ * Evaluates the current {@link EligibilityPolicy} without any UI or
+ * database state:
+ *  - {@link #evaluate} scores one vehicle (the citizen eligibility check),
+ *  - {@link #score} scores {@link VehicleColumns} with fork/join, split
+ *    into ranges of SPLIT_THRESHOLD vehicles,
+ *  - {@link #scoreFleet} loads every vehicle as columns, scores them and
+ *    writes the results to the vehicle_eligibility table with multi-row
+ *    upserts. {@link EligibilityIndex} serves lookups from that table.
+ *
+ * Fuel and vehicle types are coded by the policy, so the scoring loop
+ * never touches a String.
+ */
+public class EligibilityEngine {
+
+    private static final int SPLIT_THRESHOLD = 16_384;
+    private static final int ROWS_PER_UPSERT = 1000;
+    private static final int UPSERTS_PER_COMMIT = 10;
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS vehicle_eligibility ("
+            + "vehicle_id INT NOT NULL PRIMARY KEY, "
+            + "owner_id INT NOT NULL, "
+            + "eligible BOOLEAN NOT NULL, "
+            + "exchange_value DOUBLE NOT NULL, "
+            + "subsidy_percent DOUBLE NOT NULL, "
+            + "policy_year INT NOT NULL, "
+            + "policy_hash BIGINT NOT NULL, "
+            + "computed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "FOREIGN KEY (vehicle_id) REFERENCES vehicles (vehicle_id) ON DELETE CASCADE)";
+    private static final String LOAD_SQL =
+            "SELECT vehicle_id, owner_id, fuel_type, vehicle_type, year, mileage FROM vehicles ORDER BY vehicle_id";
+    private static final String UPSERT_COLUMNS = "vehicle_eligibility (vehicle_id, owner_id, eligible, exchange_value, "
+            + "subsidy_percent, policy_year, policy_hash, computed_at)";
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    private static volatile boolean hashWidened = false;
+
+    private EligibilityEngine() {
+    }
+
+    // --- Single vehicle ---
+
+    /** Eligibility, value and subsidy of one vehicle under the current policy. */
+    public static EligibilityResult evaluate(String fuelType, String vehicleType, int year, double mileage, int currentYear) {
+        return EligibilityPolicy.current().evaluate(fuelType, vehicleType, year, mileage, currentYear);
+    }
+
+    // --- Batch scoring ---
+
+    /**
+     * Scores all the vehicles with the policy, in parallel on the common
+     * pool (on the calling thread when there are only a few).
+     */
+    public static FleetScores score(EligibilityPolicy policy, VehicleColumns vehicles, int currentYear) {
+        int n = vehicles.size();
+        FleetScores scores = new FleetScores(vehicles, new boolean[n], new double[n], new double[n], currentYear, policy);
+        if (n <= SPLIT_THRESHOLD) scoreRange(policy, vehicles, scores, 0, n);
+        else ForkJoinPool.commonPool().invoke(new ScoreTask(policy, vehicles, scores, 0, n));
+        return scores;
+    }
+
+    private static class ScoreTask extends RecursiveAction {
+        private final EligibilityPolicy policy;
+        private final VehicleColumns vehicles;
+        private final FleetScores scores;
+        private final int from;
+        private final int to;
+
+        ScoreTask(EligibilityPolicy policy, VehicleColumns vehicles, FleetScores scores, int from, int to) {
+            this.policy = policy;
+            this.vehicles = vehicles;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                scoreRange(policy, vehicles, scores, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(policy, vehicles, scores, from, mid), new ScoreTask(policy, vehicles, scores, mid, to));
+        }
+    }
+
+    static void scoreRange(EligibilityPolicy policy, VehicleColumns v, FleetScores scores, int from, int to) {
+        int currentYear = scores.getCurrentYear();
+        boolean[] eligible = scores.eligible;
+        double[] values = scores.exchangeValues;
+        double[] subsidies = scores.subsidyPercents;
+        for (int i = from; i < to; i++) {
+            int fuel = v.fuelCodes[i];
+            int type = v.typeCodes[i];
+            int year = v.years[i];
+            int age = currentYear - year;
+            double mileage = v.mileages[i];
+            boolean ok = policy.isEligible(fuel, type, year, age, mileage);
+            eligible[i] = ok;
+            values[i] = ok ? policy.exchangeValue(fuel, type, year, age, mileage) : 0;
+            subsidies[i] = ok ? policy.subsidyPercent(fuel, type, year, age, mileage) : 0;
+        }
+    }
+
+    // --- Whole fleet ---
+
+    /**
+     * Scores every registered vehicle under the current policy and, when
+     * write is set, upserts the results into vehicle_eligibility. Blocking;
+     * call it off the EDT.
+     */
+    public static FleetScores scoreFleet(boolean write) throws SQLException {
+        EligibilityPolicy policy = EligibilityPolicy.current();
+        int currentYear = EligibilityPolicy.currentYear();
+        long start = System.nanoTime();
+
+        VehicleColumns vehicles = new VehicleColumns(1024);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(LOAD_SQL)) {
+            DBConnection.enableStreaming(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    vehicles.add(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getString(4), rs.getInt(5), rs.getDouble(6));
+                }
+            }
+        }
+        long loaded = System.nanoTime();
+
+        FleetScores scores = score(policy, vehicles, currentYear);
+        long scored = System.nanoTime();
+        scores.loadMillis = (loaded - start) / 1_000_000;
+        scores.scoreMillis = (scored - loaded) / 1_000_000;
+
+        if (write) {
+            writeScores(scores);
+            scores.writeMillis = (System.nanoTime() - scored) / 1_000_000;
+        }
+        return scores;
+    }
+
+    /**
+     * Upserts the scores into vehicle_eligibility, ROWS_PER_UPSERT rows per
+     * statement, committing every UPSERTS_PER_COMMIT statements.
+     */
+    public static void writeScores(FleetScores scores) throws SQLException {
+        ensureTable();
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                upsert(conn, scores, true);
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Writes the scores on the caller's connection. With intermediateCommits
+     * it commits every UPSERTS_PER_COMMIT statements, otherwise all rows
+     * stay in the caller's transaction.
+     */
+    static void upsert(Connection conn, FleetScores scores, boolean intermediateCommits) throws SQLException {
+        boolean mysql = DBConnection.isMySql(conn);
+        int i = 0;
+        if (scores.size() >= ROWS_PER_UPSERT) {
+            try (PreparedStatement full = conn.prepareStatement(upsertSql(mysql, ROWS_PER_UPSERT))) {
+                int statements = 0;
+                for (; i + ROWS_PER_UPSERT <= scores.size(); i += ROWS_PER_UPSERT) {
+                    bind(full, scores, i, ROWS_PER_UPSERT);
+                    full.executeUpdate();
+                    if (intermediateCommits && ++statements % UPSERTS_PER_COMMIT == 0) conn.commit();
+                }
+            }
+        }
+        if (i < scores.size()) {
+            try (PreparedStatement rest = conn.prepareStatement(upsertSql(mysql, scores.size() - i))) {
+                bind(rest, scores, i, scores.size() - i);
+                rest.executeUpdate();
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, FleetScores scores, int from, int rows) throws SQLException {
+        int p = 1;
+        for (int i = from; i < from + rows; i++) {
+            ps.setInt(p++, scores.getVehicleId(i));
+            ps.setInt(p++, scores.getOwnerId(i));
+            ps.setBoolean(p++, scores.isEligible(i));
+            ps.setDouble(p++, scores.getExchangeValue(i));
+            ps.setDouble(p++, scores.getSubsidyPercent(i));
+            ps.setInt(p++, scores.getCurrentYear());
+            ps.setLong(p++, scores.getPolicyFingerprint());
+        }
+    }
+
+    // MySQL upserts with ON DUPLICATE KEY UPDATE; H2 and others use MERGE ... KEY.
+    private static String upsertSql(boolean mysql, int rows) {
+        StringBuilder sql = new StringBuilder(mysql ? "INSERT INTO " : "MERGE INTO ").append(UPSERT_COLUMNS);
+        if (!mysql) sql.append(" KEY (vehicle_id)");
+        sql.append(" VALUES ");
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) sql.append(", ");
+            sql.append(UPSERT_ROW);
+        }
+        if (mysql) {
+            sql.append(" ON DUPLICATE KEY UPDATE owner_id = VALUES(owner_id), eligible = VALUES(eligible), "
+                    + "exchange_value = VALUES(exchange_value), subsidy_percent = VALUES(subsidy_percent), "
+                    + "policy_year = VALUES(policy_year), policy_hash = VALUES(policy_hash), "
+                    + "computed_at = VALUES(computed_at)");
+        }
+        return sql.toString();
+    }
+
+    static void ensureTable() throws SQLException {
+        DBConnection.ensureTable(CREATE_SQL);
+        if (!hashWidened) widenPolicyHash();
+    }
+
+    // Tables created before the 64-bit policy fingerprint have an INT policy_hash column.
+    private static synchronized void widenPolicyHash() throws SQLException {
+        if (hashWidened) return;
+        try (Connection conn = DBConnection.getConnection()) {
+            int type;
+            try (PreparedStatement ps = conn.prepareStatement("SELECT policy_hash FROM vehicle_eligibility WHERE 1 = 0");
+                 ResultSet rs = ps.executeQuery()) {
+                type = rs.getMetaData().getColumnType(1);
+            }
+            if (type != Types.BIGINT) {
+                try (PreparedStatement ps = conn.prepareStatement(DBConnection.isMySql(conn)
+                        ? "ALTER TABLE vehicle_eligibility MODIFY policy_hash BIGINT NOT NULL"
+                        : "ALTER TABLE vehicle_eligibility ALTER COLUMN policy_hash BIGINT NOT NULL")) {
+                    ps.executeUpdate();
+                }
+                System.err.println("vehicle_eligibility.policy_hash widened to BIGINT; its rows will be rebuilt.");
+            }
+        }
+        hashWidened = true;
+    }
+
+    // --- Benchmark ---
+
+    /**
+     * Command line:
+     *   java -cp ... service.EligibilityEngine            scores all vehicles and writes vehicle_eligibility
+     *   java -cp ... service.EligibilityEngine --dry-run  scores without writing
+     *
+     * The scoring benchmark is {@link EligibilityBenchmark}.
+     */
+    public static void main(String[] args) throws SQLException {
+        boolean write = true;
+        for (String arg : args) {
+            if (arg.equals("--dry-run")) write = false;
+        }
+        try {
+            System.out.println(scoreFleet(write));
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package service;
+
+import db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EligibilityIndex
+ * ----------------
+ * Answers a citizen's eligibility check from the materialized
+ * vehicle_eligibility table with one primary-key lookup, instead of
+ * reading the vehicle and evaluating the policy on every click:
+ *  - {@link EligibilityEngine#scoreFleet} fills the table in bulk,
+ *  - {@link #vehicleSaved} refreshes a vehicle's row in the transaction
+ *    that inserts or updates the vehicle (deletes cascade),
+ *  - a row computed for another year or under another policy is stale;
+ *    {@link #lookup} then evaluates the vehicle live and writes the fresh
+ *    row back. Vehicles without a row (e.g. from a CSV import) take the
+ *    same path,
+ *  - {@link #startMaintenance} periodically looks for stale or missing
+ *    rows and rebuilds the table in bulk, so after the year rollover or a
+ *    policy change lookups are hits again.
+ */
+public class EligibilityIndex {
+
+    private static final EligibilityIndex SHARED = new EligibilityIndex();
+
+    private static final String LOOKUP_SQL = "SELECT owner_id, eligible, exchange_value, subsidy_percent, "
+            + "policy_year, policy_hash FROM vehicle_eligibility WHERE vehicle_id = ?";
+    private static final String VEHICLE_SQL =
+            "SELECT owner_id, fuel_type, vehicle_type, year, mileage FROM vehicles WHERE vehicle_id = ?";
+    private static final String STALE_SQL = "SELECT COUNT(*) FROM vehicles v "
+            + "LEFT JOIN vehicle_eligibility e ON e.vehicle_id = v.vehicle_id "
+            + "WHERE e.vehicle_id IS NULL OR e.policy_year <> ? OR e.policy_hash <> ?";
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong liveLookups = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    public static EligibilityIndex shared() {
+        return SHARED;
+    }
+
+    // --- Lookups ---
+
+    /**
+     * Eligibility of one vehicle under the current policy, or null if the
+     * vehicle does not exist. Blocking; call it off the EDT.
+     */
+    public VehicleEligibility lookup(int vehicleId) throws SQLException {
+        EligibilityPolicy policy = EligibilityPolicy.current();
+        int currentYear = EligibilityPolicy.currentYear();
+        EligibilityEngine.ensureTable();
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(LOOKUP_SQL)) {
+                ps.setInt(1, vehicleId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getInt("policy_year") == currentYear
+                            && rs.getLong("policy_hash") == policy.getFingerprint()) {
+                        hits.incrementAndGet();
+                        return new VehicleEligibility(vehicleId, rs.getInt("owner_id"), rs.getBoolean("eligible"),
+                                rs.getDouble("exchange_value"), rs.getDouble("subsidy_percent"), false);
+                    }
+                }
+            }
+            liveLookups.incrementAndGet();
+            return computeLive(conn, vehicleId, policy, currentYear);
+        }
+    }
+
+    // Missing or stale row: evaluate from the vehicle itself and write the row back for the next lookup.
+    private static VehicleEligibility computeLive(Connection conn, int vehicleId, EligibilityPolicy policy,
+                                                  int currentYear) throws SQLException {
+        VehicleColumns vehicle = new VehicleColumns(1);
+        try (PreparedStatement ps = conn.prepareStatement(VEHICLE_SQL)) {
+            ps.setInt(1, vehicleId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                vehicle.add(vehicleId, rs.getInt("owner_id"), rs.getString("fuel_type"), rs.getString("vehicle_type"),
+                        rs.getInt("year"), rs.getDouble("mileage"));
+            }
+        }
+        FleetScores scores = EligibilityEngine.score(policy, vehicle, currentYear);
+        try {
+            EligibilityEngine.upsert(conn, scores, false);
+        } catch (SQLException ex) {
+            // The answer is still right; the next lookup just computes it again.
+            System.err.println("Could not refresh eligibility of vehicle " + vehicleId + ": " + ex.getMessage());
+        }
+        return new VehicleEligibility(vehicleId, scores.getOwnerId(0), scores.isEligible(0),
+                scores.getExchangeValue(0), scores.getSubsidyPercent(0), true);
+    }
+
+    // --- Incremental refresh ---
+
+    /**
+     * Creates the index table if needed. Call it before opening a
+     * transaction that will call {@link #vehicleSaved}: on MySQL, creating
+     * the table (it references vehicles) would wait for that transaction.
+     */
+    public void prepare() throws SQLException {
+        EligibilityEngine.ensureTable();
+    }
+
+    /**
+     * Recomputes a vehicle's row on the caller's connection, inside the
+     * transaction that inserted or updated the vehicle, so the index never
+     * disagrees with a committed vehicle.
+     */
+    public void vehicleSaved(Connection conn, int vehicleId, int ownerId, String vehicleType, String fuelType,
+                             int year, double mileage) throws SQLException {
+        VehicleColumns vehicle = new VehicleColumns(1);
+        vehicle.add(vehicleId, ownerId, fuelType, vehicleType, year, mileage);
+        EligibilityEngine.upsert(conn, EligibilityEngine.score(EligibilityPolicy.current(), vehicle,
+                EligibilityPolicy.currentYear()), false);
+    }
+
+    // --- Bulk maintenance ---
+
+    /** Number of vehicles whose row is missing or stale. */
+    public long countStale() throws SQLException {
+        EligibilityEngine.ensureTable();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(STALE_SQL)) {
+            ps.setInt(1, EligibilityPolicy.currentYear());
+            ps.setLong(2, EligibilityPolicy.current().getFingerprint());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /** Rebuilds the whole table if any row is missing or stale; returns the new scores, or null. */
+    public FleetScores rebuildIfStale() throws SQLException {
+        long stale = countStale();
+        if (stale == 0) return null;
+        FleetScores scores = EligibilityEngine.scoreFleet(true);
+        System.err.println("Eligibility index rebuilt (" + stale + " stale rows): " + scores);
+        return scores;
+    }
+
+    /** Runs {@link #rebuildIfStale()} now and then every periodMinutes on a daemon thread. */
+    public synchronized void startMaintenance(long periodMinutes) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gvei-eligibility-index");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rebuildIfStale();
+            } catch (SQLException ex) {
+                System.err.println("Eligibility index maintenance failed: " + ex.getMessage());
+            }
+        }, 0, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    /** Lookups answered from the index since startup. */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** Lookups that had to be computed live since startup. */
+    public long getLiveLookups() {
+        return liveLookups.get();
+    }
+
+    /**
+     * Command line:
+     *   java -cp ... service.EligibilityIndex              rebuilds the index if it is stale
+     *   java -cp ... service.EligibilityIndex 12 15 ...    looks up the given vehicles
+     */
+    public static void main(String[] args) throws SQLException {
+        try {
+            if (args.length == 0) {
+                FleetScores scores = shared().rebuildIfStale();
+                System.out.println(scores == null ? "Eligibility index is up to date." : scores.toString());
+                return;
+            }
+            for (String arg : args) {
+                VehicleEligibility result = shared().lookup(Integer.parseInt(arg));
+                System.out.println(result == null ? "Vehicle " + arg + " not found." : result.toString());
+            }
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
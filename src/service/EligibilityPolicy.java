@@ -0,0 +1,266 @@
+package service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EligibilityPolicy
+ * -----------------
+ * The exchange programme's eligibility, valuation and subsidy rules, shared
+ * by the citizen eligibility check, the batch {@link EligibilityEngine} and
+ * the adjudication rules. The rules are read from a policy file
+ * (-Dgvei.policy.file, default config/eligibility.policy) and compiled by
+ * {@link PolicyCompiler}; without a file the built-in DEFAULT_SOURCE
+ * applies. {@link #current()} notices when the file changes and swaps in
+ * the recompiled policy, so edits take effect without a restart. A file
+ * that does not compile is reported and the previous policy stays.
+ *
+ * Policy language, one statement per line, '#' starts a comment:
+ *
+ *   eligible: fuel in (Petrol, Diesel) and age > 5
+ *   value: max(500, 10000 - 800 * age)
+ *   subsidy when type in (Bus, Truck): 25
+ *   subsidy: 20
+ *
+ *  - eligible: a condition. Conditions compare expressions
+ *    (&lt; &lt;= &gt; &gt;= = !=), test fuel / type with "in (...)", "=" or "!=",
+ *    and combine with and, or, not and parentheses.
+ *  - value / subsidy: an expression over age, year, mileage and numbers
+ *    with + - * /, parentheses, max(a, b) and min(a, b). Rules with
+ *    "when condition" are tried in file order; the first that matches
+ *    wins, else the default rule (without "when") applies.
+ * Value and subsidy are 0 for vehicles that are not eligible.
+ */
+public final class EligibilityPolicy {
+
+    public static final String DEFAULT_SOURCE = String.join("\n",
+            "eligible: fuel in (Petrol, Diesel) and age > 5",
+            "value: max(500, 10000 - 800 * age)",
+            "subsidy: 20");
+
+    private static final String POLICY_FILE = System.getProperty("gvei.policy.file", "config/eligibility.policy");
+
+    // Look at the policy file's timestamp at most this often.
+    private static final long RECHECK_MS = 2000;
+
+    private static volatile EligibilityPolicy current;
+    private static volatile long checkedAt = 0;
+    private static long loadedStamp = 0;
+
+    private final String name;
+    private final long fingerprint;
+    private final PolicyCompiler.Parsed tree;
+    private final PolicyCompiler.VehicleTest eligible;
+    private final PolicyCompiler.VehicleTest[] valueWhen;
+    private final PolicyCompiler.VehicleValue[] valueThen;
+    private final PolicyCompiler.VehicleValue valueDefault;
+    private final PolicyCompiler.VehicleTest[] subsidyWhen;
+    private final PolicyCompiler.VehicleValue[] subsidyThen;
+    private final PolicyCompiler.VehicleValue subsidyDefault;
+
+    private EligibilityPolicy(String name, PolicyCompiler.Parsed tree) {
+        this.name = name;
+        this.fingerprint = fingerprint(tree.canonical());
+        this.tree = tree;
+        this.eligible = tree.eligible.compile();
+
+        List<PolicyCompiler.Rule> values = tree.valueRules;
+        this.valueWhen = new PolicyCompiler.VehicleTest[values.size() - 1];
+        this.valueThen = new PolicyCompiler.VehicleValue[values.size() - 1];
+        this.valueDefault = compileRules(values, valueWhen, valueThen);
+
+        List<PolicyCompiler.Rule> subsidies = tree.subsidyRules;
+        this.subsidyWhen = new PolicyCompiler.VehicleTest[subsidies.size() - 1];
+        this.subsidyThen = new PolicyCompiler.VehicleValue[subsidies.size() - 1];
+        this.subsidyDefault = compileRules(subsidies, subsidyWhen, subsidyThen);
+    }
+
+    // Fills the conditional rules in order and returns the default one.
+    private static PolicyCompiler.VehicleValue compileRules(List<PolicyCompiler.Rule> rules,
+                                                            PolicyCompiler.VehicleTest[] when,
+                                                            PolicyCompiler.VehicleValue[] then) {
+        PolicyCompiler.VehicleValue fallback = null;
+        int i = 0;
+        for (PolicyCompiler.Rule rule : rules) {
+            if (rule.when == null) {
+                fallback = rule.then.compile();
+            } else {
+                when[i] = rule.when.compile();
+                then[i++] = rule.then.compile();
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Compiles policy source text. Throws IllegalArgumentException with the
+     * line and the problem when it is not valid.
+     */
+    public static EligibilityPolicy compile(String source, String name) {
+        return new EligibilityPolicy(name, PolicyCompiler.parse(source));
+    }
+
+    // First 64 bits of the SHA-256 of the canonical rules.
+    private static long fingerprint(String canonical) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            long fingerprint = 0;
+            for (int i = 0; i < 8; i++) fingerprint = (fingerprint << 8) | (digest[i] & 0xFF);
+            return fingerprint;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex);
+        }
+    }
+
+    // --- Current policy ---
+
+    /** The policy in force, reloaded if the policy file changed. */
+    public static EligibilityPolicy current() {
+        if (current == null || System.currentTimeMillis() - checkedAt >= RECHECK_MS) reloadIfChanged();
+        return current;
+    }
+
+    private static synchronized void reloadIfChanged() {
+        long now = System.currentTimeMillis();
+        if (current != null && now - checkedAt < RECHECK_MS) return;
+        checkedAt = now;
+
+        File file = new File(POLICY_FILE);
+        long stamp = file.isFile() ? file.lastModified() * 31 + file.length() : -1;
+        if (current != null && stamp == loadedStamp) return;
+        loadedStamp = stamp;
+
+        if (stamp == -1) {
+            if (current != null) System.err.println("Policy file " + file + " is gone; using the built-in policy.");
+            current = compile(DEFAULT_SOURCE, "built-in");
+            return;
+        }
+        try {
+            EligibilityPolicy loaded = compile(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+                    file.getName());
+            if (current != null) System.err.println("Exchange policy reloaded from " + file + ".");
+            current = loaded;
+        } catch (IOException | IllegalArgumentException ex) {
+            System.err.println("Policy file " + file + " not loaded: " + ex.getMessage()
+                    + (current != null ? " Keeping the " + current.name + " policy." : " Using the built-in policy."));
+            if (current == null) current = compile(DEFAULT_SOURCE, "built-in");
+        }
+    }
+
+    public static int currentYear() {
+        return java.time.Year.now().getValue();
+    }
+
+    /** The code of a fuel type for the compiled evaluators, or -1 if unknown. */
+    public static byte fuelCode(String fuelType) {
+        return code(VehicleRules.FUEL_TYPES, fuelType);
+    }
+
+    /** The code of a vehicle type for the compiled evaluators, or -1 if unknown. */
+    public static byte typeCode(String vehicleType) {
+        return code(VehicleRules.VEHICLE_TYPES, vehicleType);
+    }
+
+    private static byte code(String[] values, String text) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equalsIgnoreCase(text)) return (byte) i;
+        }
+        return -1;
+    }
+
+    // --- Evaluation ---
+
+    public boolean isEligible(int fuel, int type, int year, int age, double mileage) {
+        return eligible.test(fuel, type, year, age, mileage);
+    }
+
+    /** The value rule's result, whether or not the vehicle is eligible. */
+    public double exchangeValue(int fuel, int type, int year, int age, double mileage) {
+        for (int i = 0; i < valueWhen.length; i++) {
+            if (valueWhen[i].test(fuel, type, year, age, mileage)) return valueThen[i].apply(fuel, type, year, age, mileage);
+        }
+        return valueDefault.apply(fuel, type, year, age, mileage);
+    }
+
+    /** The subsidy rule's result, whether or not the vehicle is eligible. */
+    public double subsidyPercent(int fuel, int type, int year, int age, double mileage) {
+        for (int i = 0; i < subsidyWhen.length; i++) {
+            if (subsidyWhen[i].test(fuel, type, year, age, mileage)) return subsidyThen[i].apply(fuel, type, year, age, mileage);
+        }
+        return subsidyDefault.apply(fuel, type, year, age, mileage);
+    }
+
+    /** Eligibility, value and subsidy of one vehicle in the given year. */
+    public EligibilityResult evaluate(String fuelType, String vehicleType, int year, double mileage, int currentYear) {
+        int fuel = fuelCode(fuelType);
+        int type = typeCode(vehicleType);
+        int age = currentYear - year;
+        if (!isEligible(fuel, type, year, age, mileage)) return new EligibilityResult(false, age, 0, 0);
+        return new EligibilityResult(true, age,
+                exchangeValue(fuel, type, year, age, mileage), subsidyPercent(fuel, type, year, age, mileage));
+    }
+
+    /** Whether the offer's vehicle is eligible in the given year. */
+    public boolean isEligible(OfferFacts o, int currentYear) {
+        return isEligible(fuelCode(o.getFuelType()), typeCode(o.getVehicleType()), o.getYear(), o.ageIn(currentYear), o.getMileage());
+    }
+
+    public double exchangeValue(OfferFacts o, int currentYear) {
+        return exchangeValue(fuelCode(o.getFuelType()), typeCode(o.getVehicleType()), o.getYear(), o.ageIn(currentYear), o.getMileage());
+    }
+
+    public double subsidyPercent(OfferFacts o, int currentYear) {
+        return subsidyPercent(fuelCode(o.getFuelType()), typeCode(o.getVehicleType()), o.getYear(), o.ageIn(currentYear), o.getMileage());
+    }
+
+    /**
+     * Same as {@link #evaluate}, but walks the syntax tree with the
+     * vehicle's attributes in a map. Only kept as the benchmark baseline.
+     */
+    EligibilityResult interpret(String fuelType, String vehicleType, int year, double mileage, int currentYear) {
+        int age = currentYear - year;
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("fuel", fuelType);
+        vars.put("type", vehicleType);
+        vars.put("year", year);
+        vars.put("age", age);
+        vars.put("mileage", mileage);
+        if (!tree.eligible.interpret(vars)) return new EligibilityResult(false, age, 0, 0);
+        return new EligibilityResult(true, age, interpretRules(tree.valueRules, vars), interpretRules(tree.subsidyRules, vars));
+    }
+
+    private static double interpretRules(List<PolicyCompiler.Rule> rules, Map<String, Object> vars) {
+        PolicyCompiler.Rule fallback = null;
+        for (PolicyCompiler.Rule rule : rules) {
+            if (rule.when == null) fallback = rule;
+            else if (rule.when.interpret(vars)) return rule.then.interpret(vars);
+        }
+        return fallback.then.interpret(vars);
+    }
+
+    /** Where the policy came from: the file name, or "built-in". */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Hash of the compiled rules (not of the file text, so comment and
+     * layout edits keep it). Stored with materialized results, so rows
+     * computed under another policy are recognised as stale.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public String toString() {
+        return name + " policy";
+    }
+}
@@ -0,0 +1,46 @@
+package service;
+
+/**
+ * EligibilityResult
+ * -----------------
+ * Eligibility and valuation of one vehicle under {@link EligibilityPolicy},
+ * as computed by {@link EligibilityEngine#evaluate}. Value and subsidy are
+ * 0 when the vehicle is not eligible.
+ */
+public class EligibilityResult {
+
+    private final boolean eligible;
+    private final int age;
+    private final double exchangeValue;
+    private final double subsidyPercent;
+
+    public EligibilityResult(boolean eligible, int age, double exchangeValue, double subsidyPercent) {
+        this.eligible = eligible;
+        this.age = age;
+        this.exchangeValue = exchangeValue;
+        this.subsidyPercent = subsidyPercent;
+    }
+
+    public boolean isEligible() {
+        return eligible;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public double getExchangeValue() {
+        return exchangeValue;
+    }
+
+    public double getSubsidyPercent() {
+        return subsidyPercent;
+    }
+
+    @Override
+    public String toString() {
+        return eligible
+                ? String.format("eligible, age %d, value %.2f, subsidy %.2f%%", age, exchangeValue, subsidyPercent)
+                : "not eligible, age " + age;
+    }
+}
@@ -0,0 +1,97 @@
+package service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ExchangeSubmission
+ * ------------------
+ * One citizen's application for an exchange, as accepted by
+ * {@link SubmissionQueue#submit}. The idempotency key identifies the
+ * application: submitting the same key again (a double click, a retry after
+ * an error) returns the original submission instead of a second one.
+ *
+ * The status starts as QUEUED once the submission is in the local journal
+ * and moves to SAVED, DUPLICATE or FAILED when the queue has flushed it;
+ * {@link #outcome()} completes at that point.
+ */
+public class ExchangeSubmission {
+
+    public enum Status { QUEUED, SAVED, DUPLICATE, FAILED }
+
+    private final String key;
+    private final int userId;
+    private final int vehicleId;
+    private final double exchangeValue;
+    private final double subsidyPercent;
+    private final long submittedAt;
+    private volatile Status status;
+    private volatile String message;
+    private final CompletableFuture<ExchangeSubmission> outcome = new CompletableFuture<>();
+
+    ExchangeSubmission(String key, int userId, int vehicleId, double exchangeValue, double subsidyPercent,
+                       long submittedAt) {
+        this.key = key;
+        this.userId = userId;
+        this.vehicleId = vehicleId;
+        this.exchangeValue = exchangeValue;
+        this.subsidyPercent = subsidyPercent;
+        this.submittedAt = submittedAt;
+        this.status = Status.QUEUED;
+    }
+
+    // Final status; completes the outcome.
+    void finish(Status status, String message) {
+        this.status = status;
+        this.message = message;
+        outcome.complete(this);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /** First characters of the key, short enough to show the citizen as a reference. */
+    public String getReference() {
+        return key.length() <= 8 ? key : key.substring(0, 8);
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getVehicleId() {
+        return vehicleId;
+    }
+
+    public double getExchangeValue() {
+        return exchangeValue;
+    }
+
+    public double getSubsidyPercent() {
+        return subsidyPercent;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /** Why the submission was not saved (null while queued or once saved). */
+    public String getMessage() {
+        return message;
+    }
+
+    /** Completes with this submission once it is SAVED, DUPLICATE or FAILED. */
+    public CompletableFuture<ExchangeSubmission> outcome() {
+        return outcome;
+    }
+
+    @Override
+    public String toString() {
+        return "Application " + getReference() + " for vehicle " + vehicleId + ": " + status
+                + (message == null ? "" : " (" + message + ")");
+    }
+}
@@ -0,0 +1,109 @@
+package service;
+
+/**
+ * FleetScores
+ * -----------
+ * Eligibility and valuation of every vehicle in the registry, produced by
+ * {@link EligibilityEngine#scoreFleet}. Kept as parallel primitive columns
+ * indexed by position, like the {@link VehicleColumns} they were scored
+ * from, not one object per vehicle.
+ */
+public class FleetScores {
+
+    private final VehicleColumns vehicles;
+    final boolean[] eligible;         // filled in by EligibilityEngine
+    final double[] exchangeValues;
+    final double[] subsidyPercents;
+    private final int currentYear;
+    private final String policyName;
+    private final long policyFingerprint;
+    long loadMillis;
+    long scoreMillis;
+    long writeMillis;
+
+    FleetScores(VehicleColumns vehicles, boolean[] eligible, double[] exchangeValues, double[] subsidyPercents,
+                int currentYear, EligibilityPolicy policy) {
+        this.vehicles = vehicles;
+        this.eligible = eligible;
+        this.exchangeValues = exchangeValues;
+        this.subsidyPercents = subsidyPercents;
+        this.currentYear = currentYear;
+        this.policyName = policy.getName();
+        this.policyFingerprint = policy.getFingerprint();
+    }
+
+    public int size() {
+        return vehicles.size();
+    }
+
+    public int getVehicleId(int index) {
+        return vehicles.getVehicleId(index);
+    }
+
+    public int getOwnerId(int index) {
+        return vehicles.getOwnerId(index);
+    }
+
+    public boolean isEligible(int index) {
+        return eligible[index];
+    }
+
+    /** Exchange value of the vehicle at index, 0 when not eligible. */
+    public double getExchangeValue(int index) {
+        return exchangeValues[index];
+    }
+
+    /** Subsidy of the vehicle at index, 0 when not eligible. */
+    public double getSubsidyPercent(int index) {
+        return subsidyPercents[index];
+    }
+
+    /** The year the ages were computed against. */
+    public int getCurrentYear() {
+        return currentYear;
+    }
+
+    /** Name of the {@link EligibilityPolicy} the vehicles were scored with. */
+    public String getPolicyName() {
+        return policyName;
+    }
+
+    /** {@link EligibilityPolicy#getFingerprint()} of that policy. */
+    public long getPolicyFingerprint() {
+        return policyFingerprint;
+    }
+
+    public int getEligibleCount() {
+        int n = 0;
+        for (int i = 0; i < size(); i++) {
+            if (eligible[i]) n++;
+        }
+        return n;
+    }
+
+    public double getTotalValue() {
+        double total = 0;
+        for (int i = 0; i < size(); i++) total += exchangeValues[i];
+        return total;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    public long getScoreMillis() {
+        return scoreMillis;
+    }
+
+    /** Time spent writing the results back (0 if they were not written). */
+    public long getWriteMillis() {
+        return writeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d vehicles scored under the %s policy, %,d eligible, total exchange value $%,.2f "
+                        + "(load %d ms, score %d ms, write %d ms)",
+                size(), policyName, getEligibleCount(), getTotalValue(), loadMillis, scoreMillis, writeMillis);
+    }
+}
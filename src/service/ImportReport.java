@@ -0,0 +1,82 @@
+package service;
+
+import java.io.File;
+
+/**
+ * ImportReport
+ * ------------
+ * Totals of one bulk CSV import: records read, inserted (committed) and
+ * rejected, where the reject file is, and throughput.
+ */
+public class ImportReport {
+
+    private final String target;
+    private long read;
+    private long inserted;
+    private long rejected;
+    private long elapsedNanos;
+    private boolean cancelled;
+    private File rejectFile;
+
+    public ImportReport(String target) {
+        this.target = target;
+    }
+
+    synchronized void addRead(long n) {
+        read += n;
+    }
+
+    synchronized void addInserted(long n) {
+        inserted += n;
+    }
+
+    synchronized void addRejected(long n) {
+        rejected += n;
+    }
+
+    synchronized void finish(long elapsedNanos, boolean cancelled, File rejectFile) {
+        this.elapsedNanos = elapsedNanos;
+        this.cancelled = cancelled;
+        this.rejectFile = rejectFile;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public synchronized long getRead() {
+        return read;
+    }
+
+    public synchronized long getInserted() {
+        return inserted;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** File with the rejected records and reasons, or null if nothing was rejected. */
+    public synchronized File getRejectFile() {
+        return rejectFile;
+    }
+
+    public synchronized long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public synchronized double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : read * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Import of %s%s: %d read, %d inserted, %d rejected in %d ms (%.0f rows/s)%s",
+                target, cancelled ? " (cancelled)" : "", read, inserted, rejected, getElapsedMillis(),
+                getRowsPerSecond(), rejectFile != null ? "; rejects in " + rejectFile.getName() : "");
+    }
+}
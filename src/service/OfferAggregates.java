@@ -0,0 +1,475 @@
+package service;
+
+import db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * OfferAggregates
+ * ---------------
+ * Per-status offer counts and exchange-value sums, maintained
+ * incrementally so the statistics never scan exchange_offers:
+ *  - the offer_stats summary table holds one row per status and is updated
+ *    inside the same transaction as every status change, insert or delete
+ *    (writers call {@link #commit} instead of Connection.commit),
+ *  - an in-process snapshot is updated after each such commit, so
+ *    {@link #totals()} is a field read,
+ *  - {@link #reconcile()} recomputes both from a full scan and logs any
+ *    drift; {@link #startReconciliation} runs it periodically. It also
+ *    picks up writes made by other clients or outside the application.
+ *
+ * Writers share a read lock and reconciliation takes the write lock, so a
+ * recomputed snapshot never races with a delta being applied.
+ */
+public class OfferAggregates {
+
+    private static final OfferAggregates SHARED = new OfferAggregates();
+
+    // Re-read the (three-row) summary table when the snapshot is older than this.
+    private static final long RELOAD_AFTER_MS = 10_000;
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS offer_stats ("
+            + "status VARCHAR(16) NOT NULL PRIMARY KEY, "
+            + "offer_count BIGINT NOT NULL, "
+            + "value_cents BIGINT NOT NULL)";
+    private static final String DELTA_SQL =
+            "UPDATE offer_stats SET offer_count = offer_count + ?, value_cents = value_cents + ? WHERE status = ?";
+    private static final String SCAN_SQL = "SELECT status, COUNT(*), SUM(ROUND(exchange_value * 100)) "
+            + "FROM exchange_offers GROUP BY status";
+
+    private final AtomicReference<OfferTotals> totals = new AtomicReference<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean stale = false;     // a delta found no summary row; reconcile before trusting it
+    private ScheduledExecutorService scheduler;
+
+    public static OfferAggregates shared() {
+        return SHARED;
+    }
+
+    // --- Reads ---
+
+    /**
+     * Current totals. Answered from memory; the summary table is read only
+     * when the snapshot is missing or older than RELOAD_AFTER_MS, and a full
+     * scan only happens when the table is missing or known to be stale.
+     */
+    public OfferTotals totals() throws SQLException {
+        OfferTotals current = totals.get();
+        if (current != null && !stale && System.currentTimeMillis() - current.getTakenAt() < RELOAD_AFTER_MS) {
+            return current;
+        }
+        if (stale || !reload()) reconcile();
+        return totals.get();
+    }
+
+    // Loads the snapshot from the summary table; false if it has no rows yet.
+    private boolean reload() throws SQLException {
+        DBConnection.ensureTable(CREATE_SQL);
+        try (Connection conn = DBConnection.getConnection()) {
+            lock.writeLock().lock();
+            try {
+                OfferTotals stored = readTable(conn, false);
+                if (stored == null) return false;
+                totals.set(stored);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // --- Writes ---
+
+    /**
+     * Adds the delta to the summary table and commits the caller's
+     * transaction, then applies the delta to the in-memory snapshot. On an
+     * exception nothing is applied and the caller rolls back as usual.
+     */
+    public void commit(Connection conn, OfferDelta delta) throws SQLException {
+        DBConnection.ensureTable(CREATE_SQL);
+        lock.readLock().lock();
+        try {
+            if (!delta.isEmpty()) writeDelta(conn, delta);
+            conn.commit();
+            if (!delta.isEmpty()) totals.updateAndGet(t -> t == null ? null : t.plus(delta));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Statuses in a fixed order, so concurrent writers lock summary rows in the same order.
+    private void writeDelta(Connection conn, OfferDelta delta) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(DELTA_SQL)) {
+            for (int i = 0; i < OfferTotals.STATUSES.length; i++) {
+                if (delta.getCount(i) == 0 && delta.getCents(i) == 0) continue;
+                ps.setLong(1, delta.getCount(i));
+                ps.setLong(2, delta.getCents(i));
+                ps.setString(3, OfferTotals.STATUSES[i]);
+                if (ps.executeUpdate() == 0) stale = true;
+            }
+        }
+    }
+
+    /**
+     * Totals of the offers a user delete will cascade to. Call it in the
+     * deleting transaction, before the DELETE.
+     */
+    public static OfferDelta removedWithUser(Connection conn, int userId) throws SQLException {
+        return removed(conn, "SELECT eo.status, COUNT(*), SUM(ROUND(eo.exchange_value * 100)) "
+                + "FROM exchange_offers eo JOIN vehicles v ON eo.vehicle_id = v.vehicle_id "
+                + "WHERE v.owner_id = ? GROUP BY eo.status", userId);
+    }
+
+    /** Same as {@link #removedWithUser} for a vehicle delete. */
+    public static OfferDelta removedWithVehicle(Connection conn, int vehicleId) throws SQLException {
+        return removed(conn, "SELECT status, COUNT(*), SUM(ROUND(exchange_value * 100)) "
+                + "FROM exchange_offers WHERE vehicle_id = ? GROUP BY status", vehicleId);
+    }
+
+    private static OfferDelta removed(Connection conn, String sql, int id) throws SQLException {
+        OfferDelta delta = new OfferDelta();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) delta.addTotals(rs.getString(1), rs.getLong(2), rs.getLong(3), -1);
+            }
+        }
+        return delta;
+    }
+
+    // --- Reconciliation ---
+
+    /**
+     * Recomputes the totals with a full scan and overwrites the summary
+     * table and the snapshot with them. Returns false (and logs the
+     * difference) when the stored totals had drifted.
+     */
+    public boolean reconcile() throws SQLException {
+        DBConnection.ensureTable(CREATE_SQL);
+        // Connection first: writers hold theirs while they wait for the lock.
+        try (Connection conn = DBConnection.getConnection()) {
+            lock.writeLock().lock();
+            try {
+                OfferTotals stored;
+                OfferTotals actual;
+                conn.setAutoCommit(false);
+                try {
+                    stored = readTable(conn, true); // locks the rows: other clients' writers wait until we commit
+                    actual = scan(conn);
+                    if (!actual.equals(stored)) writeTable(conn, actual);
+                    conn.commit();
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+
+                OfferTotals cached = totals.getAndSet(actual);
+                stale = false;
+                if (stored == null) return true; // first run: table seeded, nothing to compare
+                boolean consistent = actual.equals(stored) && (cached == null || actual.equals(cached));
+                if (!consistent) {
+                    System.err.println("Offer stats drift corrected. Scan: " + actual
+                            + " | table: " + stored + " | memory: " + cached);
+                }
+                return consistent;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /** Runs {@link #reconcile()} every periodMinutes on a daemon thread. */
+    public synchronized void startReconciliation(long periodMinutes) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gvei-offer-stats");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (SQLException ex) {
+                System.err.println("Offer stats reconciliation failed: " + ex.getMessage());
+            }
+        }, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    // --- Table access ---
+
+    // Null when the table has no rows at all (never reconciled).
+    private static OfferTotals readTable(Connection conn, boolean forUpdate) throws SQLException {
+        String sql = "SELECT status, offer_count, value_cents FROM offer_stats" + (forUpdate ? " FOR UPDATE" : "");
+        long[] counts = new long[OfferTotals.STATUSES.length];
+        long[] cents = new long[OfferTotals.STATUSES.length];
+        boolean any = false;
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int i = OfferTotals.indexOf(rs.getString(1));
+                counts[i] = rs.getLong(2);
+                cents[i] = rs.getLong(3);
+                any = true;
+            }
+        }
+        return any ? new OfferTotals(counts, cents) : null;
+    }
+
+    private static OfferTotals scan(Connection conn) throws SQLException {
+        long[] counts = new long[OfferTotals.STATUSES.length];
+        long[] cents = new long[OfferTotals.STATUSES.length];
+        try (PreparedStatement ps = conn.prepareStatement(SCAN_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int i = OfferTotals.indexOf(rs.getString(1));
+                counts[i] = rs.getLong(2);
+                cents[i] = rs.getLong(3);
+            }
+        }
+        return new OfferTotals(counts, cents);
+    }
+
+    private static void writeTable(Connection conn, OfferTotals actual) throws SQLException {
+        try (PreparedStatement update = conn.prepareStatement(
+                     "UPDATE offer_stats SET offer_count = ?, value_cents = ? WHERE status = ?");
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO offer_stats (status, offer_count, value_cents) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < OfferTotals.STATUSES.length; i++) {
+                update.setLong(1, actual.getCount(i));
+                update.setLong(2, actual.getCents(i));
+                update.setString(3, OfferTotals.STATUSES[i]);
+                if (update.executeUpdate() == 0) {
+                    insert.setString(1, OfferTotals.STATUSES[i]);
+                    insert.setLong(2, actual.getCount(i));
+                    insert.setLong(3, actual.getCents(i));
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    // --- Stress test ---
+
+    /*
+     * Writers on `threads` threads each run `rounds` transactions against
+     * the configured database, for the first vehicle: each inserts a
+     * Pending offer of $1-$10,000 and, every other round, approves or
+     * rejects one of the writer's earlier offers. One transaction in five
+     * rolls back instead of committing. Meanwhile a reconciler keeps
+     * calling reconcile(), which must never find drift. When the writers
+     * are done, the snapshot and the summary table must equal a full
+     * GROUP BY scan; the writers then delete their offers through
+     * commit() and the check is repeated, so the run leaves the offers
+     * table as it found it.
+     */
+    private static boolean stress(int threads, int rounds) throws Exception {
+        int vehicleId;
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(vehicle_id) FROM vehicles")) {
+            rs.next();
+            vehicleId = rs.getInt(1);
+            if (rs.wasNull()) {
+                System.out.println("No vehicles in the database; nothing to make offers for.");
+                return false;
+            }
+        }
+        OfferAggregates a = new OfferAggregates();
+        a.reconcile();
+
+        List<List<double[]>> written = new ArrayList<>();   // per writer: {offer id, value, status index}
+        for (int t = 0; t < threads; t++) written.add(new ArrayList<>());
+        AtomicLong committed = new AtomicLong();
+        AtomicLong rolledBack = new AtomicLong();
+        AtomicLong drifts = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            final List<double[]> offers = written.get(t);
+            Thread writer = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    go.await();
+                    for (int i = 0; i < rounds; i++) {
+                        // A connection per transaction, as the application's writers do
+                        try (Connection conn = DBConnection.getConnection()) {
+                            conn.setAutoCommit(false);
+                            OfferDelta delta = new OfferDelta();
+                            double value = (100 + random.nextInt(1_000_000)) / 100.0;
+                            long offerId = insertOffer(conn, vehicleId, value);
+                            delta.add("Pending", value);
+                            double[] moved = null;
+                            int to = 1 + random.nextInt(2);
+                            if (i % 2 == 1 && !offers.isEmpty()) {
+                                moved = offers.get(random.nextInt(offers.size()));
+                                if (moved[2] == 0) {
+                                    try (PreparedStatement ps = conn.prepareStatement(
+                                            "UPDATE exchange_offers SET status = ? WHERE offer_id = ?")) {
+                                        ps.setString(1, OfferTotals.STATUSES[to]);
+                                        ps.setLong(2, (long) moved[0]);
+                                        ps.executeUpdate();
+                                    }
+                                    delta.move("Pending", OfferTotals.STATUSES[to], moved[1]);
+                                } else {
+                                    moved = null;
+                                }
+                            }
+                            if (random.nextInt(5) == 0) {
+                                conn.rollback();
+                                conn.setAutoCommit(true);
+                                rolledBack.incrementAndGet();
+                                continue;
+                            }
+                            a.commit(conn, delta);
+                            conn.setAutoCommit(true);
+                            committed.incrementAndGet();
+                            offers.add(new double[]{offerId, value, 0});
+                            if (moved != null) moved[2] = to;
+                        }
+                    }
+                } catch (Exception ex) {
+                    failures.incrementAndGet();
+                    System.err.println("Writer " + seed + " failed: " + ex.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+            writer.start();
+        }
+        Thread reconciler = new Thread(() -> {
+            while (done.getCount() > 0) {
+                try {
+                    if (!a.reconcile()) drifts.incrementAndGet();
+                } catch (SQLException ex) {
+                    failures.incrementAndGet();
+                    System.err.println("Reconciliation failed: " + ex.getMessage());
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        go.countDown();
+        reconciler.start();
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        reconciler.join();
+        boolean loaded = a.matchesScan();
+
+        // Clean up through commit(), so the delete path is checked too.
+        int offers = 0;
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM exchange_offers WHERE offer_id = ?")) {
+            conn.setAutoCommit(false);
+            try {
+                for (List<double[]> writerOffers : written) {
+                    OfferDelta delta = new OfferDelta();
+                    for (double[] offer : writerOffers) {
+                        ps.setLong(1, (long) offer[0]);
+                        ps.executeUpdate();
+                        delta.remove(OfferTotals.STATUSES[(int) offer[2]], offer[1]);
+                        offers++;
+                    }
+                    a.commit(conn, delta);
+                }
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        boolean cleaned = a.matchesScan();
+
+        long total = (long) threads * rounds;
+        boolean ok = loaded && cleaned && drifts.get() == 0 && failures.get() == 0;
+        System.out.printf("%2d writers: %,d transactions in %d ms (%,.0f/s): %,d committed, %,d rolled back, "
+                        + "%,d offers removed; %d drifts, %d failures, snapshot = scan after load %s, "
+                        + "after cleanup %s%n",
+                threads, total, elapsed / 1_000_000, total * 1e9 / elapsed, committed.get(), rolledBack.get(),
+                offers, drifts.get(), failures.get(), loaded ? "✅" : "❌", cleaned ? "✅" : "❌");
+        return ok;
+    }
+
+    private static long insertOffer(Connection conn, int vehicleId, double value) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO exchange_offers "
+                + "(vehicle_id, exchange_value, subsidy_percent, status) VALUES (?, ?, 20, 'Pending')",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, vehicleId);
+            ps.setDouble(2, value);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    // Snapshot and summary table against a full scan, under the write lock so no delta is half applied.
+    private boolean matchesScan() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            lock.writeLock().lock();
+            try {
+                OfferTotals actual = scan(conn);
+                boolean ok = actual.equals(totals.get()) && actual.equals(readTable(conn, false));
+                if (!ok) {
+                    System.err.println("Scan: " + actual + " | table: " + readTable(conn, false)
+                            + " | memory: " + totals.get());
+                }
+                return ok;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Command line:
+     *   java -cp ... service.OfferAggregates                  reconciles once and prints the totals
+     *   java -cp ... service.OfferAggregates --stress[=N]     stress test with 1..N concurrent writers
+     *
+     * The stress test writes offers (and removes them again), so it
+     * refuses to run unless -Dgvei.db.url names a scratch database.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].startsWith("--stress")) {
+            if (!DBConnection.isUrlOverridden()) {
+                System.err.println("❌ The stress test writes offers; set -Dgvei.db.url to a scratch database to run it.");
+                System.exit(1);
+            }
+            int maxThreads = args[0].startsWith("--stress=") ? Integer.parseInt(args[0].substring("--stress=".length()))
+                    : 8;
+            boolean ok = true;
+            try {
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                    ok &= stress(threads, 2_000 / threads);
+                }
+            } finally {
+                DBConnection.shutdown();
+            }
+            if (!ok) System.exit(1);
+            return;
+        }
+        try {
+            boolean consistent = shared().reconcile();
+            System.out.println((consistent ? "Offer stats consistent: " : "Offer stats corrected: ") + shared().totals());
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package service;
+
+/**
+ * OfferDelta
+ * ----------
+ * Change to the per-status offer totals made by one transaction: offers
+ * added, removed or moved between statuses, with their exchange values.
+ * Values are kept in whole cents so concurrent updates add up exactly.
+ */
+public class OfferDelta {
+
+    private final long[] counts = new long[OfferTotals.STATUSES.length];
+    private final long[] cents = new long[OfferTotals.STATUSES.length];
+
+    /** A new offer with the given status. */
+    public OfferDelta add(String status, double exchangeValue) {
+        int i = OfferTotals.indexOf(status);
+        counts[i]++;
+        cents[i] += OfferTotals.toCents(exchangeValue);
+        return this;
+    }
+
+    /** An offer that was deleted. */
+    public OfferDelta remove(String status, double exchangeValue) {
+        int i = OfferTotals.indexOf(status);
+        counts[i]--;
+        cents[i] -= OfferTotals.toCents(exchangeValue);
+        return this;
+    }
+
+    /** An offer whose status changed. */
+    public OfferDelta move(String from, String to, double exchangeValue) {
+        remove(from, exchangeValue);
+        return add(to, exchangeValue);
+    }
+
+    /** Adds aggregated rows (e.g. from a GROUP BY) with a sign of +1 or -1. */
+    OfferDelta addTotals(String status, long count, long valueCents, int sign) {
+        int i = OfferTotals.indexOf(status);
+        counts[i] += sign * count;
+        cents[i] += sign * valueCents;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0 || cents[i] != 0) return false;
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+            cents[i] = 0;
+        }
+    }
+
+    long getCount(int statusIndex) {
+        return counts[statusIndex];
+    }
+
+    long getCents(int statusIndex) {
+        return cents[statusIndex];
+    }
+}
@@ -0,0 +1,73 @@
+package service;
+
+/**
+ * OfferFacts
+ * ----------
+ * One pending exchange offer joined with its vehicle, as seen by the
+ * adjudication rules. Vehicle fields are null/0 when the vehicle row is
+ * missing.
+ */
+public class OfferFacts {
+
+    private final int offerId;
+    private final int vehicleId;
+    private final double exchangeValue;
+    private final double subsidyPercent;
+    private final String fuelType;
+    private final String vehicleType;
+    private final int year;
+    private final double mileage;
+
+    public OfferFacts(int offerId, int vehicleId, double exchangeValue, double subsidyPercent,
+                      String fuelType, String vehicleType, int year, double mileage) {
+        this.offerId = offerId;
+        this.vehicleId = vehicleId;
+        this.exchangeValue = exchangeValue;
+        this.subsidyPercent = subsidyPercent;
+        this.fuelType = fuelType;
+        this.vehicleType = vehicleType;
+        this.year = year;
+        this.mileage = mileage;
+    }
+
+    public int getOfferId() {
+        return offerId;
+    }
+
+    public int getVehicleId() {
+        return vehicleId;
+    }
+
+    public double getExchangeValue() {
+        return exchangeValue;
+    }
+
+    public double getSubsidyPercent() {
+        return subsidyPercent;
+    }
+
+    public String getFuelType() {
+        return fuelType;
+    }
+
+    public String getVehicleType() {
+        return vehicleType;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public double getMileage() {
+        return mileage;
+    }
+
+    public boolean hasVehicle() {
+        return fuelType != null;
+    }
+
+    /** Vehicle age in years relative to the given current year. */
+    public int ageIn(int currentYear) {
+        return currentYear - year;
+    }
+}
@@ -0,0 +1,99 @@
+package service;
+
+import java.util.Arrays;
+
+/**
+ * OfferTotals
+ * -----------
+ * Immutable snapshot of the number of exchange offers and their summed
+ * exchange value per status. Values are held in whole cents.
+ */
+public class OfferTotals {
+
+    public static final String[] STATUSES = {"Pending", "Approved", "Rejected"};
+
+    private final long[] counts;
+    private final long[] cents;
+    private final long takenAt = System.currentTimeMillis();
+
+    OfferTotals(long[] counts, long[] cents) {
+        this.counts = counts;
+        this.cents = cents;
+    }
+
+    static OfferTotals empty() {
+        return new OfferTotals(new long[STATUSES.length], new long[STATUSES.length]);
+    }
+
+    static int indexOf(String status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) return i;
+        }
+        throw new IllegalArgumentException("Unknown offer status: " + status);
+    }
+
+    static long toCents(double value) {
+        return Math.round(value * 100);
+    }
+
+    /** These totals with the delta applied. */
+    OfferTotals plus(OfferDelta delta) {
+        long[] newCounts = counts.clone();
+        long[] newCents = cents.clone();
+        for (int i = 0; i < STATUSES.length; i++) {
+            newCounts[i] += delta.getCount(i);
+            newCents[i] += delta.getCents(i);
+        }
+        return new OfferTotals(newCounts, newCents);
+    }
+
+    public long getCount(String status) {
+        return counts[indexOf(status)];
+    }
+
+    public double getValue(String status) {
+        return cents[indexOf(status)] / 100.0;
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (long count : counts) total += count;
+        return total;
+    }
+
+    long getCount(int statusIndex) {
+        return counts[statusIndex];
+    }
+
+    long getCents(int statusIndex) {
+        return cents[statusIndex];
+    }
+
+    /** When these totals were read or computed (System.currentTimeMillis). */
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof OfferTotals)) return false;
+        OfferTotals t = (OfferTotals) o;
+        return Arrays.equals(counts, t.counts) && Arrays.equals(cents, t.cents);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(counts) + Arrays.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(STATUSES[i]).append(' ').append(counts[i])
+              .append(String.format(" ($%,.2f)", cents[i] / 100.0));
+        }
+        return sb.toString();
+    }
+}
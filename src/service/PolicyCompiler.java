@@ -0,0 +1,683 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * PolicyCompiler
+ * --------------
+ * Parser and compiler for the exchange policy language described in
+ * {@link EligibilityPolicy}. A policy is parsed into a small syntax tree
+ * once, and every node is then compiled into a lambda over primitive
+ * arguments (fuel code, type code, year, age, mileage), so evaluating a
+ * vehicle is a chain of direct calls: no variable lookups by name, no
+ * string comparisons. Constant sub-expressions are folded while compiling.
+ *
+ * The tree also keeps a plain tree-walking interpret() over a variable
+ * map, used as the baseline in the EligibilityEngine benchmark.
+ */
+final class PolicyCompiler {
+
+    /** A compiled condition. fuel/type are codes into VehicleRules.FUEL_TYPES / VEHICLE_TYPES, -1 if unknown. */
+    @FunctionalInterface
+    interface VehicleTest {
+        boolean test(int fuel, int type, int year, int age, double mileage);
+    }
+
+    /** A compiled numeric expression, same arguments as {@link VehicleTest}. */
+    @FunctionalInterface
+    interface VehicleValue {
+        double apply(int fuel, int type, int year, int age, double mileage);
+    }
+
+    /** A value or subsidy rule; when is null for the default rule. */
+    static class Rule {
+        final Cond when;
+        final Expr then;
+
+        Rule(Cond when, Expr then) {
+            this.when = when;
+            this.then = then;
+        }
+    }
+
+    /** A parsed policy: the eligibility condition and the value/subsidy rules in file order. */
+    static class Parsed {
+        Cond eligible;
+        final List<Rule> valueRules = new ArrayList<>();
+        final List<Rule> subsidyRules = new ArrayList<>();
+
+        /**
+         * The rules in one normal form, fully parenthesized: comments, blank
+         * lines, spacing, number spelling, the order of names inside
+         * "in (...)" and where the default rule stands do not change it.
+         */
+        String canonical() {
+            StringBuilder out = new StringBuilder("eligible: ");
+            eligible.render(out);
+            renderRules(out, "value", valueRules);
+            renderRules(out, "subsidy", subsidyRules);
+            return out.toString();
+        }
+
+        // Conditional rules in file order, then the default one.
+        private static void renderRules(StringBuilder out, String head, List<Rule> rules) {
+            Rule fallback = null;
+            for (Rule rule : rules) {
+                if (rule.when == null) {
+                    fallback = rule;
+                    continue;
+                }
+                out.append('\n').append(head).append(" when ");
+                rule.when.render(out);
+                out.append(": ");
+                rule.then.render(out);
+            }
+            out.append('\n').append(head).append(": ");
+            fallback.then.render(out);
+        }
+    }
+
+    private PolicyCompiler() {
+    }
+
+    // --- Syntax tree: expressions ---
+
+    abstract static class Expr {
+        /** The value when the expression has no variables, else null. */
+        Double constant() {
+            return null;
+        }
+
+        final VehicleValue compile() {
+            Double c = constant();
+            if (c != null) {
+                double value = c;
+                return (f, t, y, a, m) -> value;
+            }
+            return compileNode();
+        }
+
+        abstract VehicleValue compileNode();
+
+        abstract double interpret(Map<String, Object> vars);
+
+        abstract void render(StringBuilder out);
+    }
+
+    private static class Num extends Expr {
+        final double value;
+
+        Num(double value) {
+            this.value = value;
+        }
+
+        @Override
+        Double constant() {
+            return value;
+        }
+
+        @Override
+        VehicleValue compileNode() {
+            return (f, t, y, a, m) -> value;
+        }
+
+        @Override
+        double interpret(Map<String, Object> vars) {
+            return value;
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(value);
+        }
+    }
+
+    private static class Var extends Expr {
+        final String name;
+
+        Var(String name) {
+            this.name = name;
+        }
+
+        @Override
+        VehicleValue compileNode() {
+            switch (name) {
+                case "age":
+                    return (f, t, y, a, m) -> a;
+                case "year":
+                    return (f, t, y, a, m) -> y;
+                default:
+                    return (f, t, y, a, m) -> m;
+            }
+        }
+
+        @Override
+        double interpret(Map<String, Object> vars) {
+            return ((Number) vars.get(name)).doubleValue();
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(name);
+        }
+    }
+
+    private static class Neg extends Expr {
+        final Expr operand;
+
+        Neg(Expr operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Double constant() {
+            Double c = operand.constant();
+            return c == null ? null : -c;
+        }
+
+        @Override
+        VehicleValue compileNode() {
+            VehicleValue v = operand.compile();
+            return (f, t, y, a, m) -> -v.apply(f, t, y, a, m);
+        }
+
+        @Override
+        double interpret(Map<String, Object> vars) {
+            return -operand.interpret(vars);
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append("-(");
+            operand.render(out);
+            out.append(')');
+        }
+    }
+
+    // + - * / and the two-argument functions max / min
+    private static class Binary extends Expr {
+        final String op;
+        final Expr left;
+        final Expr right;
+
+        Binary(String op, Expr left, Expr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Double constant() {
+            Double l = left.constant();
+            Double r = right.constant();
+            return l == null || r == null ? null : apply(op, l, r);
+        }
+
+        @Override
+        VehicleValue compileNode() {
+            VehicleValue l = left.compile();
+            Double rc = right.constant();
+            if (rc != null) {
+                double c = rc;
+                switch (op) {
+                    case "+": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) + c;
+                    case "-": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) - c;
+                    case "*": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) * c;
+                    case "/": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) / c;
+                    case "max": return (f, t, y, a, m) -> Math.max(l.apply(f, t, y, a, m), c);
+                    default: return (f, t, y, a, m) -> Math.min(l.apply(f, t, y, a, m), c);
+                }
+            }
+            VehicleValue r = right.compile();
+            switch (op) {
+                case "+": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) + r.apply(f, t, y, a, m);
+                case "-": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) - r.apply(f, t, y, a, m);
+                case "*": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) * r.apply(f, t, y, a, m);
+                case "/": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) / r.apply(f, t, y, a, m);
+                case "max": return (f, t, y, a, m) -> Math.max(l.apply(f, t, y, a, m), r.apply(f, t, y, a, m));
+                default: return (f, t, y, a, m) -> Math.min(l.apply(f, t, y, a, m), r.apply(f, t, y, a, m));
+            }
+        }
+
+        @Override
+        double interpret(Map<String, Object> vars) {
+            return apply(op, left.interpret(vars), right.interpret(vars));
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            boolean function = op.equals("max") || op.equals("min");
+            out.append(function ? op : "").append('(');
+            left.render(out);
+            out.append(function ? ", " : " " + op + " ");
+            right.render(out);
+            out.append(')');
+        }
+
+        private static double apply(String op, double l, double r) {
+            switch (op) {
+                case "+": return l + r;
+                case "-": return l - r;
+                case "*": return l * r;
+                case "/": return l / r;
+                case "max": return Math.max(l, r);
+                default: return Math.min(l, r);
+            }
+        }
+    }
+
+    // --- Syntax tree: conditions ---
+
+    abstract static class Cond {
+        abstract VehicleTest compile();
+
+        abstract boolean interpret(Map<String, Object> vars);
+
+        abstract void render(StringBuilder out);
+    }
+
+    private static class Compare extends Cond {
+        final String op;
+        final Expr left;
+        final Expr right;
+
+        Compare(String op, Expr left, Expr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        VehicleTest compile() {
+            VehicleValue l = left.compile();
+            Double rc = right.constant();
+            if (rc != null) {
+                double c = rc;
+                switch (op) {
+                    case "<": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) < c;
+                    case "<=": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) <= c;
+                    case ">": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) > c;
+                    case ">=": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) >= c;
+                    case "=": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) == c;
+                    default: return (f, t, y, a, m) -> l.apply(f, t, y, a, m) != c;
+                }
+            }
+            VehicleValue r = right.compile();
+            switch (op) {
+                case "<": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) < r.apply(f, t, y, a, m);
+                case "<=": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) <= r.apply(f, t, y, a, m);
+                case ">": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) > r.apply(f, t, y, a, m);
+                case ">=": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) >= r.apply(f, t, y, a, m);
+                case "=": return (f, t, y, a, m) -> l.apply(f, t, y, a, m) == r.apply(f, t, y, a, m);
+                default: return (f, t, y, a, m) -> l.apply(f, t, y, a, m) != r.apply(f, t, y, a, m);
+            }
+        }
+
+        @Override
+        boolean interpret(Map<String, Object> vars) {
+            double l = left.interpret(vars);
+            double r = right.interpret(vars);
+            switch (op) {
+                case "<": return l < r;
+                case "<=": return l <= r;
+                case ">": return l > r;
+                case ">=": return l >= r;
+                case "=": return l == r;
+                default: return l != r;
+            }
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append('(');
+            left.render(out);
+            out.append(' ').append(op).append(' ');
+            right.render(out);
+            out.append(')');
+        }
+    }
+
+    // fuel in (...) / type in (...); names are canonical VehicleRules spellings
+    private static class Member extends Cond {
+        final String attribute;
+        final List<String> names;
+
+        Member(String attribute, List<String> names) {
+            this.attribute = attribute;
+            this.names = names;
+        }
+
+        @Override
+        VehicleTest compile() {
+            String[] all = attribute.equals("fuel") ? VehicleRules.FUEL_TYPES : VehicleRules.VEHICLE_TYPES;
+            boolean[] mask = new boolean[all.length];
+            for (int i = 0; i < all.length; i++) mask[i] = names.contains(all[i]);
+            if (attribute.equals("fuel")) return (f, t, y, a, m) -> f >= 0 && mask[f];
+            return (f, t, y, a, m) -> t >= 0 && mask[t];
+        }
+
+        @Override
+        boolean interpret(Map<String, Object> vars) {
+            Object value = vars.get(attribute);
+            for (String name : names) {
+                if (name.equalsIgnoreCase((String) value)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(attribute).append(" in (").append(String.join(", ", new TreeSet<>(names))).append(')');
+        }
+    }
+
+    private static class And extends Cond {
+        final Cond left;
+        final Cond right;
+
+        And(Cond left, Cond right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        VehicleTest compile() {
+            VehicleTest l = left.compile();
+            VehicleTest r = right.compile();
+            return (f, t, y, a, m) -> l.test(f, t, y, a, m) && r.test(f, t, y, a, m);
+        }
+
+        @Override
+        boolean interpret(Map<String, Object> vars) {
+            return left.interpret(vars) && right.interpret(vars);
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append('(');
+            left.render(out);
+            out.append(" and ");
+            right.render(out);
+            out.append(')');
+        }
+    }
+
+    private static class Or extends Cond {
+        final Cond left;
+        final Cond right;
+
+        Or(Cond left, Cond right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        VehicleTest compile() {
+            VehicleTest l = left.compile();
+            VehicleTest r = right.compile();
+            return (f, t, y, a, m) -> l.test(f, t, y, a, m) || r.test(f, t, y, a, m);
+        }
+
+        @Override
+        boolean interpret(Map<String, Object> vars) {
+            return left.interpret(vars) || right.interpret(vars);
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append('(');
+            left.render(out);
+            out.append(" or ");
+            right.render(out);
+            out.append(')');
+        }
+    }
+
+    private static class Not extends Cond {
+        final Cond operand;
+
+        Not(Cond operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        VehicleTest compile() {
+            VehicleTest v = operand.compile();
+            return (f, t, y, a, m) -> !v.test(f, t, y, a, m);
+        }
+
+        @Override
+        boolean interpret(Map<String, Object> vars) {
+            return !operand.interpret(vars);
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append("not ");
+            operand.render(out);
+        }
+    }
+
+    // --- Parsing ---
+
+    /** Parses a whole policy; errors are IllegalArgumentExceptions naming the line. */
+    static Parsed parse(String source) {
+        Parsed policy = new Parsed();
+        boolean defaultValue = false;
+        boolean defaultSubsidy = false;
+        String[] lines = source.split("\r?\n", -1);
+        for (int n = 0; n < lines.length; n++) {
+            String line = lines[n];
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            if (line.isBlank()) continue;
+
+            Parser p = new Parser(line, n + 1);
+            String head = p.name();
+            if (head.equals("eligible")) {
+                if (policy.eligible != null) throw p.error("'eligible' is defined twice");
+                p.expect(":");
+                policy.eligible = p.cond();
+            } else if (head.equals("value") || head.equals("subsidy")) {
+                Cond when = p.accept("when") ? p.cond() : null;
+                p.expect(":");
+                Rule rule = new Rule(when, p.expr());
+                if (head.equals("value")) {
+                    if (when == null && defaultValue) throw p.error("default 'value' is defined twice");
+                    defaultValue |= when == null;
+                    policy.valueRules.add(rule);
+                } else {
+                    if (when == null && defaultSubsidy) throw p.error("default 'subsidy' is defined twice");
+                    defaultSubsidy |= when == null;
+                    policy.subsidyRules.add(rule);
+                }
+            } else {
+                throw p.error("expected 'eligible', 'value' or 'subsidy' but found '" + head + "'");
+            }
+            p.end();
+        }
+        if (policy.eligible == null) throw new IllegalArgumentException("The policy has no 'eligible:' line.");
+        if (!defaultValue) throw new IllegalArgumentException("The policy has no default 'value:' line.");
+        if (!defaultSubsidy) throw new IllegalArgumentException("The policy has no default 'subsidy:' line.");
+        return policy;
+    }
+
+    // Recursive-descent parser over the tokens of one line.
+    private static class Parser {
+        private final List<String> tokens = new ArrayList<>();
+        private final int lineNo;
+        private int pos = 0;
+
+        Parser(String line, int lineNo) {
+            this.lineNo = lineNo;
+            int i = 0;
+            while (i < line.length()) {
+                char c = line.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (Character.isLetterOrDigit(c) || c == '.' || c == '_') {
+                    int start = i;
+                    while (i < line.length() && (Character.isLetterOrDigit(line.charAt(i))
+                            || line.charAt(i) == '.' || line.charAt(i) == '_')) i++;
+                    tokens.add(line.substring(start, i));
+                } else if ((c == '<' || c == '>' || c == '!') && i + 1 < line.length() && line.charAt(i + 1) == '=') {
+                    tokens.add(line.substring(i, i + 2));
+                    i += 2;
+                } else if ("():,+-*/<>=".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else {
+                    throw error("unexpected character '" + c + "'");
+                }
+            }
+        }
+
+        // cond := and ('or' and)*
+        Cond cond() {
+            Cond c = and();
+            while (accept("or")) c = new Or(c, and());
+            return c;
+        }
+
+        private Cond and() {
+            Cond c = not();
+            while (accept("and")) c = new And(c, not());
+            return c;
+        }
+
+        // A '(' may open a condition or an expression ("(age + 1) > 5"): try the condition first.
+        private Cond not() {
+            if (accept("not")) return new Not(not());
+            if (peek("(")) {
+                int start = pos;
+                try {
+                    pos++;
+                    Cond c = cond();
+                    expect(")");
+                    return c;
+                } catch (IllegalArgumentException ex) {
+                    pos = start;
+                }
+            }
+            if (peek("fuel") || peek("type")) {
+                String attribute = next();
+                return member(attribute);
+            }
+            Expr left = expr();
+            String op = next();
+            if (!List.of("<", "<=", ">", ">=", "=", "!=").contains(op)) {
+                throw error("expected a comparison but found '" + op + "'");
+            }
+            return new Compare(op, left, expr());
+        }
+
+        // fuel in (A, B) | fuel = A | fuel != A
+        private Cond member(String attribute) {
+            String[] known = attribute.equals("fuel") ? VehicleRules.FUEL_TYPES : VehicleRules.VEHICLE_TYPES;
+            List<String> names = new ArrayList<>();
+            if (accept("in")) {
+                expect("(");
+                do {
+                    names.add(canonical(known, attribute));
+                } while (accept(","));
+                expect(")");
+                return new Member(attribute, names);
+            }
+            boolean negate = accept("!=");
+            if (!negate) expect("=");
+            names.add(canonical(known, attribute));
+            Cond c = new Member(attribute, names);
+            return negate ? new Not(c) : c;
+        }
+
+        private String canonical(String[] known, String attribute) {
+            if (pos >= tokens.size()) throw error("unexpected end of line");
+            String name = tokens.get(pos++);
+            for (String k : known) {
+                if (k.equalsIgnoreCase(name)) return k;
+            }
+            throw error("unknown " + attribute + " '" + name + "' (expected one of " + String.join(", ", known) + ")");
+        }
+
+        // expr := term (('+' | '-') term)*
+        Expr expr() {
+            Expr e = term();
+            while (peek("+") || peek("-")) {
+                String op = next();
+                e = new Binary(op, e, term());
+            }
+            return e;
+        }
+
+        private Expr term() {
+            Expr e = factor();
+            while (peek("*") || peek("/")) {
+                String op = next();
+                e = new Binary(op, e, factor());
+            }
+            return e;
+        }
+
+        private Expr factor() {
+            String token = next();
+            if (token.equals("-")) return new Neg(factor());
+            if (token.equals("(")) {
+                Expr e = expr();
+                expect(")");
+                return e;
+            }
+            if (token.equals("age") || token.equals("year") || token.equals("mileage")) return new Var(token);
+            if (token.equals("max") || token.equals("min")) {
+                expect("(");
+                Expr a = expr();
+                expect(",");
+                Expr b = expr();
+                expect(")");
+                return new Binary(token, a, b);
+            }
+            try {
+                return new Num(Double.parseDouble(token));
+            } catch (NumberFormatException ex) {
+                throw error("expected a number, age, year, mileage, max(...) or min(...) but found '" + token + "'");
+            }
+        }
+
+        String name() {
+            return next();
+        }
+
+        boolean peek(String token) {
+            return pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(token);
+        }
+
+        boolean accept(String token) {
+            if (!peek(token)) return false;
+            pos++;
+            return true;
+        }
+
+        void expect(String token) {
+            if (!accept(token)) {
+                throw error("expected '" + token + "'" + (pos < tokens.size() ? " but found '" + tokens.get(pos) + "'" : ""));
+            }
+        }
+
+        // Keywords and variable names are case-insensitive.
+        private String next() {
+            if (pos >= tokens.size()) throw error("unexpected end of line");
+            String token = tokens.get(pos++);
+            return token.matches("[A-Za-z_]+") ? token.toLowerCase() : token;
+        }
+
+        void end() {
+            if (pos < tokens.size()) throw error("unexpected '" + tokens.get(pos) + "'");
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Line " + lineNo + ": " + message + ".");
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package service;
+
+import db.DBConnection;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Portfolio
+ * ---------
+ * All the vehicles of one owner with their offer status, eligibility and
+ * valuation, for citizens with a fleet. {@link #load} reads the vehicles
+ * and their offers with one joined query and scores them in one pass
+ * with {@link EligibilityEngine#score}; {@link #apply} queues the
+ * applications for any subset with a single {@link SubmissionQueue}
+ * journal sync, and the queue writes them with multi-row inserts.
+ *
+ * Like {@link FleetScores}, the data is kept as parallel columns indexed
+ * by position (vehicles in id order), not one object per vehicle.
+ */
+public class Portfolio {
+
+    private static final String LOAD_SQL = "SELECT v.vehicle_id, v.plate_no, v.vehicle_type, v.fuel_type, v.year, "
+            + "v.mileage, o.status FROM vehicles v LEFT JOIN exchange_offers o ON o.vehicle_id = v.vehicle_id "
+            + "WHERE v.owner_id = ? ORDER BY v.vehicle_id, o.offer_id";
+
+    private final int ownerId;
+    private final VehicleColumns vehicles;
+    private final String[] plates;
+    private final String[] vehicleTypes;
+    private final String[] fuelTypes;
+    private final String[] offerStatuses;   // Pending, Approved, Rejected or null (no offer)
+    private final String[] keys;            // idempotency key of each vehicle's application, once applied
+    private final FleetScores scores;
+    private final long loadMillis;
+    private final long scoreMillis;
+
+    private Portfolio(int ownerId, VehicleColumns vehicles, String[] plates, String[] vehicleTypes, String[] fuelTypes,
+                      String[] offerStatuses, FleetScores scores, long loadMillis, long scoreMillis) {
+        this.ownerId = ownerId;
+        this.vehicles = vehicles;
+        this.plates = plates;
+        this.vehicleTypes = vehicleTypes;
+        this.fuelTypes = fuelTypes;
+        this.offerStatuses = offerStatuses;
+        this.keys = new String[vehicles.size()];
+        this.scores = scores;
+        this.loadMillis = loadMillis;
+        this.scoreMillis = scoreMillis;
+    }
+
+    /**
+     * Loads and scores all the owner's vehicles under the current policy:
+     * one database round trip. Blocking; call it off the EDT.
+     */
+    public static Portfolio load(int ownerId) throws SQLException {
+        long start = System.nanoTime();
+        VehicleColumns vehicles = new VehicleColumns(64);
+        List<String> plates = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        List<String> fuels = new ArrayList<>();
+        List<String> statuses = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(LOAD_SQL)) {
+            ps.setInt(1, ownerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                int lastId = -1;
+                while (rs.next()) {
+                    int vehicleId = rs.getInt("vehicle_id");
+                    String status = rs.getString("status");
+                    if (vehicleId == lastId) {   // another offer of the same vehicle
+                        int last = statuses.size() - 1;
+                        statuses.set(last, openStatus(statuses.get(last), status));
+                        continue;
+                    }
+                    lastId = vehicleId;
+                    String type = rs.getString("vehicle_type");
+                    String fuel = rs.getString("fuel_type");
+                    vehicles.add(vehicleId, ownerId, fuel, type, rs.getInt("year"), rs.getDouble("mileage"));
+                    plates.add(rs.getString("plate_no"));
+                    types.add(type);
+                    fuels.add(fuel);
+                    statuses.add(status);
+                }
+            }
+        }
+        long loaded = System.nanoTime();
+
+        FleetScores scores = EligibilityEngine.score(EligibilityPolicy.current(), vehicles,
+                EligibilityPolicy.currentYear());
+        long scored = System.nanoTime();
+
+        return new Portfolio(ownerId, vehicles, plates.toArray(new String[0]), types.toArray(new String[0]),
+                fuels.toArray(new String[0]), statuses.toArray(new String[0]), scores,
+                (loaded - start) / 1_000_000, (scored - loaded) / 1_000_000);
+    }
+
+    /*
+     * The status that decides whether a vehicle can apply again: a Pending
+     * offer wins over an Approved one, which wins over a Rejected one.
+     */
+    private static String openStatus(String a, String b) {
+        if ("Pending".equals(a) || "Pending".equals(b)) return "Pending";
+        if ("Approved".equals(a) || "Approved".equals(b)) return "Approved";
+        return b != null ? b : a;
+    }
+
+    // --- Vehicles ---
+
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    public int size() {
+        return vehicles.size();
+    }
+
+    /** Position of the vehicle, or -1 if the owner has no vehicle with that id. */
+    public int indexOf(int vehicleId) {
+        int index = Arrays.binarySearch(vehicles.ids, 0, vehicles.size(), vehicleId);
+        return index >= 0 ? index : -1;
+    }
+
+    public int getVehicleId(int index) {
+        return vehicles.getVehicleId(index);
+    }
+
+    public String getPlateNo(int index) {
+        return plates[index];
+    }
+
+    public String getVehicleType(int index) {
+        return vehicleTypes[index];
+    }
+
+    public String getFuelType(int index) {
+        return fuelTypes[index];
+    }
+
+    public int getYear(int index) {
+        return vehicles.years[index];
+    }
+
+    public double getMileage(int index) {
+        return vehicles.mileages[index];
+    }
+
+    /** Status of the vehicle's open or last offer, or null if it never had one. */
+    public synchronized String getOfferStatus(int index) {
+        return offerStatuses[index];
+    }
+
+    // --- Scores ---
+
+    public boolean isEligible(int index) {
+        return scores.isEligible(index);
+    }
+
+    /** Exchange value of the vehicle at index, 0 when not eligible. */
+    public double getExchangeValue(int index) {
+        return scores.getExchangeValue(index);
+    }
+
+    /** Subsidy of the vehicle at index, 0 when not eligible. */
+    public double getSubsidyPercent(int index) {
+        return scores.getSubsidyPercent(index);
+    }
+
+    /** Eligible, with no Pending or Approved offer. */
+    public synchronized boolean canApply(int index) {
+        String status = offerStatuses[index];
+        return scores.isEligible(index) && !"Pending".equals(status) && !"Approved".equals(status);
+    }
+
+    public int getEligibleCount() {
+        return scores.getEligibleCount();
+    }
+
+    public synchronized int getApplicableCount() {
+        int n = 0;
+        for (int i = 0; i < size(); i++) {
+            if (canApply(i)) n++;
+        }
+        return n;
+    }
+
+    public double getTotalValue() {
+        return scores.getTotalValue();
+    }
+
+    // --- Applying ---
+
+    /**
+     * Queues an application for each of the given vehicles that can apply
+     * (the others are skipped) and returns the submissions, accepted with
+     * one journal sync. A vehicle keeps its idempotency key, so applying
+     * again after an error cannot create a second offer. Accepted
+     * vehicles show as Pending from now on. Blocking; call it off the EDT.
+     */
+    public List<ExchangeSubmission> apply(int[] vehicleIds) throws IOException {
+        int[] indexes = new int[vehicleIds.length];
+        int n = 0;
+        String[] batchKeys = new String[vehicleIds.length];
+        int[] ids = new int[vehicleIds.length];
+        double[] values = new double[vehicleIds.length];
+        double[] subsidies = new double[vehicleIds.length];
+        synchronized (this) {
+            for (int vehicleId : vehicleIds) {
+                int index = indexOf(vehicleId);
+                if (index < 0 || !canApply(index)) continue;
+                if (keys[index] == null) keys[index] = SubmissionQueue.newKey();
+                indexes[n] = index;
+                batchKeys[n] = keys[index];
+                ids[n] = vehicleId;
+                values[n] = scores.getExchangeValue(index);
+                subsidies[n] = scores.getSubsidyPercent(index);
+                n++;
+            }
+        }
+        if (n == 0) return new ArrayList<>();
+
+        List<ExchangeSubmission> submitted = SubmissionQueue.shared().submitAll(ownerId,
+                Arrays.copyOf(batchKeys, n), Arrays.copyOf(ids, n), Arrays.copyOf(values, n),
+                Arrays.copyOf(subsidies, n));
+        synchronized (this) {
+            for (int i = 0; i < n; i++) {
+                // Also a queued duplicate: the vehicle has an application in progress either way.
+                offerStatuses[indexes[i]] = "Pending";
+            }
+        }
+        return submitted;
+    }
+
+    // --- Timing ---
+
+    /** Time of the joined query, including reading the rows. */
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    public long getScoreMillis() {
+        return scoreMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d vehicles, %,d eligible, %,d can apply, total exchange value $%,.2f "
+                        + "(query %d ms, score %d ms)",
+                size(), getEligibleCount(), getApplicableCount(), getTotalValue(), loadMillis, scoreMillis);
+    }
+
+    // --- CLI ---
+
+    /**
+     * Prints an owner's portfolio and how long it took:
+     *   java service.Portfolio OWNER_ID
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length != 1) {
+            System.out.println("Usage: java service.Portfolio OWNER_ID");
+            return;
+        }
+        Portfolio portfolio = load(Integer.parseInt(args[0]));
+        for (int i = 0; i < portfolio.size(); i++) {
+            System.out.printf("%6d  %-10s %-12s %-10s %4d  %-3s %12.2f %6.2f%%  %s%n", portfolio.getVehicleId(i),
+                    portfolio.getPlateNo(i), portfolio.getVehicleType(i), portfolio.getFuelType(i), portfolio.getYear(i),
+                    portfolio.isEligible(i) ? "yes" : "no", portfolio.getExchangeValue(i),
+                    portfolio.getSubsidyPercent(i), portfolio.getOfferStatus(i) == null ? "" : portfolio.getOfferStatus(i));
+        }
+        System.out.println(portfolio);
+    }
+}
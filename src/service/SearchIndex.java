@@ -0,0 +1,209 @@
+package service;
+
+import db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SearchIndex
+ * -----------
+ * Shared substring index over the columns the dashboard filters on:
+ * users (name, email) and vehicles (plate_no, vehicle_type, owner name).
+ * Search terms resolve to sorted id sets in memory; callers then fetch
+ * just those rows by primary key instead of running LIKE '%term%' scans.
+ *
+ * The index is built once with {@link #load()} and kept current by the
+ * forms that insert, update or delete users and vehicles. Updates that
+ * arrive while a load is running are replayed once it finishes. Until the
+ * index is ready, searches return null and callers use the LIKE path.
+ */
+public class SearchIndex {
+
+    private static final SearchIndex SHARED = new SearchIndex();
+
+    private final TrigramIndex users = new TrigramIndex();
+    private final TrigramIndex vehicles = new TrigramIndex();
+
+    // Needed to rebuild vehicle text when an owner is renamed or deleted.
+    private String[] userNames = new String[1024];
+    private int[] vehicleOwners = new int[1024];
+    private String[] vehicleFields = new String[1024]; // "plate\ntype" without the owner
+
+    private volatile boolean ready = false;
+    private boolean loading = false;
+    private final List<Runnable> pendingUpdates = new ArrayList<>();
+    private long loadMillis = 0;
+
+    public static SearchIndex shared() {
+        return SHARED;
+    }
+
+    // --- Loading ---
+
+    /**
+     * (Re)builds the index from the database. Blocking; call it off the EDT.
+     */
+    public void load() throws SQLException {
+        synchronized (this) {
+            if (loading) return;
+            loading = true;
+            ready = false;
+            users.clear();
+            vehicles.clear();
+        }
+        long start = System.nanoTime();
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT user_id, name, email FROM users ORDER BY user_id")) {
+                DBConnection.enableStreaming(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        putUser(rs.getInt(1), rs.getString(2), rs.getString(3));
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT vehicle_id, plate_no, vehicle_type, owner_id FROM vehicles ORDER BY vehicle_id")) {
+                DBConnection.enableStreaming(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        putVehicle(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4));
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            synchronized (this) {
+                loading = false;
+                pendingUpdates.clear();
+            }
+            throw ex;
+        }
+
+        List<Runnable> replay;
+        synchronized (this) {
+            replay = new ArrayList<>(pendingUpdates);
+            pendingUpdates.clear();
+            for (Runnable update : replay) update.run();
+            loading = false;
+            ready = true;
+            loadMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized int getUserCount() {
+        return users.size();
+    }
+
+    public synchronized int getVehicleCount() {
+        return vehicles.size();
+    }
+
+    public synchronized long getLoadMillis() {
+        return loadMillis;
+    }
+
+    // --- Searches (null = not answerable from the index, use SQL LIKE) ---
+
+    /** Ids of users whose name or email contains the term. */
+    public int[] searchUsers(String term) {
+        return searchable(term) ? users.search(term) : null;
+    }
+
+    /** Ids of vehicles whose plate, type or owner name contains the term. */
+    public int[] searchVehicles(String term) {
+        return searchable(term) ? vehicles.search(term) : null;
+    }
+
+    private boolean searchable(String term) {
+        // LIKE treats % and _ as wildcards; leave those terms to the database.
+        return ready && term != null && !term.isEmpty()
+                && term.indexOf('%') < 0 && term.indexOf('_') < 0
+                && term.indexOf(TrigramIndex.FIELD_SEPARATOR) < 0;
+    }
+
+    // --- Change notifications (call after the database write succeeded) ---
+
+    public void userSaved(int userId, String name, String email) {
+        apply(() -> {
+            putUser(userId, name, email);
+            // Owner name is part of each vehicle's text.
+            for (int id = 0; id < vehicleOwners.length; id++) {
+                if (vehicleFields[id] != null && vehicleOwners[id] == userId) reindexVehicle(id);
+            }
+        });
+    }
+
+    /** Removes the user and, as ON DELETE CASCADE does, the user's vehicles. */
+    public void userDeleted(int userId) {
+        apply(() -> {
+            users.remove(userId);
+            if (userId < userNames.length) userNames[userId] = null;
+            for (int id = 0; id < vehicleOwners.length; id++) {
+                if (vehicleFields[id] != null && vehicleOwners[id] == userId) removeVehicle(id);
+            }
+        });
+    }
+
+    public void vehicleSaved(int vehicleId, String plate, String type, int ownerId) {
+        apply(() -> putVehicle(vehicleId, plate, type, ownerId));
+    }
+
+    public void vehicleDeleted(int vehicleId) {
+        apply(() -> removeVehicle(vehicleId));
+    }
+
+    private synchronized void apply(Runnable update) {
+        if (loading) {
+            pendingUpdates.add(update);
+        } else if (ready) {
+            update.run();
+        }
+        // Never loaded: nothing to keep current.
+    }
+
+    // --- Internals (called with the monitor held, or from the single loader) ---
+
+    private void putUser(int userId, String name, String email) {
+        if (userId >= userNames.length) userNames = Arrays.copyOf(userNames, Math.max(userId + 1, userNames.length * 2));
+        userNames[userId] = name;
+        users.put(userId, nz(name) + TrigramIndex.FIELD_SEPARATOR + nz(email));
+    }
+
+    private void putVehicle(int vehicleId, String plate, String type, int ownerId) {
+        if (vehicleId >= vehicleFields.length) {
+            int capacity = Math.max(vehicleId + 1, vehicleFields.length * 2);
+            vehicleFields = Arrays.copyOf(vehicleFields, capacity);
+            vehicleOwners = Arrays.copyOf(vehicleOwners, capacity);
+        }
+        vehicleFields[vehicleId] = nz(plate) + TrigramIndex.FIELD_SEPARATOR + nz(type);
+        vehicleOwners[vehicleId] = ownerId;
+        reindexVehicle(vehicleId);
+    }
+
+    private void reindexVehicle(int vehicleId) {
+        int ownerId = vehicleOwners[vehicleId];
+        String owner = ownerId > 0 && ownerId < userNames.length ? userNames[ownerId] : null;
+        vehicles.put(vehicleId, vehicleFields[vehicleId] + TrigramIndex.FIELD_SEPARATOR + nz(owner));
+    }
+
+    private void removeVehicle(int vehicleId) {
+        vehicles.remove(vehicleId);
+        if (vehicleId < vehicleFields.length) {
+            vehicleFields[vehicleId] = null;
+            vehicleOwners[vehicleId] = 0;
+        }
+    }
+
+    private static String nz(String s) {
+        return s == null ? "" : s;
+    }
+}
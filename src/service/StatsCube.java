@@ -0,0 +1,296 @@
+package service;
+
+import db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * StatsCube
+ * ---------
+ * In-memory cube of the exchange offers by fuel type, vehicle type,
+ * manufacture-year bucket and offer status. Every combination of dimension
+ * codes is one cell; a cell holds the offer count, the exchange value (in
+ * cents) and the summed subsidy_percent in flat primitive arrays. With
+ * 4 x 4 x 11 x 3 cells, any slice or rollup is a pass over a few hundred
+ * array slots.
+ *
+ * {@link #build()} streams the offers joined with their vehicles once.
+ * The offer_id range is split into PARTITIONS key ranges that are read on
+ * separate connections in parallel, each into its own partial cube, and
+ * the partials are summed.
+ *
+ * A built cube is immutable and safe to query from any thread.
+ */
+public class StatsCube {
+
+    /** Estimated CO2 reduction per exchanged (approved) vehicle. */
+    public static final double CARBON_TONNES_PER_VEHICLE = 5.0;
+
+    private static final int PARTITIONS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int YEAR_BUCKET_SPAN = 5;
+
+    private static final String RANGE_SQL = "SELECT MIN(offer_id), MAX(offer_id) FROM exchange_offers";
+    private static final String PARTITION_SQL = """
+            SELECT v.fuel_type, v.vehicle_type, v.year, eo.status, eo.exchange_value, eo.subsidy_percent
+            FROM exchange_offers eo
+            JOIN vehicles v ON eo.vehicle_id = v.vehicle_id
+            WHERE eo.offer_id BETWEEN ? AND ?
+            """;
+
+    /** The dimensions the cube can be sliced and grouped by. */
+    public enum Dimension {
+        FUEL_TYPE("Fuel type", VehicleRules.FUEL_TYPES),
+        VEHICLE_TYPE("Vehicle type", VehicleRules.VEHICLE_TYPES),
+        YEAR_BUCKET("Year", yearBucketLabels()),
+        STATUS("Status", OfferTotals.STATUSES);
+
+        public final String label;
+        private final String[] values;
+
+        Dimension(String label, String[] values) {
+            this.label = label;
+            this.values = values;
+        }
+
+        /** Labels of the codes of this dimension, indexed by code. */
+        public String[] labels() {
+            return values.clone();
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        /** The code of a value label, or -1. */
+        public int codeOf(String value) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i].equalsIgnoreCase(value)) return i;
+            }
+            return -1;
+        }
+    }
+
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+    private static final int CELLS;
+    private static final int[] STRIDES = new int[DIMENSIONS.length];
+
+    static {
+        int cells = 1;
+        for (int d = DIMENSIONS.length - 1; d >= 0; d--) {
+            STRIDES[d] = cells;
+            cells *= DIMENSIONS[d].size();
+        }
+        CELLS = cells;
+    }
+
+    private final long[] counts = new long[CELLS];
+    private final long[] cents = new long[CELLS];
+    private final double[] subsidySums = new double[CELLS];
+    private long skipped = 0;       // rows with a fuel/type/status outside the known values
+    private long buildMillis = 0;
+    private final long builtAt = System.currentTimeMillis();
+
+    private StatsCube() {
+    }
+
+    // --- Building ---
+
+    /**
+     * Builds the cube from the database. Blocking; call it off the EDT.
+     */
+    public static StatsCube build() throws SQLException {
+        long start = System.nanoTime();
+        long min;
+        long max;
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(RANGE_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            min = rs.getLong(1);
+            max = rs.getLong(2);
+            if (rs.wasNull()) {
+                StatsCube empty = new StatsCube();
+                empty.buildMillis = (System.nanoTime() - start) / 1_000_000;
+                return empty;
+            }
+        }
+
+        long span = (max - min) / PARTITIONS + 1;
+        ExecutorService pool = Executors.newFixedThreadPool(PARTITIONS, r -> {
+            Thread t = new Thread(r, "gvei-stats-cube");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<StatsCube>> parts = new ArrayList<>();
+            for (int p = 0; p < PARTITIONS; p++) {
+                long from = min + p * span;
+                long to = Math.min(max, from + span - 1);
+                if (from > max) break;
+                parts.add(pool.submit(() -> readPartition(from, to)));
+            }
+            StatsCube cube = new StatsCube();
+            for (Future<StatsCube> part : parts) cube.add(part.get());
+            cube.buildMillis = (System.nanoTime() - start) / 1_000_000;
+            return cube;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Statistics build interrupted.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            throw new SQLException("Statistics build failed: " + cause.getMessage(), cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static StatsCube readPartition(long from, long to) throws SQLException {
+        StatsCube part = new StatsCube();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(PARTITION_SQL)) {
+            DBConnection.enableStreaming(ps);
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int fuel = Dimension.FUEL_TYPE.codeOf(rs.getString(1));
+                    int type = Dimension.VEHICLE_TYPE.codeOf(rs.getString(2));
+                    int status = Dimension.STATUS.codeOf(rs.getString(4));
+                    if (fuel < 0 || type < 0 || status < 0) {
+                        part.skipped++;
+                        continue;
+                    }
+                    int cell = fuel * STRIDES[0] + type * STRIDES[1]
+                            + yearBucket(rs.getInt(3)) * STRIDES[2] + status * STRIDES[3];
+                    part.counts[cell]++;
+                    part.cents[cell] += OfferTotals.toCents(rs.getDouble(5));
+                    part.subsidySums[cell] += rs.getDouble(6);
+                }
+            }
+        }
+        return part;
+    }
+
+    private void add(StatsCube other) {
+        for (int c = 0; c < CELLS; c++) {
+            counts[c] += other.counts[c];
+            cents[c] += other.cents[c];
+            subsidySums[c] += other.subsidySums[c];
+        }
+        skipped += other.skipped;
+    }
+
+    // Bucket 0 is everything before MIN_YEAR, then one bucket per YEAR_BUCKET_SPAN years.
+    private static int yearBucket(int year) {
+        if (year < VehicleRules.MIN_YEAR) return 0;
+        int bucket = 1 + (year - VehicleRules.MIN_YEAR) / YEAR_BUCKET_SPAN;
+        return Math.min(bucket, Dimension.YEAR_BUCKET.size() - 1);
+    }
+
+    private static String[] yearBucketLabels() {
+        int buckets = (VehicleRules.MAX_YEAR - VehicleRules.MIN_YEAR) / YEAR_BUCKET_SPAN + 1;
+        String[] labels = new String[buckets + 1];
+        labels[0] = "< " + VehicleRules.MIN_YEAR;
+        for (int b = 0; b < buckets; b++) {
+            int from = VehicleRules.MIN_YEAR + b * YEAR_BUCKET_SPAN;
+            labels[b + 1] = from + "-" + String.format("%02d", (from + YEAR_BUCKET_SPAN - 1) % 100);
+        }
+        return labels;
+    }
+
+    // --- Queries ---
+
+    /**
+     * Groups the cube by the given dimensions (none = grand total), keeping
+     * only the cells whose codes match the filter. filter[d] is the code
+     * required for dimension d (by ordinal), or -1 for any; pass null for
+     * no filter. Empty groups are left out. Rows come in code order.
+     */
+    public List<CubeRow> rollup(Dimension[] groupBy, int[] filter) {
+        int groups = 1;
+        int[] groupStrides = new int[groupBy.length];
+        for (int g = groupBy.length - 1; g >= 0; g--) {
+            groupStrides[g] = groups;
+            groups *= groupBy[g].size();
+        }
+        long[] groupCounts = new long[groups];
+        long[] groupApproved = new long[groups];
+        long[] groupCents = new long[groups];
+        double[] groupSubsidy = new double[groups];
+        int approvedCode = Dimension.STATUS.codeOf("Approved");
+
+        for (int c = 0; c < CELLS; c++) {
+            if (counts[c] == 0 || !matches(c, filter)) continue;
+            int group = 0;
+            for (int g = 0; g < groupBy.length; g++) {
+                group += code(c, groupBy[g]) * groupStrides[g];
+            }
+            groupCounts[group] += counts[c];
+            groupCents[group] += cents[c];
+            groupSubsidy[group] += subsidySums[c];
+            if (code(c, Dimension.STATUS) == approvedCode) groupApproved[group] += counts[c];
+        }
+
+        List<CubeRow> rows = new ArrayList<>();
+        for (int group = 0; group < groups; group++) {
+            if (groupCounts[group] == 0) continue;
+            String[] labels = new String[groupBy.length];
+            for (int g = 0; g < groupBy.length; g++) {
+                labels[g] = groupBy[g].values[group / groupStrides[g] % groupBy[g].size()];
+            }
+            rows.add(new CubeRow(labels, groupCounts[group], groupApproved[group], groupCents[group] / 100.0,
+                    groupSubsidy[group] / groupCounts[group], groupApproved[group] * CARBON_TONNES_PER_VEHICLE));
+        }
+        return rows;
+    }
+
+    /** Measures of the cells matching the filter, as one row without labels. */
+    public CubeRow total(int[] filter) {
+        List<CubeRow> rows = rollup(new Dimension[0], filter);
+        return rows.isEmpty() ? new CubeRow(new String[0], 0, 0, 0, 0, 0) : rows.get(0);
+    }
+
+    /** A filter array with no constraints, to fill in before calling {@link #rollup}. */
+    public static int[] anyFilter() {
+        int[] filter = new int[DIMENSIONS.length];
+        Arrays.fill(filter, -1);
+        return filter;
+    }
+
+    private static boolean matches(int cell, int[] filter) {
+        if (filter == null) return true;
+        for (Dimension d : DIMENSIONS) {
+            int required = filter[d.ordinal()];
+            if (required >= 0 && code(cell, d) != required) return false;
+        }
+        return true;
+    }
+
+    private static int code(int cell, Dimension d) {
+        return cell / STRIDES[d.ordinal()] % d.size();
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    /** When the cube was built (System.currentTimeMillis). */
+    public long getBuiltAt() {
+        return builtAt;
+    }
+}
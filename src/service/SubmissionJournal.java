@@ -0,0 +1,142 @@
+package service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SubmissionJournal
+ * -----------------
+ * The durable part of {@link SubmissionQueue}: an append-only text file
+ * with one line per accepted submission ("S", key, user, vehicle, value,
+ * subsidy, time) and one per flushed one ("D", key). After a crash the
+ * submissions without a "D" line are queued again.
+ *
+ * Appends go to a memory buffer; {@link #sync} writes the buffer and forces
+ * it to disk. Callers that sync concurrently share one force (group
+ * commit), so a burst of submissions costs a few fsyncs, not one each.
+ */
+class SubmissionJournal {
+
+    private final Path file;
+    private final FileChannel channel;
+
+    private final Object appendLock = new Object();   // guards buffer and appended
+    private final StringBuilder buffer = new StringBuilder();
+    private long appended = 0;
+
+    private final Object syncLock = new Object();     // one writer at a time
+    private volatile long synced = 0;
+    private long forces = 0;
+
+    SubmissionJournal(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    // --- Appends ---
+
+    /** Buffers an accepted submission; returns the sequence number to {@link #sync} on. */
+    long accepted(ExchangeSubmission s) {
+        return append("S\t" + s.getKey() + "\t" + s.getUserId() + "\t" + s.getVehicleId() + "\t"
+                + s.getExchangeValue() + "\t" + s.getSubsidyPercent() + "\t" + s.getSubmittedAt());
+    }
+
+    /** Buffers the end of a submission (saved, duplicate or failed). */
+    long done(ExchangeSubmission s) {
+        return append("D\t" + s.getKey());
+    }
+
+    private long append(String line) {
+        synchronized (appendLock) {
+            buffer.append(line).append('\n');
+            return ++appended;
+        }
+    }
+
+    /** Sequence number of the last buffered line. */
+    long lastAppended() {
+        synchronized (appendLock) {
+            return appended;
+        }
+    }
+
+    /** Returns once every line up to seq is on disk. */
+    void sync(long seq) throws IOException {
+        if (synced >= seq) return;
+        synchronized (syncLock) {
+            if (synced >= seq) return;   // written by the previous holder
+            String chunk;
+            long upTo;
+            synchronized (appendLock) {
+                chunk = buffer.toString();
+                buffer.setLength(0);
+                upTo = appended;
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) channel.write(bytes);
+            channel.force(false);
+            forces++;
+            synced = upTo;
+        }
+    }
+
+    /**
+     * Empties the file. Only call it when no submission is outstanding;
+     * lines still in the buffer are kept and written by the next sync.
+     */
+    void truncate() throws IOException {
+        synchronized (syncLock) {
+            if (channel.size() == 0) return;
+            channel.truncate(0);
+            channel.force(false);
+        }
+    }
+
+    // --- Recovery ---
+
+    /**
+     * Submissions accepted but never marked done, in the order they were
+     * accepted. A line cut short by a crash is skipped: its submission was
+     * never acknowledged.
+     */
+    List<ExchangeSubmission> outstanding() throws IOException {
+        Map<String, ExchangeSubmission> open = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] f = line.split("\t");
+            try {
+                if (f[0].equals("S") && f.length == 7) {
+                    open.put(f[1], new ExchangeSubmission(f[1], Integer.parseInt(f[2]), Integer.parseInt(f[3]),
+                            Double.parseDouble(f[4]), Double.parseDouble(f[5]), Long.parseLong(f[6])));
+                } else if (f[0].equals("D") && f.length == 2) {
+                    open.remove(f[1]);
+                }
+            } catch (NumberFormatException ex) {
+                System.err.println("Skipping damaged submission journal line: " + line);
+            }
+        }
+        return new ArrayList<>(open.values());
+    }
+
+    /** Number of fsyncs so far. */
+    long getForces() {
+        synchronized (syncLock) {
+            return forces;
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,538 @@
+package service;
+
+import db.DBConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SubmissionQueue
+ * ---------------
+ * Write-behind pipeline for exchange applications. {@link #submit} only
+ * checks for duplicates in memory and appends the application to a local
+ * {@link SubmissionJournal}, so the citizen is answered as soon as the
+ * journal is on disk; a daemon thread then flushes the queue to
+ * exchange_offers every FLUSH_INTERVAL_MS:
+ *  - each application carries an idempotency key. Submitting a known key
+ *    returns the original application, and a vehicle with an application
+ *    still in the queue is refused at once,
+ *  - at flush time, keys already in offer_submissions (flushed before a
+ *    crash) are skipped and vehicles that already have a Pending offer
+ *    are marked DUPLICATE,
+ *  - the rest is written with multi-row INSERTs of up to ROWS_PER_INSERT
+ *    applications, one transaction per batch, committed through
+ *    {@link OfferAggregates#commit},
+ *  - if a batch fails on a constraint (e.g. the vehicle was deleted), its
+ *    applications are retried one by one so only the bad ones fail; any
+ *    other error leaves the batch queued for the next flush.
+ *
+ * The journal lives in gvei.queue.file (default queue/submissions.journal)
+ * and is emptied whenever the queue drains.
+ */
+public class SubmissionQueue {
+
+    private static final String QUEUE_FILE = System.getProperty("gvei.queue.file", "queue/submissions.journal");
+    private static final long FLUSH_INTERVAL_MS = 200;
+    private static final int ROWS_PER_INSERT = 500;
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS offer_submissions ("
+            + "idempotency_key VARCHAR(64) NOT NULL PRIMARY KEY, "
+            + "vehicle_id INT NOT NULL, "
+            + "submitted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "FOREIGN KEY (vehicle_id) REFERENCES vehicles (vehicle_id) ON DELETE CASCADE)";
+    private static final String OFFER_COLUMNS =
+            "INSERT INTO exchange_offers (vehicle_id, exchange_value, subsidy_percent, status) VALUES ";
+    private static final String OFFER_ROW = "(?, ?, ?, 'Pending')";
+    private static final String KEY_COLUMNS = "INSERT INTO offer_submissions (idempotency_key, vehicle_id) VALUES ";
+    private static final String KEY_ROW = "(?, ?)";
+
+    private static SubmissionQueue shared;
+
+    private final SubmissionJournal journal;
+    private final Object lock = new Object();       // guards the three collections below
+    private final ArrayDeque<ExchangeSubmission> queued = new ArrayDeque<>();
+    private final Map<String, ExchangeSubmission> byKey = new HashMap<>();
+    private final Map<Integer, ExchangeSubmission> byVehicle = new HashMap<>();
+    private final Object flushLock = new Object();
+    private ScheduledExecutorService scheduler;
+    private long flushedRows = 0;
+    private long insertStatements = 0;
+
+    SubmissionQueue(Path journalFile) throws IOException {
+        journal = new SubmissionJournal(journalFile);
+        for (ExchangeSubmission s : journal.outstanding()) enqueue(s);
+        if (!queued.isEmpty()) {
+            System.err.println("Recovered " + queued.size() + " queued exchange application(s) from "
+                    + journalFile);
+        }
+    }
+
+    /** The application-wide queue, created and started on first use. */
+    public static synchronized SubmissionQueue shared() throws IOException {
+        if (shared == null) {
+            shared = new SubmissionQueue(Paths.get(QUEUE_FILE));
+            shared.start();
+        }
+        return shared;
+    }
+
+    /** A fresh idempotency key for one application. */
+    public static String newKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    // --- Submissions ---
+
+    /**
+     * Accepts an application and returns once it is in the journal on
+     * disk. Returns the original submission if the key was submitted
+     * before, or a DUPLICATE one if the vehicle already has an application
+     * in the queue. Blocking; call it off the EDT.
+     */
+    public ExchangeSubmission submit(String key, int userId, int vehicleId, double exchangeValue,
+                                     double subsidyPercent) throws IOException {
+        checkKey(key);
+        ExchangeSubmission submission;
+        long seq;
+        synchronized (lock) {
+            submission = accept(key, userId, vehicleId, exchangeValue, subsidyPercent, System.currentTimeMillis());
+            if (submission == null) {
+                return duplicate(key, userId, vehicleId, exchangeValue, subsidyPercent);
+            }
+            seq = journal.lastAppended();
+        }
+        // A repeated key is only acknowledged once its first submission is durable too.
+        journal.sync(seq);
+        return submission;
+    }
+
+    /**
+     * Accepts the applications of one user for several vehicles (the
+     * arrays are parallel) with a single journal sync; the flusher writes
+     * them with multi-row inserts. Returns one submission per vehicle, in
+     * order, following the same rules as {@link #submit}. Blocking; call
+     * it off the EDT.
+     */
+    public List<ExchangeSubmission> submitAll(int userId, String[] keys, int[] vehicleIds, double[] exchangeValues,
+                                              double[] subsidyPercents) throws IOException {
+        int n = keys.length;
+        if (vehicleIds.length != n || exchangeValues.length != n || subsidyPercents.length != n) {
+            throw new IllegalArgumentException("Keys, vehicles, values and subsidies differ in length.");
+        }
+        for (String key : keys) checkKey(key);
+        List<ExchangeSubmission> submissions = new ArrayList<>(n);
+        long seq;
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < n; i++) {
+                ExchangeSubmission s = accept(keys[i], userId, vehicleIds[i], exchangeValues[i], subsidyPercents[i], now);
+                submissions.add(s != null ? s
+                        : duplicate(keys[i], userId, vehicleIds[i], exchangeValues[i], subsidyPercents[i]));
+            }
+            seq = journal.lastAppended();
+        }
+        journal.sync(seq);
+        return submissions;
+    }
+
+    private static void checkKey(String key) {
+        if (key == null || key.isEmpty() || key.length() > MAX_KEY_LENGTH || !key.matches("\\S+")) {
+            throw new IllegalArgumentException("Invalid idempotency key: " + key);
+        }
+    }
+
+    /*
+     * Holding lock: the submission already known under the key, or a new
+     * queued and journaled one; null if another key has the vehicle queued.
+     */
+    private ExchangeSubmission accept(String key, int userId, int vehicleId, double exchangeValue,
+                                      double subsidyPercent, long now) {
+        ExchangeSubmission known = byKey.get(key);
+        if (known != null) return known;
+        if (byVehicle.containsKey(vehicleId)) return null;
+        ExchangeSubmission submission = new ExchangeSubmission(key, userId, vehicleId, exchangeValue, subsidyPercent, now);
+        enqueue(submission);
+        journal.accepted(submission);
+        return submission;
+    }
+
+    private static ExchangeSubmission duplicate(String key, int userId, int vehicleId, double exchangeValue,
+                                                double subsidyPercent) {
+        ExchangeSubmission duplicate = new ExchangeSubmission(key, userId, vehicleId, exchangeValue, subsidyPercent,
+                System.currentTimeMillis());
+        duplicate.finish(ExchangeSubmission.Status.DUPLICATE, "an application for this vehicle is already being processed");
+        return duplicate;
+    }
+
+    private void enqueue(ExchangeSubmission s) {
+        queued.add(s);
+        byKey.put(s.getKey(), s);
+        byVehicle.put(s.getVehicleId(), s);
+    }
+
+    /** Applications accepted but not yet flushed. */
+    public int getQueuedCount() {
+        synchronized (lock) {
+            return byKey.size();
+        }
+    }
+
+    // --- Flushing ---
+
+    /** Flushes every FLUSH_INTERVAL_MS on a daemon thread. */
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gvei-submission-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception ex) {
+                System.err.println("Flushing exchange applications failed (will retry): " + ex.getMessage());
+            }
+        }, 0, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes everything queued so far to the database; returns the number
+     * of applications finished (saved, duplicate or failed).
+     */
+    public int flush() throws SQLException, IOException {
+        synchronized (flushLock) {
+            int finished = 0;
+            List<ExchangeSubmission> batch;
+            while (!(batch = nextBatch()).isEmpty()) {
+                finished += flushBatch(batch);
+            }
+            synchronized (lock) {
+                if (byKey.isEmpty()) journal.truncate();
+            }
+            return finished;
+        }
+    }
+
+    // Up to ROWS_PER_INSERT queued applications; they stay registered until finished.
+    private List<ExchangeSubmission> nextBatch() {
+        synchronized (lock) {
+            List<ExchangeSubmission> batch = new ArrayList<>(Math.min(queued.size(), ROWS_PER_INSERT));
+            while (batch.size() < ROWS_PER_INSERT && !queued.isEmpty()) batch.add(queued.poll());
+            return batch;
+        }
+    }
+
+    private int flushBatch(List<ExchangeSubmission> batch) throws SQLException, IOException {
+        DBConnection.ensureTable(CREATE_SQL);
+        try (Connection conn = DBConnection.getConnection()) {
+            try {
+                write(conn, batch);
+            } catch (SQLException ex) {
+                if (!isConstraintViolation(ex)) {
+                    finish(batch);
+                    throw ex;
+                }
+                // Find the offending applications; the others are saved on their own.
+                for (ExchangeSubmission s : batch) {
+                    if (s.getStatus() != ExchangeSubmission.Status.QUEUED) continue;
+                    try {
+                        write(conn, List.of(s));
+                    } catch (SQLException single) {
+                        if (!isConstraintViolation(single)) {
+                            finish(batch);
+                            throw single;
+                        }
+                        s.finish(ExchangeSubmission.Status.FAILED, single.getMessage());
+                    }
+                }
+            }
+        }
+        return finish(batch);
+    }
+
+    /*
+     * One transaction: skips keys that were already flushed and vehicles
+     * that already have a Pending offer, inserts the rest and commits with
+     * the Pending totals. Statuses are only set once the commit succeeded.
+     *
+     * The vehicle rows are locked first, so another instance flushing one
+     * of the same vehicles waits for this commit (or this one for its),
+     * and the Pending check is a locking read: it sees the latest committed
+     * offers rather than the snapshot taken before the wait. The locked
+     * rows also give the current owner: an application for a vehicle that
+     * is gone or was reassigned since the citizen checked it FAILS.
+     */
+    private void write(Connection conn, List<ExchangeSubmission> batch) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            Set<String> flushedKeys = new HashSet<>();
+            Set<Integer> pendingVehicles = new HashSet<>();
+            Map<Integer, Integer> owners = new HashMap<>();
+            String keyIn = placeholders(batch.size());
+            try (PreparedStatement ps = conn.prepareStatement("SELECT vehicle_id, owner_id FROM vehicles "
+                    + "WHERE vehicle_id IN " + keyIn + " ORDER BY vehicle_id FOR UPDATE")) {
+                for (int i = 0; i < batch.size(); i++) ps.setInt(i + 1, batch.get(i).getVehicleId());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) owners.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT idempotency_key FROM offer_submissions WHERE idempotency_key IN " + keyIn)) {
+                for (int i = 0; i < batch.size(); i++) ps.setString(i + 1, batch.get(i).getKey());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) flushedKeys.add(rs.getString(1));
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement("SELECT vehicle_id FROM exchange_offers "
+                    + "WHERE status = 'Pending' AND vehicle_id IN " + keyIn + " FOR UPDATE")) {
+                for (int i = 0; i < batch.size(); i++) ps.setInt(i + 1, batch.get(i).getVehicleId());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) pendingVehicles.add(rs.getInt(1));
+                }
+            }
+
+            List<ExchangeSubmission> rows = new ArrayList<>(batch.size());
+            for (ExchangeSubmission s : batch) {
+                if (!flushedKeys.contains(s.getKey()) && ownedByApplicant(s, owners)
+                        && !pendingVehicles.contains(s.getVehicleId())) {
+                    rows.add(s);
+                }
+            }
+            OfferDelta delta = new OfferDelta();
+            if (!rows.isEmpty()) {
+                try (PreparedStatement offers = conn.prepareStatement(OFFER_COLUMNS + repeat(OFFER_ROW, rows.size()));
+                     PreparedStatement keys = conn.prepareStatement(KEY_COLUMNS + repeat(KEY_ROW, rows.size()))) {
+                    int p = 1, k = 1;
+                    for (ExchangeSubmission s : rows) {
+                        offers.setInt(p++, s.getVehicleId());
+                        offers.setDouble(p++, s.getExchangeValue());
+                        offers.setDouble(p++, s.getSubsidyPercent());
+                        keys.setString(k++, s.getKey());
+                        keys.setInt(k++, s.getVehicleId());
+                        delta.add("Pending", s.getExchangeValue());
+                    }
+                    offers.executeUpdate();
+                    keys.executeUpdate();
+                }
+            }
+            OfferAggregates.shared().commit(conn, delta);
+
+            synchronized (this) {
+                flushedRows += rows.size();
+                if (!rows.isEmpty()) insertStatements++;
+            }
+            for (ExchangeSubmission s : batch) {
+                if (flushedKeys.contains(s.getKey())) {
+                    s.finish(ExchangeSubmission.Status.SAVED, null);
+                } else if (!owners.containsKey(s.getVehicleId())) {
+                    s.finish(ExchangeSubmission.Status.FAILED, "vehicle " + s.getVehicleId() + " no longer exists");
+                } else if (!ownedByApplicant(s, owners)) {
+                    s.finish(ExchangeSubmission.Status.FAILED, "vehicle " + s.getVehicleId()
+                            + " no longer belongs to the applicant");
+                } else if (pendingVehicles.contains(s.getVehicleId())) {
+                    s.finish(ExchangeSubmission.Status.DUPLICATE, "this vehicle already has a pending application");
+                } else {
+                    s.finish(ExchangeSubmission.Status.SAVED, null);
+                }
+            }
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static boolean ownedByApplicant(ExchangeSubmission s, Map<Integer, Integer> owners) {
+        Integer owner = owners.get(s.getVehicleId());
+        return owner != null && owner == s.getUserId();
+    }
+
+    /*
+     * Marks the finished applications of a batch done in the journal
+     * (durably) and forgets them; unfinished ones go back to the head of
+     * the queue in their original order.
+     */
+    private int finish(List<ExchangeSubmission> batch) throws IOException {
+        long seq = 0;
+        int finished = 0;
+        synchronized (lock) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                ExchangeSubmission s = batch.get(i);
+                if (s.getStatus() == ExchangeSubmission.Status.QUEUED) {
+                    queued.addFirst(s);
+                    continue;
+                }
+                seq = Math.max(seq, journal.done(s));
+                byKey.remove(s.getKey());
+                byVehicle.remove(s.getVehicleId());
+                finished++;
+            }
+        }
+        if (seq > 0) journal.sync(seq);
+        return finished;
+    }
+
+    // SQLState class 23: integrity constraint violation.
+    private static boolean isConstraintViolation(SQLException ex) {
+        return ex.getSQLState() != null && ex.getSQLState().startsWith("23");
+    }
+
+    private static String placeholders(int n) {
+        return "(" + repeat("?", n) + ")";
+    }
+
+    private static String repeat(String item, int n) {
+        StringBuilder sb = new StringBuilder(n * (item.length() + 2));
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(item);
+        }
+        return sb.toString();
+    }
+
+    // --- Load test ---
+
+    /*
+     * Drives n submissions from CLIENTS threads released at once, against
+     * the configured database and a temporary journal. Every tenth
+     * submission repeats an earlier key (a double click) and the vehicles
+     * are reused round-robin, so most of the load is duplicates, as in a
+     * surge. Reports acknowledgement latency, flush throughput and checks
+     * that no vehicle ended up with two Pending offers.
+     */
+    private static void loadTest(int n) throws Exception {
+        final int clients = 64;
+        List<int[]> vehicles = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT vehicle_id, owner_id FROM vehicles ORDER BY vehicle_id")) {
+            while (rs.next() && vehicles.size() < n) vehicles.add(new int[]{rs.getInt(1), rs.getInt(2)});
+        }
+        if (vehicles.isEmpty()) {
+            System.out.println("No vehicles in the database; nothing to apply for.");
+            return;
+        }
+
+        Path file = Files.createTempFile("gvei-submissions", ".journal");
+        SubmissionQueue queue = new SubmissionQueue(file);
+        queue.start();
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) keys[i] = i % 10 == 9 ? keys[i - 5] : newKey();
+        long[] ackNanos = new long[n];
+        ExchangeSubmission[] results = new ExchangeSubmission[n];
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch acked = new CountDownLatch(n);
+        for (int i = 0; i < n; i++) {
+            final int index = i;
+            pool.execute(() -> {
+                try {
+                    go.await();
+                    int[] vehicle = vehicles.get((index % 10 == 9 ? index - 5 : index) % vehicles.size());
+                    long t0 = System.nanoTime();
+                    results[index] = queue.submit(keys[index], vehicle[1], vehicle[0], 5000 + index % 1000, 20);
+                    ackNanos[index] = System.nanoTime() - t0;
+                } catch (Exception ex) {
+                    System.err.println("Submission " + index + " failed: " + ex.getMessage());
+                } finally {
+                    acked.countDown();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        go.countDown();
+        acked.await();
+        long ackedAt = System.nanoTime();
+        pool.shutdown();
+        for (ExchangeSubmission s : results) {
+            if (s != null) s.outcome().get(5, TimeUnit.MINUTES);
+        }
+        long doneAt = System.nanoTime();
+
+        Map<ExchangeSubmission.Status, Integer> outcomes = new EnumMap<>(ExchangeSubmission.Status.class);
+        Set<ExchangeSubmission> distinct = new HashSet<>(Arrays.asList(results));
+        distinct.remove(null);
+        for (ExchangeSubmission s : distinct) outcomes.merge(s.getStatus(), 1, Integer::sum);
+        long[] sorted = ackNanos.clone();
+        Arrays.sort(sorted);
+        int doubled;
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM (SELECT vehicle_id FROM exchange_offers "
+                     + "WHERE status = 'Pending' GROUP BY vehicle_id HAVING COUNT(*) > 1) d")) {
+            rs.next();
+            doubled = rs.getInt(1);
+        }
+
+        System.out.printf("%,d submissions from %d clients over %,d vehicles (%,d distinct applications)%n",
+                n, clients, vehicles.size(), distinct.size());
+        System.out.printf("  acknowledged in %d ms: p50 %.2f ms, p99 %.2f ms, max %.2f ms, %,d journal fsyncs%n",
+                (ackedAt - start) / 1_000_000, sorted[n / 2] / 1e6, sorted[(int) (n * 0.99)] / 1e6,
+                sorted[n - 1] / 1e6, queue.journal.getForces());
+        System.out.printf("  flushed in %d ms: %,d rows in %,d multi-row inserts%n",
+                (doneAt - start) / 1_000_000, queue.flushedRows, queue.insertStatements);
+        System.out.println("  outcomes: " + outcomes);
+        System.out.println(doubled == 0 ? "  ✅ no vehicle has more than one Pending offer"
+                : "  ❌ " + doubled + " vehicle(s) have more than one Pending offer");
+        queue.journal.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Command line:
+     *   java -cp ... service.SubmissionQueue                   flushes the local queue and exits
+     *   java -cp ... service.SubmissionQueue --load-test[=N]   N concurrent submissions (default 10,000)
+     *
+     * The load test inserts real Pending offers and leaves them behind, so
+     * it refuses to run unless -Dgvei.db.url names the database: point it
+     * at a scratch database (e.g. an embedded H2 database loaded from the
+     * dump).
+     */
+    public static void main(String[] args) throws Exception {
+        try {
+            if (args.length > 0 && args[0].startsWith("--load-test")) {
+                int n = args[0].startsWith("--load-test=")
+                        ? Integer.parseInt(args[0].substring("--load-test=".length())) : 10_000;
+                if (!DBConnection.isUrlOverridden()) {
+                    System.err.println("❌ The load test writes up to " + n + " offers; "
+                            + "set -Dgvei.db.url to a scratch database to run it.");
+                    System.exit(1);
+                }
+                loadTest(n);
+                return;
+            }
+            SubmissionQueue queue = new SubmissionQueue(Paths.get(QUEUE_FILE));
+            int queued = queue.getQueuedCount();
+            int finished = queue.flush();
+            System.out.println(finished + " of " + queued + " queued application(s) flushed.");
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package service;
+
+import db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * SubsidyBudget
+ * -------------
+ * The programme budget that approved exchange values are charged against,
+ * so reviewers approving in parallel cannot overspend it:
+ *  - approvals reserve their exchange value first ({@link BudgetHold}).
+ *    A reservation is a compare-and-set on one atomic counter of the
+ *    cents still available; no lock is taken and an approval that does
+ *    not fit is refused at once,
+ *  - the approving transaction writes one subsidy_ledger row per approved
+ *    offer and adds the total to the subsidy_budget row, guarded by
+ *    spent <= budget, so other application instances cannot overspend
+ *    either. A failed or rolled back transaction releases its
+ *    reservations,
+ *  - {@link #reconcile()} recomputes the spent total from the ledger,
+ *    repairs the budget row if it drifted and picks up budget changes and
+ *    approvals made elsewhere; {@link #startReconciliation} runs it
+ *    periodically.
+ *
+ * As in {@link OfferAggregates}, committing transactions share a read lock
+ * and reconciliation takes the write lock. Without a subsidy_budget row
+ * there is no limit. Amounts are kept in cents.
+ */
+public class SubsidyBudget {
+
+    private static final SubsidyBudget SHARED = new SubsidyBudget();
+
+    static final String PROGRAMME = "exchange";
+    static final long NO_LIMIT = Long.MAX_VALUE / 4;
+
+    private static final String CREATE_BUDGET_SQL = "CREATE TABLE IF NOT EXISTS subsidy_budget ("
+            + "programme VARCHAR(32) NOT NULL PRIMARY KEY, "
+            + "budget_cents BIGINT NOT NULL, "
+            + "spent_cents BIGINT NOT NULL)";
+    private static final String CREATE_LEDGER_SQL = "CREATE TABLE IF NOT EXISTS subsidy_ledger ("
+            + "offer_id INT NOT NULL PRIMARY KEY, "
+            + "programme VARCHAR(32) NOT NULL, "
+            + "amount_cents BIGINT NOT NULL, "
+            + "recorded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+    private static final String BUDGET_SQL = "SELECT budget_cents, spent_cents FROM subsidy_budget WHERE programme = ?";
+    private static final String LEDGER_SUM_SQL =
+            "SELECT COALESCE(SUM(amount_cents), 0) FROM subsidy_ledger WHERE programme = ?";
+    private static final String REPAIR_SQL = "UPDATE subsidy_budget SET spent_cents = ? WHERE programme = ?";
+    private static final String SET_BUDGET_SQL = "UPDATE subsidy_budget SET budget_cents = ? WHERE programme = ?";
+    private static final String INSERT_BUDGET_SQL = "INSERT INTO subsidy_budget (programme, budget_cents, spent_cents) "
+            + "SELECT ?, ?, COALESCE(SUM(amount_cents), 0) FROM subsidy_ledger WHERE programme = ?";
+    private static final String REMOVE_BUDGET_SQL = "DELETE FROM subsidy_budget WHERE programme = ?";
+
+    private final AtomicLong available = new AtomicLong(NO_LIMIT);   // budget - spent - reserved
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong spent = new AtomicLong();
+    private volatile long budget = NO_LIMIT;
+    private volatile boolean loaded = false;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private ScheduledExecutorService scheduler;
+
+    SubsidyBudget() {
+    }
+
+    public static SubsidyBudget shared() {
+        return SHARED;
+    }
+
+    // --- Reservations ---
+
+    /** Starts the reservations of one approving transaction. */
+    public BudgetHold hold() throws SQLException {
+        if (!loaded) reconcile();
+        return new BudgetHold(this);
+    }
+
+    // Lock-free: succeeds only if the whole amount is still available.
+    boolean tryReserve(long cents) {
+        long current;
+        do {
+            current = available.get();
+            if (current < cents) return false;
+        } while (!available.compareAndSet(current, current - cents));
+        reserved.addAndGet(cents);
+        return true;
+    }
+
+    void release(long cents) {
+        reserved.addAndGet(-cents);
+        available.addAndGet(cents);
+    }
+
+    // Held from writing the ledger rows until the transaction has committed or rolled back.
+    void beginCommit() {
+        lock.readLock().lock();
+    }
+
+    // Reserved cents become spent (committed) or available again.
+    void endCommit(long cents, boolean committed) {
+        try {
+            if (committed) {
+                reserved.addAndGet(-cents);
+                spent.addAndGet(cents);
+            } else {
+                release(cents);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Charges the committing hold on the caller's connection: one ledger
+     * row per offer and the total added to the budget row, which fails if
+     * it would exceed the budget.
+     */
+    void record(Connection conn, int[] offerIds, long[] cents, int n, long total) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO subsidy_ledger (offer_id, programme, amount_cents) VALUES ");
+        for (int i = 0; i < n; i++) sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (int i = 0; i < n; i++) {
+                ps.setInt(p++, offerIds[i]);
+                ps.setString(p++, PROGRAMME);
+                ps.setLong(p++, cents[i]);
+            }
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE subsidy_budget SET spent_cents = spent_cents + ? "
+                + "WHERE programme = ? AND spent_cents + ? <= budget_cents")) {
+            ps.setLong(1, total);
+            ps.setString(2, PROGRAMME);
+            ps.setLong(3, total);
+            if (ps.executeUpdate() == 0 && budgetRowExists(conn)) {
+                requestReconcile();   // someone else spent it; catch up
+                throw new SQLException(String.format("Subsidy budget exhausted: $%,.2f more would exceed it.",
+                        total / 100.0));
+            }
+        }
+    }
+
+    private static boolean budgetRowExists(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(BUDGET_SQL)) {
+            ps.setString(1, PROGRAMME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // --- Reconciliation ---
+
+    /**
+     * Reloads the budget and recomputes the spent total from the ledger,
+     * repairing the budget row if it drifted. Returns true if the spent
+     * total differed from the in-process one (approvals made elsewhere, or
+     * drift).
+     */
+    public boolean reconcile() throws SQLException {
+        DBConnection.ensureTable(CREATE_BUDGET_SQL, CREATE_LEDGER_SQL);
+        try (Connection conn = DBConnection.getConnection()) {
+            lock.writeLock().lock();
+            try {
+                long newBudget = NO_LIMIT;
+                long rowSpent = -1;
+                try (PreparedStatement ps = conn.prepareStatement(BUDGET_SQL)) {
+                    ps.setString(1, PROGRAMME);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            newBudget = rs.getLong(1);
+                            rowSpent = rs.getLong(2);
+                        }
+                    }
+                }
+                long ledgerSpent;
+                try (PreparedStatement ps = conn.prepareStatement(LEDGER_SUM_SQL)) {
+                    ps.setString(1, PROGRAMME);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        ledgerSpent = rs.getLong(1);
+                    }
+                }
+                if (rowSpent >= 0 && rowSpent != ledgerSpent) {
+                    System.err.println("Subsidy budget drift: row says " + rowSpent + " cents spent, ledger "
+                            + ledgerSpent + "; repaired.");
+                    try (PreparedStatement ps = conn.prepareStatement(REPAIR_SQL)) {
+                        ps.setLong(1, ledgerSpent);
+                        ps.setString(2, PROGRAMME);
+                        ps.executeUpdate();
+                    }
+                }
+                return apply(newBudget, ledgerSpent);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Under the write lock, so no commit is half applied. Reservations in flight are kept.
+    private boolean apply(long newBudget, long newSpent) {
+        boolean wasLoaded = loaded;
+        long spentDrift = newSpent - spent.get();
+        available.addAndGet((newBudget - budget) - spentDrift);
+        budget = newBudget;
+        spent.set(newSpent);
+        loaded = true;
+        return wasLoaded && spentDrift != 0;
+    }
+
+    // Reconciles against a ledger total read under the write lock; used by the stress test.
+    private void reconcileWith(long newBudget, LongSupplier ledgerSpent) {
+        lock.writeLock().lock();
+        try {
+            apply(newBudget, ledgerSpent.getAsLong());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void requestReconcile() {
+        ScheduledExecutorService s = scheduler;
+        if (s == null) {
+            loaded = false;   // reconciled by the next hold()
+            return;
+        }
+        s.execute(() -> {
+            try {
+                reconcile();
+            } catch (SQLException ex) {
+                System.err.println("Subsidy budget reconciliation failed: " + ex.getMessage());
+            }
+        });
+    }
+
+    /** Runs {@link #reconcile()} now and then every periodMinutes on a daemon thread. */
+    public synchronized void startReconciliation(long periodMinutes) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gvei-subsidy-budget");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (SQLException ex) {
+                System.err.println("Subsidy budget reconciliation failed: " + ex.getMessage());
+            }
+        }, 0, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    // --- Budget ---
+
+    /** Sets the programme budget in dollars; null removes the limit. */
+    public void setBudget(Double amount) throws SQLException {
+        if (amount != null && (amount < 0 || amount.isNaN() || amount.isInfinite())) {
+            throw new IllegalArgumentException("Budget must be a positive amount.");
+        }
+        DBConnection.ensureTable(CREATE_BUDGET_SQL, CREATE_LEDGER_SQL);
+        try (Connection conn = DBConnection.getConnection()) {
+            if (amount == null) {
+                try (PreparedStatement ps = conn.prepareStatement(REMOVE_BUDGET_SQL)) {
+                    ps.setString(1, PROGRAMME);
+                    ps.executeUpdate();
+                }
+            } else {
+                long cents = Math.round(amount * 100);
+                int updated;
+                try (PreparedStatement ps = conn.prepareStatement(SET_BUDGET_SQL)) {
+                    ps.setLong(1, cents);
+                    ps.setString(2, PROGRAMME);
+                    updated = ps.executeUpdate();
+                }
+                if (updated == 0) {
+                    try (PreparedStatement ps = conn.prepareStatement(INSERT_BUDGET_SQL)) {
+                        ps.setString(1, PROGRAMME);
+                        ps.setLong(2, cents);
+                        ps.setString(3, PROGRAMME);
+                        ps.executeUpdate();
+                    }
+                }
+            }
+        }
+        reconcile();
+    }
+
+    public boolean hasLimit() {
+        return budget != NO_LIMIT;
+    }
+
+    /** The budget in dollars (meaningless without a limit). */
+    public double getBudget() {
+        return budget / 100.0;
+    }
+
+    public double getSpent() {
+        return spent.get() / 100.0;
+    }
+
+    /** Value reserved by approvals that are still committing. */
+    public double getReserved() {
+        return reserved.get() / 100.0;
+    }
+
+    public double getAvailable() {
+        return available.get() / 100.0;
+    }
+
+    @Override
+    public String toString() {
+        if (!hasLimit()) return String.format("No subsidy budget set ($%,.2f approved so far)", getSpent());
+        return String.format("Subsidy budget $%,.2f: $%,.2f spent, $%,.2f reserved, $%,.2f available",
+                getBudget(), getSpent(), getReserved(), getAvailable());
+    }
+
+    // --- Stress test ---
+
+    /*
+     * Reviewers on `threads` threads each try `attempts` approvals of
+     * $2,000-$10,000, without a database. One commit in five fails and
+     * rolls back; the budget runs out about 80% of the way through, while
+     * a reconciler keeps topping it up by $10,000 and reconciling against
+     * the simulated ledger. Every reviewer checks after each reservation that what is
+     * held (reserved or committed) never exceeds the budget; the final
+     * figures must match the ledger exactly.
+     */
+    private static boolean stress(int threads, int attempts) throws InterruptedException {
+        SubsidyBudget b = new SubsidyBudget();
+        long total = (long) threads * attempts;
+        AtomicLong budgetCents = new AtomicLong(total * 600_000 * 4 / 5 * 4 / 5);
+        AtomicLong ledger = new AtomicLong();          // committed, as the subsidy_ledger would hold it
+        AtomicLong held = new AtomicLong();            // reserved or committed, as counted by the reviewers
+        AtomicLong refused = new AtomicLong();
+        AtomicLong rolledBack = new AtomicLong();
+        AtomicLong violations = new AtomicLong();
+        b.reconcileWith(budgetCents.get(), ledger::get);
+
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            Thread reviewer = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    go.await();
+                    for (int i = 0; i < attempts; i++) {
+                        long cents = 200_000 + random.nextInt(800_001);
+                        if (!b.tryReserve(cents)) {
+                            refused.incrementAndGet();
+                            continue;
+                        }
+                        // budgetCents only grows and is raised before the budget is, so this bound is safe
+                        if (held.addAndGet(cents) > budgetCents.get()) violations.incrementAndGet();
+                        b.beginCommit();
+                        boolean commits = random.nextInt(5) != 0;
+                        if (commits) {
+                            ledger.addAndGet(cents);
+                        } else {
+                            held.addAndGet(-cents);
+                            rolledBack.incrementAndGet();
+                        }
+                        b.endCommit(cents, commits);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            reviewer.start();
+        }
+        Thread reconciler = new Thread(() -> {
+            while (done.getCount() > 0) {
+                b.reconcileWith(budgetCents.addAndGet(1_000_000), ledger::get);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        go.countDown();
+        reconciler.start();
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        reconciler.join();
+
+        boolean ok = violations.get() == 0 && b.reserved.get() == 0 && b.spent.get() == ledger.get()
+                && b.spent.get() <= b.budget && b.available.get() == b.budget - b.spent.get()
+                && held.get() == ledger.get() && refused.get() > 0;
+        System.out.printf("%2d reviewers: %,d approvals tried in %d ms (%,.0f/s): %,d committed, %,d rolled back, "
+                        + "%,d refused; budget $%,.2f, spent $%,.2f, %d violations %s%n",
+                threads, total, elapsed / 1_000_000, total * 1e9 / elapsed,
+                total - refused.get() - rolledBack.get(), rolledBack.get(), refused.get(),
+                b.budget / 100.0, b.spent.get() / 100.0, violations.get(), ok ? "✅" : "❌");
+        return ok;
+    }
+
+    /**
+     * Command line:
+     *   java -cp ... service.SubsidyBudget                    reconciles and prints the budget
+     *   java -cp ... service.SubsidyBudget --set=AMOUNT       sets the budget (--clear removes it)
+     *   java -cp ... service.SubsidyBudget --stress[=N]       in-memory stress test with 1..N reviewers
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].startsWith("--stress")) {
+            int maxThreads = args[0].startsWith("--stress=") ? Integer.parseInt(args[0].substring("--stress=".length()))
+                    : Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+            boolean ok = true;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                ok &= stress(threads, 2_000_000 / threads);
+            }
+            if (!ok) System.exit(1);
+            return;
+        }
+        try {
+            if (args.length > 0 && args[0].startsWith("--set=")) {
+                shared().setBudget(Double.parseDouble(args[0].substring("--set=".length())));
+            } else if (args.length > 0 && args[0].equals("--clear")) {
+                shared().setBudget(null);
+            } else {
+                shared().reconcile();
+            }
+            System.out.println(shared());
+        } finally {
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TrigramIndex
+ * ------------
+ * In-memory substring index from record ids to text. Every document is
+ * split into overlapping 3-character grams; each gram keeps a sorted int
+ * posting list of the ids containing it. A search intersects the posting
+ * lists of the term's grams (smallest first) and then checks the surviving
+ * candidates against the stored text, so results are exact and match what
+ * a case-insensitive {@code LIKE '%term%'} would return.
+ *
+ * Documents are stored in an array indexed by id, which suits the tables'
+ * dense AUTO_INCREMENT keys. Thread-safe: searches share a read lock,
+ * updates take the write lock.
+ */
+public class TrigramIndex {
+
+    /** Several fields of one record are joined with this; terms never contain it. */
+    public static final char FIELD_SEPARATOR = '\n';
+
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private String[] docs = new String[1024];   // lower-cased text by id, null = absent
+    private int size = 0;
+
+    // --- Updates ---
+
+    /** Adds or replaces the text of a record. */
+    public void put(int id, String text) {
+        String doc = normalize(text);
+        lock.writeLock().lock();
+        try {
+            String old = id < docs.length ? docs[id] : null;
+            if (doc.equals(old)) return;
+            if (old != null) {
+                forEachGram(old, gram -> {
+                    Postings p = grams.get(gram);
+                    if (p != null && p.remove(id) && p.size == 0) grams.remove(gram);
+                });
+            } else {
+                size++;
+            }
+            if (id >= docs.length) docs = Arrays.copyOf(docs, Math.max(id + 1, docs.length * 2));
+            docs[id] = doc;
+            forEachGram(doc, gram -> grams.computeIfAbsent(gram, g -> new Postings()).add(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String old = id < docs.length ? docs[id] : null;
+            if (old == null) return;
+            forEachGram(old, gram -> {
+                Postings p = grams.get(gram);
+                if (p != null && p.remove(id) && p.size == 0) grams.remove(gram);
+            });
+            docs[id] = null;
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            grams.clear();
+            docs = new String[1024];
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Queries ---
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(int id) {
+        lock.readLock().lock();
+        try {
+            return id >= 0 && id < docs.length && docs[id] != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids (ascending) of all records whose text contains the term, ignoring case.
+     * Terms shorter than three characters have no grams and are answered by
+     * scanning the stored texts.
+     */
+    public int[] search(String term) {
+        String needle = normalize(term);
+        lock.readLock().lock();
+        try {
+            if (needle.length() < 3) return scan(needle);
+
+            // Posting lists of every gram in the term; any missing gram means no match.
+            long[] keys = grams(needle);
+            Postings[] lists = new Postings[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                lists[i] = grams.get(keys[i]);
+                if (lists[i] == null) return new int[0];
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            int[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+            int n = candidates.length;
+            for (int i = 1; i < lists.length && n > 0; i++) {
+                n = intersect(candidates, n, lists[i]);
+            }
+
+            // Grams can match out of order (e.g. "abcab" vs "cab..abc"); verify.
+            int matches = 0;
+            for (int i = 0; i < n; i++) {
+                int id = candidates[i];
+                if (docs[id].contains(needle)) candidates[matches++] = id;
+            }
+            return Arrays.copyOf(candidates, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] scan(String needle) {
+        int[] out = new int[16];
+        int n = 0;
+        for (int id = 0; id < docs.length; id++) {
+            String doc = docs[id];
+            if (doc != null && doc.contains(needle)) {
+                if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                out[n++] = id;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // Keeps the first n candidates that also appear in the posting list; returns the new count.
+    private static int intersect(int[] candidates, int n, Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < n && j < list.size; i++) {
+            int id = candidates[i];
+            while (j < list.size && list.ids[j] < id) j++;
+            if (j < list.size && list.ids[j] == id) candidates[kept++] = id;
+        }
+        return kept;
+    }
+
+    // --- Grams ---
+
+    private interface GramConsumer {
+        void accept(long gram);
+    }
+
+    private static void forEachGram(String doc, GramConsumer consumer) {
+        for (long gram : grams(doc)) consumer.accept(gram);
+    }
+
+    /** Distinct grams of a text, packed as three 16-bit chars. Grams spanning fields are skipped. */
+    private static long[] grams(String text) {
+        int count = Math.max(0, text.length() - 2);
+        long[] out = new long[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            char a = text.charAt(i), b = text.charAt(i + 1), c = text.charAt(i + 2);
+            if (a == FIELD_SEPARATOR || b == FIELD_SEPARATOR || c == FIELD_SEPARATOR) continue;
+            out[n++] = ((long) a << 32) | ((long) b << 16) | c;
+        }
+        Arrays.sort(out, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || out[distinct - 1] != out[i]) out[distinct++] = out[i];
+        }
+        return Arrays.copyOf(out, distinct);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /** Sorted, growable list of ids. Ids mostly arrive in ascending order, so add is usually an append. */
+    private static class Postings {
+        int[] ids = new int[4];
+        int size = 0;
+
+        void add(int id) {
+            int pos = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0 && pos < size) return; // already present
+            if (pos < 0) pos = -pos - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return false;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
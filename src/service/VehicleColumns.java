@@ -0,0 +1,62 @@
+package service;
+
+import java.util.Arrays;
+
+/**
+ * VehicleColumns
+ * --------------
+ * The policy-relevant attributes of many vehicles as parallel primitive
+ * arrays (fuel and vehicle type as {@link EligibilityPolicy} codes), the
+ * input of {@link EligibilityEngine#score}. Grows as vehicles are added.
+ */
+public class VehicleColumns {
+
+    int size = 0;
+    int[] ids;
+    int[] ownerIds;
+    byte[] fuelCodes;
+    byte[] typeCodes;
+    int[] years;
+    double[] mileages;
+
+    public VehicleColumns(int capacity) {
+        capacity = Math.max(capacity, 16);
+        ids = new int[capacity];
+        ownerIds = new int[capacity];
+        fuelCodes = new byte[capacity];
+        typeCodes = new byte[capacity];
+        years = new int[capacity];
+        mileages = new double[capacity];
+    }
+
+    public void add(int vehicleId, int ownerId, String fuelType, String vehicleType, int year, double mileage) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ownerIds = Arrays.copyOf(ownerIds, capacity);
+            fuelCodes = Arrays.copyOf(fuelCodes, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            years = Arrays.copyOf(years, capacity);
+            mileages = Arrays.copyOf(mileages, capacity);
+        }
+        ids[size] = vehicleId;
+        ownerIds[size] = ownerId;
+        fuelCodes[size] = EligibilityPolicy.fuelCode(fuelType);
+        typeCodes[size] = EligibilityPolicy.typeCode(vehicleType);
+        years[size] = year;
+        mileages[size] = mileage;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getVehicleId(int index) {
+        return ids[index];
+    }
+
+    public int getOwnerId(int index) {
+        return ownerIds[index];
+    }
+}
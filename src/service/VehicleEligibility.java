@@ -0,0 +1,62 @@
+package service;
+
+/**
+ * VehicleEligibility
+ * ------------------
+ * The answer to a citizen's eligibility check, as returned by
+ * {@link EligibilityIndex#lookup}: the vehicle's owner (for the ownership
+ * check) and its eligibility, value and subsidy under the current policy.
+ */
+public class VehicleEligibility {
+
+    private final int vehicleId;
+    private final int ownerId;
+    private final boolean eligible;
+    private final double exchangeValue;
+    private final double subsidyPercent;
+    private final boolean live;
+
+    VehicleEligibility(int vehicleId, int ownerId, boolean eligible, double exchangeValue, double subsidyPercent,
+                       boolean live) {
+        this.vehicleId = vehicleId;
+        this.ownerId = ownerId;
+        this.eligible = eligible;
+        this.exchangeValue = exchangeValue;
+        this.subsidyPercent = subsidyPercent;
+        this.live = live;
+    }
+
+    public int getVehicleId() {
+        return vehicleId;
+    }
+
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    public boolean isEligible() {
+        return eligible;
+    }
+
+    /** 0 when not eligible. */
+    public double getExchangeValue() {
+        return exchangeValue;
+    }
+
+    /** 0 when not eligible. */
+    public double getSubsidyPercent() {
+        return subsidyPercent;
+    }
+
+    /** True when the index row was missing or stale and the result was computed live. */
+    public boolean isLive() {
+        return live;
+    }
+
+    @Override
+    public String toString() {
+        return "Vehicle " + vehicleId + " (owner " + ownerId + "): "
+                + (eligible ? String.format("eligible, value %.2f, subsidy %.2f%%", exchangeValue, subsidyPercent) : "not eligible")
+                + (live ? " [computed live]" : " [indexed]");
+    }
+}
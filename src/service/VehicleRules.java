@@ -0,0 +1,60 @@
+package service;
+
+/**
+ * VehicleRules
+ * ------------
+ * Validation rules for a vehicle registration, shared by the citizen
+ * VehicleRegistrationForm and the bulk CSV import. Plate uniqueness is
+ * enforced by the UNIQUE key on vehicles.plate_no (the import also checks
+ * it up front).
+ */
+public final class VehicleRules {
+
+    public static final int MIN_YEAR = 1980;
+    public static final int MAX_YEAR = 2025;
+    public static final String[] VEHICLE_TYPES = {"Car", "Bus", "Motorcycle", "Truck"};
+    public static final String[] FUEL_TYPES = {"Petrol", "Diesel", "Hybrid", "Electric"};
+
+    private VehicleRules() {
+    }
+
+    /**
+     * Checks plate, year and mileage as entered; returns the message to show,
+     * or null when they are valid.
+     */
+    public static String validate(String plate, String yearText, String mileageText) {
+        if (plate.isEmpty() || yearText.isEmpty() || mileageText.isEmpty()) {
+            return "All fields are required.";
+        }
+        try {
+            int year = Integer.parseInt(yearText);
+            double mileage = Double.parseDouble(mileageText);
+            if (year < MIN_YEAR || year > MAX_YEAR) {
+                return "Enter a valid manufacture year (" + MIN_YEAR + "–" + MAX_YEAR + ").";
+            }
+            if (mileage < 0) {
+                return "Mileage must be a positive number.";
+            }
+        } catch (NumberFormatException ex) {
+            return "Invalid number for year or mileage.";
+        }
+        return null;
+    }
+
+    /** The canonical spelling of a vehicle type ("car" -> "Car"), or null if unknown. */
+    public static String vehicleType(String text) {
+        return match(VEHICLE_TYPES, text);
+    }
+
+    /** The canonical spelling of a fuel type, or null if unknown. */
+    public static String fuelType(String text) {
+        return match(FUEL_TYPES, text);
+    }
+
+    private static String match(String[] values, String text) {
+        for (String value : values) {
+            if (value.equalsIgnoreCase(text)) return value;
+        }
+        return null;
+    }
+}
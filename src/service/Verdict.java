@@ -0,0 +1,45 @@
+package service;
+
+/**
+ * Verdict
+ * -------
+ * Outcome of adjudicating one offer: a decision and the reason shown in
+ * reports ("fuel type not eligible", "value mismatch", ...).
+ */
+public class Verdict {
+
+    public enum Decision { APPROVE, REJECT, REVIEW }
+
+    private final Decision decision;
+    private final String reason;
+
+    public Verdict(Decision decision, String reason) {
+        this.decision = decision;
+        this.reason = reason;
+    }
+
+    public static Verdict approve(String reason) {
+        return new Verdict(Decision.APPROVE, reason);
+    }
+
+    public static Verdict reject(String reason) {
+        return new Verdict(Decision.REJECT, reason);
+    }
+
+    public static Verdict review(String reason) {
+        return new Verdict(Decision.REVIEW, reason);
+    }
+
+    public Decision getDecision() {
+        return decision;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return decision + " (" + reason + ")";
+    }
+}
@@ -1,10 +1,28 @@
 package ui;
 
 import db.DBConnection;
+import db.QueryHandle;
+import service.AdjudicationEngine;
+import service.AdjudicationRules;
+import service.BudgetHold;
+import service.CsvImporter;
+import service.EligibilityEngine;
+import service.EligibilityIndex;
+import service.OfferAggregates;
+import service.OfferDelta;
+import service.SearchIndex;
+import service.SubsidyBudget;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.Timer;
 
 /**
  * Admin Dashboard - AWT Version (Full CRUD Refactor)
@@ -12,11 +30,17 @@ import java.sql.*;
  * - Uses StatsReportPanel for modular reporting.
  * - Adds search/filter functionality for data views.
  * - Adds export functionality (to .csv/.txt).
+ * - Pages every data view with keyset pagination (see DataView).
+ * - Optionally streams a whole view into the grid in chunks, with Stop.
+ * - Resolves filters through the in-memory SearchIndex when it is ready.
+ * - Filters as the admin types (debounced; narrows loaded rows in memory when it can).
+ * - Caches recently shown pages (ViewCache); each write invalidates the views it affects.
+ * - Auto-adjudicates pending offers (dry run or live) with the AdjudicationEngine.
  */
 public class AdminDashboard extends Frame implements ActionListener {
 
     // --- State & Components ---
-    private TextArea taData;
+    private RowGrid gridData;
     private Button btnLoadUsers, btnLoadVehicles, btnLoadPendingOffers, btnLoadAllOffers;
     private Button btnApprove, btnReject;
     private Button btnAdd, btnUpdate, btnDelete, btnExport;
@@ -31,14 +55,73 @@ public class AdminDashboard extends Frame implements ActionListener {
 
     private String currentView = "";
 
+    private String currentFilter = "";
+
+    // Result of an action that reloads the page; shown instead of the "Loaded ..." line.
+    private String pendingStatus;
+
+    private AdjudicationEngine adjudication;   // running auto-adjudication, if any
+    private QueryHandle exportHandle;          // running export, if any
+    private CsvImporter csvImport;             // running import, if any
+
+    // Latest-wins channel for the data view: switching views drops stale results.
+    private final BackgroundExecutor.Lane viewLane = new BackgroundExecutor.Lane();
+
+    // Recently shown pages; write paths below invalidate the views they affect.
+    private static final long VIEW_CACHE_BYTES = 16L * 1024 * 1024;
+    private final ViewCache<LoadResult> viewCache = new ViewCache<>(VIEW_CACHE_BYTES);
+
+    // Full-scan check of the incrementally maintained offer stats.
+    private static final long STATS_RECONCILE_MINUTES = 15;
+    // Rebuild of the eligibility index when rows are stale (year rollover, policy change).
+    private static final long ELIGIBILITY_CHECK_MINUTES = 60;
+    // Ledger check of the subsidy budget; also picks up approvals made by other clients.
+    private static final long BUDGET_RECONCILE_MINUTES = 5;
+
+    // --- Paging (keyset) State ---
+    private static final String[] PAGE_SIZES = {"50", "100", "250", "500", "1000"};
+    private Choice chPageSize;
+    private Button btnPrevPage, btnNextPage, btnCount;
+    private Label lblPage;
+    private int pageSize = 100;
+    private int pageAfterId = 0;      // rows on the current page have id > pageAfterId
+    private int pageLastId = 0;       // id of the last row on the current page
+    private boolean pageHasNext = false;
+    private int pageNumber = 1;
+    private final ArrayDeque<Integer> previousPages = new ArrayDeque<>();
+    private long totalCount = -1;     // -1 until counted for the current view/filter
+    private QueryHandle countHandle;
+    private final BackgroundExecutor.Lane countLane = new BackgroundExecutor.Lane();
+
+    // --- Search-as-you-type State ---
+    private static final int TYPING_DEBOUNCE_MS = 75;
+    private static final long TYPING_TARGET_MS = 100;
+    private Timer typingTimer;
+    private QueryHandle pageHandle;          // page query in flight, cancelled when superseded
+    private boolean loadedComplete = false;  // the grid holds every row of currentView/currentFilter
+    private long keystrokeNanos = 0;         // keystroke still waiting for its results, 0 if none
+    private int keystrokeCount = 0;
+    private long keystrokeTotalMillis = 0;
+    private long keystrokeMaxMillis = 0;
+    private int keystrokesOnTarget = 0;
+
+    // --- Streaming Load State ---
+    private static final int STREAM_CHUNK_ROWS = 500;
+    private static final long STREAM_CHUNK_MILLIS = 50;
+    private Checkbox cbStream;
+    private Button btnStop;
+    private QueryHandle streamHandle;   // the stream currently feeding the grid, if any
+    private long streamFirstRowMillis = -1;
+
     // --- MenuBar Components ---
     private MenuBar menuBar;
     private Menu menuDashboard, menuUsers, menuVehicles, menuOffers;
-    private MenuItem itemShowStats, itemHideStats, itemRefreshStats, itemExit;
+    private MenuItem itemShowStats, itemHideStats, itemRefreshStats, itemShowCharts, itemExit;
     private MenuItem itemLoadUsers, itemAddUser;
-    private MenuItem itemLoadVehicles, itemAddVehicle;
+    private MenuItem itemLoadVehicles, itemAddVehicle, itemScoreVehicles;
     private MenuItem itemLoadPendingOffers, itemLoadAllOffers;
-    private MenuItem itemExportData;
+    private MenuItem itemAdjudicateDryRun, itemAdjudicateLive, itemAdjudicateStop, itemSetBudget;
+    private MenuItem itemExportData, itemImportData;
 
     public AdminDashboard() {
         setTitle("GVEI - Admin Dashboard");
@@ -55,7 +138,7 @@ public class AdminDashboard extends Frame implements ActionListener {
 
         // 2.1 Stats Panel
         statsPanel = new StatsReportPanel();
-        statsPanel.setPreferredSize(new Dimension(900, 180));
+        statsPanel.setPreferredSize(new Dimension(900, 250));
         statsPanel.setVisible(false);
         northContainer.add(statsPanel, BorderLayout.NORTH);
 
@@ -64,22 +147,66 @@ public class AdminDashboard extends Frame implements ActionListener {
         filterPanel.setBackground(new Color(240, 240, 240));
 
         txtSearch = new TextField(30);
+        txtSearch.addTextListener(e -> searchTextChanged());
         btnSearch = new Button("Apply Filter/Search");
         btnSearch.addActionListener(this);
 
+        typingTimer = new Timer(TYPING_DEBOUNCE_MS, e -> loadView(currentView, txtSearch.getText().trim()));
+        typingTimer.setRepeats(false);
+
         filterPanel.add(new Label("Filter Current View:"));
         filterPanel.add(txtSearch);
         filterPanel.add(btnSearch);
 
         northContainer.add(filterPanel, BorderLayout.CENTER);
 
+        // 2.3 Paging Panel
+        Panel pagingPanel = new Panel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        pagingPanel.setBackground(new Color(240, 240, 240));
+
+        chPageSize = new Choice();
+        for (String size : PAGE_SIZES) chPageSize.add(size);
+        chPageSize.select(String.valueOf(pageSize));
+        chPageSize.addItemListener(e -> {
+            pageSize = Integer.parseInt(chPageSize.getSelectedItem());
+            if (!currentView.isEmpty()) loadView(currentView, currentFilter);
+        });
+
+        btnPrevPage = new Button("< Prev");
+        btnPrevPage.addActionListener(this);
+        btnNextPage = new Button("Next >");
+        btnNextPage.addActionListener(this);
+        btnCount = new Button("Count Total");
+        btnCount.addActionListener(this);
+        lblPage = new Label("", Label.LEFT);
+        lblPage.setPreferredSize(new Dimension(220, 20));
+
+        cbStream = new Checkbox("Stream all rows");
+        cbStream.addItemListener(e -> {
+            if (!currentView.isEmpty()) loadView(currentView, currentFilter);
+        });
+        btnStop = new Button("Stop");
+        btnStop.setEnabled(false);
+        btnStop.addActionListener(this);
+
+        pagingPanel.add(new Label("Rows per page:"));
+        pagingPanel.add(chPageSize);
+        pagingPanel.add(btnPrevPage);
+        pagingPanel.add(btnNextPage);
+        pagingPanel.add(btnCount);
+        pagingPanel.add(lblPage);
+        pagingPanel.add(cbStream);
+        pagingPanel.add(btnStop);
+
+        northContainer.add(pagingPanel, BorderLayout.SOUTH);
+
         add(northContainer, BorderLayout.NORTH);
 
 
-        // --- 3. Center: Data TextArea ---
-        taData = new TextArea(20, 100);
-        taData.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        add(taData, BorderLayout.CENTER);
+        // --- 3. Center: Data Grid (paints only the visible rows) ---
+        gridData = new RowGrid();
+        gridData.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        add(gridData, BorderLayout.CENTER);
 
         // --- 4. South: Button Panels & Status ---
         Panel southPanel = new Panel(new BorderLayout());
@@ -104,11 +231,11 @@ public class AdminDashboard extends Frame implements ActionListener {
 
         panelDataButtons.add(new Label(" | "));
 
-        btnApprove = new Button("Approve Selected Offer");
+        btnApprove = new Button("Approve Selected Offers");
         btnApprove.addActionListener(this);
         panelDataButtons.add(btnApprove);
 
-        btnReject = new Button("Reject Selected Offer");
+        btnReject = new Button("Reject Selected Offers");
         btnReject.addActionListener(this);
         panelDataButtons.add(btnReject);
 
@@ -168,9 +295,29 @@ public class AdminDashboard extends Frame implements ActionListener {
 
         // Initial state
         updateButtonStates();
+        updatePageControls(true);
         setVisible(true);
         // FIX APPLIED HERE: Pass null to load all pending offers unfiltered
         loadPendingOffers(null);
+        buildSearchIndex();
+        OfferAggregates.shared().startReconciliation(STATS_RECONCILE_MINUTES);
+        EligibilityIndex.shared().startMaintenance(ELIGIBILITY_CHECK_MINUTES);
+        SubsidyBudget.shared().startReconciliation(BUDGET_RECONCILE_MINUTES);
+    }
+
+    /**
+     * Builds the shared search index in the background. Filters use SQL LIKE
+     * until it is ready.
+     */
+    private void buildSearchIndex() {
+        SearchIndex index = SearchIndex.shared();
+        if (index.isReady()) return;
+        BackgroundExecutor.run(() -> {
+            index.load();
+            return index;
+        }, built -> lblStatus.setText("Search index ready: " + built.getUserCount() + " users, "
+                + built.getVehicleCount() + " vehicles (" + built.getLoadMillis() + " ms)."),
+           ex -> System.err.println("Search index not built, filters use SQL: " + ex.getMessage()));
     }
 
     private void setupMenuBar() {
@@ -190,12 +337,20 @@ public class AdminDashboard extends Frame implements ActionListener {
         itemRefreshStats.addActionListener(this);
         menuDashboard.add(itemRefreshStats);
 
+        itemShowCharts = new MenuItem("Show Charts...");
+        itemShowCharts.addActionListener(this);
+        menuDashboard.add(itemShowCharts);
+
         menuDashboard.addSeparator();
 
         itemExportData = new MenuItem("Export Current Data (.csv)");
         itemExportData.addActionListener(this);
         menuDashboard.add(itemExportData);
 
+        itemImportData = new MenuItem("Import CSV (Users/Vehicles/Offers)...");
+        itemImportData.addActionListener(this);
+        menuDashboard.add(itemImportData);
+
         menuDashboard.addSeparator();
         itemExit = new MenuItem("Exit");
         itemExit.addActionListener(e -> System.exit(0));
@@ -221,6 +376,12 @@ public class AdminDashboard extends Frame implements ActionListener {
         itemAddVehicle.addActionListener(this);
         menuVehicles.add(itemAddVehicle);
 
+        menuVehicles.addSeparator();
+
+        itemScoreVehicles = new MenuItem("Recompute Eligibility (All Vehicles)");
+        itemScoreVehicles.addActionListener(this);
+        menuVehicles.add(itemScoreVehicles);
+
         // --- Offers Menu ---
         menuOffers = new Menu("Manage Offers");
 
@@ -232,6 +393,27 @@ public class AdminDashboard extends Frame implements ActionListener {
         itemLoadAllOffers.addActionListener(this);
         menuOffers.add(itemLoadAllOffers);
 
+        menuOffers.addSeparator();
+
+        itemAdjudicateDryRun = new MenuItem("Auto-Adjudicate (Dry Run)");
+        itemAdjudicateDryRun.addActionListener(this);
+        menuOffers.add(itemAdjudicateDryRun);
+
+        itemAdjudicateLive = new MenuItem("Auto-Adjudicate Pending Offers...");
+        itemAdjudicateLive.addActionListener(this);
+        menuOffers.add(itemAdjudicateLive);
+
+        itemAdjudicateStop = new MenuItem("Stop Auto-Adjudication");
+        itemAdjudicateStop.addActionListener(this);
+        itemAdjudicateStop.setEnabled(false);
+        menuOffers.add(itemAdjudicateStop);
+
+        menuOffers.addSeparator();
+
+        itemSetBudget = new MenuItem("Set Subsidy Budget...");
+        itemSetBudget.addActionListener(this);
+        menuOffers.add(itemSetBudget);
+
         menuBar.add(menuDashboard);
         menuBar.add(menuUsers);
         menuBar.add(menuVehicles);
@@ -248,9 +430,22 @@ public class AdminDashboard extends Frame implements ActionListener {
         else if (source == btnLoadPendingOffers || source == itemLoadPendingOffers) loadPendingOffers(null);
         else if (source == btnLoadAllOffers || source == itemLoadAllOffers) loadAllOffers(null);
 
+            // Auto-adjudication
+        else if (source == itemAdjudicateDryRun) runAdjudication(true);
+        else if (source == itemAdjudicateLive) runAdjudication(false);
+        else if (source == itemAdjudicateStop && adjudication != null) adjudication.cancel();
+        else if (source == itemScoreVehicles) scoreAllVehicles();
+        else if (source == itemSetBudget) new BudgetDialog(this);
+
             // Search/Filter Action
         else if (source == btnSearch) applyFilter();
 
+            // Paging
+        else if (source == btnPrevPage) previousPage();
+        else if (source == btnNextPage) nextPage();
+        else if (source == btnCount) toggleTotalCount();
+        else if (source == btnStop) stopStream();
+
             // Offer Processing
         else if (source == btnApprove) processSelectedOffer("Approved");
         else if (source == btnReject) processSelectedOffer("Rejected");
@@ -265,9 +460,11 @@ public class AdminDashboard extends Frame implements ActionListener {
             statsPanel.refresh();
             lblStatus.setText("Statistics refreshed.");
         }
+        else if (source == itemShowCharts) new StatsChartWindow();
 
         // Export Action
         else if (source == btnExport || source == itemExportData) exportCurrentData();
+        else if (source == itemImportData) importCsv();
 
             // CRUD Actions
         else if (source == btnAdd) handleAdd();
@@ -289,6 +486,8 @@ public class AdminDashboard extends Frame implements ActionListener {
      */
     private void applyFilter() {
         String filter = txtSearch.getText().trim();
+        typingTimer.stop();
+        keystrokeNanos = 0;
         if (filter.isEmpty()) {
             lblStatus.setText("Filter cleared. Reloading " + currentView + ".");
         } else {
@@ -313,16 +512,99 @@ public class AdminDashboard extends Frame implements ActionListener {
         }
     }
 
+    // --- Search-as-you-type ---
+
+    /**
+     * Called on every edit of txtSearch. When the grid already holds every
+     * row for the current filter and the new term extends it, the rows are
+     * narrowed in memory right away. Otherwise the superseded query is
+     * cancelled, the visible rows are narrowed as a preview, and the
+     * database query runs once typing pauses for TYPING_DEBOUNCE_MS.
+     */
+    private void searchTextChanged() {
+        if (currentView.isEmpty()) return;
+        String term = txtSearch.getText().trim();
+        if (term.equals(currentFilter)) {
+            typingTimer.stop();
+            return;
+        }
+        keystrokeNanos = System.nanoTime();
+        DataView view = DataView.valueOf(currentView);
+        boolean extendsFilter = term.toLowerCase().contains(currentFilter.toLowerCase());
+
+        if (loadedComplete && extendsFilter) {
+            typingTimer.stop();
+            cancelPageLoad();
+            RowModel narrowed = gridData.getModel().filterText(view.filterModelColumns(), term);
+            currentFilter = term;
+            previousPages.clear();
+            pageAfterId = 0;
+            pageNumber = 1;
+            pageHasNext = false;
+            resetTotalCount();
+            totalCount = narrowed.size();
+            gridData.setModel(narrowed);
+            updatePageControls(true);
+            lblStatus.setText("Filtered to " + narrowed.size() + " " + view.label + " in memory." + keystrokeNote());
+            return;
+        }
+
+        cancelPageLoad();
+        if (extendsFilter && !term.isEmpty()) {
+            gridData.setModel(gridData.getModel().filterText(view.filterModelColumns(), term));
+            loadedComplete = false;
+        }
+        lblStatus.setText("Searching " + view.label + " for '" + term + "'...");
+        typingTimer.restart();
+    }
+
+    /** Cancels the page query in flight (if any) and drops its result. */
+    private void cancelPageLoad() {
+        if (pageHandle != null) {
+            pageHandle.cancel();
+            pageHandle = null;
+        }
+        viewLane.invalidate();
+    }
+
+    /**
+     * Records the time from the pending keystroke to its results being shown
+     * and returns it for the status bar (empty if no keystroke is pending).
+     */
+    private String keystrokeNote() {
+        if (keystrokeNanos == 0) return "";
+        long millis = (System.nanoTime() - keystrokeNanos) / 1_000_000;
+        keystrokeNanos = 0;
+        keystrokeCount++;
+        keystrokeTotalMillis += millis;
+        keystrokeMaxMillis = Math.max(keystrokeMaxMillis, millis);
+        if (millis <= TYPING_TARGET_MS) keystrokesOnTarget++;
+        return " [keystroke: " + millis + " ms; avg " + keystrokeTotalMillis / keystrokeCount
+                + " ms, max " + keystrokeMaxMillis + " ms, " + (keystrokesOnTarget * 100 / keystrokeCount)
+                + "% within " + TYPING_TARGET_MS + " ms]";
+    }
+
     // --- Export Method ---
+
+    /**
+     * Exports the whole current view (with the current filter) straight from
+     * the database, not just the loaded page. Runs in the background; the
+     * export button turns into "Cancel Export" meanwhile. A file name ending
+     * in .gz is gzip-compressed.
+     */
     private void exportCurrentData() {
-        String data = taData.getText();
-        if (data.trim().isEmpty() || currentView.isEmpty()) {
-            lblStatus.setText("Cannot export empty data or when no view is loaded.");
+        if (exportHandle != null) {
+            exportHandle.cancel();
+            lblStatus.setText("Cancelling export...");
+            return;
+        }
+        if (currentView.isEmpty()) {
+            lblStatus.setText("Cannot export when no view is loaded.");
             return;
         }
 
         // Use FileDialog for saving (Standard AWT component)
-        FileDialog fileDialog = new FileDialog(this, "Save Data as CSV/TXT", FileDialog.SAVE);
+        FileDialog fileDialog = new FileDialog(this, "Save Data as CSV (name it .csv.gz to compress)", FileDialog.SAVE);
         fileDialog.setFile("export_" + currentView.toLowerCase() + ".csv");
         fileDialog.setVisible(true);
 
@@ -335,14 +617,99 @@ public class AdminDashboard extends Frame implements ActionListener {
         }
 
         File file = new File(directory, filename);
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-            // Write the contents of the TextArea directly to the file
-            writer.print(data);
-            lblStatus.setText("✅ Data successfully exported to: " + file.getAbsolutePath());
-        } catch (IOException ex) {
-            lblStatus.setText("Error saving file: Check console for path errors.");
-            System.err.println("File Save Error: " + ex.getMessage());
+        DataView view = DataView.valueOf(currentView);
+        String filterTerm = currentFilter;
+        QueryHandle handle = new QueryHandle();
+        exportHandle = handle;
+        btnExport.setLabel("Cancel Export");
+        lblStatus.setText("Exporting " + view.label + " to " + file.getName() + "...");
+
+        BackgroundExecutor.run(() -> new CsvExporter().export(view, filterTerm, file, handle, rows ->
+                EventQueue.invokeLater(() -> {
+                    if (exportHandle == handle) lblStatus.setText("Exporting " + view.label + "... " + rows + " rows");
+                })), result -> {
+            exportHandle = null;
+            btnExport.setLabel("Export Data (.csv)");
+            lblStatus.setText(String.format("✅ Exported %d %s to %s (%.1f MB%s, %.1f MB/s).",
+                    result.rows, view.label, file.getAbsolutePath(), result.csvBytes / 1e6,
+                    result.fileBytes != result.csvBytes ? String.format(", %.1f MB gzipped", result.fileBytes / 1e6) : "",
+                    result.megabytesPerSecond()));
+        }, ex -> {
+            exportHandle = null;
+            btnExport.setLabel("Export Data (.csv)");
+            if (handle.isCancelled()) {
+                lblStatus.setText("Export cancelled; partial file removed.");
+            } else {
+                lblStatus.setText("Error exporting: " + ex.getMessage());
+                System.err.println("File Save Error: " + ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Bulk-imports users, vehicles or offers from a CSV file (the table is
+     * recognised from the header). Runs in the background; choosing the menu
+     * item again while it runs stops the import. Rejected rows go to a
+     * ".rejects.csv" file next to the input.
+     */
+    private void importCsv() {
+        if (csvImport != null) {
+            csvImport.cancel();
+            lblStatus.setText("Stopping import...");
+            return;
         }
+        FileDialog fileDialog = new FileDialog(this, "Import CSV", FileDialog.LOAD);
+        fileDialog.setFile("*.csv");
+        fileDialog.setVisible(true);
+
+        String filename = fileDialog.getFile();
+        String directory = fileDialog.getDirectory();
+        if (filename == null || directory == null) {
+            lblStatus.setText("Import canceled.");
+            return;
+        }
+
+        File file = new File(directory, filename);
+        CsvImporter importer = new CsvImporter();
+        csvImport = importer;
+        itemImportData.setLabel("Stop CSV Import");
+        lblStatus.setText("Importing " + file.getName() + "...");
+
+        BackgroundExecutor.run(() -> importer.importFile(file, progress -> {
+            String line = progress.toString();
+            EventQueue.invokeLater(() -> lblStatus.setText(line));
+        }), report -> {
+            finishImport();
+            if (report.getInserted() > 0) {
+                viewCache.invalidate(DataView.USERS, DataView.VEHICLES, DataView.OFFERS, DataView.ALL_OFFERS);
+                if (!report.getTarget().equals("offers")) rebuildSearchIndex();
+                statsPanel.refresh();
+                if (!currentView.isEmpty()) {
+                    pendingStatus = (report.getRejected() > 0 ? "⚠️ " : "✅ ") + report;
+                    loadPage();
+                    return;
+                }
+            }
+            lblStatus.setText((report.getRejected() > 0 ? "⚠️ " : "✅ ") + report);
+        }, ex -> {
+            finishImport();
+            lblStatus.setText("❌ Import failed: " + ex.getMessage());
+            System.err.println("CSV Import Error: " + ex.getMessage());
+        });
+    }
+
+    private void finishImport() {
+        csvImport = null;
+        itemImportData.setLabel("Import CSV (Users/Vehicles/Offers)...");
+    }
+
+    /** Reloads the search index after a bulk change; filters use SQL meanwhile. */
+    private void rebuildSearchIndex() {
+        SearchIndex index = SearchIndex.shared();
+        BackgroundExecutor.run(() -> {
+            index.load();
+            return index;
+        }, built -> { }, ex -> System.err.println("Search index not rebuilt, filters use SQL: " + ex.getMessage()));
     }
 
     private void updateButtonStates() {
@@ -386,234 +753,609 @@ public class AdminDashboard extends Frame implements ActionListener {
         }
     }
 
-    private String getSelectedId() {
-        String selectedLine = taData.getSelectedText();
-
-        if (selectedLine == null || selectedLine.isEmpty()) {
-            try {
-                int caretPos = taData.getCaretPosition();
-                int lineStart = taData.getText().lastIndexOf('\n', caretPos - 1) + 1;
-                int lineEnd = taData.getText().indexOf('\n', caretPos);
-                if (lineEnd == -1) lineEnd = taData.getText().length();
-
-                selectedLine = taData.getText().substring(lineStart, lineEnd);
-            } catch (Exception ex) {
-                lblStatus.setText("Could not determine selected line.");
-                return null;
-            }
-        }
-
-        if (selectedLine.trim().startsWith("ID") || selectedLine.trim().startsWith("---")) {
-            lblStatus.setText("Please select a valid data row (not a header).");
-            return null;
-        }
-
-        String[] parts = selectedLine.trim().split("\\s+");
-        if (parts.length > 0 && !parts[0].isEmpty()) {
-            return parts[0];
-        } else {
-            lblStatus.setText("Could not parse ID from selected line.");
-            return null;
+    /**
+     * Id of the selected grid row, or -1 (with a status message) if none is selected.
+     */
+    private int getSelectedId() {
+        int id = gridData.getSelectedId();
+        if (id < 0) {
+            lblStatus.setText("Please select a valid data row.");
         }
+        return id;
     }
 
     // --- Data Loading Methods (Accepts filter parameter) ---
 
     private void loadUsers(String filter) {
-        currentView = "USERS";
-        updateButtonStates();
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("%-5s | %-20s | %-30s | %-10s%n", "ID", "Name", "Email", "Role"));
-        sb.append("------+----------------------+--------------------------------+-----------\n");
+        loadView("USERS", filter);
+    }
 
-        String sql = "SELECT user_id, name, email, role FROM users";
-        String whereClause = "";
-        String filterTerm = (filter != null && !filter.isEmpty()) ? filter : "";
+    private void loadVehicles(String filter) {
+        loadView("VEHICLES", filter);
+    }
 
-        if (!filterTerm.isEmpty()) {
-            whereClause = " WHERE name LIKE ? OR email LIKE ?";
-            sql += whereClause;
-        }
+    private void loadPendingOffers(String filter) {
+        loadView("OFFERS", filter);
+    }
 
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    private void loadAllOffers(String filter) {
+        loadView("ALL_OFFERS", filter);
+    }
 
-            if (!filterTerm.isEmpty()) {
-                ps.setString(1, "%" + filterTerm + "%");
-                ps.setString(2, "%" + filterTerm + "%");
-            }
+    /**
+     * Switches to a view and shows its first page.
+     */
+    private void loadView(String view, String filter) {
+        currentView = view;
+        currentFilter = (filter != null && !filter.isEmpty()) ? filter : "";
+        previousPages.clear();
+        pageAfterId = 0;
+        pageNumber = 1;
+        resetTotalCount();
+        updateButtonStates();
+        loadPage();
+    }
 
-            int count = 0;
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    sb.append(String.format("%-5d | %-20s | %-30s | %-10s%n",
-                            rs.getInt("user_id"),
-                            rs.getString("name"),
-                            rs.getString("email"),
-                            rs.getString("role")));
-                    count++;
-                }
-            }
-            taData.setText(sb.toString());
-            lblStatus.setText("Loaded " + count + " users." + (filterTerm.isEmpty() ? "" : " (Filtered)"));
-        } catch (SQLException ex) {
-            taData.setText("DB Error: " + ex.getMessage());
-            lblStatus.setText("DB Error loading users.");
+    private void nextPage() {
+        if (!pageHasNext) return;
+        previousPages.push(pageAfterId);
+        pageAfterId = pageLastId;
+        pageNumber++;
+        loadPage();
+    }
+
+    private void previousPage() {
+        if (previousPages.isEmpty()) return;
+        pageAfterId = previousPages.pop();
+        pageNumber--;
+        loadPage();
+    }
+
+    /**
+     * (Re)loads the current page of the current view with the current filter.
+     */
+    private void loadPage() {
+        cancelStream();
+        cancelPageLoad();
+        loadedComplete = false;
+        if (cbStream.getState()) {
+            streamView();
+            return;
         }
+        DataView view = DataView.valueOf(currentView);
+        String filterTerm = currentFilter;
+        int afterId = pageAfterId;
+        int limit = pageSize;
+        LoadResult cached = viewCache.get(view, filterTerm, afterId, limit);
+        if (cached != null) {
+            showPage(view, filterTerm, afterId, cached, true);
+            return;
+        }
+
+        QueryHandle handle = new QueryHandle();
+        pageHandle = handle;
+        lblStatus.setText("Loading " + view.label + "...");
+        updatePageControls(false);
+
+        viewLane.submit(() -> queryPage(view, filterTerm, afterId, limit, handle), result -> {
+            pageHandle = null;
+            viewCache.put(view, filterTerm, afterId, limit, result, result.model.estimateBytes());
+            showPage(view, filterTerm, afterId, result, false);
+        }, ex -> {
+            pageHandle = null;
+            gridData.setMessage("DB Error: " + ex.getMessage());
+            updatePageControls(true);
+            lblStatus.setText("DB Error loading " + view.label + ".");
+        });
     }
 
-    private void loadVehicles(String filter) {
-        currentView = "VEHICLES";
-        updateButtonStates();
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("%-5s | %-10s | %-12s | %-10s | %-5s | %-10s | %-5s | %-15s%n",
-                "ID", "Plate", "Type", "Fuel", "Year", "Mileage", "OwnerID", "Owner Name"));
-        sb.append("------+------------+--------------+------------+-------+------------+---------+----------------\n");
+    private void showPage(DataView view, String filterTerm, int afterId, LoadResult result, boolean cached) {
+        gridData.setModel(result.model);
+        pageLastId = result.lastId;
+        pageHasNext = result.hasNext;
+        loadedComplete = afterId == 0 && !result.hasNext;
+        updatePageControls(true);
+        lblStatus.setText("Loaded " + result.count + " " + view.label + " (page " + pageNumber + ")."
+                + filterNote(filterTerm, result) + keystrokeNote()
+                + (cached ? " [from " : " [") + viewCache.describe() + "]");
+        showPendingStatus();
+    }
 
-        String sql = "SELECT v.vehicle_id, v.plate_no, v.vehicle_type, v.fuel_type, v.year, v.mileage, v.owner_id, u.name AS owner " +
-                "FROM vehicles v LEFT JOIN users u ON v.owner_id = u.user_id";
+    // The result of the action that triggered the reload replaces the "Loaded ..." text once.
+    private void showPendingStatus() {
+        if (pendingStatus != null) {
+            lblStatus.setText(pendingStatus);
+            pendingStatus = null;
+        }
+    }
 
-        String whereClause = "";
-        String filterTerm = (filter != null && !filter.isEmpty()) ? filter : "";
-        int paramIndex = 1;
+    private static String filterNote(String filterTerm, LoadResult result) {
+        if (filterTerm.isEmpty()) return "";
+        if (result.indexMatches < 0) return " (Filtered)";
+        return " (Filtered: " + result.indexMatches + " index matches in " + result.searchMicros + " µs)";
+    }
 
-        if (!filterTerm.isEmpty()) {
-            whereClause = " WHERE v.plate_no LIKE ? OR v.vehicle_type LIKE ? OR u.name LIKE ?";
-            sql += whereClause;
+    // Runs on a worker thread. Fetches one row past the page to learn whether a next page exists.
+    private LoadResult queryPage(DataView view, String filterTerm, int afterId, int limit, QueryHandle handle)
+            throws SQLException {
+        RowModel model = view.newModel();
+        String keyLabel = view.keyLabel();
+
+        // Resolve the filter through the search index when it can answer it.
+        long searchStart = System.nanoTime();
+        int[] matches = filterTerm.isEmpty() ? null : view.indexedIds(filterTerm);
+        int[] ids = matches == null ? null : view.pageIds(matches, afterId, limit);
+        long searchMicros = (System.nanoTime() - searchStart) / 1000;
+        if (ids != null && ids.length == 0) {
+            return new LoadResult(model, 0, afterId, false, matches.length, searchMicros);
         }
+        String sql = ids != null ? view.idPageSql(ids.length) : view.pageSql(!filterTerm.isEmpty());
 
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            if (!filterTerm.isEmpty()) {
-                ps.setString(paramIndex++, "%" + filterTerm + "%");
-                ps.setString(paramIndex++, "%" + filterTerm + "%");
-                ps.setString(paramIndex++, "%" + filterTerm + "%");
-            }
+            int paramIndex = ids != null ? DataView.bindIds(ps, ids, 1) : view.bindFilter(ps, filterTerm, 1);
+            ps.setInt(paramIndex++, afterId);
+            ps.setInt(paramIndex, limit + 1);
 
             int count = 0;
+            int lastId = afterId;
+            boolean hasNext = false;
+            handle.attach(ps);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    sb.append(String.format("%-5d | %-10s | %-12s | %-10s | %-5d | %-10.2f | %-7d | %-15s%n",
-                            rs.getInt("vehicle_id"),
-                            rs.getString("plate_no"),
-                            rs.getString("vehicle_type"),
-                            rs.getString("fuel_type"),
-                            rs.getInt("year"),
-                            rs.getDouble("mileage"),
-                            rs.getInt("owner_id"),
-                            rs.getString("owner") != null ? rs.getString("owner") : "N/A"));
+                    if (count == limit) {
+                        hasNext = true;
+                        break;
+                    }
+                    view.readRow(model, rs);
+                    lastId = rs.getInt(keyLabel);
                     count++;
                 }
+            } finally {
+                handle.detach();
             }
-            taData.setText(sb.toString());
-            lblStatus.setText("Loaded " + count + " vehicles." + (filterTerm.isEmpty() ? "" : " (Filtered)"));
-        } catch (SQLException ex) {
-            taData.setText("DB Error: " + ex.getMessage());
-            lblStatus.setText("DB Error loading vehicles.");
+            return ids != null
+                    ? new LoadResult(model, count, lastId, hasNext, matches.length, searchMicros)
+                    : new LoadResult(model, count, lastId, hasNext, -1, 0);
         }
     }
 
-    private void loadPendingOffers(String filter) {
-        currentView = "OFFERS";
-        updateButtonStates();
-        String filterTerm = (filter != null && !filter.isEmpty()) ? filter : "";
-        loadOffersData("eo.status = 'Pending'", filterTerm, "pending offers");
+    // --- Streaming Load (all rows, rendered in chunks as they arrive) ---
+
+    /**
+     * Streams every row of the current view into the grid. Rows are read with
+     * a streaming ResultSet and handed to the EDT in chunks of STREAM_CHUNK_ROWS
+     * or every STREAM_CHUNK_MILLIS, whichever comes first, so the first rows show
+     * up at the same time no matter how large the result is.
+     */
+    private void streamView() {
+        DataView view = DataView.valueOf(currentView);
+        String filterTerm = currentFilter;
+        QueryHandle handle = new QueryHandle();
+        streamHandle = handle;
+        viewLane.invalidate(); // a paged load still in flight must not overwrite the stream
+
+        RowModel model = view.newModel();
+        gridData.setModel(model);
+        long start = System.nanoTime();
+        streamFirstRowMillis = -1;
+        btnStop.setEnabled(true);
+        updatePageControls(false);
+        lblStatus.setText("Streaming " + view.label + "...");
+
+        BackgroundExecutor.run(() -> {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(view.streamSql(!filterTerm.isEmpty()))) {
+                DBConnection.enableStreaming(ps);
+                view.bindFilter(ps, filterTerm, 1);
+                handle.attach(ps);
+
+                int total = 0;
+                RowModel chunk = view.newModel();
+                long lastFlush = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (!handle.isCancelled() && rs.next()) {
+                        view.readRow(chunk, rs);
+                        total++;
+                        long now = System.nanoTime();
+                        if (chunk.size() >= STREAM_CHUNK_ROWS
+                                || now - lastFlush >= STREAM_CHUNK_MILLIS * 1_000_000L) {
+                            postChunk(handle, model, chunk, total, start, view);
+                            chunk = view.newModel();
+                            lastFlush = now;
+                        }
+                    }
+                } finally {
+                    handle.detach();
+                }
+                postChunk(handle, model, chunk, total, start, view);
+                return total;
+            }
+        }, total -> {
+            if (handle != streamHandle) return;
+            finishStream();
+            loadedComplete = !handle.isCancelled();
+            lblStatus.setText((handle.isCancelled() ? "Load stopped after " : "Loaded ") + total + " " + view.label
+                    + " in " + (System.nanoTime() - start) / 1_000_000 + " ms (first rows after "
+                    + Math.max(0, streamFirstRowMillis) + " ms)." + (filterTerm.isEmpty() ? "" : " (Filtered)")
+                    + keystrokeNote());
+            showPendingStatus();
+        }, ex -> {
+            if (handle != streamHandle) return;
+            finishStream();
+            if (handle.isCancelled()) {
+                lblStatus.setText("Load stopped after " + gridData.getModel().size() + " " + view.label + ".");
+            } else {
+                gridData.setMessage("DB Error: " + ex.getMessage());
+                lblStatus.setText("DB Error loading " + view.label + ".");
+            }
+        });
     }
 
-    private void loadAllOffers(String filter) {
-        currentView = "ALL_OFFERS";
-        updateButtonStates();
-        String filterTerm = (filter != null && !filter.isEmpty()) ? filter : "";
-        loadOffersData("1=1", filterTerm, "all offers (including history)");
+    // Called on the worker thread: appends a chunk on the EDT if this stream is still current.
+    private void postChunk(QueryHandle handle, RowModel model, RowModel chunk, int total, long start, DataView view) {
+        if (chunk.size() == 0) return;
+        EventQueue.invokeLater(() -> {
+            if (handle != streamHandle) return;
+            if (streamFirstRowMillis < 0) streamFirstRowMillis = (System.nanoTime() - start) / 1_000_000;
+            model.appendAll(chunk);
+            gridData.rowsAppended();
+            lblStatus.setText("Streaming " + view.label + "... " + total + " rows (first rows after "
+                    + streamFirstRowMillis + " ms)");
+        });
     }
 
-    private void loadOffersData(String baseWhere, String filter, String statusText) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("%-5s | %-9s | %-10s | %-10s | %-10s | %-12s | %-10s | %-15s%n",
-                "ID", "VehicleID", "Value", "Subsidy%", "Status", "Plate", "Type", "Owner"));
-        sb.append("------+-----------+------------+------------+------------+--------------+------------+----------------\n");
-
-        String filterTerm = filter.isEmpty() ? "" : filter;
-
-        String sql = """
-            SELECT eo.offer_id, eo.vehicle_id, eo.exchange_value, eo.subsidy_percent, eo.status,
-                   v.plate_no, v.vehicle_type, u.name
-            FROM exchange_offers eo
-            LEFT JOIN vehicles v ON eo.vehicle_id = v.vehicle_id
-            LEFT JOIN users u ON v.owner_id = u.user_id
-            WHERE 
-        """ + baseWhere;
-
-        if (!filterTerm.isEmpty()) {
-            sql += " AND (v.plate_no LIKE ? OR v.vehicle_type LIKE ? OR u.name LIKE ?)";
+    /** Stop button: cancels the running stream, keeping the rows already shown. */
+    private void stopStream() {
+        if (streamHandle != null) streamHandle.cancel(); // completion callback reports "Load stopped"
+    }
+
+    /** Abandons the running stream before another load replaces the grid. */
+    private void cancelStream() {
+        if (streamHandle != null) {
+            streamHandle.cancel();
+            finishStream();
         }
+    }
 
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    private void finishStream() {
+        streamHandle = null;
+        btnStop.setEnabled(false);
+        updatePageControls(true);
+    }
 
-            int paramIndex = 1;
-            if (!filterTerm.isEmpty()) {
-                ps.setString(paramIndex++, "%" + filterTerm + "%");
-                ps.setString(paramIndex++, "%" + filterTerm + "%");
-                ps.setString(paramIndex++, "%" + filterTerm + "%");
-            }
+    // --- Total Row Count (lazy, cancellable) ---
 
-            int count = 0;
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    sb.append(String.format("%-5d | %-9d | %-10.2f | %-10.2f | %-10s | %-12s | %-10s | %-15s%n",
-                            rs.getInt("offer_id"),
-                            rs.getInt("vehicle_id"),
-                            rs.getDouble("exchange_value"),
-                            rs.getDouble("subsidy_percent"),
-                            rs.getString("status"),
-                            rs.getString("plate_no") != null ? rs.getString("plate_no") : "N/A",
-                            rs.getString("vehicle_type") != null ? rs.getString("vehicle_type") : "N/A",
-                            rs.getString("name") != null ? rs.getString("name") : "N/A"));
-                    count++;
+    private void toggleTotalCount() {
+        if (countHandle != null) {
+            resetTotalCount();
+            lblPage.setText("Page " + pageNumber + " (count cancelled)");
+            return;
+        }
+        if (currentView.isEmpty()) return;
+
+        DataView view = DataView.valueOf(currentView);
+        String filterTerm = currentFilter;
+        QueryHandle handle = new QueryHandle();
+        countHandle = handle;
+        btnCount.setLabel("Cancel Count");
+        lblPage.setText("Page " + pageNumber + " (counting...)");
+
+        countLane.submit(() -> {
+            int[] ids = filterTerm.isEmpty() ? null : view.indexedIds(filterTerm);
+            if (ids != null && (view.isKeyIndexed() || ids.length == 0)) {
+                return (long) ids.length; // every indexed id is one row of the view
+            }
+            if (ids != null && ids.length > DataView.MAX_IN_IDS) ids = null;
+            String sql = ids != null ? view.idCountSql(ids.length) : view.countSql(!filterTerm.isEmpty());
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                handle.attach(ps);
+                if (ids != null) DataView.bindIds(ps, ids, 1);
+                else view.bindFilter(ps, filterTerm, 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : 0L;
+                } finally {
+                    handle.detach();
                 }
             }
-            taData.setText(sb.toString());
-            lblStatus.setText("Loaded " + count + " " + statusText + "." + (filterTerm.isEmpty() ? "" : " (Filtered)"));
-        } catch (SQLException ex) {
-            taData.setText("DB Error: " + ex.getMessage());
-            lblStatus.setText("DB Error loading offers.");
+        }, total -> {
+            countHandle = null;
+            btnCount.setLabel("Count Total");
+            totalCount = total;
+            updatePageControls(true);
+        }, ex -> {
+            countHandle = null;
+            btnCount.setLabel("Count Total");
+            if (!handle.isCancelled()) lblPage.setText("Page " + pageNumber + " (count failed)");
+        });
+    }
+
+    /** Cancels any running count and forgets the last total (the view or filter changed). */
+    private void resetTotalCount() {
+        if (countHandle != null) {
+            countHandle.cancel();
+            countHandle = null;
+        }
+        countLane.invalidate();
+        totalCount = -1;
+        btnCount.setLabel("Count Total");
+    }
+
+    private void updatePageControls(boolean idle) {
+        boolean hasView = !currentView.isEmpty();
+        boolean streaming = cbStream.getState();
+        btnPrevPage.setEnabled(idle && hasView && !streaming && !previousPages.isEmpty());
+        btnNextPage.setEnabled(idle && hasView && !streaming && pageHasNext);
+        btnCount.setEnabled(hasView);
+        if (!hasView) {
+            lblPage.setText("");
+        } else if (streaming && totalCount < 0 && countHandle == null) {
+            lblPage.setText("All rows");
+        } else if (streaming) {
+            if (totalCount >= 0) lblPage.setText("All rows (" + totalCount + " total)");
+        } else if (totalCount >= 0) {
+            long pages = Math.max(1, (totalCount + pageSize - 1) / pageSize);
+            lblPage.setText("Page " + pageNumber + " of " + pages + " (" + totalCount + " rows)");
+        } else if (countHandle == null) {
+            lblPage.setText("Page " + pageNumber);
+        }
+    }
+
+    /** One loaded page of a data view. */
+    private static class LoadResult {
+        final RowModel model;
+        final int count;
+        final int lastId;
+        final boolean hasNext;
+        final int indexMatches;     // ids the search index matched, -1 if the filter ran as LIKE
+        final long searchMicros;
+
+        LoadResult(RowModel model, int count, int lastId, boolean hasNext, int indexMatches, long searchMicros) {
+            this.model = model;
+            this.count = count;
+            this.lastId = lastId;
+            this.hasNext = hasNext;
+            this.indexMatches = indexMatches;
+            this.searchMicros = searchMicros;
         }
     }
 
     // --- Specific Action Methods (Approve/Reject) ---
 
+    private static final int OFFER_BATCH_SIZE = 500;
+
+    /**
+     * Approves or rejects every selected offer as one JDBC batch in a single
+     * transaction. Each UPDATE keeps the status='Pending' guard, so offers
+     * processed elsewhere in the meantime are reported as conflicts rather
+     * than overwritten. The view and stats are refreshed once per batch.
+     */
     private void processSelectedOffer(String newStatus) {
         if (!currentView.equals("OFFERS")) {
             lblStatus.setText("Please load the **Pending Offers** view to approve or reject.");
             return;
         }
 
-        String idStr = getSelectedId();
-        if (idStr == null) return;
+        int[] offerIds = gridData.getSelectedIds();
+        if (offerIds.length == 0) {
+            lblStatus.setText("Please select one or more offers (Ctrl/Shift+click, Ctrl+A for the page).");
+            return;
+        }
 
-        try {
-            int offerId = Integer.parseInt(idStr);
-            String sql = "UPDATE exchange_offers SET status=? WHERE offer_id=? AND status='Pending'";
-            try (Connection conn = DBConnection.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setString(1, newStatus);
-                ps.setInt(2, offerId);
-                int updated = ps.executeUpdate();
-                if (updated > 0) {
-                    lblStatus.setText("✅ Offer " + offerId + " set to " + newStatus + ".");
-                    loadPendingOffers(null); // Reload view without filter
-                    statsPanel.refresh(); // Refresh the report panel after a status change
-                } else {
-                    lblStatus.setText("Offer " + offerId + " not found, already processed, or not updated.");
+        btnApprove.setEnabled(false);
+        btnReject.setEnabled(false);
+        lblStatus.setText("Updating " + offerIds.length + " offer(s) to " + newStatus + "...");
+        BackgroundExecutor.run(() -> updateOfferStatuses(offerIds, newStatus), counts -> {
+            updateButtonStates();
+            List<Integer> conflicts = new ArrayList<>();
+            int updated = 0, overBudget = 0;
+            for (int i = 0; i < offerIds.length; i++) {
+                // SUCCESS_NO_INFO: the driver applied the row but did not report a count
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) updated++;
+                else if (counts[i] == OVER_BUDGET) overBudget++;
+                else conflicts.add(offerIds[i]);
+            }
+            if (updated > 0) {
+                viewCache.invalidate(DataView.OFFERS, DataView.ALL_OFFERS);
+                pendingStatus = bulkOfferReport(newStatus, updated, conflicts, overBudget);
+                loadPage(); // Reload the current page so the reviewer keeps their place
+                statsPanel.refresh(); // Refresh the report panel after a status change
+            } else {
+                lblStatus.setText(bulkOfferReport(newStatus, updated, conflicts, overBudget));
+            }
+        }, ex -> {
+            updateButtonStates();
+            lblStatus.setText("DB Error (no offers changed): " + ex.getMessage());
+        });
+    }
+
+    /*
+     * Runs on a worker thread. Returns the update count per offer, in the
+     * order given, or OVER_BUDGET for approvals left Pending because their
+     * value did not fit the subsidy budget. Approvals reserve their values
+     * first and are charged to the budget in the same transaction.
+     */
+    private static int[] updateOfferStatuses(int[] offerIds, String newStatus) throws SQLException {
+        String sql = "UPDATE exchange_offers SET status=? WHERE offer_id=? AND status='Pending'";
+        int[] counts = new int[offerIds.length];
+        BudgetHold hold = newStatus.equals("Approved") ? SubsidyBudget.shared().hold() : null;
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int[] ids = hold == null ? offerIds : reserveBudget(conn, offerIds, counts, hold);
+                int[] idCounts = new int[ids.length];
+                OfferDelta delta = new OfferDelta();
+                int done = 0;
+                for (int i = 0; i < ids.length; i++) {
+                    ps.setString(1, newStatus);
+                    ps.setInt(2, ids[i]);
+                    ps.addBatch();
+                    if ((i + 1) % OFFER_BATCH_SIZE == 0 || i == ids.length - 1) {
+                        int[] chunk = ps.executeBatch();
+                        System.arraycopy(chunk, 0, idCounts, done, chunk.length);
+                        addMovedOffers(conn, ids, idCounts, done, chunk.length, newStatus, delta);
+                        done += chunk.length;
+                    }
+                }
+                if (hold != null) {
+                    for (int i = 0; i < ids.length; i++) {
+                        if (idCounts[i] == 0) hold.release(ids[i]); // not Pending anymore
+                    }
+                    hold.record(conn);
+                }
+                OfferAggregates.shared().commit(conn, delta);
+                if (hold != null) hold.committed();
+                for (int i = 0, j = 0; i < offerIds.length; i++) {
+                    if (counts[i] != OVER_BUDGET) counts[i] = idCounts[j++];
                 }
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                if (hold != null) hold.rollback(); // no-op once committed
+                conn.setAutoCommit(true);
+            }
+        }
+        return counts;
+    }
+
+    // Count for an approval left Pending because it did not fit the subsidy budget.
+    private static final int OVER_BUDGET = -100;
+
+    /*
+     * Reserves the value of every selected offer that is still Pending, in
+     * selection order. Marks the ones that do not fit OVER_BUDGET and
+     * returns the ids to update (offers not Pending anymore are kept; their
+     * UPDATE reports the conflict).
+     */
+    private static int[] reserveBudget(Connection conn, int[] offerIds, int[] counts, BudgetHold hold)
+            throws SQLException {
+        Map<Integer, Double> values = new HashMap<>();
+        for (int from = 0; from < offerIds.length; from += OFFER_BATCH_SIZE) {
+            int n = Math.min(OFFER_BATCH_SIZE, offerIds.length - from);
+            StringBuilder sql = new StringBuilder(
+                    "SELECT offer_id, exchange_value FROM exchange_offers WHERE status='Pending' AND offer_id IN (");
+            for (int i = 0; i < n; i++) sql.append(i == 0 ? "?" : ", ?");
+            try (PreparedStatement ps = conn.prepareStatement(sql.append(')').toString())) {
+                for (int i = 0; i < n; i++) ps.setInt(i + 1, offerIds[from + i]);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) values.put(rs.getInt(1), rs.getDouble(2));
+                }
+            }
+        }
+        int[] ids = new int[offerIds.length];
+        int m = 0;
+        for (int i = 0; i < offerIds.length; i++) {
+            Double value = values.get(offerIds[i]);
+            if (value == null || hold.reserve(offerIds[i], value)) ids[m++] = offerIds[i];
+            else counts[i] = OVER_BUDGET;
+        }
+        return Arrays.copyOf(ids, m);
+    }
+
+    // Adds the offers of one executed batch that actually left Pending to the stats delta.
+    private static void addMovedOffers(Connection conn, int[] offerIds, int[] counts, int from, int n,
+                                       String newStatus, OfferDelta delta) throws SQLException {
+        int[] moved = new int[n];
+        int m = 0;
+        for (int i = from; i < from + n; i++) {
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) moved[m++] = offerIds[i];
+        }
+        if (m == 0) return;
+        StringBuilder sql = new StringBuilder("SELECT exchange_value FROM exchange_offers WHERE offer_id IN (");
+        for (int i = 0; i < m; i++) sql.append(i == 0 ? "?" : ", ?");
+        try (PreparedStatement ps = conn.prepareStatement(sql.append(')').toString())) {
+            for (int i = 0; i < m; i++) ps.setInt(i + 1, moved[i]);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) delta.move("Pending", newStatus, rs.getDouble(1));
+            }
+        }
+    }
+
+    private static String bulkOfferReport(String newStatus, int updated, List<Integer> conflicts, int overBudget) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(updated > 0 ? "✅ " : "⚠️ ").append(updated).append(" offer(s) set to ").append(newStatus).append('.');
+        if (overBudget > 0) {
+            sb.append(" ").append(overBudget).append(" left Pending: over the subsidy budget (")
+                    .append(SubsidyBudget.shared()).append(").");
+        }
+        if (!conflicts.isEmpty()) {
+            sb.append(" ").append(conflicts.size()).append(" not pending anymore (already processed or removed): ");
+            for (int i = 0; i < conflicts.size() && i < 10; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(conflicts.get(i));
+            }
+            if (conflicts.size() > 10) {
+                sb.append(", ... and ").append(conflicts.size() - 10).append(" more (full list in the error log)");
+                System.err.println("Offers not set to " + newStatus + " (not pending): " + conflicts);
             }
-        } catch (NumberFormatException ex) {
-            lblStatus.setText("Error: Selected ID '" + idStr + "' is not a valid number.");
-        } catch (SQLException ex) {
-            lblStatus.setText("DB Error: " + ex.getMessage());
         }
+        return sb.toString();
+    }
+
+    // --- Auto-adjudication ---
+
+    /**
+     * Runs the AdjudicationEngine over all pending offers in the background.
+     * A dry run only reports what would be decided; a live run (after
+     * confirmation) approves and rejects the clear-cut offers and leaves the
+     * borderline ones Pending.
+     */
+    private void runAdjudication(boolean dryRun) {
+        if (adjudication != null) {
+            lblStatus.setText("Auto-adjudication is already running.");
+            return;
+        }
+        if (!dryRun) {
+            ConfirmDialog confirm = new ConfirmDialog(this, "Auto-Adjudicate?",
+                    "Approve/reject all clear-cut pending offers now? Borderline offers stay Pending.");
+            if (!confirm.isConfirmed()) {
+                lblStatus.setText("Auto-adjudication canceled.");
+                return;
+            }
+        }
+
+        AdjudicationEngine engine = new AdjudicationEngine(new AdjudicationRules(), AdjudicationEngine.DEFAULT_CHUNK_SIZE);
+        adjudication = engine;
+        itemAdjudicateStop.setEnabled(true);
+        lblStatus.setText(dryRun ? "Dry run: evaluating pending offers..." : "Adjudicating pending offers...");
+
+        BackgroundExecutor.run(() -> engine.run(dryRun, progress -> {
+            String line = progress.toString();
+            EventQueue.invokeLater(() -> lblStatus.setText(line));
+        }), report -> {
+            adjudication = null;
+            itemAdjudicateStop.setEnabled(false);
+            if (!dryRun && report.getApproved() + report.getRejected() > 0) {
+                viewCache.invalidate(DataView.OFFERS, DataView.ALL_OFFERS);
+                statsPanel.refresh();
+                if (currentView.equals("OFFERS") || currentView.equals("ALL_OFFERS")) {
+                    pendingStatus = "✅ " + report;
+                    loadPage();
+                    return;
+                }
+            }
+            lblStatus.setText((dryRun ? "" : "✅ ") + report);
+        }, ex -> {
+            adjudication = null;
+            itemAdjudicateStop.setEnabled(false);
+            lblStatus.setText("❌ Auto-adjudication failed: " + ex.getMessage());
+        });
+    }
+
+    // Re-scores every vehicle against the current policy and stores the results in vehicle_eligibility.
+    private void scoreAllVehicles() {
+        itemScoreVehicles.setEnabled(false);
+        lblStatus.setText("Scoring all vehicles...");
+        BackgroundExecutor.run(() -> EligibilityEngine.scoreFleet(true), scores -> {
+            itemScoreVehicles.setEnabled(true);
+            lblStatus.setText("✅ " + scores);
+        }, ex -> {
+            itemScoreVehicles.setEnabled(true);
+            lblStatus.setText("❌ Eligibility scoring failed: " + ex.getMessage());
+        });
     }
 
     // --- CRUD Handlers (Unmodified for brevity) ---
@@ -632,35 +1374,15 @@ public class AdminDashboard extends Frame implements ActionListener {
     }
 
     private void handleUpdate() {
-        String idStr = getSelectedId();
-        if (idStr == null) return;
-
-        String selectedLine = taData.getSelectedText();
-        if (selectedLine == null || selectedLine.isEmpty()) {
-            try {
-                int caretPos = taData.getCaretPosition();
-                int lineStart = taData.getText().lastIndexOf('\n', caretPos - 1) + 1;
-                int lineEnd = taData.getText().indexOf('\n', caretPos);
-                if (lineEnd == -1) lineEnd = taData.getText().length();
-                selectedLine = taData.getText().substring(lineStart, lineEnd);
-            } catch (Exception ex) {
-                lblStatus.setText("Please highlight the full line to update.");
-                return;
-            }
-        }
-
-        if (selectedLine.trim().startsWith("ID") || selectedLine.trim().startsWith("---")) {
-            lblStatus.setText("Please highlight a valid data row to update.");
-            return;
-        }
-
+        if (getSelectedId() < 0) return;
+        String[] values = gridData.getModel().getRowText(gridData.getSelectedRow());
 
         switch (currentView) {
             case "USERS":
-                new UpdateUserDialog(this, selectedLine.trim());
+                new UpdateUserDialog(this, values);
                 break;
             case "VEHICLES":
-                new UpdateVehicleDialog(this, selectedLine.trim());
+                new UpdateVehicleDialog(this, values);
                 break;
             default:
                 lblStatus.setText("No 'Update' action available for this view.");
@@ -668,8 +1390,9 @@ public class AdminDashboard extends Frame implements ActionListener {
     }
 
     private void handleDelete() {
-        String idStr = getSelectedId();
-        if (idStr == null) return;
+        int recordId = getSelectedId();
+        if (recordId < 0) return;
+        String idStr = String.valueOf(recordId);
 
         ConfirmDialog confirmDialog = new ConfirmDialog(this,
                 "Delete Record?",
@@ -697,28 +1420,53 @@ public class AdminDashboard extends Frame implements ActionListener {
         }
 
         String sql = "DELETE FROM " + table + " WHERE " + idColumn + " = ?";
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, Integer.parseInt(idStr));
-            int deleted = ps.executeUpdate();
-
+        String deletedFrom = table;
+        lblStatus.setText("Deleting record " + idStr + "...");
+        BackgroundExecutor.run(() -> {
+            int deleted;
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    // The cascade removes offers too; take them out of the stats in the same transaction.
+                    OfferDelta removed = deletedFrom.equals("users")
+                            ? OfferAggregates.removedWithUser(conn, recordId)
+                            : OfferAggregates.removedWithVehicle(conn, recordId);
+                    ps.setInt(1, recordId);
+                    deleted = ps.executeUpdate();
+                    OfferAggregates.shared().commit(conn, deleted > 0 ? removed : new OfferDelta());
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+            if (deleted > 0) {
+                if (deletedFrom.equals("users")) SearchIndex.shared().userDeleted(recordId);
+                else SearchIndex.shared().vehicleDeleted(recordId);
+            }
+            return deleted;
+        }, deleted -> {
             if (deleted > 0) {
-                lblStatus.setText("✅ Record " + idStr + " deleted from " + table + ".");
-                if (currentView.equals("USERS")) loadUsers(null); // FIX: Pass null
-                if (currentView.equals("VEHICLES")) loadVehicles(null); // FIX: Pass null
+                // ON DELETE CASCADE: a user takes their vehicles and offers with them
+                if (deletedFrom.equals("users")) {
+                    viewCache.invalidate(DataView.USERS, DataView.VEHICLES, DataView.OFFERS, DataView.ALL_OFFERS);
+                } else {
+                    viewCache.invalidate(DataView.VEHICLES, DataView.OFFERS, DataView.ALL_OFFERS);
+                }
+                statsPanel.refresh();
+                pendingStatus = "✅ Record " + idStr + " deleted from " + deletedFrom + ".";
+                loadPage(); // Stay on the current page
             } else {
                 lblStatus.setText("Record " + idStr + " not found or not deleted.");
             }
-        } catch (NumberFormatException ex) {
-            lblStatus.setText("Error: Selected ID '" + idStr + "' is not a valid number.");
-        } catch (SQLException ex) {
-            if (ex.getMessage().contains("foreign key constraint")) {
+        }, ex -> {
+            if (ex.getMessage() != null && ex.getMessage().contains("foreign key constraint")) {
                 lblStatus.setText("Error: Cannot delete record " + idStr + ". It is being used by other records.");
             } else {
                 lblStatus.setText("DB Error: " + ex.getMessage());
             }
-        }
+        });
     }
 
     // --- Helper Dialog Classes (Unmodified for brevity) ---
@@ -839,28 +1587,38 @@ public class AdminDashboard extends Frame implements ActionListener {
             }
 
             String sql = "INSERT INTO users (name, email, role, password) VALUES (?, ?, ?, ?)";
-            try (Connection conn = DBConnection.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
-
-                ps.setString(1, name);
-                ps.setString(2, email);
-                ps.setString(3, role);
-                ps.setString(4, "temp_pass");
-
-                int added = ps.executeUpdate();
-                if(added > 0) {
-                    parent.lblStatus.setText("✅ User '" + name + "' added.");
+            btnSave.setEnabled(false);
+            lblError.setText("Saving...");
+            BackgroundExecutor.run(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+                    ps.setString(1, name);
+                    ps.setString(2, email);
+                    ps.setString(3, role);
+                    ps.setString(4, "temp_pass");
+
+                    int added = ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) SearchIndex.shared().userSaved(keys.getInt(1), name, email);
+                    }
+                    return added;
+                }
+            }, added -> {
+                if (added > 0) {
+                    parent.viewCache.invalidate(DataView.USERS); // a new user owns nothing yet
+                    parent.pendingStatus = "✅ User '" + name + "' added.";
                     parent.loadUsers(null); // FIX: Pass null
                     dispose();
                 }
-
-            } catch (SQLException ex) {
-                if (ex.getMessage().contains("Duplicate entry")) {
+            }, ex -> {
+                btnSave.setEnabled(true);
+                if (ex.getMessage() != null && ex.getMessage().contains("Duplicate entry")) {
                     lblError.setText("DB Error: Email address already exists.");
                 } else {
                     lblError.setText("DB Error: " + ex.getMessage());
                 }
-            }
+            });
         }
     }
 
@@ -868,7 +1626,7 @@ public class AdminDashboard extends Frame implements ActionListener {
         TextField txtName, txtEmail, txtRole;
         int userId;
 
-        UpdateUserDialog(Frame owner, String selectedLine) {
+        UpdateUserDialog(Frame owner, String[] values) {
             super(owner, "Update User");
 
             txtName = new TextField(30);
@@ -879,16 +1637,10 @@ public class AdminDashboard extends Frame implements ActionListener {
             addField("Email:", txtEmail);
             addField("Role (admin/user):", txtRole);
 
-            try {
-                String[] parts = selectedLine.split("\\s*\\|\\s*");
-                this.userId = Integer.parseInt(parts[0].trim());
-                txtName.setText(parts[1].trim());
-                txtEmail.setText(parts[2].trim());
-                txtRole.setText(parts[3].trim());
-            } catch (Exception ex) {
-                lblError.setText("Error parsing selected line: " + ex.getMessage());
-                btnSave.setEnabled(false);
-            }
+            this.userId = Integer.parseInt(values[0]);
+            txtName.setText(values[1]);
+            txtEmail.setText(values[2]);
+            txtRole.setText(values[3]);
 
             pack();
             setLocationRelativeTo(owner);
@@ -912,26 +1664,35 @@ public class AdminDashboard extends Frame implements ActionListener {
             }
 
             String sql = "UPDATE users SET name = ?, email = ?, role = ? WHERE user_id = ?";
-            try (Connection conn = DBConnection.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
+            btnSave.setEnabled(false);
+            lblError.setText("Saving...");
+            BackgroundExecutor.run(() -> {
+                try (Connection conn = DBConnection.getConnection();
+                     PreparedStatement ps = conn.prepareStatement(sql)) {
 
-                ps.setString(1, name);
-                ps.setString(2, email);
-                ps.setString(3, role);
-                ps.setInt(4, this.userId);
+                    ps.setString(1, name);
+                    ps.setString(2, email);
+                    ps.setString(3, role);
+                    ps.setInt(4, this.userId);
 
-                ps.executeUpdate();
-                parent.lblStatus.setText("✅ User " + this.userId + " updated.");
+                    int updated = ps.executeUpdate();
+                    if (updated > 0) SearchIndex.shared().userSaved(this.userId, name, email);
+                    return updated;
+                }
+            }, updated -> {
+                // Owner names also appear in the vehicle and offer views
+                parent.viewCache.invalidate(DataView.USERS, DataView.VEHICLES, DataView.OFFERS, DataView.ALL_OFFERS);
+                parent.pendingStatus = "✅ User " + this.userId + " updated.";
                 parent.loadUsers(null); // FIX: Pass null
                 dispose();
-
-            } catch (SQLException ex) {
-                if (ex.getMessage().contains("Duplicate entry")) {
+            }, ex -> {
+                btnSave.setEnabled(true);
+                if (ex.getMessage() != null && ex.getMessage().contains("Duplicate entry")) {
                     lblError.setText("DB Error: Email address already exists.");
                 } else {
-                    lblError.setText("DB Error: ".concat(ex.getMessage()));
+                    lblError.setText("DB Error: ".concat(String.valueOf(ex.getMessage())));
                 }
-            }
+            });
         }
     }
 
@@ -962,34 +1723,63 @@ public class AdminDashboard extends Frame implements ActionListener {
 
         @Override
         public void actionPerformed(ActionEvent e) {
+            String plate = txtPlate.getText();
+            String type = txtType.getText();
+            String fuel = txtFuel.getText();
+            String ownerIdText = txtOwnerId.getText();
+            int year, ownerId;
+            double mileage;
             try {
-                String sql = "INSERT INTO vehicles (plate_no, vehicle_type, fuel_type, year, mileage, owner_id) VALUES (?, ?, ?, ?, ?, ?)";
-                try (Connection conn = DBConnection.getConnection();
-                     PreparedStatement ps = conn.prepareStatement(sql)) {
-
-                    ps.setString(1, txtPlate.getText());
-                    ps.setString(2, txtType.getText());
-                    ps.setString(3, txtFuel.getText());
-                    ps.setInt(4, Integer.parseInt(txtYear.getText()));
-                    ps.setDouble(5, Double.parseDouble(txtMileage.getText()));
-                    ps.setInt(6, Integer.parseInt(txtOwnerId.getText()));
-
-                    ps.executeUpdate();
-                    parent.lblStatus.setText("✅ Vehicle '" + txtPlate.getText() + "' added.");
-                    parent.loadVehicles(null); // FIX: Pass null
-                    dispose();
-                }
+                year = Integer.parseInt(txtYear.getText());
+                mileage = Double.parseDouble(txtMileage.getText());
+                ownerId = Integer.parseInt(ownerIdText);
             } catch (NumberFormatException nfe) {
                 lblError.setText("Year, Mileage, and Owner ID must be valid numbers.");
-            } catch (SQLException ex) {
-                if(ex.getMessage().contains("foreign key constraint")) {
-                    lblError.setText("DB Error: Owner ID " + txtOwnerId.getText() + " does not exist.");
-                } else if(ex.getMessage().contains("plate_no")) {
-                    lblError.setText("DB Error: Plate number already exists.");
-                } else {
-                    lblError.setText("DB Error: " + ex.getMessage());
-                }
+                return;
             }
+
+            String sql = "INSERT INTO vehicles (plate_no, vehicle_type, fuel_type, year, mileage, owner_id) VALUES (?, ?, ?, ?, ?, ?)";
+            btnSave.setEnabled(false);
+            lblError.setText("Saving...");
+            BackgroundExecutor.run(() -> {
+                EligibilityIndex.shared().prepare();
+                try (Connection conn = DBConnection.getConnection()) {
+                    conn.setAutoCommit(false);
+                    try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                        ps.setString(1, plate);
+                        ps.setString(2, type);
+                        ps.setString(3, fuel);
+                        ps.setInt(4, year);
+                        ps.setDouble(5, mileage);
+                        ps.setInt(6, ownerId);
+
+                        int added = ps.executeUpdate();
+                        int vehicleId = 0;
+                        try (ResultSet keys = ps.getGeneratedKeys()) {
+                            if (keys.next()) vehicleId = keys.getInt(1);
+                        }
+                        if (vehicleId > 0) {
+                            EligibilityIndex.shared().vehicleSaved(conn, vehicleId, ownerId, type, fuel, year, mileage);
+                        }
+                        conn.commit();
+                        if (vehicleId > 0) SearchIndex.shared().vehicleSaved(vehicleId, plate, type, ownerId);
+                        return added;
+                    } catch (SQLException ex) {
+                        conn.rollback();
+                        throw ex;
+                    } finally {
+                        conn.setAutoCommit(true);
+                    }
+                }
+            }, added -> {
+                parent.viewCache.invalidate(DataView.VEHICLES); // a new vehicle has no offers yet
+                parent.pendingStatus = "✅ Vehicle '" + plate + "' added.";
+                parent.loadVehicles(null); // FIX: Pass null
+                dispose();
+            }, ex -> {
+                btnSave.setEnabled(true);
+                lblError.setText(vehicleErrorMessage(ex, ownerIdText));
+            });
         }
     }
 
@@ -997,7 +1787,7 @@ public class AdminDashboard extends Frame implements ActionListener {
         TextField txtPlate, txtType, txtFuel, txtYear, txtMileage, txtOwnerId;
         int vehicleId;
 
-        UpdateVehicleDialog(Frame owner, String selectedLine) {
+        UpdateVehicleDialog(Frame owner, String[] values) {
             super(owner, "Update Vehicle");
 
             txtPlate = new TextField(10);
@@ -1014,21 +1804,13 @@ public class AdminDashboard extends Frame implements ActionListener {
             addField("Mileage:", txtMileage);
             addField("Owner User ID:", txtOwnerId);
 
-            try {
-                String[] parts = selectedLine.trim().split("\\s*\\|\\s*");
-
-                this.vehicleId = Integer.parseInt(parts[0].trim());
-                txtPlate.setText(parts[1].trim());
-                txtType.setText(parts[2].trim());
-                txtFuel.setText(parts[3].trim());
-                txtYear.setText(parts[4].trim());
-                txtMileage.setText(parts[5].trim());
-                txtOwnerId.setText(parts[6].trim());
-
-            } catch (Exception ex) {
-                lblError.setText("Error parsing selected line: " + ex.getMessage() + ". Try selecting the full line carefully.");
-                btnSave.setEnabled(false);
-            }
+            this.vehicleId = Integer.parseInt(values[0]);
+            txtPlate.setText(values[1]);
+            txtType.setText(values[2]);
+            txtFuel.setText(values[3]);
+            txtYear.setText(values[4]);
+            txtMileage.setText(values[5]);
+            txtOwnerId.setText(values[6]);
 
             pack();
             setLocationRelativeTo(owner);
@@ -1037,36 +1819,132 @@ public class AdminDashboard extends Frame implements ActionListener {
 
         @Override
         public void actionPerformed(ActionEvent e) {
+            String plate = txtPlate.getText();
+            String type = txtType.getText();
+            String fuel = txtFuel.getText();
+            String ownerIdText = txtOwnerId.getText();
+            int year, ownerId;
+            double mileage;
             try {
-                String sql = "UPDATE vehicles SET plate_no=?, vehicle_type=?, fuel_type=?, year=?, mileage=?, owner_id=? WHERE vehicle_id=?";
-                try (Connection conn = DBConnection.getConnection();
-                     PreparedStatement ps = conn.prepareStatement(sql)) {
-
-                    ps.setString(1, txtPlate.getText());
-                    ps.setString(2, txtType.getText());
-                    ps.setString(3, txtFuel.getText());
-                    ps.setInt(4, Integer.parseInt(txtYear.getText()));
-                    ps.setDouble(5, Double.parseDouble(txtMileage.getText()));
-                    ps.setInt(6, Integer.parseInt(txtOwnerId.getText()));
-                    ps.setInt(7, this.vehicleId);
-
-                    ps.executeUpdate();
-                    parent.lblStatus.setText("✅ Vehicle " + this.vehicleId + " updated.");
-                    parent.loadVehicles(null); // FIX: Pass null
-                    dispose();
-                }
+                year = Integer.parseInt(txtYear.getText());
+                mileage = Double.parseDouble(txtMileage.getText());
+                ownerId = Integer.parseInt(ownerIdText);
             } catch (NumberFormatException nfe) {
                 lblError.setText("Year, Mileage, and Owner ID must be valid numbers.");
-            } catch (SQLException ex) {
-                if(ex.getMessage().contains("foreign key constraint")) {
-                    lblError.setText("DB Error: Owner ID " + txtOwnerId.getText() + " does not exist.");
-                } else if(ex.getMessage().contains("plate_no")) {
-                    lblError.setText("DB Error: Plate number already exists.");
-                } else {
-                    lblError.setText("DB Error: " + ex.getMessage());
+                return;
+            }
+
+            String sql = "UPDATE vehicles SET plate_no=?, vehicle_type=?, fuel_type=?, year=?, mileage=?, owner_id=? WHERE vehicle_id=?";
+            btnSave.setEnabled(false);
+            lblError.setText("Saving...");
+            BackgroundExecutor.run(() -> {
+                EligibilityIndex.shared().prepare();
+                try (Connection conn = DBConnection.getConnection()) {
+                    conn.setAutoCommit(false);
+                    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                        ps.setString(1, plate);
+                        ps.setString(2, type);
+                        ps.setString(3, fuel);
+                        ps.setInt(4, year);
+                        ps.setDouble(5, mileage);
+                        ps.setInt(6, ownerId);
+                        ps.setInt(7, this.vehicleId);
+
+                        int updated = ps.executeUpdate();
+                        if (updated > 0) {
+                            EligibilityIndex.shared().vehicleSaved(conn, this.vehicleId, ownerId, type, fuel, year, mileage);
+                        }
+                        conn.commit();
+                        if (updated > 0) SearchIndex.shared().vehicleSaved(this.vehicleId, plate, type, ownerId);
+                        return updated;
+                    } catch (SQLException ex) {
+                        conn.rollback();
+                        throw ex;
+                    } finally {
+                        conn.setAutoCommit(true);
+                    }
                 }
+            }, updated -> {
+                // Plate and type also appear in the offer views
+                parent.viewCache.invalidate(DataView.VEHICLES, DataView.OFFERS, DataView.ALL_OFFERS);
+                parent.pendingStatus = "✅ Vehicle " + this.vehicleId + " updated.";
+                parent.loadVehicles(null); // FIX: Pass null
+                dispose();
+            }, ex -> {
+                btnSave.setEnabled(true);
+                lblError.setText(vehicleErrorMessage(ex, ownerIdText));
+            });
+        }
+    }
+
+    class BudgetDialog extends CrudDialog {
+        TextField txtBudget;
+
+        BudgetDialog(Frame owner) {
+            super(owner, "Subsidy Budget");
+
+            txtBudget = new TextField(15);
+            addField("Programme budget ($):", txtBudget);
+            addField("", new Label("Leave empty for no limit."));
+            lblError.setForeground(Color.DARK_GRAY);
+            lblError.setText("Loading budget...");
+            btnSave.setEnabled(false);
+
+            // Show the figures from the ledger, not the last reconciliation
+            BackgroundExecutor.run(() -> {
+                SubsidyBudget.shared().reconcile();
+                return SubsidyBudget.shared();
+            }, budget -> {
+                if (budget.hasLimit()) txtBudget.setText(String.format("%.2f", budget.getBudget()));
+                lblError.setText(budget.toString());
+                btnSave.setEnabled(true);
+                pack();
+            }, ex -> {
+                lblError.setForeground(Color.RED);
+                lblError.setText("DB Error: " + ex.getMessage());
+            });
+
+            pack();
+            setLocationRelativeTo(owner);
+            setVisible(true);
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String text = txtBudget.getText().trim();
+            Double amount;
+            try {
+                amount = text.isEmpty() ? null : Double.parseDouble(text);
+            } catch (NumberFormatException ex) {
+                lblError.setForeground(Color.RED);
+                lblError.setText("Budget must be a number.");
+                return;
             }
+
+            btnSave.setEnabled(false);
+            lblError.setText("Saving...");
+            BackgroundExecutor.run(() -> {
+                SubsidyBudget.shared().setBudget(amount);
+                return SubsidyBudget.shared().toString();
+            }, status -> {
+                parent.lblStatus.setText("✅ " + status);
+                dispose();
+            }, ex -> {
+                btnSave.setEnabled(true);
+                lblError.setForeground(Color.RED);
+                lblError.setText("Error: " + ex.getMessage());
+            });
+        }
+    }
+
+    private static String vehicleErrorMessage(Exception ex, String ownerIdText) {
+        String msg = String.valueOf(ex.getMessage());
+        if (msg.contains("foreign key constraint")) {
+            return "DB Error: Owner ID " + ownerIdText + " does not exist.";
+        } else if (msg.contains("plate_no")) {
+            return "DB Error: Plate number already exists.";
         }
+        return "DB Error: " + msg;
     }
 
 
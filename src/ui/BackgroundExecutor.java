@@ -0,0 +1,92 @@
+package ui;
+
+import java.awt.EventQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * BackgroundExecutor
+ * ------------------
+ * Runs blocking work (JDBC queries) off the AWT event dispatch thread and
+ * posts the outcome back with EventQueue.invokeLater, so handlers stay
+ * responsive while the database is busy.
+ *
+ * Usage from an action handler:
+ *   lblStatus.setText("Loading...");
+ *   BackgroundExecutor.run(() -> query(), result -> show(result), ex -> showError(ex));
+ *
+ * Views that reload the same area use a {@link Lane}: only the result of the
+ * most recent request is delivered, older ones are dropped.
+ */
+public final class BackgroundExecutor {
+
+    // Bounded so a burst of clicks cannot queue unbounded work; sized to the DB pool.
+    private static final int WORKERS = 4;
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            WORKERS, WORKERS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            r -> {
+                Thread t = new Thread(r, "gvei-db-worker-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private BackgroundExecutor() {}
+
+    /**
+     * Runs work on a worker thread; onSuccess or onError is then called on the EDT.
+     */
+    public static <T> Future<?> run(Callable<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        try {
+            return executor.submit(() -> {
+                try {
+                    T result = work.call();
+                    EventQueue.invokeLater(() -> onSuccess.accept(result));
+                } catch (Exception ex) {
+                    EventQueue.invokeLater(() -> onError.accept(ex));
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            onError.accept(new Exception("Too many pending requests. Please try again.", ex));
+            return null;
+        }
+    }
+
+    /**
+     * Latest-wins channel for one view or form area. Submitting a new task
+     * supersedes earlier ones: their results (and errors) are silently dropped.
+     */
+    public static class Lane {
+        private final AtomicLong generation = new AtomicLong();
+
+        public <T> Future<?> submit(Callable<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+            long ticket = generation.incrementAndGet();
+            return run(work,
+                    result -> {
+                        if (generation.get() == ticket) onSuccess.accept(result);
+                    },
+                    ex -> {
+                        if (generation.get() == ticket) onError.accept(ex);
+                    });
+        }
+
+        /** Drops the result of whatever is currently in flight. */
+        public void invalidate() {
+            generation.incrementAndGet();
+        }
+    }
+}
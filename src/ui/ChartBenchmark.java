@@ -0,0 +1,54 @@
+package ui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ChartBenchmark
+ * --------------
+ * Headless benchmark of {@link ChartCanvas}: renders a line chart of a
+ * random-walk series with the given number of points (default 1,000,000)
+ * and a 1M-category bar chart, and prints setup and render times:
+ *   java -Djava.awt.headless=true -cp ... ui.ChartBenchmark [points]
+ */
+public class ChartBenchmark {
+
+    public static void main(String[] args) {
+        int points = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int width = 900;
+        int height = 300;
+        int rounds = 50;
+
+        double[] walk = new double[points];
+        Random random = new Random(42);
+        for (int i = 1; i < points; i++) walk[i] = walk[i - 1] + random.nextGaussian();
+        double[] noise = new double[points];
+        for (int i = 0; i < points; i++) noise[i] = Math.abs(random.nextGaussian()) * 10;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (ChartCanvas.Type type : new ChartCanvas.Type[]{ChartCanvas.Type.LINE, ChartCanvas.Type.BAR}) {
+            ChartCanvas chart = new ChartCanvas();
+            long setupStart = System.nanoTime();
+            List<ChartCanvas.Series> data = new ArrayList<>();
+            boolean line = type == ChartCanvas.Type.LINE;
+            data.add(new ChartCanvas.Series(line ? "random walk" : "noise", line ? walk : noise, null));
+            chart.setChart(type, points + " points", new String[0], data);
+            long setupNanos = System.nanoTime() - setupStart;
+
+            long total = 0;
+            long worst = 0;
+            for (int r = 0; r < rounds; r++) {
+                Graphics2D g = image.createGraphics();
+                chart.render(g, width, height);
+                g.dispose();
+                total += chart.getLastRenderNanos();
+                worst = Math.max(worst, chart.getLastRenderNanos());
+            }
+            System.out.printf("%s: %,d points, setChart %.1f ms, render avg %.2f ms / worst %.2f ms at %dx%d, %d points drawn%n",
+                    type, points, setupNanos / 1e6, total / 1e6 / rounds, worst / 1e6, width, height, chart.getLastPointsDrawn());
+        }
+    }
+}
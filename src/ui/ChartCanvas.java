@@ -1,4 +1,431 @@
 package ui;
 
-public class ChartCanvas {
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ChartCanvas
+ * -----------
+ * AWT Canvas that draws bar, line and stacked-bar charts for the
+ * statistics views. The chart is rendered into a back buffer that is only
+ * redrawn when the data or the canvas size changes; paint() copies it.
+ *
+ * Large line series are downsampled with largest-triangle-three-buckets
+ * (LTTB), which keeps the visual peaks and troughs: once to
+ * PRESAMPLE_POINTS when the data is set, then to two points per pixel
+ * column when rendering. Redraw cost therefore depends on the canvas
+ * width, not on the series length. Bar charts with more categories than
+ * pixel columns sum neighbouring categories into one bar.
+ *
+ * Benchmark (headless): java -Djava.awt.headless=true -cp ... ui.ChartBenchmark [points]
+ */
+public class ChartCanvas extends Canvas {
+
+    public enum Type { BAR, LINE, STACKED_BAR }
+
+    /** A named data series. x may be null (values are evenly spaced, one per category/index). */
+    public static class Series {
+        final String name;
+        final double[] x;
+        final double[] y;
+        final Color color;
+
+        public Series(String name, double[] x, double[] y, Color color) {
+            if (x != null && x.length != y.length) throw new IllegalArgumentException("x and y differ in length");
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.color = color;
+        }
+
+        public Series(String name, double[] y, Color color) {
+            this(name, null, y, color);
+        }
+
+        double xAt(int i) {
+            return x == null ? i : x[i];
+        }
+    }
+
+    static final int PRESAMPLE_POINTS = 4096;
+    private static final int MIN_BAR_PIXELS = 2;
+    private static final Color[] PALETTE = {
+            new Color(0, 100, 0), new Color(0, 0, 150), new Color(150, 0, 0),
+            new Color(200, 120, 0), new Color(90, 0, 130), new Color(0, 130, 130)};
+
+    // --- Drawing resources (created once) ---
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 13);
+    private static final Font AXIS_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final Color GRID_COLOR = new Color(230, 230, 230);
+
+    private Type type = Type.BAR;
+    private String title = "";
+    private String[] categories = new String[0];
+    private List<Series> series = new ArrayList<>();       // as given
+    private List<Series> presampled = new ArrayList<>();   // lines reduced to PRESAMPLE_POINTS
+    private int categoryStride = 1;                        // categories summed per presampled bar
+    private String message;                                // shown instead of a chart (loading, errors)
+
+    private BufferedImage buffer;
+    private boolean dirty = true;
+    private long lastRenderNanos;
+    private int lastPointsDrawn;
+
+    public ChartCanvas() {
+        setBackground(Color.WHITE);
+    }
+
+    /**
+     * Replaces the chart. categories label the bars (or the x positions of
+     * a line chart without x values) and may be empty.
+     */
+    public void setChart(Type type, String title, String[] categories, List<Series> data) {
+        this.type = type;
+        this.title = title;
+        this.categories = categories != null ? categories : new String[0];
+        this.series = new ArrayList<>(data);
+        this.presampled = new ArrayList<>(data.size());
+        int count = 0;
+        for (Series s : data) count = Math.max(count, s.y.length);
+        categoryStride = type == Type.LINE ? 1 : Math.max(1, (count + PRESAMPLE_POINTS - 1) / PRESAMPLE_POINTS);
+        for (Series s : data) {
+            presampled.add(type == Type.LINE ? downsample(s, PRESAMPLE_POINTS) : sumBuckets(s, categoryStride));
+        }
+        this.message = null;
+        dataChanged();
+    }
+
+    /** Shows a text (e.g. "Loading...") instead of a chart. */
+    public void setMessage(String message) {
+        this.message = message;
+        dataChanged();
+    }
+
+    /** Time the last back-buffer render took. */
+    public long getLastRenderNanos() {
+        return lastRenderNanos;
+    }
+
+    /** Line points drawn in the last render, after downsampling. */
+    public int getLastPointsDrawn() {
+        return lastPointsDrawn;
+    }
+
+    private void dataChanged() {
+        dirty = true;
+        repaint();
+    }
+
+    // --- Painting ---
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(420, 260);
+    }
+
+    /** Skips the background clear; paint() covers the whole canvas. */
+    @Override
+    public void update(Graphics g) {
+        paint(g);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0) return;
+        if (buffer == null || buffer.getWidth() != w || buffer.getHeight() != h) {
+            buffer = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            dirty = true;
+        }
+        if (dirty) {
+            Graphics2D bg = buffer.createGraphics();
+            try {
+                render(bg, w, h);
+            } finally {
+                bg.dispose();
+            }
+            dirty = false;
+        }
+        g.drawImage(buffer, 0, 0, null);
+    }
+
+    /** Draws the chart at the given size. Also usable headlessly on a BufferedImage. */
+    public void render(Graphics2D g, int w, int h) {
+        long start = System.nanoTime();
+        lastPointsDrawn = 0;
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(getBackground());
+        g.fillRect(0, 0, w, h);
+
+        g.setFont(TITLE_FONT);
+        g.setColor(Color.DARK_GRAY);
+        g.drawString(title, 10, 16);
+
+        if (message != null || presampled.isEmpty()) {
+            g.setFont(AXIS_FONT);
+            g.setColor(Color.GRAY);
+            g.drawString(message != null ? message : "No data.", 10, 40);
+            lastRenderNanos = System.nanoTime() - start;
+            return;
+        }
+
+        Rectangle plot = new Rectangle(55, 28, Math.max(10, w - 65), Math.max(10, h - 28 - 32));
+        if (type == Type.LINE) renderLines(g, plot);
+        else renderBars(g, plot, type == Type.STACKED_BAR);
+        renderLegend(g, w);
+        lastRenderNanos = System.nanoTime() - start;
+    }
+
+    // --- Lines ---
+
+    private void renderLines(Graphics2D g, Rectangle plot) {
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        double minY = 0, maxY = -Double.MAX_VALUE;
+        List<Series> visible = new ArrayList<>(presampled.size());
+        for (Series s : presampled) {
+            Series d = downsample(s, plot.width * 2);
+            visible.add(d);
+            for (int i = 0; i < d.y.length; i++) {
+                minX = Math.min(minX, d.xAt(i));
+                maxX = Math.max(maxX, d.xAt(i));
+                minY = Math.min(minY, d.y[i]);
+                maxY = Math.max(maxY, d.y[i]);
+            }
+        }
+        if (maxY <= minY) maxY = minY + 1;
+        if (maxX <= minX) maxX = minX + 1;
+        renderValueAxis(g, plot, minY, maxY);
+
+        // x labels: categories at their index, or the x range
+        g.setFont(AXIS_FONT);
+        g.setColor(Color.DARK_GRAY);
+        FontMetrics fm = g.getFontMetrics();
+        if (categories.length > 0 && series.get(0).x == null) {
+            int step = labelStep(g, categories.length, plot.width);
+            for (int i = 0; i < categories.length; i += step) {
+                int px = plot.x + (int) Math.round((i - minX) / (maxX - minX) * plot.width);
+                int labelWidth = fm.stringWidth(categories[i]);
+                int lx = Math.min(px - labelWidth / 2, plot.x + plot.width + 8 - labelWidth); // keep the last one inside
+                g.drawString(categories[i], lx, plot.y + plot.height + 14);
+            }
+        } else {
+            g.drawString(compact(minX), plot.x, plot.y + plot.height + 14);
+            String right = compact(maxX);
+            g.drawString(right, plot.x + plot.width - fm.stringWidth(right), plot.y + plot.height + 14);
+        }
+
+        Shape clip = g.getClip();
+        g.clipRect(plot.x, plot.y - 1, plot.width + 1, plot.height + 2);
+        int colorIndex = 0;
+        for (Series d : visible) {
+            int n = d.y.length;
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = plot.x + (int) Math.round((d.xAt(i) - minX) / (maxX - minX) * plot.width);
+                ys[i] = plot.y + plot.height - (int) Math.round((d.y[i] - minY) / (maxY - minY) * plot.height);
+            }
+            g.setColor(colorOf(d, colorIndex++));
+            // Dense lines: antialiasing costs more than it shows at 2 points per pixel.
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    n > plot.width ? RenderingHints.VALUE_ANTIALIAS_OFF : RenderingHints.VALUE_ANTIALIAS_ON);
+            g.drawPolyline(xs, ys, n);
+            lastPointsDrawn += n;
+        }
+        g.setClip(clip);
+    }
+
+    /**
+     * The series reduced to at most threshold points with LTTB (the series
+     * itself if it is already small enough).
+     */
+    static Series downsample(Series s, int threshold) {
+        int n = s.y.length;
+        if (threshold < 3 || n <= threshold) return s;
+        int[] keep = lttb(s, threshold);
+        double[] x = new double[keep.length];
+        double[] y = new double[keep.length];
+        for (int i = 0; i < keep.length; i++) {
+            x[i] = s.xAt(keep[i]);
+            y[i] = s.y[keep[i]];
+        }
+        return new Series(s.name, x, y, s.color);
+    }
+
+    /**
+     * Largest-triangle-three-buckets: keeps the first and last point and,
+     * from each of threshold-2 equal buckets in between, the point forming
+     * the largest triangle with the previously kept point and the average
+     * of the next bucket. Returns the kept indices in order.
+     */
+    static int[] lttb(Series s, int threshold) {
+        int n = s.y.length;
+        int[] keep = new int[threshold];
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        keep[0] = 0;
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) ((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) ((i + 2) * every) + 1, n);
+            double avgX = 0, avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += s.xAt(j);
+                avgY += s.y[j];
+            }
+            int avgLength = Math.max(1, avgEnd - avgStart);
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            int rangeStart = (int) (i * every) + 1;
+            int rangeEnd = (int) ((i + 1) * every) + 1;
+            double ax = s.xAt(a);
+            double ay = s.y[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (s.y[j] - ay) - (ax - s.xAt(j)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            keep[i + 1] = next;
+            a = next;
+        }
+        keep[threshold - 1] = n - 1;
+        return keep;
+    }
+
+    // --- Bars ---
+
+    // Sums every `per` consecutive values into one (the series itself when per is 1).
+    private static Series sumBuckets(Series s, int per) {
+        if (per == 1) return s;
+        double[] y = new double[(s.y.length + per - 1) / per];
+        for (int i = 0; i < s.y.length; i++) y[i / per] += s.y[i];
+        return new Series(s.name, y, s.color);
+    }
+
+    private void renderBars(Graphics2D g, Rectangle plot, boolean stacked) {
+        int count = 0;
+        for (Series s : presampled) count = Math.max(count, s.y.length);
+        if (count == 0) return;
+
+        // More categories than fit: sum neighbours into buckets of `per` categories.
+        int per = Math.max(1, (int) Math.ceil((double) count * MIN_BAR_PIXELS / plot.width));
+        int buckets = (count + per - 1) / per;
+        double[][] values = new double[presampled.size()][buckets];
+        for (int s = 0; s < presampled.size(); s++) {
+            double[] y = presampled.get(s).y;
+            for (int i = 0; i < y.length; i++) values[s][i / per] += y[i];
+        }
+
+        double minY = 0, maxY = 0;
+        for (int b = 0; b < buckets; b++) {
+            double stack = 0;
+            for (double[] v : values) {
+                if (stacked) stack += Math.max(0, v[b]);
+                else maxY = Math.max(maxY, v[b]);
+                minY = Math.min(minY, v[b]);
+            }
+            if (stacked) maxY = Math.max(maxY, stack);
+        }
+        if (maxY <= minY) maxY = minY + 1;
+        renderValueAxis(g, plot, minY, maxY);
+
+        double slot = (double) plot.width / buckets;
+        int groups = stacked ? 1 : values.length;
+        double barWidth = Math.max(1, slot * 0.8 / groups);
+        int zeroY = plot.y + plot.height - (int) Math.round((0 - minY) / (maxY - minY) * plot.height);
+        for (int b = 0; b < buckets; b++) {
+            double left = plot.x + b * slot + slot * 0.1;
+            int base = zeroY;
+            for (int s = 0; s < values.length; s++) {
+                double v = values[s][b];
+                int px = (int) Math.round(stacked ? left : left + s * barWidth);
+                int height = (int) Math.round(Math.abs(v) / (maxY - minY) * plot.height);
+                g.setColor(colorOf(presampled.get(s), s));
+                if (stacked) {
+                    if (v <= 0) continue;
+                    base -= height;
+                    g.fillRect(px, base, (int) Math.ceil(barWidth), height);
+                } else {
+                    g.fillRect(px, v >= 0 ? zeroY - height : zeroY, (int) Math.ceil(barWidth), height);
+                }
+            }
+        }
+
+        // category labels under the bars
+        g.setFont(AXIS_FONT);
+        g.setColor(Color.DARK_GRAY);
+        FontMetrics fm = g.getFontMetrics();
+        int step = labelStep(g, buckets, plot.width);
+        for (int b = 0; b < buckets; b += step) {
+            int category = b * per * categoryStride;
+            String label = category < categories.length ? categories[category] : String.valueOf(category);
+            int center = (int) Math.round(plot.x + (b + 0.5) * slot);
+            g.drawString(label, center - fm.stringWidth(label) / 2, plot.y + plot.height + 14);
+        }
+    }
+
+    // --- Axes & legend ---
+
+    private void renderValueAxis(Graphics2D g, Rectangle plot, double minY, double maxY) {
+        g.setFont(AXIS_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int ticks = Math.max(2, Math.min(5, plot.height / 30));
+        for (int t = 0; t <= ticks; t++) {
+            double value = minY + (maxY - minY) * t / ticks;
+            int py = plot.y + plot.height - plot.height * t / ticks;
+            g.setColor(GRID_COLOR);
+            g.drawLine(plot.x, py, plot.x + plot.width, py);
+            String label = compact(value);
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(label, plot.x - 6 - fm.stringWidth(label), py + fm.getAscent() / 2 - 1);
+        }
+        g.setColor(Color.GRAY);
+        g.drawLine(plot.x, plot.y, plot.x, plot.y + plot.height);
+        g.drawLine(plot.x, plot.y + plot.height, plot.x + plot.width, plot.y + plot.height);
+    }
+
+    private void renderLegend(Graphics2D g, int w) {
+        if (presampled.size() < 2) return;
+        g.setFont(AXIS_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int x = w - 10;
+        for (int s = presampled.size() - 1; s >= 0; s--) {
+            String name = presampled.get(s).name;
+            x -= fm.stringWidth(name);
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(name, x, 15);
+            x -= 12;
+            g.setColor(colorOf(presampled.get(s), s));
+            g.fillRect(x, 7, 8, 8);
+            x -= 10;
+        }
+    }
+
+    // Every how many labels one can be drawn without overlapping.
+    private static int labelStep(Graphics2D g, int labels, int width) {
+        int labelWidth = g.getFontMetrics(AXIS_FONT).stringWidth("0000-00") + 6;
+        return Math.max(1, (int) Math.ceil((double) labels * labelWidth / Math.max(1, width)));
+    }
+
+    private static Color colorOf(Series s, int index) {
+        return s.color != null ? s.color : PALETTE[index % PALETTE.length];
+    }
+
+    // e.g. 950, 12.5k, 3.2M
+    static String compact(double value) {
+        double abs = Math.abs(value);
+        if (abs >= 1e9) return String.format("%.1fB", value / 1e9);
+        if (abs >= 1e6) return String.format("%.1fM", value / 1e6);
+        if (abs >= 1e4) return String.format("%.1fk", value / 1e3);
+        if (abs >= 100 || value == Math.rint(value)) return String.format("%.0f", value);
+        return String.format("%.2f", value);
+    }
 }
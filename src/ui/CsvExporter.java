@@ -0,0 +1,214 @@
+package ui;
+
+import db.DBConnection;
+import db.QueryHandle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CsvExporter
+ * -----------
+ * Exports a whole data view straight from its query to a CSV file:
+ * rows stream from the ResultSet into a single reused row model and a
+ * 64 KB byte buffer that is flushed to a FileChannel (through gzip when
+ * the file name ends in ".gz"). Memory use does not grow with the number
+ * of rows.
+ *
+ * Fields are quoted per RFC 4180 when they contain a comma, quote, line
+ * break or leading/trailing space. Doubles are written with two decimals
+ * as in the grid. Cancel with the QueryHandle; a cancelled or failed
+ * export deletes its partial file.
+ */
+class CsvExporter {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final long PROGRESS_EVERY_ROWS = 50_000;
+
+    private final byte[] buf = new byte[BUFFER_BYTES];
+    private int pos = 0;
+    private long csvBytes = 0;      // CSV bytes produced (before compression)
+    private long fileBytes = 0;
+    private final RowFormatter formatter = new RowFormatter();
+
+    private FileChannel channel;
+    private GZIPOutputStream gzip;
+
+    /** Result of one export. */
+    static class Result {
+        final long rows;
+        final long csvBytes;    // CSV size before compression
+        final long fileBytes;   // size on disk (compressed for .gz)
+        final long elapsedNanos;
+
+        Result(long rows, long csvBytes, long fileBytes, long elapsedNanos) {
+            this.rows = rows;
+            this.csvBytes = csvBytes;
+            this.fileBytes = fileBytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** CSV throughput in MB/s (uncompressed bytes). */
+        double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : csvBytes / 1e6 / (elapsedNanos / 1e9);
+        }
+    }
+
+    /**
+     * Writes every row of the view (with the filter) to the file. Blocking;
+     * call it off the EDT. The progress callback gets the row count now and then.
+     */
+    Result export(DataView view, String filterTerm, File file, QueryHandle handle, LongConsumer progress)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        long rows = 0;
+        boolean done = false;
+        open(file);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(view.streamSql(!filterTerm.isEmpty()))) {
+            DBConnection.enableStreaming(ps);
+            view.bindFilter(ps, filterTerm, 1);
+            handle.attach(ps);
+
+            RowModel row = view.newModel();
+            writeHeader(row);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (handle.isCancelled()) throw new SQLException("Export cancelled.");
+                    row.clear();
+                    view.readRow(row, rs);
+                    writeRow(row);
+                    if (++rows % PROGRESS_EVERY_ROWS == 0 && progress != null) progress.accept(rows);
+                }
+            } finally {
+                handle.detach();
+            }
+            if (handle.isCancelled()) throw new SQLException("Export cancelled.");
+            close();
+            done = true;
+        } finally {
+            if (!done) {
+                closeQuietly();
+                if (!file.delete() && file.exists()) System.err.println("Could not delete partial export " + file);
+            }
+        }
+        return new Result(rows, csvBytes, fileBytes, System.nanoTime() - start);
+    }
+
+    // --- CSV ---
+
+    private void writeHeader(RowModel model) throws IOException {
+        for (int c = 0; c < model.getColumnCount(); c++) {
+            if (c > 0) put((byte) ',');
+            String name = model.getColumn(c).name;
+            char[] chars = name.toCharArray();
+            writeField(chars, chars.length);
+        }
+        put((byte) '\r');
+        put((byte) '\n');
+    }
+
+    private void writeRow(RowModel model) throws IOException {
+        for (int c = 0; c < model.getColumnCount(); c++) {
+            if (c > 0) put((byte) ',');
+            if (model.getColumn(c).kind == RowModel.Kind.TEXT && model.getText(0, c) == null) continue; // NULL -> empty
+            int length = formatter.formatCell(model, 0, c);
+            writeField(formatter.buffer(), length);
+        }
+        put((byte) '\r');
+        put((byte) '\n');
+    }
+
+    private void writeField(char[] chars, int length) throws IOException {
+        boolean quote = length > 0 && (chars[0] == ' ' || chars[length - 1] == ' ');
+        for (int i = 0; i < length && !quote; i++) {
+            char ch = chars[i];
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (quote) put((byte) '"');
+        for (int i = 0; i < length; i++) {
+            char ch = chars[i];
+            if (ch == '"') put((byte) '"');
+            if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+                putUtf8(Character.toCodePoint(ch, chars[++i]));
+            } else {
+                putUtf8(ch);
+            }
+        }
+        if (quote) put((byte) '"');
+    }
+
+    private void putUtf8(int cp) throws IOException {
+        if (cp < 0x80) {
+            put((byte) cp);
+        } else if (cp < 0x800) {
+            put((byte) (0xC0 | (cp >> 6)));
+            put((byte) (0x80 | (cp & 0x3F)));
+        } else if (cp >= 0xD800 && cp <= 0xDFFF) {
+            put((byte) '?'); // unpaired surrogate, as String.getBytes(UTF_8) writes it
+        } else if (cp < 0x10000) {
+            put((byte) (0xE0 | (cp >> 12)));
+            put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+            put((byte) (0x80 | (cp & 0x3F)));
+        } else {
+            put((byte) (0xF0 | (cp >> 18)));
+            put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+            put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+            put((byte) (0x80 | (cp & 0x3F)));
+        }
+    }
+
+    // --- Output ---
+
+    private void open(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (file.getName().toLowerCase().endsWith(".gz")) {
+            gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES);
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (pos == buf.length) flush();
+        buf[pos++] = b;
+    }
+
+    private void flush() throws IOException {
+        if (pos == 0) return;
+        if (gzip != null) {
+            gzip.write(buf, 0, pos);
+        } else {
+            ByteBuffer bb = ByteBuffer.wrap(buf, 0, pos);
+            while (bb.hasRemaining()) channel.write(bb);
+        }
+        csvBytes += pos;
+        pos = 0;
+    }
+
+    private void close() throws IOException {
+        flush();
+        if (gzip != null) gzip.finish(); // writes the gzip trailer
+        fileBytes = channel.size();
+        if (gzip != null) gzip.close(); // also closes the channel
+        else channel.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            if (gzip != null) gzip.close();
+            if (channel != null) channel.close();
+        } catch (IOException ex) {
+            System.err.println("Export close error: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package ui;
+
+import service.SearchIndex;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * DataView
+ * --------
+ * The four AdminDashboard data views (names match AdminDashboard.currentView).
+ * Each view knows its SQL, key column, filter columns and grid columns, so
+ * paging and counting are written once for all of them.
+ *
+ * Pages use keyset pagination: WHERE key > ? ORDER BY key LIMIT ?, which
+ * reads only the rows of the requested page regardless of table size.
+ *
+ * Filters are answered by the in-memory {@link SearchIndex} when it is
+ * ready: the term becomes an id set and the page is fetched with
+ * indexColumn IN (...). Otherwise the filter is a LIKE on filterColumns.
+ */
+enum DataView {
+
+    USERS("users", "user_id", "user_id",
+            "SELECT user_id, name, email, role FROM users",
+            "1=1",
+            new String[]{"name", "email"}) {
+        @Override
+        RowModel newModel() {
+            return new RowModel(
+                    new RowModel.Column("ID", 5, RowModel.Kind.INT),
+                    new RowModel.Column("Name", 20, RowModel.Kind.TEXT),
+                    new RowModel.Column("Email", 30, RowModel.Kind.TEXT),
+                    new RowModel.Column("Role", 10, RowModel.Kind.TEXT));
+        }
+
+        @Override
+        void readRow(RowModel model, ResultSet rs) throws SQLException {
+            int row = model.addRow(rs.getInt("user_id"));
+            model.setInt(row, 0, rs.getInt("user_id"));
+            model.setText(row, 1, rs.getString("name"));
+            model.setText(row, 2, rs.getString("email"));
+            model.setText(row, 3, rs.getString("role"));
+        }
+    },
+
+    VEHICLES("vehicles", "v.vehicle_id", "v.vehicle_id",
+            "SELECT v.vehicle_id, v.plate_no, v.vehicle_type, v.fuel_type, v.year, v.mileage, v.owner_id, u.name AS owner " +
+                    "FROM vehicles v LEFT JOIN users u ON v.owner_id = u.user_id",
+            "1=1",
+            new String[]{"v.plate_no", "v.vehicle_type", "u.name"}) {
+        @Override
+        RowModel newModel() {
+            return new RowModel(
+                    new RowModel.Column("ID", 5, RowModel.Kind.INT),
+                    new RowModel.Column("Plate", 10, RowModel.Kind.TEXT),
+                    new RowModel.Column("Type", 12, RowModel.Kind.TEXT),
+                    new RowModel.Column("Fuel", 10, RowModel.Kind.TEXT),
+                    new RowModel.Column("Year", 5, RowModel.Kind.INT),
+                    new RowModel.Column("Mileage", 10, RowModel.Kind.DOUBLE),
+                    new RowModel.Column("OwnerID", 7, RowModel.Kind.INT),
+                    new RowModel.Column("Owner Name", 15, RowModel.Kind.TEXT));
+        }
+
+        @Override
+        void readRow(RowModel model, ResultSet rs) throws SQLException {
+            int row = model.addRow(rs.getInt("vehicle_id"));
+            model.setInt(row, 0, rs.getInt("vehicle_id"));
+            model.setText(row, 1, rs.getString("plate_no"));
+            model.setText(row, 2, rs.getString("vehicle_type"));
+            model.setText(row, 3, rs.getString("fuel_type"));
+            model.setInt(row, 4, rs.getInt("year"));
+            model.setDouble(row, 5, rs.getDouble("mileage"));
+            model.setInt(row, 6, rs.getInt("owner_id"));
+            model.setText(row, 7, rs.getString("owner") != null ? rs.getString("owner") : "N/A");
+        }
+    },
+
+    OFFERS("pending offers", "eo.offer_id", "eo.vehicle_id", Offers.SELECT, "eo.status = 'Pending'", Offers.FILTER_COLUMNS) {
+        @Override
+        RowModel newModel() {
+            return newOfferModel();
+        }
+
+        @Override
+        void readRow(RowModel model, ResultSet rs) throws SQLException {
+            readOfferRow(model, rs);
+        }
+    },
+
+    ALL_OFFERS("all offers (including history)", "eo.offer_id", "eo.vehicle_id", Offers.SELECT, "1=1", Offers.FILTER_COLUMNS) {
+        @Override
+        RowModel newModel() {
+            return newOfferModel();
+        }
+
+        @Override
+        void readRow(RowModel model, ResultSet rs) throws SQLException {
+            readOfferRow(model, rs);
+        }
+    };
+
+    // Shared by OFFERS and ALL_OFFERS; a holder class because enum constants
+    // are created before the enum's own static fields are initialized.
+    private static class Offers {
+        static final String SELECT = """
+                SELECT eo.offer_id, eo.vehicle_id, eo.exchange_value, eo.subsidy_percent, eo.status,
+                       v.plate_no, v.vehicle_type, u.name
+                FROM exchange_offers eo
+                LEFT JOIN vehicles v ON eo.vehicle_id = v.vehicle_id
+                LEFT JOIN users u ON v.owner_id = u.user_id
+                """;
+        static final String[] FILTER_COLUMNS = {"v.plate_no", "v.vehicle_type", "u.name"};
+    }
+
+    // Largest id set sent as an IN list when it is not the page key (offers by vehicle).
+    static final int MAX_IN_IDS = 1000;
+
+    final String label;
+    final String keyColumn;
+    final String indexColumn;   // column the search index ids refer to
+    final String select;
+    final String baseWhere;
+    final String[] filterColumns;
+
+    DataView(String label, String keyColumn, String indexColumn, String select, String baseWhere, String[] filterColumns) {
+        this.label = label;
+        this.keyColumn = keyColumn;
+        this.indexColumn = indexColumn;
+        this.select = select;
+        this.baseWhere = baseWhere;
+        this.filterColumns = filterColumns;
+    }
+
+    /** Empty model with this view's columns. */
+    abstract RowModel newModel();
+
+    /** Appends the row at the current ResultSet position to the model. */
+    abstract void readRow(RowModel model, ResultSet rs) throws SQLException;
+
+    /** Grid columns holding the filterColumns values, for filtering loaded rows in memory. */
+    int[] filterModelColumns() {
+        switch (this) {
+            case USERS:
+                return new int[]{1, 2};
+            case VEHICLES:
+                return new int[]{1, 2, 7};
+            default:
+                return new int[]{5, 6, 7};
+        }
+    }
+
+    /** Name of the key column in the ResultSet (without table alias). */
+    String keyLabel() {
+        int dot = keyColumn.indexOf('.');
+        return dot < 0 ? keyColumn : keyColumn.substring(dot + 1);
+    }
+
+    /**
+     * Keyset page query. Parameters: [filter terms...], afterKey, limit.
+     */
+    String pageSql(boolean filtered) {
+        return select + " WHERE " + where(filtered) + " AND " + keyColumn + " > ?"
+                + " ORDER BY " + keyColumn + " LIMIT ?";
+    }
+
+    /**
+     * Ids matching the filter term from the search index (users for USERS,
+     * vehicles otherwise), or null when the index cannot answer it.
+     */
+    int[] indexedIds(String filterTerm) {
+        SearchIndex index = SearchIndex.shared();
+        return this == USERS ? index.searchUsers(filterTerm) : index.searchVehicles(filterTerm);
+    }
+
+    /** True when the index ids are the page key, so a page can be sliced from them in memory. */
+    boolean isKeyIndexed() {
+        return indexColumn.equals(keyColumn);
+    }
+
+    /**
+     * The ids to bind for one page of an indexed filter: for key-indexed
+     * views the next limit + 1 ids after afterKey, otherwise all ids.
+     * Returns null when the set is too large for an IN list.
+     */
+    int[] pageIds(int[] ids, int afterKey, int limit) {
+        if (!isKeyIndexed()) return ids.length <= MAX_IN_IDS ? ids : null;
+        int from = Arrays.binarySearch(ids, afterKey);
+        from = from >= 0 ? from + 1 : -from - 1;
+        return Arrays.copyOfRange(ids, from, Math.min(ids.length, from + limit + 1));
+    }
+
+    /**
+     * Keyset page query restricted to indexColumn IN (idCount ids).
+     * Parameters: [ids...], afterKey, limit.
+     */
+    String idPageSql(int idCount) {
+        return select + " WHERE " + baseWhere + " AND " + inList(idCount) + " AND " + keyColumn + " > ?"
+                + " ORDER BY " + keyColumn + " LIMIT ?";
+    }
+
+    /** Row count restricted to indexColumn IN (idCount ids). Parameters: [ids...]. */
+    String idCountSql(int idCount) {
+        String from = select.substring(select.toUpperCase().indexOf("FROM "));
+        return "SELECT COUNT(*) " + from + " WHERE " + baseWhere + " AND " + inList(idCount);
+    }
+
+    /** Binds the ids of an IN list; returns the next parameter index. */
+    static int bindIds(PreparedStatement ps, int[] ids, int index) throws SQLException {
+        for (int id : ids) ps.setInt(index++, id);
+        return index;
+    }
+
+    private String inList(int idCount) {
+        StringBuilder sb = new StringBuilder(indexColumn).append(" IN (");
+        for (int i = 0; i < idCount; i++) sb.append(i == 0 ? "?" : ", ?");
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Every matching row in key order, for streaming loads. Parameters: [filter terms...].
+     */
+    String streamSql(boolean filtered) {
+        return select + " WHERE " + where(filtered) + " ORDER BY " + keyColumn;
+    }
+
+    /**
+     * Row count for the same view and filter. Parameters: [filter terms...].
+     */
+    String countSql(boolean filtered) {
+        String from = select.substring(select.toUpperCase().indexOf("FROM "));
+        return "SELECT COUNT(*) " + from + " WHERE " + where(filtered);
+    }
+
+    /** Binds the LIKE terms for a filtered query; returns the next parameter index. */
+    int bindFilter(PreparedStatement ps, String filterTerm, int index) throws SQLException {
+        if (filterTerm.isEmpty()) return index;
+        for (int i = 0; i < filterColumns.length; i++) {
+            ps.setString(index++, "%" + filterTerm + "%");
+        }
+        return index;
+    }
+
+    private String where(boolean filtered) {
+        if (!filtered) return baseWhere;
+        StringBuilder sb = new StringBuilder(baseWhere).append(" AND (");
+        for (int i = 0; i < filterColumns.length; i++) {
+            if (i > 0) sb.append(" OR ");
+            sb.append(filterColumns[i]).append(" LIKE ?");
+        }
+        return sb.append(')').toString();
+    }
+
+    private static RowModel newOfferModel() {
+        return new RowModel(
+                new RowModel.Column("ID", 5, RowModel.Kind.INT),
+                new RowModel.Column("VehicleID", 9, RowModel.Kind.INT),
+                new RowModel.Column("Value", 10, RowModel.Kind.DOUBLE),
+                new RowModel.Column("Subsidy%", 10, RowModel.Kind.DOUBLE),
+                new RowModel.Column("Status", 10, RowModel.Kind.TEXT),
+                new RowModel.Column("Plate", 12, RowModel.Kind.TEXT),
+                new RowModel.Column("Type", 10, RowModel.Kind.TEXT),
+                new RowModel.Column("Owner", 15, RowModel.Kind.TEXT));
+    }
+
+    private static void readOfferRow(RowModel model, ResultSet rs) throws SQLException {
+        int row = model.addRow(rs.getInt("offer_id"));
+        model.setInt(row, 0, rs.getInt("offer_id"));
+        model.setInt(row, 1, rs.getInt("vehicle_id"));
+        model.setDouble(row, 2, rs.getDouble("exchange_value"));
+        model.setDouble(row, 3, rs.getDouble("subsidy_percent"));
+        model.setText(row, 4, rs.getString("status"));
+        model.setText(row, 5, rs.getString("plate_no") != null ? rs.getString("plate_no") : "N/A");
+        model.setText(row, 6, rs.getString("vehicle_type") != null ? rs.getString("vehicle_type") : "N/A");
+        model.setText(row, 7, rs.getString("name") != null ? rs.getString("name") : "N/A");
+    }
+}
@@ -1,9 +1,16 @@
 package ui;
 
-import db.DBConnection;
+import model.Vehicle;
+import service.CitizenSession;
+import service.ExchangeSubmission;
+import service.Portfolio;
+import service.SubmissionQueue;
+import service.VehicleEligibility;
 import java.awt.*;
 import java.awt.event.*;
-import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ExchangeOfferForm
@@ -11,28 +18,47 @@ import java.sql.*;
  * Allows users to:
  *  - Check if their vehicle is eligible for an exchange.
  *  - Apply for an exchange offer if eligible.
+ * The vehicle list comes from the CitizenSession (vehicles registered in
+ * the other window appear at once); the check itself reads the
+ * eligibility index (once per vehicle and policy, the session keeps the
+ * answer), which also confirms the vehicle was still the user's.
+ * Owners of many vehicles use the portfolio view: all vehicles with
+ * their offers and eligibility, applying for a selection at once.
  */
 public class ExchangeOfferForm extends Frame implements ActionListener {
 
-    private int userId;
-    private TextField tfVehicleId, tfExchangeValue, tfSubsidy;
-    private Button btnCheck, btnApply;
+    private final CitizenSession session;
+    private final int userId;
+    private Choice chVehicle;
+    private final List<Integer> choiceIds = new ArrayList<>();   // vehicle id per Choice item
+    private TextField tfExchangeValue, tfSubsidy;
+    private Button btnCheck, btnApply, btnPortfolio;
     private Label lblMessage;
+    private final Runnable vehiclesChanged = () -> EventQueue.invokeLater(this::fillVehicles);
+
+    // Only the latest eligibility check updates the result fields.
+    private final BackgroundExecutor.Lane checkLane = new BackgroundExecutor.Lane();
+
+    // Idempotency key of the application for the last eligible check; a repeated click resends the same key.
+    private String applicationKey;
+    private int applicationVehicleId;
 
     // --- Constructor ---
-    public ExchangeOfferForm(int userId) {
-        this.userId = userId;
+    public ExchangeOfferForm(CitizenSession session) {
+        this.session = session;
+        this.userId = session.getUserId();
 
         setTitle("GVEI - Vehicle Exchange Offer");
         setLayout(new FlowLayout(FlowLayout.LEFT, 15, 10));
-        setSize(420, 280);
+        setSize(460, 300);
         setResizable(false);
         setBackground(new Color(245, 245, 245));
 
         // --- Vehicle Input ---
-        add(new Label("Your Vehicle ID:"));
-        tfVehicleId = new TextField(10);
-        add(tfVehicleId);
+        add(new Label("Your Vehicle:"));
+        chVehicle = new Choice();
+        fillVehicles();
+        add(chVehicle);
 
         btnCheck = new Button("Check Eligibility");
         btnCheck.addActionListener(this);
@@ -58,6 +84,10 @@ public class ExchangeOfferForm extends Frame implements ActionListener {
         btnApply.setForeground(Color.WHITE);
         add(btnApply);
 
+        btnPortfolio = new Button("Portfolio View...");
+        btnPortfolio.addActionListener(this);
+        add(btnPortfolio);
+
         // --- Message Label ---
         lblMessage = new Label(" ");
         lblMessage.setForeground(Color.DARK_GRAY);
@@ -68,11 +98,39 @@ public class ExchangeOfferForm extends Frame implements ActionListener {
             public void windowClosing(WindowEvent e) {
                 dispose();
             }
+
+            public void windowClosed(WindowEvent e) {
+                session.removeListener(vehiclesChanged);
+            }
         });
+        session.addListener(vehiclesChanged);
 
         setVisible(true);
     }
 
+    // Lists the session's vehicles, keeping the selection.
+    private void fillVehicles() {
+        Integer selected = selectedVehicleId();
+        chVehicle.removeAll();
+        choiceIds.clear();
+        for (Vehicle v : session.getVehicles()) {
+            chVehicle.add(v.getVehicleId() + " - " + v.getPlateNo() + " (" + v.getVehicleType() + ", "
+                    + v.getFuelType() + ", " + v.getYear() + ")");
+            choiceIds.add(v.getVehicleId());
+        }
+        if (choiceIds.isEmpty()) {
+            chVehicle.add("(no vehicles registered)");
+        } else if (selected != null && choiceIds.contains(selected)) {
+            chVehicle.select(choiceIds.indexOf(selected));
+        }
+    }
+
+    // Vehicle id of the selected Choice item, or null when the user has no vehicles.
+    private Integer selectedVehicleId() {
+        int index = chVehicle == null ? -1 : chVehicle.getSelectedIndex();
+        return index >= 0 && index < choiceIds.size() ? choiceIds.get(index) : null;
+    }
+
     // --- Event Handling ---
     @Override
     public void actionPerformed(ActionEvent e) {
@@ -80,6 +138,8 @@ public class ExchangeOfferForm extends Frame implements ActionListener {
             checkEligibility();
         } else if (e.getSource() == btnApply) {
             applyForExchange();
+        } else if (e.getSource() == btnPortfolio) {
+            new PortfolioDialog(this).setVisible(true);
         }
     }
 
@@ -87,68 +147,50 @@ public class ExchangeOfferForm extends Frame implements ActionListener {
     //  METHOD: Check vehicle eligibility
     // ------------------------------------------------------------
     private void checkEligibility() {
-        String vidStr = tfVehicleId.getText().trim();
+        Integer vehicleId = selectedVehicleId();
 
-        if (vidStr.isEmpty()) {
-            lblMessage.setText("⚠️ Please enter your Vehicle ID first.");
-            return;
-        }
-
-        int vehicleId;
-        try {
-            vehicleId = Integer.parseInt(vidStr);
-        } catch (NumberFormatException ex) {
-            lblMessage.setText("❌ Invalid Vehicle ID.");
+        if (vehicleId == null) {
+            lblMessage.setText("⚠️ Please register a vehicle first.");
             return;
         }
 
-        String sql = "SELECT owner_id, fuel_type, year FROM vehicles WHERE vehicle_id = ?";
-
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        applicationKey = null;
+        btnCheck.setEnabled(false);
+        lblMessage.setText("Checking vehicle " + vehicleId + "...");
 
-            ps.setInt(1, vehicleId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    lblMessage.setText("❌ Vehicle not found.");
-                    return;
-                }
+        // From the session if checked before, else one primary-key read of the eligibility index
+        checkLane.submit(() -> session.checkEligibility(vehicleId), result -> {
+            btnCheck.setEnabled(true);
+            showEligibility(vehicleId, result);
+        }, ex -> {
+            btnCheck.setEnabled(true);
+            ex.printStackTrace();
+            lblMessage.setText("⚠️ Database Error: " + ex.getMessage());
+        });
+    }
 
-                int ownerId = rs.getInt("owner_id");
-                String fuelType = rs.getString("fuel_type");
-                int year = rs.getInt("year");
+    private void showEligibility(int vehicleId, VehicleEligibility result) {
+        if (result == null) {
+            lblMessage.setText("❌ Vehicle not found.");
+            return;
+        }
 
-                // Validate ownership
-                if (ownerId != userId) {
-                    lblMessage.setText("⚠️ This vehicle does not belong to your account.");
-                    return;
-                }
+        // Validate ownership: the session's list dates from login
+        if (result.getOwnerId() != userId) {
+            lblMessage.setText("⚠️ This vehicle does not belong to your account.");
+            return;
+        }
 
-                // Determine eligibility
-                int currentYear = java.time.Year.now().getValue();
-                int age = currentYear - year;
-                boolean eligible = (fuelType.equalsIgnoreCase("Petrol") ||
-                        fuelType.equalsIgnoreCase("Diesel"))
-                        && (age > 5);
-
-                if (eligible) {
-                    double baseValue = 10000.0;
-                    double depreciation = age * 800.0;
-                    double exchangeValue = Math.max(500.0, baseValue - depreciation);
-                    double subsidyPercent = 20.0; // Example fixed subsidy rate
-
-                    tfExchangeValue.setText(String.format("%.2f", exchangeValue));
-                    tfSubsidy.setText(String.format("%.2f", subsidyPercent));
-                    lblMessage.setText("✅ Your vehicle is eligible for exchange.");
-                } else {
-                    tfExchangeValue.setText("");
-                    tfSubsidy.setText("");
-                    lblMessage.setText("❌ Vehicle not eligible for exchange.");
-                }
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            lblMessage.setText("⚠️ Database Error: " + ex.getMessage());
+        if (result.isEligible()) {
+            applicationKey = SubmissionQueue.newKey();
+            applicationVehicleId = vehicleId;
+            tfExchangeValue.setText(String.format("%.2f", result.getExchangeValue()));
+            tfSubsidy.setText(String.format("%.2f", result.getSubsidyPercent()));
+            lblMessage.setText("✅ Your vehicle is eligible for exchange.");
+        } else {
+            tfExchangeValue.setText("");
+            tfSubsidy.setText("");
+            lblMessage.setText("❌ Vehicle not eligible for exchange.");
         }
     }
 
@@ -156,42 +198,201 @@ public class ExchangeOfferForm extends Frame implements ActionListener {
     //  METHOD: Apply for vehicle exchange
     // ------------------------------------------------------------
     private void applyForExchange() {
-        String vidStr = tfVehicleId.getText().trim();
+        Integer selected = selectedVehicleId();
         String valueStr = tfExchangeValue.getText().trim();
         String subStr = tfSubsidy.getText().trim();
 
         // Must check eligibility first
-        if (vidStr.isEmpty() || valueStr.isEmpty() || subStr.isEmpty()) {
+        if (selected == null || valueStr.isEmpty() || subStr.isEmpty() || applicationKey == null) {
             lblMessage.setText("⚠️ Please check eligibility before applying.");
             return;
         }
 
+        int vehicleId = selected;
+        double exchangeValue, subsidy;
         try {
-            int vehicleId = Integer.parseInt(vidStr);
-            double exchangeValue = Double.parseDouble(valueStr);
-            double subsidy = Double.parseDouble(subStr);
+            exchangeValue = Double.parseDouble(valueStr);
+            subsidy = Double.parseDouble(subStr);
+        } catch (NumberFormatException ex) {
+            lblMessage.setText("❌ Invalid numeric data. Please check your input.");
+            return;
+        }
+        if (vehicleId != applicationVehicleId) {
+            lblMessage.setText("⚠️ Please check eligibility before applying.");
+            return;
+        }
+
+        String key = applicationKey;
+        btnApply.setEnabled(false);
+        lblMessage.setText("Submitting application...");
+
+        // Acknowledged once it is in the local queue; the queue writes it to the database shortly after.
+        BackgroundExecutor.run(() -> SubmissionQueue.shared().submit(key, userId, vehicleId, exchangeValue, subsidy),
+                submission -> {
+            btnApply.setEnabled(true);
+            if (submission.getStatus() == ExchangeSubmission.Status.DUPLICATE) {
+                lblMessage.setText("⚠️ Vehicle " + vehicleId + " already has an application in progress.");
+                return;
+            }
+            applicationKey = null;
+            lblMessage.setText("✅ Application " + submission.getReference() + " received. Await admin approval.");
+            tfExchangeValue.setText("");
+            tfSubsidy.setText("");
+            submission.outcome().thenAccept(done -> EventQueue.invokeLater(() -> showOutcome(done)));
+        }, ex -> {
+            btnApply.setEnabled(true);
+            ex.printStackTrace();
+            lblMessage.setText("⚠️ Could not submit the application: " + ex.getMessage());
+        });
+    }
+
+    // Only reports problems found when the queue wrote the application; a saved one was already acknowledged.
+    private void showOutcome(ExchangeSubmission submission) {
+        if (!isDisplayable()) return;
+        if (submission.getStatus() == ExchangeSubmission.Status.DUPLICATE) {
+            lblMessage.setText("⚠️ Application " + submission.getReference() + ": vehicle "
+                    + submission.getVehicleId() + " already has a pending application.");
+        } else if (submission.getStatus() == ExchangeSubmission.Status.FAILED) {
+            lblMessage.setText("❌ Application " + submission.getReference() + " could not be saved: "
+                    + submission.getMessage());
+        }
+    }
 
-            String sql = "INSERT INTO exchange_offers (vehicle_id, exchange_value, subsidy_percent, status) VALUES (?, ?, ?, 'Pending')";
+    // ------------------------------------------------------------
+    //  PORTFOLIO VIEW: every vehicle of the owner at once
+    // ------------------------------------------------------------
+    class PortfolioDialog extends Dialog {
+        private final RowGrid grid = new RowGrid();
+        private final Label lblSummary = new Label(" ");
+        private final Label lblStatus = new Label("Ctrl+A selects all; vehicles that cannot apply are skipped.");
+        private final Button btnApplySelected = new Button("Apply for Selected");
+        private final Button btnRefresh = new Button("Refresh");
+        private Portfolio portfolio;
+
+        PortfolioDialog(Frame owner) {
+            super(owner, "GVEI - Vehicle Portfolio", false);
+            setLayout(new BorderLayout(5, 5));
+            setSize(820, 480);
+
+            add(lblSummary, BorderLayout.NORTH);
+            add(grid, BorderLayout.CENTER);
+
+            Panel south = new Panel(new BorderLayout());
+            Panel buttons = new Panel(new FlowLayout(FlowLayout.LEFT));
+            btnApplySelected.setBackground(new Color(0, 180, 80));
+            btnApplySelected.setForeground(Color.WHITE);
+            btnApplySelected.addActionListener(e -> applySelected());
+            btnRefresh.addActionListener(e -> load());
+            buttons.add(btnApplySelected);
+            buttons.add(btnRefresh);
+            south.add(buttons, BorderLayout.WEST);
+            south.add(lblStatus, BorderLayout.CENTER);
+            add(south, BorderLayout.SOUTH);
+
+            addWindowListener(new WindowAdapter() {
+                public void windowClosing(WindowEvent e) {
+                    dispose();
+                }
+            });
+            setLocationRelativeTo(owner);
+            load();
+        }
 
-            try (Connection conn = DBConnection.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
+        // One joined query for the vehicles and their offers, scored in one pass.
+        private void load() {
+            btnApplySelected.setEnabled(false);
+            btnRefresh.setEnabled(false);
+            grid.setMessage("Loading your vehicles...");
+            BackgroundExecutor.run(() -> {
+                session.roundTrip("portfolio");
+                return Portfolio.load(userId);
+            }, loaded -> {
+                portfolio = loaded;
+                btnApplySelected.setEnabled(true);
+                btnRefresh.setEnabled(true);
+                showPortfolio();
+            }, ex -> {
+                btnRefresh.setEnabled(true);
+                ex.printStackTrace();
+                grid.setMessage("❌ Could not load your vehicles: " + ex.getMessage());
+            });
+        }
 
-                ps.setInt(1, vehicleId);
-                ps.setDouble(2, exchangeValue);
-                ps.setDouble(3, subsidy);
-                ps.executeUpdate();
+        private void showPortfolio() {
+            RowModel model = new RowModel(
+                    new RowModel.Column("ID", 6, RowModel.Kind.INT),
+                    new RowModel.Column("Plate", 10, RowModel.Kind.TEXT),
+                    new RowModel.Column("Type", 12, RowModel.Kind.TEXT),
+                    new RowModel.Column("Fuel", 10, RowModel.Kind.TEXT),
+                    new RowModel.Column("Year", 5, RowModel.Kind.INT),
+                    new RowModel.Column("Mileage", 10, RowModel.Kind.DOUBLE),
+                    new RowModel.Column("Eligible", 8, RowModel.Kind.TEXT),
+                    new RowModel.Column("Exchange Value", 14, RowModel.Kind.DOUBLE),
+                    new RowModel.Column("Subsidy %", 9, RowModel.Kind.DOUBLE),
+                    new RowModel.Column("Offer", 9, RowModel.Kind.TEXT));
+            for (int i = 0; i < portfolio.size(); i++) {
+                int row = model.addRow(portfolio.getVehicleId(i));
+                model.setInt(row, 0, portfolio.getVehicleId(i));
+                model.setText(row, 1, portfolio.getPlateNo(i));
+                model.setText(row, 2, portfolio.getVehicleType(i));
+                model.setText(row, 3, portfolio.getFuelType(i));
+                model.setInt(row, 4, portfolio.getYear(i));
+                model.setDouble(row, 5, portfolio.getMileage(i));
+                model.setText(row, 6, portfolio.isEligible(i) ? "Yes" : "No");
+                model.setDouble(row, 7, portfolio.getExchangeValue(i));
+                model.setDouble(row, 8, portfolio.getSubsidyPercent(i));
+                model.setText(row, 9, portfolio.getOfferStatus(i));
+            }
+            grid.setModel(model);
+            lblSummary.setText(String.format(" %,d vehicles, %,d eligible, %,d can apply, total exchange value $%,.2f",
+                    portfolio.size(), portfolio.getEligibleCount(), portfolio.getApplicableCount(),
+                    portfolio.getTotalValue()));
+        }
 
-                lblMessage.setText("✅ Exchange application submitted successfully. Await admin approval.");
-                tfVehicleId.setText("");
-                tfExchangeValue.setText("");
-                tfSubsidy.setText("");
+        private void applySelected() {
+            int[] ids = grid.getSelectedIds();
+            if (ids.length == 0) {
+                lblStatus.setText("⚠️ Select the vehicles to apply for.");
+                return;
+            }
+            Portfolio current = portfolio;
+            btnApplySelected.setEnabled(false);
+            lblStatus.setText("Submitting applications...");
+
+            // Accepted with one journal sync; the queue writes them to the database with multi-row inserts.
+            BackgroundExecutor.run(() -> current.apply(ids), submissions -> {
+                btnApplySelected.setEnabled(true);
+                int queued = 0;
+                for (ExchangeSubmission s : submissions) {
+                    if (s.getStatus() != ExchangeSubmission.Status.DUPLICATE) queued++;
+                }
+                int skipped = ids.length - submissions.size();
+                lblStatus.setText("✅ " + queued + " application(s) received"
+                        + (submissions.size() > queued ? ", " + (submissions.size() - queued) + " already in progress" : "")
+                        + (skipped > 0 ? ", " + skipped + " vehicle(s) skipped (not eligible or already applied)" : "")
+                        + ". Await admin approval.");
+                if (current == portfolio) showPortfolio();
+                CompletableFuture.allOf(submissions.stream().map(ExchangeSubmission::outcome)
+                        .toArray(CompletableFuture[]::new))
+                        .thenRun(() -> EventQueue.invokeLater(() -> showOutcomes(submissions)));
+            }, ex -> {
+                btnApplySelected.setEnabled(true);
+                ex.printStackTrace();
+                lblStatus.setText("⚠️ Could not submit the applications: " + ex.getMessage());
+            });
+        }
 
+        // Only reports applications the queue could not save; the others were already acknowledged.
+        private void showOutcomes(List<ExchangeSubmission> submissions) {
+            if (!isDisplayable()) return;
+            int duplicates = 0, failed = 0;
+            for (ExchangeSubmission s : submissions) {
+                if (s.getStatus() == ExchangeSubmission.Status.DUPLICATE) duplicates++;
+                else if (s.getStatus() == ExchangeSubmission.Status.FAILED) failed++;
             }
-        } catch (NumberFormatException ex) {
-            lblMessage.setText("❌ Invalid numeric data. Please check your input.");
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            lblMessage.setText("⚠️ Database Error: " + ex.getMessage());
+            if (duplicates + failed == 0) return;
+            lblStatus.setText("⚠️ " + (submissions.size() - duplicates - failed) + " application(s) saved, "
+                    + duplicates + " already pending, " + failed + " failed. Refresh to see the offers.");
         }
     }
 }
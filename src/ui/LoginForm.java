@@ -1,17 +1,17 @@
 package ui;
 
-import db.DBConnection;
+import service.CitizenSession;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.sql.*;
 
 /**
  * GVEI - Login Form
  * ---------------------------------------------
  * Allows users to log in with email and password.
  * Redirects to AdminDashboard (for admins) or
- * VehicleRegistrationForm + ExchangeOfferForm (for citizens).
+ * VehicleRegistrationForm + ExchangeOfferForm (for citizens), which share
+ * the CitizenSession loaded with the login.
  */
 public class LoginForm extends Frame implements ActionListener {
 
@@ -127,41 +127,36 @@ public class LoginForm extends Frame implements ActionListener {
             return;
         }
 
-        String sql = "SELECT user_id, role FROM users WHERE email = ? AND password = ?";
-
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, email);
-            ps.setString(2, password);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int userId = rs.getInt("user_id");
-                    String role = rs.getString("role");
-
-                    lblMessage.setForeground(new Color(0, 153, 76));
-                    lblMessage.setText("Login successful! Redirecting...");
-
-                    EventQueue.invokeLater(() -> {
-                        if ("admin".equalsIgnoreCase(role)) {
-                            new AdminDashboard();
-                        } else {
-                            new VehicleRegistrationForm(userId);
-                            new ExchangeOfferForm(userId);
-                        }
-                        dispose();
-                    });
-                } else {
-                    lblMessage.setForeground(Color.RED);
-                    lblMessage.setText("Invalid email or password.");
-                }
+        btnLogin.setEnabled(false);
+        lblMessage.setForeground(Color.DARK_GRAY);
+        lblMessage.setText("Signing in...");
+
+        // One query checks the credentials and loads the profile with the user's vehicles (null: no match)
+        BackgroundExecutor.run(() -> CitizenSession.login(email, password), session -> {
+            btnLogin.setEnabled(true);
+            if (session != null) {
+                lblMessage.setForeground(new Color(0, 153, 76));
+                lblMessage.setText("Login successful! Redirecting...");
+
+                EventQueue.invokeLater(() -> {
+                    if (session.isAdmin()) {
+                        new AdminDashboard();
+                    } else {
+                        new VehicleRegistrationForm(session);
+                        new ExchangeOfferForm(session);
+                    }
+                    dispose();
+                });
+            } else {
+                lblMessage.setForeground(Color.RED);
+                lblMessage.setText("Invalid email or password.");
             }
-        } catch (SQLException ex) {
+        }, ex -> {
+            btnLogin.setEnabled(true);
             lblMessage.setForeground(Color.RED);
             lblMessage.setText("Database error: " + ex.getMessage());
             ex.printStackTrace();
-        }
+        });
     }
 
     // --- Entry Point ---
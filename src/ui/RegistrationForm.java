@@ -1,6 +1,7 @@
 package ui;
 
 import db.DBConnection;
+import service.SearchIndex;
 
 import java.awt.*;
 import java.awt.event.*;
@@ -162,16 +163,26 @@ public class RegistrationForm extends Frame implements ActionListener {
 
         String sql = "INSERT INTO users (name, email, password, role) VALUES (?, ?, ?, ?)";
 
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        btnRegister.setEnabled(false);
+        lblMessage.setForeground(Color.DARK_GRAY);
+        lblMessage.setText("Creating account...");
 
-            ps.setString(1, name);
-            ps.setString(2, email);
-            ps.setString(3, password); // TODO: Hash password in production
-            ps.setString(4, role);
+        BackgroundExecutor.run(() -> {
+            try (Connection conn = DBConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            ps.executeUpdate();
+                ps.setString(1, name);
+                ps.setString(2, email);
+                ps.setString(3, password); // TODO: Hash password in production
+                ps.setString(4, role);
 
+                int inserted = ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (keys.next()) SearchIndex.shared().userSaved(keys.getInt(1), name, email);
+                }
+                return inserted;
+            }
+        }, inserted -> {
             lblMessage.setForeground(new Color(0, 153, 76));
             lblMessage.setText("Registration successful! Please log in.");
 
@@ -182,15 +193,16 @@ public class RegistrationForm extends Frame implements ActionListener {
                     new LoginForm();
                 }
             }, 1500);
-
-        } catch (SQLIntegrityConstraintViolationException ex) {
-            lblMessage.setForeground(Color.RED);
-            lblMessage.setText("Email already exists. Try another.");
-        } catch (SQLException ex) {
+        }, ex -> {
+            btnRegister.setEnabled(true);
             lblMessage.setForeground(Color.RED);
-            lblMessage.setText("Database error: " + ex.getMessage());
-            ex.printStackTrace();
-        }
+            if (ex instanceof SQLIntegrityConstraintViolationException) {
+                lblMessage.setText("Email already exists. Try another.");
+            } else {
+                lblMessage.setText("Database error: " + ex.getMessage());
+                ex.printStackTrace();
+            }
+        });
     }
 
     // --- Entry Point for Testing ---
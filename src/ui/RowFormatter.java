@@ -0,0 +1,154 @@
+package ui;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * RowFormatter
+ * ------------
+ * Writes {@link RowModel} cells and fixed-width rows into a reused char
+ * buffer, producing exactly what the String.format layout produced
+ * ("%-Ns" padding, "%.2f" doubles, "null" for missing text) without
+ * parsing format strings, boxing numbers or creating per-cell Strings.
+ *
+ * Doubles are rounded half-up like java.util.Formatter. The rare values
+ * that sit on a rounding tie (or are huge/NaN/infinite) go through
+ * String.format so the output stays identical.
+ *
+ * Not thread-safe: use one formatter per thread (the grid and an export
+ * each own one).
+ */
+public final class RowFormatter {
+
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+    private static final double FAST_DOUBLE_LIMIT = 1e15;
+
+    private char[] buf = new char[256];
+    private int len;
+
+    /** The buffer filled by the last format call; valid up to the returned length. */
+    public char[] buffer() {
+        return buf;
+    }
+
+    /** Formats one cell as display text into buffer(); returns its length. */
+    public int formatCell(RowModel model, int row, int col) {
+        len = 0;
+        appendCell(model, row, col);
+        return len;
+    }
+
+    /**
+     * Formats a whole row padded to the column widths and terminated by the
+     * line separator (same text as the old String.format rows); returns its length.
+     */
+    public int formatRow(RowModel model, int row) {
+        len = 0;
+        for (int c = 0; c < model.getColumnCount(); c++) {
+            if (c > 0) appendSeparator();
+            int start = len;
+            appendCell(model, row, c);
+            pad(start + model.getColumn(c).width);
+        }
+        for (char ch : LINE_SEPARATOR) append(ch);
+        return len;
+    }
+
+    /** Formats a row and writes it to the writer. */
+    public void writeRow(RowModel model, int row, Writer out) throws IOException {
+        out.write(buf, 0, formatRow(model, row));
+    }
+
+    // --- Cells ---
+
+    private void appendCell(RowModel model, int row, int col) {
+        switch (model.getColumn(col).kind) {
+            case INT:
+                appendLong(model.getInt(row, col));
+                break;
+            case DOUBLE:
+                appendFixed2(model.getDouble(row, col));
+                break;
+            default:
+                appendText(model.getText(row, col));
+                break;
+        }
+    }
+
+    private void appendText(String text) {
+        if (text == null) text = "null";
+        int n = text.length();
+        ensure(len + n);
+        text.getChars(0, n, buf, len);
+        len += n;
+    }
+
+    private void appendLong(long value) {
+        if (value < 0) {
+            append('-');
+            if (value == Long.MIN_VALUE) { // cannot be negated
+                appendText("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        ensure(len + digits);
+        for (int i = len + digits - 1; i >= len; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        len += digits;
+    }
+
+    /** Same text as String.format("%.2f", value). */
+    private void appendFixed2(double value) {
+        double abs = Math.abs(value);
+        if (!(abs < FAST_DOUBLE_LIMIT)) { // also NaN and infinities
+            appendText(String.format("%.2f", value));
+            return;
+        }
+        double scaled = abs * 100;
+        double fraction = scaled - Math.floor(scaled);
+        // Near x.xx5 the result depends on the decimal digits of the value, not on
+        // the scaled binary product; let Formatter decide those.
+        if (Math.abs(fraction - 0.5) <= 4 * Math.ulp(scaled)) {
+            appendText(String.format("%.2f", value));
+            return;
+        }
+        long cents = (long) Math.floor(scaled + 0.5);
+        if (Double.doubleToRawLongBits(value) < 0) append('-'); // Formatter keeps the sign, e.g. "-0.00"
+        appendLong(cents / 100);
+        append('.');
+        long rest = cents % 100;
+        append((char) ('0' + rest / 10));
+        append((char) ('0' + rest % 10));
+    }
+
+    // --- Buffer ---
+
+    private void appendSeparator() {
+        append(' ');
+        append('|');
+        append(' ');
+    }
+
+    private void pad(int end) {
+        ensure(end);
+        while (len < end) buf[len++] = ' ';
+    }
+
+    private void append(char ch) {
+        ensure(len + 1);
+        buf[len++] = ch;
+    }
+
+    private void ensure(int capacity) {
+        if (capacity > buf.length) {
+            char[] bigger = new char[Math.max(capacity, buf.length * 2)];
+            System.arraycopy(buf, 0, bigger, 0, len);
+            buf = bigger;
+        }
+    }
+}
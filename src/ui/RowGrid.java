@@ -0,0 +1,348 @@
+package ui;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * RowGrid
+ * -------
+ * Virtualized AWT grid for a {@link RowModel}. Only the rows inside the
+ * viewport are painted, into a reused back buffer, so paint cost and
+ * per-paint allocation depend on the window height and not on how many
+ * rows are loaded. Selection is a bit set of row indexes, so selected
+ * record ids are plain array reads.
+ *
+ * Mouse click selects, Ctrl+click toggles a row, Shift+click/Shift+arrows
+ * extend a range, Ctrl+A selects all; wheel/scrollbar/arrow keys scroll.
+ */
+public class RowGrid extends Panel {
+
+    private static final Color HEADER_BG = new Color(225, 225, 225);
+    private static final Color GRID_LINE = new Color(210, 210, 210);
+    private static final Color SELECTION_BG = new Color(0, 120, 215);
+    private static final int PAD = 4;
+
+    private final Body body = new Body();
+    private final RowFormatter formatter = new RowFormatter(); // cell text for painting, no per-cell Strings
+    private final Scrollbar scrollbar = new Scrollbar(Scrollbar.VERTICAL);
+
+    private RowModel model = new RowModel();
+    private String message = "";
+    private int topRow = 0;
+    private int selectedRow = -1;           // lead row: last clicked or moved to
+    private int anchorRow = -1;             // start of a Shift range
+    private final BitSet selection = new BitSet();
+
+    private Font font = new Font("Monospaced", Font.PLAIN, 12);
+    private int rowHeight;
+    private int charWidth;
+    private int ascent;
+
+    public RowGrid() {
+        setLayout(new BorderLayout());
+        add(body, BorderLayout.CENTER);
+        add(scrollbar, BorderLayout.EAST);
+
+        scrollbar.addAdjustmentListener(e -> {
+            topRow = e.getValue();
+            body.repaint();
+        });
+        body.addMouseWheelListener(e -> scrollTo(topRow + e.getUnitsToScroll()));
+        body.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                body.requestFocus();
+                int row = rowAt(e.getY());
+                if (row < 0) return;
+                if (e.isShiftDown()) selectRange(row);
+                else if (e.isControlDown() || e.isMetaDown()) toggle(row);
+                else select(row);
+            }
+        });
+        body.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int page = Math.max(1, visibleRowCount() - 1);
+                boolean extend = e.isShiftDown();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_UP: moveSelection(-1, extend); break;
+                    case KeyEvent.VK_DOWN: moveSelection(1, extend); break;
+                    case KeyEvent.VK_PAGE_UP: moveSelection(-page, extend); break;
+                    case KeyEvent.VK_PAGE_DOWN: moveSelection(page, extend); break;
+                    case KeyEvent.VK_HOME: moveTo(0, extend); break;
+                    case KeyEvent.VK_END: moveTo(model.size() - 1, extend); break;
+                    case KeyEvent.VK_A:
+                        if (e.isControlDown() || e.isMetaDown()) selectAll();
+                        break;
+                    default: break;
+                }
+            }
+        });
+        body.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateScrollbar();
+            }
+        });
+    }
+
+    // --- Public API ---
+
+    /** Shows a new model, clears the selection and scrolls to the top. */
+    public void setModel(RowModel model) {
+        this.model = model;
+        this.message = "";
+        this.topRow = 0;
+        clearSelection();
+        updateScrollbar();
+        body.repaint();
+    }
+
+    /**
+     * Call after rows were appended to the current model; keeps the scroll
+     * position and selection.
+     */
+    public void rowsAppended() {
+        updateScrollbar();
+        body.repaint();
+    }
+
+    public RowModel getModel() {
+        return model;
+    }
+
+    /** Replaces the rows with a one-line message (e.g. a DB error). */
+    public void setMessage(String message) {
+        this.model = new RowModel();
+        this.message = message;
+        this.topRow = 0;
+        clearSelection();
+        updateScrollbar();
+        body.repaint();
+    }
+
+    public int getSelectedRow() {
+        return selectedRow;
+    }
+
+    /** Id of the selected record (the lead row), or -1 when nothing is selected. */
+    public int getSelectedId() {
+        return selectedRow >= 0 && selectedRow < model.size() && selection.get(selectedRow) ? model.getId(selectedRow) : -1;
+    }
+
+    /** Ids of all selected records, in row order. */
+    public int[] getSelectedIds() {
+        int[] ids = new int[selection.cardinality()];
+        int n = 0;
+        for (int row = selection.nextSetBit(0); row >= 0 && row < model.size(); row = selection.nextSetBit(row + 1)) {
+            ids[n++] = model.getId(row);
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    public int getSelectionCount() {
+        return selection.cardinality();
+    }
+
+    @Override
+    public void setFont(Font f) {
+        super.setFont(f);
+        font = f;
+        rowHeight = 0;
+        body.repaint();
+    }
+
+    // --- Selection & Scrolling ---
+
+    /** Selects just this row and makes it the anchor for Shift ranges. */
+    private void select(int row) {
+        if (model.size() == 0) return;
+        selectedRow = clampRow(row);
+        anchorRow = selectedRow;
+        selection.clear();
+        selection.set(selectedRow);
+        ensureVisible(selectedRow);
+        body.repaint();
+    }
+
+    private void toggle(int row) {
+        if (model.size() == 0) return;
+        selectedRow = clampRow(row);
+        anchorRow = selectedRow;
+        selection.flip(selectedRow);
+        body.repaint();
+    }
+
+    /** Selects anchor..row (inclusive), replacing the previous range. */
+    private void selectRange(int row) {
+        if (model.size() == 0) return;
+        if (anchorRow < 0) {
+            select(row);
+            return;
+        }
+        selectedRow = clampRow(row);
+        selection.clear();
+        selection.set(Math.min(anchorRow, selectedRow), Math.max(anchorRow, selectedRow) + 1);
+        ensureVisible(selectedRow);
+        body.repaint();
+    }
+
+    private void selectAll() {
+        if (model.size() == 0) return;
+        selection.set(0, model.size());
+        if (selectedRow < 0) selectedRow = 0;
+        if (anchorRow < 0) anchorRow = 0;
+        body.repaint();
+    }
+
+    private void clearSelection() {
+        selection.clear();
+        selectedRow = -1;
+        anchorRow = -1;
+    }
+
+    private void moveSelection(int delta, boolean extend) {
+        moveTo(selectedRow < 0 ? 0 : selectedRow + delta, extend);
+    }
+
+    private void moveTo(int row, boolean extend) {
+        if (extend) selectRange(row);
+        else select(row);
+    }
+
+    private int clampRow(int row) {
+        return Math.max(0, Math.min(row, model.size() - 1));
+    }
+
+    private void ensureVisible(int row) {
+        int visible = visibleRowCount();
+        if (row < topRow) scrollTo(row);
+        else if (row >= topRow + visible) scrollTo(row - visible + 1);
+    }
+
+    private void scrollTo(int row) {
+        int max = Math.max(0, model.size() - visibleRowCount());
+        topRow = Math.max(0, Math.min(row, max));
+        scrollbar.setValue(topRow);
+        body.repaint();
+    }
+
+    private void updateScrollbar() {
+        int visible = Math.max(1, visibleRowCount());
+        scrollbar.setValues(topRow, visible, 0, Math.max(visible, model.size()));
+        scrollbar.setBlockIncrement(Math.max(1, visible - 1));
+    }
+
+    private int visibleRowCount() {
+        measure();
+        if (rowHeight == 0) return 1;
+        return Math.max(1, (body.getHeight() - rowHeight) / rowHeight);
+    }
+
+    private int rowAt(int y) {
+        if (rowHeight == 0 || y < rowHeight) return -1;
+        int row = topRow + (y - rowHeight) / rowHeight;
+        return row < model.size() ? row : -1;
+    }
+
+    private void measure() {
+        if (rowHeight != 0) return;
+        FontMetrics fm = body.getFontMetrics(font);
+        rowHeight = fm.getHeight() + 2;
+        charWidth = fm.charWidth('W');
+        ascent = fm.getAscent() + 1;
+    }
+
+    // --- Painting ---
+
+    private class Body extends Canvas {
+        private Image buffer;
+
+        Body() {
+            setFocusable(true);
+            setBackground(Color.WHITE);
+        }
+
+        @Override
+        public void update(Graphics g) {
+            paint(g); // skip the default clear; the back buffer covers everything
+        }
+
+        @Override
+        public void paint(Graphics g) {
+            int w = getWidth();
+            int h = getHeight();
+            if (w <= 0 || h <= 0) return;
+            if (buffer == null || buffer.getWidth(null) != w || buffer.getHeight(null) != h) {
+                buffer = createImage(w, h);
+            }
+            Graphics bg = buffer.getGraphics();
+            try {
+                measure();
+                paintRows(bg, w, h);
+            } finally {
+                bg.dispose();
+            }
+            g.drawImage(buffer, 0, 0, null);
+        }
+
+        private void paintRows(Graphics g, int w, int h) {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, w, h);
+            g.setFont(font);
+
+            if (!message.isEmpty()) {
+                g.setColor(Color.RED);
+                g.drawString(message, PAD, ascent);
+                return;
+            }
+
+            // Header
+            g.setColor(HEADER_BG);
+            g.fillRect(0, 0, w, rowHeight);
+            g.setColor(Color.DARK_GRAY);
+            int x = PAD;
+            for (int c = 0; c < model.getColumnCount(); c++) {
+                RowModel.Column col = model.getColumn(c);
+                drawClipped(g, col.name, x, ascent, col.width);
+                x += (col.width + 3) * charWidth;
+            }
+
+            // Visible rows only
+            int last = Math.min(model.size(), topRow + (h - rowHeight) / rowHeight + 1);
+            int y = rowHeight;
+            for (int row = topRow; row < last; row++, y += rowHeight) {
+                boolean selected = selection.get(row);
+                if (selected) {
+                    g.setColor(SELECTION_BG);
+                    g.fillRect(0, y, w, rowHeight);
+                }
+                g.setColor(selected ? Color.WHITE : Color.BLACK);
+                x = PAD;
+                for (int c = 0; c < model.getColumnCount(); c++) {
+                    int width = model.getColumn(c).width;
+                    int length = formatter.formatCell(model, row, c);
+                    g.drawChars(formatter.buffer(), 0, Math.min(length, width), x, y + ascent);
+                    x += (width + 3) * charWidth;
+                }
+            }
+
+            // Column separators
+            g.setColor(GRID_LINE);
+            x = PAD;
+            for (int c = 0; c < model.getColumnCount() - 1; c++) {
+                x += (model.getColumn(c).width + 3) * charWidth;
+                int lineX = x - charWidth * 3 / 2;
+                g.drawLine(lineX, 0, lineX, y);
+            }
+            g.drawLine(0, rowHeight - 1, w, rowHeight - 1);
+        }
+
+        private void drawClipped(Graphics g, String text, int x, int y, int maxChars) {
+            if (text.length() > maxChars) text = text.substring(0, maxChars);
+            g.drawString(text, x, y);
+        }
+    }
+}
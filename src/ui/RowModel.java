@@ -0,0 +1,262 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * RowModel
+ * --------
+ * Column-oriented row storage behind {@link RowGrid}. Every row has a
+ * primitive int id (the record's primary key) plus typed columns kept in
+ * parallel primitive arrays, so a page of rows costs a few arrays rather
+ * than one formatted String per row. Cell text is produced only for the
+ * rows actually painted or exported.
+ */
+public class RowModel {
+
+    /** Storage type of a column. */
+    public enum Kind { INT, DOUBLE, TEXT }
+
+    /** Column description: header text, display width (chars) and kind. */
+    public static class Column {
+        final String name;
+        final int width;
+        final Kind kind;
+
+        public Column(String name, int width, Kind kind) {
+            this.name = name;
+            this.width = width;
+            this.kind = kind;
+        }
+    }
+
+    private final Column[] columns;
+    private final int[][] ints;
+    private final double[][] doubles;
+    private final String[][] texts;
+    private int[] ids;
+    private int size = 0;
+
+    public RowModel(Column... columns) {
+        this.columns = columns;
+        this.ints = new int[columns.length][];
+        this.doubles = new double[columns.length][];
+        this.texts = new String[columns.length][];
+        this.ids = new int[0];
+        ensureCapacity(16);
+    }
+
+    // --- Structure ---
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public Column getColumn(int col) {
+        return columns[col];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    /** Rough heap footprint of the loaded rows (arrays plus strings), for cache sizing. */
+    public long estimateBytes() {
+        long total = 16 + 4L * ids.length;
+        for (int c = 0; c < columns.length; c++) {
+            switch (columns[c].kind) {
+                case INT:
+                    total += 16 + 4L * ints[c].length;
+                    break;
+                case DOUBLE:
+                    total += 16 + 8L * doubles[c].length;
+                    break;
+                default:
+                    total += 16 + 4L * texts[c].length;
+                    for (int row = 0; row < size; row++) {
+                        String text = texts[c][row];
+                        if (text != null) total += 40 + 2L * text.length();
+                    }
+                    break;
+            }
+        }
+        return total;
+    }
+
+    /** Removes all rows but keeps the allocated arrays for reuse. */
+    public void clear() {
+        for (String[] t : texts) {
+            if (t != null) Arrays.fill(t, 0, size, null);
+        }
+        size = 0;
+    }
+
+    // --- Appending ---
+
+    /** Appends a row with the given id; returns its index for the set* calls. */
+    public int addRow(int id) {
+        ensureCapacity(size + 1);
+        ids[size] = id;
+        return size++;
+    }
+
+    /**
+     * Appends all rows of another model with the same columns (used to add
+     * streamed chunks to the model on screen).
+     */
+    public void appendAll(RowModel other) {
+        int n = other.size;
+        ensureCapacity(size + n);
+        System.arraycopy(other.ids, 0, ids, size, n);
+        for (int c = 0; c < columns.length; c++) {
+            switch (columns[c].kind) {
+                case INT:
+                    System.arraycopy(other.ints[c], 0, ints[c], size, n);
+                    break;
+                case DOUBLE:
+                    System.arraycopy(other.doubles[c], 0, doubles[c], size, n);
+                    break;
+                default:
+                    System.arraycopy(other.texts[c], 0, texts[c], size, n);
+                    break;
+            }
+        }
+        size += n;
+    }
+
+    /**
+     * New model with the rows whose given text columns contain the term,
+     * ignoring case (the in-memory equivalent of the views' LIKE filter).
+     */
+    public RowModel filterText(int[] textColumns, String term) {
+        RowModel out = new RowModel(columns);
+        for (int row = 0; row < size; row++) {
+            if (rowContains(row, textColumns, term)) out.copyRow(this, row);
+        }
+        return out;
+    }
+
+    private boolean rowContains(int row, int[] textColumns, String term) {
+        for (int col : textColumns) {
+            String text = texts[col][row];
+            if (text == null) continue;
+            for (int i = 0; i + term.length() <= text.length(); i++) {
+                if (text.regionMatches(true, i, term, 0, term.length())) return true;
+            }
+        }
+        return false;
+    }
+
+    private void copyRow(RowModel from, int row) {
+        int r = addRow(from.ids[row]);
+        for (int c = 0; c < columns.length; c++) {
+            switch (columns[c].kind) {
+                case INT:
+                    ints[c][r] = from.ints[c][row];
+                    break;
+                case DOUBLE:
+                    doubles[c][r] = from.doubles[c][row];
+                    break;
+                default:
+                    texts[c][r] = from.texts[c][row];
+                    break;
+            }
+        }
+    }
+
+    public void setInt(int row, int col, int value) {
+        ints[col][row] = value;
+    }
+
+    public void setDouble(int row, int col, double value) {
+        doubles[col][row] = value;
+    }
+
+    public void setText(int row, int col, String value) {
+        texts[col][row] = value;
+    }
+
+    // --- Reading ---
+
+    public int getInt(int row, int col) {
+        return ints[col][row];
+    }
+
+    public double getDouble(int row, int col) {
+        return doubles[col][row];
+    }
+
+    public String getText(int row, int col) {
+        return texts[col][row];
+    }
+
+    /** Cell value as display text (doubles with two decimals). */
+    public String getCellText(int row, int col) {
+        switch (columns[col].kind) {
+            case INT:
+                return Integer.toString(ints[col][row]);
+            case DOUBLE:
+                return String.format("%.2f", doubles[col][row]);
+            default:
+                return String.valueOf(texts[col][row]);
+        }
+    }
+
+    /** All cells of a row as display text. */
+    public String[] getRowText(int row) {
+        String[] values = new String[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            values[c] = getCellText(row, c);
+        }
+        return values;
+    }
+
+    // --- Fixed-width text layout (as used by the dashboard text views and export) ---
+
+    /** Header line plus the "-----+-----" separator line. */
+    public String formatHeader() {
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < columns.length; c++) {
+            if (c > 0) sb.append(" | ");
+            sb.append(String.format("%-" + columns[c].width + "s", columns[c].name));
+        }
+        sb.append(System.lineSeparator());
+        for (int c = 0; c < columns.length; c++) {
+            if (c > 0) sb.append('+');
+            int dashes = columns[c].width + (c == 0 || c == columns.length - 1 ? 1 : 2);
+            for (int i = 0; i < dashes; i++) sb.append('-');
+        }
+        return sb.append('\n').toString();
+    }
+
+    /**
+     * One row padded to the column widths, terminated by a line separator.
+     * Loops over many rows should reuse a {@link RowFormatter} instead.
+     */
+    public String formatRow(int row) {
+        RowFormatter formatter = new RowFormatter();
+        return new String(formatter.buffer(), 0, formatter.formatRow(this, row));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        for (int c = 0; c < columns.length; c++) {
+            switch (columns[c].kind) {
+                case INT:
+                    ints[c] = ints[c] == null ? new int[newCapacity] : Arrays.copyOf(ints[c], newCapacity);
+                    break;
+                case DOUBLE:
+                    doubles[c] = doubles[c] == null ? new double[newCapacity] : Arrays.copyOf(doubles[c], newCapacity);
+                    break;
+                default:
+                    texts[c] = texts[c] == null ? new String[newCapacity] : Arrays.copyOf(texts[c], newCapacity);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ui;
+
+import service.CubeRow;
+import service.StatsCube;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.List;
+
+/**
+ * StatsChartWindow
+ * ----------------
+ * Window with the statistics charts, drawn by {@link ChartCanvas} from a
+ * {@link StatsCube} built in the background:
+ *  - approved subsidy by fuel type (bar),
+ *  - offers by vehicle type and status (stacked bar),
+ *  - offers and approvals by manufacture-year bucket (line).
+ */
+public class StatsChartWindow extends Frame implements ActionListener {
+
+    private final ChartCanvas subsidyByFuel = new ChartCanvas();
+    private final ChartCanvas statusByType = new ChartCanvas();
+    private final ChartCanvas offersByYear = new ChartCanvas();
+    private Button btnRefresh;
+    private Label lblStatus;
+
+    public StatsChartWindow() {
+        setTitle("GVEI - Statistics Charts");
+        setLayout(new BorderLayout());
+        setSize(900, 640);
+        setBackground(Color.WHITE);
+
+        Panel top = new Panel(new GridLayout(1, 2));
+        top.add(subsidyByFuel);
+        top.add(statusByType);
+        Panel charts = new Panel(new GridLayout(2, 1));
+        charts.add(top);
+        charts.add(offersByYear);
+        add(charts, BorderLayout.CENTER);
+
+        Panel controls = new Panel(new FlowLayout(FlowLayout.LEFT));
+        btnRefresh = new Button("Refresh Charts");
+        btnRefresh.addActionListener(this);
+        controls.add(btnRefresh);
+        lblStatus = new Label(" ", Label.LEFT);
+        lblStatus.setPreferredSize(new Dimension(600, 20));
+        controls.add(lblStatus);
+        add(controls, BorderLayout.SOUTH);
+
+        addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                dispose();
+            }
+        });
+
+        setVisible(true);
+        loadCharts();
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == btnRefresh) loadCharts();
+    }
+
+    private void loadCharts() {
+        btnRefresh.setEnabled(false);
+        lblStatus.setText("Building statistics...");
+        for (ChartCanvas chart : new ChartCanvas[]{subsidyByFuel, statusByType, offersByYear}) {
+            chart.setMessage("Loading...");
+        }
+        BackgroundExecutor.run(StatsCube::build, cube -> {
+            btnRefresh.setEnabled(true);
+            showCube(cube);
+            lblStatus.setText("Statistics built in " + cube.getBuildMillis() + " ms"
+                    + (cube.getSkipped() > 0 ? " (" + cube.getSkipped() + " offers with unknown fuel/type/status left out)." : "."));
+        }, ex -> {
+            btnRefresh.setEnabled(true);
+            for (ChartCanvas chart : new ChartCanvas[]{subsidyByFuel, statusByType, offersByYear}) {
+                chart.setMessage("ERROR: Could not load statistics.");
+            }
+            lblStatus.setText("DB Error: " + ex.getMessage());
+        });
+    }
+
+    private void showCube(StatsCube cube) {
+        StatsCube.Dimension fuel = StatsCube.Dimension.FUEL_TYPE;
+        StatsCube.Dimension type = StatsCube.Dimension.VEHICLE_TYPE;
+        StatsCube.Dimension year = StatsCube.Dimension.YEAR_BUCKET;
+        StatsCube.Dimension status = StatsCube.Dimension.STATUS;
+
+        // Approved subsidy by fuel type
+        int[] approvedOnly = StatsCube.anyFilter();
+        approvedOnly[status.ordinal()] = status.codeOf("Approved");
+        double[] value = new double[fuel.size()];
+        for (CubeRow row : cube.rollup(new StatsCube.Dimension[]{fuel}, approvedOnly)) {
+            value[fuel.codeOf(row.getLabels()[0])] = row.getTotalValue();
+        }
+        subsidyByFuel.setChart(ChartCanvas.Type.BAR, "Approved Exchange Value by Fuel Type ($)", fuel.labels(),
+                List.of(new ChartCanvas.Series("Approved value", value, null)));
+
+        // Offers by vehicle type, stacked by status
+        double[][] counts = new double[status.size()][type.size()];
+        for (CubeRow row : cube.rollup(new StatsCube.Dimension[]{status, type}, null)) {
+            counts[status.codeOf(row.getLabels()[0])][type.codeOf(row.getLabels()[1])] = row.getOffers();
+        }
+        String[] statuses = status.labels();
+        ChartCanvas.Series[] stacked = new ChartCanvas.Series[statuses.length];
+        for (int s = 0; s < statuses.length; s++) stacked[s] = new ChartCanvas.Series(statuses[s], counts[s], null);
+        statusByType.setChart(ChartCanvas.Type.STACKED_BAR, "Offers by Vehicle Type and Status", type.labels(), List.of(stacked));
+
+        // Age distribution: offers and approvals per manufacture-year bucket
+        double[] offers = new double[year.size()];
+        double[] approved = new double[year.size()];
+        for (CubeRow row : cube.rollup(new StatsCube.Dimension[]{year}, null)) {
+            int bucket = year.codeOf(row.getLabels()[0]);
+            offers[bucket] = row.getOffers();
+            approved[bucket] = row.getApproved();
+        }
+        offersByYear.setChart(ChartCanvas.Type.LINE, "Offers by Manufacture Year", year.labels(),
+                List.of(new ChartCanvas.Series("Offers", offers, null), new ChartCanvas.Series("Approved", approved, null)));
+    }
+}
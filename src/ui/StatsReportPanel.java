@@ -1,120 +1,405 @@
 package ui;
 
-import db.DBConnection;
+import service.CubeRow;
+import service.OfferAggregates;
+import service.OfferTotals;
+import service.StatsCube;
 import java.awt.*;
+import java.awt.event.ItemEvent;
+import java.awt.image.BufferedImage;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * StatsReportPanel - A reusable AWT Panel to display key business and
- * environmental metrics by querying approved offers. It acts as the "canvas" 
+ * environmental metrics by querying approved offers. It acts as the "canvas"
  * for simple statistics display as requested.
+ *
+ * Data is fetched on the panel's own scheduler thread, never on the EDT:
+ * once when the panel is added, every refresh interval while it is showing
+ * (-Dgvei.stats.refreshSeconds, 0 = off), and on {@link #refresh()}.
+ * Refresh requests that arrive within COALESCE_MS of each other (a run of
+ * approvals, say) are served by one fetch. The report is drawn into an
+ * offscreen image that is redrawn only when the data or the size changes;
+ * paint() just copies it.
  */
 public class StatsReportPanel extends Panel {
 
     // Estimate: 5 metric tonnes of CO2 reduction per exchanged older vehicle.
-    private static final double CARBON_REDUCTION_PER_VEHICLE_TONNES = 5.0; 
-    
+    private static final double CARBON_REDUCTION_PER_VEHICLE_TONNES = StatsCube.CARBON_TONNES_PER_VEHICLE;
+
+    // The breakdown cube is a full pass over the offers; a refresh rebuilds it at most this often.
+    private static final long CUBE_MAX_AGE_MS = 30_000;
+    private static final long COALESCE_MS = 250;
+    private static final long DEFAULT_REFRESH_SECONDS = 60;
+    private static final String NO_DIMENSION = "(none)";
+    private static final int BREAKDOWN_X = 440;
+    private static final int BREAKDOWN_LINE = 15;
+
+    // --- Drawing resources (created once) ---
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font METRIC_FONT = new Font("Monospaced", Font.PLAIN, 14);
+    private static final Font TABLE_FONT = new Font("Monospaced", Font.PLAIN, 12);
+    private static final Font NOTE_FONT = new Font("Arial", Font.ITALIC, 10);
+    private static final Color DARK_GREEN = new Color(0, 100, 0);
+    private static final Color DARK_BLUE = new Color(0, 0, 150);
+    private static final Color DARK_RED = new Color(150, 0, 0);
+
+    // --- Data (EDT) ---
+    private boolean loaded = false;
     private int totalApproved = 0;
     private double totalSubsidy = 0;
     private double carbonReduction = 0;
+    private StatsCube cube;
+    private String cubeError;
+    private List<CubeRow> breakdown = new ArrayList<>();
+
+    // --- Breakdown controls ---
+    private final Choice choFirstDimension = new Choice();
+    private final Choice choSecondDimension = new Choice();
+    private volatile boolean breakdownWanted = false;
+
+    // --- Background refresh ---
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> periodic;
+    private long refreshSeconds = Long.getLong("gvei.stats.refreshSeconds", DEFAULT_REFRESH_SECONDS);
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private volatile StatsCube latestCube;    // last cube built, read by the scheduler thread
+
+    // --- Offscreen image ---
+    private BufferedImage image;
+    private boolean imageDirty = true;
 
     public StatsReportPanel() {
-        setLayout(new BorderLayout()); 
+        setLayout(new FlowLayout(FlowLayout.RIGHT, 6, 4));
         setBackground(Color.WHITE);
-        fetchData(); // Load initial data
+
+        for (Choice choice : new Choice[]{choFirstDimension, choSecondDimension}) {
+            choice.add(NO_DIMENSION);
+            for (StatsCube.Dimension d : StatsCube.Dimension.values()) choice.add(d.label);
+            choice.addItemListener(e -> {
+                if (e.getStateChange() == ItemEvent.SELECTED) dimensionsChanged();
+            });
+        }
+        add(new Label("Break down by:"));
+        add(choFirstDimension);
+        add(new Label("then:"));
+        add(choSecondDimension);
+        // No query here: the first fetch starts in addNotify, off the EDT.
+    }
+
+    // --- Scheduling ---
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        synchronized (this) {
+            if (scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "gvei-stats-refresh");
+                    t.setDaemon(true);
+                    return t;
+                });
+                schedulePeriodic();
+            }
+        }
+        refresh();
+    }
+
+    @Override
+    public void removeNotify() {
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+                periodic = null;
+                refreshQueued.set(false);
+            }
+        }
+        super.removeNotify();
     }
 
     /**
-     * Connects to the database and fetches the core statistics.
+     * Sets how often the panel refreshes itself while showing; 0 turns the
+     * periodic refresh off (explicit refresh() calls still work).
      */
-    public void fetchData() {
-        // SQL query to get the count and sum of exchange value for approved offers
-        String sql = "SELECT COUNT(*) AS totalApproved, IFNULL(SUM(exchange_value),0) AS totalSubsidy " +
-                     "FROM exchange_offers WHERE status='Approved'";
-        
-        try (Connection conn = DBConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            if (rs.next()) {
-                totalApproved = rs.getInt("totalApproved");
-                totalSubsidy = rs.getDouble("totalSubsidy");
-            }
+    public synchronized void setRefreshInterval(long seconds) {
+        refreshSeconds = seconds;
+        if (scheduler != null) schedulePeriodic();
+    }
+
+    private void schedulePeriodic() {
+        if (periodic != null) periodic.cancel(false);
+        periodic = null;
+        if (refreshSeconds > 0) {
+            periodic = scheduler.scheduleWithFixedDelay(() -> {
+                if (isShowing()) refresh();
+            }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
 
-            // Calculate Carbon Reduction
-            carbonReduction = totalApproved * CARBON_REDUCTION_PER_VEHICLE_TONNES;
+    /**
+     * Public method to refresh data and redraw the panel.
+     * The fetch runs on the panel's scheduler; requests arriving while one is
+     * already queued are merged into it. A shown breakdown is rebuilt when
+     * it is older than CUBE_MAX_AGE_MS.
+     */
+    public void refresh() {
+        synchronized (this) {
+            if (scheduler == null) return; // not displayable yet; addNotify will fetch
+            if (refreshQueued.compareAndSet(false, true)) {
+                scheduler.schedule(this::fetchInBackground, COALESCE_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
 
+    // Runs on the scheduler thread.
+    private void fetchInBackground() {
+        refreshQueued.set(false); // requests from here on need a new fetch
+        double[] stats = null;
+        Exception statsError = null;
+        try {
+            stats = queryStats();
         } catch (SQLException ex) {
-            System.err.println("DB Error retrieving statistics: " + ex.getMessage());
-            // Signal an error state for painting
-            totalApproved = -1; 
-            totalSubsidy = -1.0; 
-            carbonReduction = -1.0; 
+            statsError = ex;
+        }
+
+        StatsCube built = null;
+        Exception cubeFailure = null;
+        StatsCube current = latestCube;
+        if (breakdownWanted && (current == null || System.currentTimeMillis() - current.getBuiltAt() > CUBE_MAX_AGE_MS)) {
+            try {
+                built = StatsCube.build();
+                latestCube = built;
+            } catch (SQLException ex) {
+                cubeFailure = ex;
+            }
         }
+
+        double[] newStats = stats;
+        Exception newStatsError = statsError;
+        StatsCube newCube = built;
+        Exception newCubeError = cubeFailure;
+        EventQueue.invokeLater(() -> {
+            if (newStatsError != null) applyError(newStatsError);
+            else applyStats(newStats);
+            if (newCube != null) applyCube(newCube);
+            if (newCubeError != null) {
+                cubeError = newCubeError.getMessage();
+                System.err.println("DB Error building statistics breakdown: " + cubeError);
+            }
+            dataChanged();
+        });
+    }
+
+    // Reads the incrementally maintained totals (no scan); safe to call from a worker thread.
+    private double[] queryStats() throws SQLException {
+        OfferTotals totals = OfferAggregates.shared().totals();
+        return new double[]{totals.getCount("Approved"), totals.getValue("Approved")};
+    }
+
+    private void applyStats(double[] stats) {
+        loaded = true;
+        totalApproved = (int) stats[0];
+        totalSubsidy = stats[1];
+
+        // Calculate Carbon Reduction
+        carbonReduction = totalApproved * CARBON_REDUCTION_PER_VEHICLE_TONNES;
+    }
+
+    private void applyError(Exception ex) {
+        System.err.println("DB Error retrieving statistics: " + ex.getMessage());
+        // Signal an error state for painting
+        loaded = true;
+        totalApproved = -1;
+        totalSubsidy = -1.0;
+        carbonReduction = -1.0;
+    }
+
+    private void applyCube(StatsCube built) {
+        cube = built;
+        cubeError = null;
+        breakdown = built.rollup(selectedDimensions(), null);
+    }
+
+    // --- Breakdown ---
+
+    private StatsCube.Dimension[] selectedDimensions() {
+        List<StatsCube.Dimension> dims = new ArrayList<>();
+        for (Choice choice : new Choice[]{choFirstDimension, choSecondDimension}) {
+            int index = choice.getSelectedIndex() - 1; // 0 is "(none)"
+            if (index >= 0 && !dims.contains(StatsCube.Dimension.values()[index])) {
+                dims.add(StatsCube.Dimension.values()[index]);
+            }
+        }
+        return dims.toArray(new StatsCube.Dimension[0]);
+    }
+
+    // Slicing a built cube takes microseconds, so it runs right here on the EDT.
+    private void dimensionsChanged() {
+        breakdownWanted = selectedDimensions().length > 0;
+        if (cube == null) {
+            refresh();
+        } else {
+            breakdown = cube.rollup(selectedDimensions(), null);
+        }
+        dataChanged();
+    }
+
+    // --- Painting ---
+
+    private void dataChanged() {
+        imageDirty = true;
+        repaint();
+    }
+
+    /** Skips the background clear; paint() covers the whole panel with the image. */
+    @Override
+    public void update(Graphics g) {
+        paint(g);
     }
 
     /**
      * Overridden paint method to draw the statistics report.
+     * Copies the cached image, re-rendering it first if needed.
      */
     @Override
     public void paint(Graphics g) {
-        super.paint(g); 
         int w = getWidth();
-        
+        int h = getHeight();
+        if (w <= 0 || h <= 0) return;
+        if (image == null || image.getWidth() != w || image.getHeight() != h) {
+            image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            imageDirty = true;
+        }
+        if (imageDirty) {
+            Graphics2D ig = image.createGraphics();
+            try {
+                ig.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                render(ig, w, h);
+            } finally {
+                ig.dispose();
+            }
+            imageDirty = false;
+        }
+        g.drawImage(image, 0, 0, null);
+    }
+
+    private void render(Graphics g, int w, int h) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, w, h);
+
         int x = 20;
         int yStart = 30;
-        
-        g.setFont(new Font("Arial", Font.BOLD, 16));
+
+        g.setFont(TITLE_FONT);
         g.setColor(Color.DARK_GRAY);
         g.drawString("📈 Environmental & Financial Reporting", x, yStart);
-        
+
         // Draw Separator Line
         g.setColor(Color.LIGHT_GRAY);
         g.drawLine(x, yStart + 10, w - x, yStart + 10);
-        
-        g.setFont(new Font("Monospaced", Font.PLAIN, 14));
-        
+
+        g.setFont(METRIC_FONT);
+
         int lineSpacing = 30;
         int currentY = yStart + lineSpacing + 5;
 
-        // Check for DB error 
+        if (!loaded) {
+            g.setColor(Color.GRAY);
+            g.drawString("Loading statistics...", x, currentY);
+            return;
+        }
+
+        // Check for DB error
         if (totalApproved < 0) {
             g.setColor(Color.RED);
             g.drawString("ERROR: Could not connect to database to fetch stats.", x, currentY);
             return;
         }
-        
+
         // 1. Total Exchanged Vehicles
-        g.setColor(new Color(0, 100, 0)); // Dark Green
+        g.setColor(DARK_GREEN);
         String exchangedText = String.format("Total Exchanged Vehicles (Approved): %d units", totalApproved);
         g.drawString(exchangedText, x, currentY);
 
         currentY += lineSpacing;
 
         // 2. Total Subsidies Paid
-        g.setColor(new Color(0, 0, 150)); // Dark Blue
+        g.setColor(DARK_BLUE);
         String subsidyText = String.format("Total Subsidies Paid: $%,.2f", totalSubsidy);
         g.drawString(subsidyText, x, currentY);
-        
+
         currentY += lineSpacing;
 
         // 3. Estimated Carbon Reduction
-        g.setColor(new Color(150, 0, 0)); // Dark Red
+        g.setColor(DARK_RED);
         String carbonText = String.format("Estimated Carbon Reduction: %,.2f Metric Tonnes", carbonReduction);
         g.drawString(carbonText, x, currentY);
 
         // Disclaimer/Annotation
         currentY += lineSpacing;
         g.setColor(Color.GRAY);
-        g.setFont(new Font("Arial", Font.ITALIC, 10));
+        g.setFont(NOTE_FONT);
         g.drawString("*Carbon Reduction is an estimate based on " + CARBON_REDUCTION_PER_VEHICLE_TONNES + " tonnes/vehicle.", x, currentY);
+
+        renderBreakdown(g, BREAKDOWN_X, yStart + lineSpacing, h);
     }
-    
-    /**
-     * Public method to refresh data and redraw the panel.
-     */
-    public void refresh() {
-        fetchData();
-        repaint();
+
+    private void renderBreakdown(Graphics g, int x, int y, int h) {
+        StatsCube.Dimension[] dims = selectedDimensions();
+        if (dims.length == 0) return;
+
+        g.setFont(TABLE_FONT);
+        if (cubeError != null) {
+            g.setColor(Color.RED);
+            g.drawString("ERROR: could not build the breakdown.", x, y);
+            return;
+        }
+        if (cube == null) {
+            g.setColor(Color.GRAY);
+            g.drawString("Building breakdown...", x, y);
+            return;
+        }
+
+        StringBuilder heading = new StringBuilder();
+        for (StatsCube.Dimension d : dims) heading.append(heading.length() > 0 ? " / " : "").append(d.label);
+        g.setColor(Color.DARK_GRAY);
+        g.drawString(String.format("%-18.18s %7s %7s %12s %5s %7s", heading, "Offers", "Apprvd", "Value $", "Subs%", "CO2 t"), x, y);
+
+        // Offers the cube could not place keep a line below the table, so the totals are not taken as complete
+        long skipped = cube.getSkipped();
+        int maxRows = (h - y - 8) / BREAKDOWN_LINE - 1 - (skipped > 0 ? 1 : 0);
+        int shown = 0;
+        for (CubeRow row : breakdown) {
+            if (shown == maxRows && breakdown.size() > maxRows) {
+                g.setColor(Color.GRAY);
+                g.drawString("... " + (breakdown.size() - shown) + " more groups", x, y + (shown + 1) * BREAKDOWN_LINE);
+                shown++;
+                break;
+            }
+            g.setColor(Color.BLACK);
+            g.drawString(String.format("%-18.18s %7d %7d %,12.0f %5.1f %7.0f",
+                    String.join(" / ", row.getLabels()), row.getOffers(), row.getApproved(),
+                    row.getTotalValue(), row.getAverageSubsidy(), row.getCarbonTonnes()), x, y + (shown + 1) * BREAKDOWN_LINE);
+            shown++;
+        }
+        if (breakdown.isEmpty()) {
+            g.setColor(Color.GRAY);
+            g.drawString("No offers.", x, y + BREAKDOWN_LINE);
+            shown = 1;
+        }
+        if (skipped > 0) {
+            g.setColor(DARK_RED);
+            g.setFont(NOTE_FONT);
+            g.drawString("*" + skipped + " offers with unknown fuel/type/status left out.", x,
+                    y + (shown + 1) * BREAKDOWN_LINE);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,11 @@
 package ui;
 
 import db.DBConnection;
+import model.Vehicle;
+import service.CitizenSession;
+import service.EligibilityIndex;
+import service.SearchIndex;
+import service.VehicleRules;
 
 import java.awt.*;
 import java.awt.event.*;
@@ -9,20 +14,23 @@ import java.sql.*;
 /**
  * GVEI - Vehicle Registration Form
  * ---------------------------------------------
- * Allows a logged-in citizen to register their vehicle.
+ * Allows a logged-in citizen to register their vehicle. New vehicles are
+ * added to the CitizenSession, so the other citizen windows see them at once.
  */
 public class VehicleRegistrationForm extends Frame implements ActionListener {
 
     // --- Fields ---
-    private int userId;
+    private final CitizenSession session;
+    private final int userId;
     private TextField tfPlate, tfYear, tfMileage;
     private Choice chVehicleType, chFuelType;
     private Button btnRegister, btnClear, btnBack;
     private Label lblMessage;
 
     // --- Constructor ---
-    public VehicleRegistrationForm(int userId) {
-        this.userId = userId;
+    public VehicleRegistrationForm(CitizenSession session) {
+        this.session = session;
+        this.userId = session.getUserId();
 
         setTitle("GVEI - Vehicle Registration");
         setSize(460, 400);
@@ -56,10 +64,7 @@ public class VehicleRegistrationForm extends Frame implements ActionListener {
         add(new Label("Vehicle Type:"), gbc);
 
         chVehicleType = new Choice();
-        chVehicleType.add("Car");
-        chVehicleType.add("Bus");
-        chVehicleType.add("Motorcycle");
-        chVehicleType.add("Truck");
+        for (String type : VehicleRules.VEHICLE_TYPES) chVehicleType.add(type);
         gbc.gridx = 1;
         add(chVehicleType, gbc);
 
@@ -68,10 +73,7 @@ public class VehicleRegistrationForm extends Frame implements ActionListener {
         add(new Label("Fuel Type:"), gbc);
 
         chFuelType = new Choice();
-        chFuelType.add("Petrol");
-        chFuelType.add("Diesel");
-        chFuelType.add("Hybrid");
-        chFuelType.add("Electric");
+        for (String fuel : VehicleRules.FUEL_TYPES) chFuelType.add(fuel);
         gbc.gridx = 1;
         add(chFuelType, gbc);
 
@@ -167,62 +169,76 @@ public class VehicleRegistrationForm extends Frame implements ActionListener {
         String mileageStr = tfMileage.getText().trim();
 
         // Validation
-        if (plate.isEmpty() || yearStr.isEmpty() || mileageStr.isEmpty()) {
-            lblMessage.setText("All fields are required.");
-            return;
-        }
-
-        int year;
-        double mileage;
-        try {
-            year = Integer.parseInt(yearStr);
-            mileage = Double.parseDouble(mileageStr);
-
-            if (year < 1980 || year > 2025) {
-                lblMessage.setText("Enter a valid manufacture year (1980–2025).");
-                return;
-            }
-
-            if (mileage < 0) {
-                lblMessage.setText("Mileage must be a positive number.");
-                return;
-            }
-        } catch (NumberFormatException ex) {
-            lblMessage.setText("Invalid number for year or mileage.");
+        String error = VehicleRules.validate(plate, yearStr, mileageStr);
+        if (error != null) {
+            lblMessage.setText(error);
             return;
         }
+        int year = Integer.parseInt(yearStr);
+        double mileage = Double.parseDouble(mileageStr);
 
         String sql = "INSERT INTO vehicles (owner_id, plate_no, vehicle_type, fuel_type, year, mileage) VALUES (?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, userId);
-            ps.setString(2, plate);
-            ps.setString(3, vehicleType);
-            ps.setString(4, fuelType);
-            ps.setInt(5, year);
-            ps.setDouble(6, mileage);
-
-            ps.executeUpdate();
-
-            lblMessage.setForeground(new Color(0, 153, 76));
-            lblMessage.setText("Vehicle registered successfully!");
-
+        btnRegister.setEnabled(false);
+        lblMessage.setForeground(Color.DARK_GRAY);
+        lblMessage.setText("Registering vehicle...");
+
+        BackgroundExecutor.run(() -> {
+            EligibilityIndex.shared().prepare();
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setInt(1, userId);
+                    ps.setString(2, plate);
+                    ps.setString(3, vehicleType);
+                    ps.setString(4, fuelType);
+                    ps.setInt(5, year);
+                    ps.setDouble(6, mileage);
+
+                    ps.executeUpdate();
+                    session.roundTrip("register vehicle");
+                    int vehicleId = 0;
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) vehicleId = keys.getInt(1);
+                    }
+                    // Index the new vehicle's eligibility in the same transaction
+                    if (vehicleId > 0) {
+                        EligibilityIndex.shared().vehicleSaved(conn, vehicleId, userId, vehicleType, fuelType, year, mileage);
+                        session.roundTrip("register vehicle");
+                    }
+                    conn.commit();
+                    session.roundTrip("register vehicle");
+                    if (vehicleId > 0) SearchIndex.shared().vehicleSaved(vehicleId, plate, vehicleType, userId);
+                    return new Vehicle(vehicleId, userId, plate, vehicleType, fuelType, year, mileage);
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        }, vehicle -> {
+            btnRegister.setEnabled(true);
             clearFields();
+            if (vehicle.getVehicleId() > 0) session.vehicleRegistered(vehicle);
 
-        } catch (SQLIntegrityConstraintViolationException ex) {
-            lblMessage.setForeground(Color.RED);
-            lblMessage.setText("This plate number is already registered.");
-        } catch (SQLException ex) {
-            ex.printStackTrace();
+            lblMessage.setForeground(new Color(0, 153, 76));
+            lblMessage.setText("Vehicle " + vehicle.getVehicleId() + " registered successfully!");
+        }, ex -> {
+            btnRegister.setEnabled(true);
             lblMessage.setForeground(Color.RED);
-            lblMessage.setText("Database error: " + ex.getMessage());
-        }
+            if (ex instanceof SQLIntegrityConstraintViolationException) {
+                lblMessage.setText("This plate number is already registered.");
+            } else {
+                ex.printStackTrace();
+                lblMessage.setText("Database error: " + ex.getMessage());
+            }
+        });
     }
 
     // --- Entry Point for Testing ---
-    public static void main(String[] args) {
-        new VehicleRegistrationForm(1);
+    public static void main(String[] args) throws SQLException {
+        CitizenSession session = CitizenSession.login("alice@example.com", "alice123");
+        if (session != null) new VehicleRegistrationForm(session);
     }
 }
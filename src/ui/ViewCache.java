@@ -0,0 +1,127 @@
+package ui;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ViewCache
+ * ---------
+ * LRU cache of loaded dashboard pages keyed by (view, filter, page start,
+ * page size). Bounded by the estimated size of the cached rows; the least
+ * recently shown pages are evicted first.
+ *
+ * The dashboard's write paths invalidate exactly the views that show the
+ * table they wrote. Entries also expire after MAX_AGE_MS, which bounds how
+ * long changes made from other windows or clients can stay hidden.
+ *
+ * Used on the EDT only.
+ */
+class ViewCache<V> {
+
+    static final long MAX_AGE_MS = 30_000;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    ViewCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** Cached page, or null when absent or expired. */
+    V get(DataView view, String filter, int afterId, int pageSize) {
+        Key key = new Key(view, filter, afterId, pageSize);
+        Entry<V> entry = entries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.storedAt > MAX_AGE_MS) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    void put(DataView view, String filter, int afterId, int pageSize, V value, long estimatedBytes) {
+        if (estimatedBytes > maxBytes) return;
+        Key key = new Key(view, filter, afterId, pageSize);
+        remove(key);
+        entries.put(key, new Entry<>(value, estimatedBytes));
+        bytes += estimatedBytes;
+
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+    }
+
+    /** Drops every cached page of the given views. */
+    void invalidate(DataView first, DataView... rest) {
+        EnumSet<DataView> views = EnumSet.of(first, rest);
+        Iterator<Map.Entry<Key, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry<V>> e = it.next();
+            if (views.contains(e.getKey().view)) {
+                bytes -= e.getValue().bytes;
+                it.remove();
+            }
+        }
+    }
+
+    /** e.g. "cache 75% hits, 12 pages, 340 KB" */
+    String describe() {
+        long lookups = hits + misses;
+        long hitRate = lookups == 0 ? 0 : hits * 100 / lookups;
+        return "cache " + hitRate + "% hits, " + entries.size() + " pages, " + (bytes + 1023) / 1024 + " KB";
+    }
+
+    private void remove(Key key) {
+        Entry<V> old = entries.remove(key);
+        if (old != null) bytes -= old.bytes;
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long bytes;
+        final long storedAt = System.currentTimeMillis();
+
+        Entry(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    private static class Key {
+        final DataView view;
+        final String filter;
+        final int afterId;
+        final int pageSize;
+
+        Key(DataView view, String filter, int afterId, int pageSize) {
+            this.view = view;
+            this.filter = filter;
+            this.afterId = afterId;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return view == k.view && afterId == k.afterId && pageSize == k.pageSize && filter.equals(k.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(view, filter, afterId, pageSize);
+        }
+    }
+}